@@ -0,0 +1,75 @@
+package cz.kosina.databasebrowser.benchmark;
+
+import cz.kosina.databasebrowser.generator.SchemaGenerator;
+import cz.kosina.databasebrowser.generator.SchemaSpec;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Embedded in-memory H2 database with one table generated by {@link SchemaGenerator} used by the benchmarks. There
+ * can be only one open database in the JVM, which is fine for forked benchmark trials.
+ */
+public class BenchmarkDatabase implements AutoCloseable {
+
+    /**
+     * Catalog of the generated table, H2 uses upper case name of the database
+     */
+    public static final String CATALOG = "BENCHMARK_0";
+    /**
+     * Schema of the generated table
+     */
+    public static final String SCHEMA = SchemaGenerator.schemaName(0);
+    /**
+     * Name of the generated table
+     */
+    public static final String TABLE = SchemaGenerator.tableName(0);
+
+    /**
+     * Generator owning the database
+     */
+    private final SchemaGenerator generator = new SchemaGenerator();
+    /**
+     * JDBC url of the database
+     */
+    private final String url;
+
+    /**
+     * Create the database and seed the table
+     *
+     * @param width number of columns including the primary key
+     * @param depth number of rows
+     * @throws SQLException if the database cannot be created
+     */
+    public BenchmarkDatabase(int width, int depth) throws SQLException {
+        this.url = generator.generate("benchmark", new SchemaSpec(1, 1, 1, width, depth, 0)).get(0);
+    }
+
+    /**
+     * @return JDBC url of the database
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Open new connection into the database
+     *
+     * @return new connection
+     * @throws SQLException if the connection cannot be opened
+     */
+    public Connection connect() throws SQLException {
+        return DriverManager.getConnection(url, "sa", "");
+    }
+
+    /**
+     * Drop the database
+     *
+     * @throws SQLException if the database cannot be dropped
+     */
+    @Override
+    public void close() throws SQLException {
+        generator.close();
+    }
+}
@@ -0,0 +1,177 @@
+package cz.kosina.databasebrowser.benchmark;
+
+import cz.kosina.databasebrowser.DatabaseBrowserApplication;
+import cz.kosina.databasebrowser.domain.dto.ColumnProfile;
+import cz.kosina.databasebrowser.domain.dto.ColumnStatistics;
+import cz.kosina.databasebrowser.domain.dto.ColumnarData;
+import cz.kosina.databasebrowser.domain.dto.ConnectionProperties;
+import cz.kosina.databasebrowser.domain.dto.DataPage;
+import cz.kosina.databasebrowser.domain.dto.DatabaseObject;
+import cz.kosina.databasebrowser.domain.dto.TableColumn;
+import cz.kosina.databasebrowser.domain.dto.TableStatistics;
+import cz.kosina.databasebrowser.service.api.ConnectionService;
+import cz.kosina.databasebrowser.service.api.DatabaseService;
+import cz.kosina.databasebrowser.service.api.MetadataCacheService;
+import cz.kosina.databasebrowser.service.api.RowHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static cz.kosina.databasebrowser.benchmark.BenchmarkDatabase.CATALOG;
+import static cz.kosina.databasebrowser.benchmark.BenchmarkDatabase.SCHEMA;
+import static cz.kosina.databasebrowser.benchmark.BenchmarkDatabase.TABLE;
+
+/**
+ * End to end benchmarks of the {@link DatabaseService} and {@link ConnectionService} running in the application
+ * context against the generated table of the given width and depth.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatabaseServiceBenchmark {
+
+    private static final String CONNECTION_NAME = "Benchmark";
+
+    /**
+     * Number of columns of the generated table
+     */
+    @Param({"10", "100", "1000"})
+    public int width;
+    /**
+     * Number of rows of the generated table
+     */
+    @Param({"100", "10000", "100000"})
+    public int depth;
+
+    private BenchmarkDatabase database;
+    private ConfigurableApplicationContext context;
+    private DatabaseService databaseService;
+    private ConnectionService connectionService;
+    private MetadataCacheService metadataCacheService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase(width, depth);
+        context = new SpringApplicationBuilder(DatabaseBrowserApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:browser;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.devtools.restart.enabled=false"
+                );
+        databaseService = context.getBean(DatabaseService.class);
+        connectionService = context.getBean(ConnectionService.class);
+        metadataCacheService = context.getBean(MetadataCacheService.class);
+        connectionService.create(new ConnectionProperties(CONNECTION_NAME, database.getUrl(), "sa", "", null));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        context.close();
+        database.close();
+    }
+
+    @Benchmark
+    public Optional<ConnectionProperties> getConnectionById() {
+        return connectionService.getById(CONNECTION_NAME);
+    }
+
+    @Benchmark
+    public Optional<List<String>> findCatalogs() {
+        metadataCacheService.invalidate(CONNECTION_NAME, null, null, null);
+        return databaseService.findCatalogs(CONNECTION_NAME);
+    }
+
+    @Benchmark
+    public Optional<List<String>> findSchemas() {
+        metadataCacheService.invalidate(CONNECTION_NAME, null, null, null);
+        return databaseService.findSchemas(CONNECTION_NAME, CATALOG);
+    }
+
+    @Benchmark
+    public Optional<List<DatabaseObject>> findTables() {
+        metadataCacheService.invalidate(CONNECTION_NAME, null, null, null);
+        return databaseService.findTables(CONNECTION_NAME, CATALOG, SCHEMA);
+    }
+
+    @Benchmark
+    public Optional<List<TableColumn>> findColumns() {
+        metadataCacheService.invalidate(CONNECTION_NAME, null, null, null);
+        return databaseService.findColumns(CONNECTION_NAME, CATALOG, SCHEMA, TABLE);
+    }
+
+    @Benchmark
+    public Optional<List<TableColumn>> findColumnsCached() {
+        return databaseService.findColumns(CONNECTION_NAME, CATALOG, SCHEMA, TABLE);
+    }
+
+    @Benchmark
+    public Optional<DataPage> listData() {
+        return databaseService.listData(CONNECTION_NAME, CATALOG, SCHEMA, TABLE, null, null, 20);
+    }
+
+    @Benchmark
+    public Optional<ColumnarData> listColumnarData() {
+        return databaseService.listColumnarData(CONNECTION_NAME, CATALOG, SCHEMA, TABLE, null, null, 20);
+    }
+
+    @Benchmark
+    public Optional<List<ColumnStatistics>> getColumnsStatistics() {
+        return databaseService.getColumnsStatistics(CONNECTION_NAME, CATALOG, SCHEMA, TABLE);
+    }
+
+    @Benchmark
+    public Optional<TableStatistics> getTableStatisticsExact() {
+        return databaseService.getTableStatistics(CONNECTION_NAME, CATALOG, SCHEMA, TABLE, true);
+    }
+
+    @Benchmark
+    public Optional<TableStatistics> getTableStatisticsEstimate() {
+        return databaseService.getTableStatistics(CONNECTION_NAME, CATALOG, SCHEMA, TABLE, false);
+    }
+
+    @Benchmark
+    public Optional<List<ColumnProfile>> getColumnsProfile() {
+        return databaseService.getColumnsProfile(CONNECTION_NAME, CATALOG, SCHEMA, TABLE, null);
+    }
+
+    @Benchmark
+    public void exportData(Blackhole blackhole) {
+        databaseService.exportData(CONNECTION_NAME, CATALOG, SCHEMA, TABLE)
+                .orElseThrow(IllegalStateException::new)
+                .writeTo(new RowHandler() {
+                    @Override
+                    public void start(List<String> columnNames) {
+                        blackhole.consume(columnNames);
+                    }
+
+                    @Override
+                    public void row(List<String> values) {
+                        blackhole.consume(values);
+                    }
+                });
+    }
+}
@@ -0,0 +1,59 @@
+package cz.kosina.databasebrowser.benchmark;
+
+import cz.kosina.databasebrowser.domain.dto.ConnectionProperties;
+import cz.kosina.databasebrowser.domain.entity.ConnectionPropertiesEntity;
+import cz.kosina.databasebrowser.service.impl.ConnectionPropertiesMapper;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the mapping between {@link ConnectionPropertiesEntity} and {@link ConnectionProperties} done on every
+ * read of the stored connection. The explicit {@link ConnectionPropertiesMapper} is compared with the reflective
+ * {@link ModelMapper} configured as it was used by the service before. Allocation per operation is reported by the
+ * gc profiler as {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final ConnectionPropertiesMapper mapper = new ConnectionPropertiesMapper();
+    private final ConnectionPropertiesEntity entity = new ConnectionPropertiesEntity(
+            "Benchmark", "jdbc:h2:mem:benchmark", "sa", "secret", 3L);
+    private final ConnectionProperties dto = new ConnectionProperties(
+            "Benchmark", "jdbc:h2:mem:benchmark", "sa", "secret", 3L);
+
+    @Benchmark
+    public ConnectionProperties modelMapperToDto() {
+        return modelMapper.map(entity, ConnectionProperties.class);
+    }
+
+    @Benchmark
+    public ConnectionPropertiesEntity modelMapperToEntity() {
+        return modelMapper.map(dto, ConnectionPropertiesEntity.class);
+    }
+
+    @Benchmark
+    public ConnectionProperties mapperToDto() {
+        return mapper.toDto(entity);
+    }
+
+    @Benchmark
+    public ConnectionPropertiesEntity mapperToEntity() {
+        return mapper.toEntity(dto);
+    }
+}
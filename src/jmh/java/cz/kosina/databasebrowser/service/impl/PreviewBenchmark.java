@@ -0,0 +1,91 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import cz.kosina.databasebrowser.benchmark.BenchmarkDatabase;
+import cz.kosina.databasebrowser.domain.dto.ColumnarData;
+import cz.kosina.databasebrowser.domain.dto.DataPage;
+import cz.kosina.databasebrowser.service.impl.metadata.SqlTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of reading one page of data into the {@link PageCollector}s without the service, pool and cache
+ * overhead. The page is read from the open connection by the same query as the preview of the table without primary
+ * key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PreviewBenchmark {
+
+    /**
+     * Number of columns of the generated table
+     */
+    @Param({"10", "100", "1000"})
+    public int width;
+    /**
+     * Number of rows in the page
+     */
+    @Param({"20", "1000"})
+    public int pageSize;
+
+    private BenchmarkDatabase database;
+    private Connection connection;
+    private String query;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase(width, pageSize);
+        connection = database.connect();
+        query = String.format("select * from %s.%s.%s",
+                BenchmarkDatabase.CATALOG, BenchmarkDatabase.SCHEMA, BenchmarkDatabase.TABLE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        database.close();
+    }
+
+    @Benchmark
+    public DataPage rowPage() throws SQLException {
+        return readPage((metaData, size) -> new RowPageCollector(metaData.getColumnCount()));
+    }
+
+    @Benchmark
+    public ColumnarData columnarPage() throws SQLException {
+        return readPage((metaData, size) -> new ColumnarPageCollector(metaData, size, SqlTypes::name));
+    }
+
+    private <T> T readPage(PageCollector.Factory<T> collectorFactory) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.setFetchSize(pageSize);
+            try (ResultSet rs = statement.executeQuery(query)) {
+                final PageCollector<T> collector = collectorFactory.create(rs.getMetaData(), pageSize);
+                while (rs.next()) {
+                    collector.collect(rs);
+                }
+                return collector.build(null);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package cz.kosina.databasebrowser.service.impl.metadata;
+
+import cz.kosina.databasebrowser.benchmark.BenchmarkDatabase;
+import cz.kosina.databasebrowser.domain.dto.TableColumn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of reading the columns of the generated table by the generic {@link JdbcMetadataProvider} and by the
+ * {@link H2MetadataProvider}, and of the SQL type name lookup used for every column.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetadataProviderBenchmark {
+
+    private static final int[] TYPES = {Types.INTEGER, Types.DECIMAL, Types.VARCHAR, Types.DATE, Types.CLOB};
+
+    /**
+     * Number of columns of the generated table
+     */
+    @Param({"10", "100", "1000"})
+    public int width;
+
+    private final JdbcMetadataProvider jdbcProvider = new JdbcMetadataProvider();
+    private final H2MetadataProvider h2Provider = new H2MetadataProvider();
+    private BenchmarkDatabase database;
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase(width, 0);
+        connection = database.connect();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        database.close();
+    }
+
+    @Benchmark
+    public List<TableColumn> jdbcListColumns() throws SQLException {
+        return jdbcProvider.listColumns(connection,
+                BenchmarkDatabase.CATALOG, BenchmarkDatabase.SCHEMA, BenchmarkDatabase.TABLE);
+    }
+
+    @Benchmark
+    public List<TableColumn> h2ListColumns() throws SQLException {
+        return h2Provider.listColumns(connection,
+                BenchmarkDatabase.CATALOG, BenchmarkDatabase.SCHEMA, BenchmarkDatabase.TABLE);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void typeNames(Blackhole blackhole) {
+        for (int type : TYPES) {
+            blackhole.consume(SqlTypes.name(type));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package cz.kosina.databasebrowser.config;
+
+import org.apache.commons.lang3.Validate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configuration of the asynchronous requests. The default timeout is given by {@code spring.mvc.async.request-timeout},
+ * the streamed responses use the export timeout and the statistics requests the statistics timeout.
+ */
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+
+    private final DatabaseBrowserProperties properties;
+
+    @Autowired
+    public AsyncConfig(DatabaseBrowserProperties properties) {
+        this.properties = Validate.notNull(properties);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(
+                new StreamingTimeoutInterceptor(properties.getExport().getTimeout().toMillis()));
+    }
+}
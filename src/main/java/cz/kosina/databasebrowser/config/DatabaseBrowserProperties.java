@@ -0,0 +1,288 @@
+package cz.kosina.databasebrowser.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration of the database browser read from the application properties with prefix {@code database-browser}
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "database-browser")
+public class DatabaseBrowserProperties {
+
+    /**
+     * Settings of the connection pools created for stored connections
+     */
+    private final Pool pool = new Pool();
+    /**
+     * Settings of the cache of stored connection properties
+     */
+    private final ConnectionCache connectionCache = new ConnectionCache();
+    /**
+     * Settings of the cache of database metadata (catalogs, schemas, tables and columns)
+     */
+    private final MetadataCache metadataCache = new MetadataCache();
+    /**
+     * Settings of the statistics computation
+     */
+    private final Statistics statistics = new Statistics();
+    /**
+     * Settings of the table data export
+     */
+    private final Export export = new Export();
+    /**
+     * Settings of the table data preview
+     */
+    private final Preview preview = new Preview();
+    /**
+     * Settings of the approximate column profiling
+     */
+    private final Profile profile = new Profile();
+    /**
+     * Settings of the asynchronous statistics jobs
+     */
+    private final Jobs jobs = new Jobs();
+    /**
+     * Settings of the executors running the requests of one connection
+     */
+    private final ConnectionExecutor connectionExecutor = new ConnectionExecutor();
+    /**
+     * Settings of the ad-hoc read-only queries
+     */
+    private final Query query = new Query();
+    /**
+     * Settings of the cache of prepared statements
+     */
+    private final StatementCache statementCache = new StatementCache();
+
+    /**
+     * Settings of one connection pool. Every stored connection has its own pool with these settings.
+     */
+    @Data
+    public static class Pool {
+        /**
+         * Minimal number of idle connections kept in the pool
+         */
+        private int minSize = 1;
+        /**
+         * Maximal number of connections in the pool (idle and in use)
+         */
+        private int maxSize = 5;
+        /**
+         * Time after which the idle connection above minimal size is closed
+         */
+        private Duration idleTimeout = Duration.ofMinutes(10);
+        /**
+         * Maximal lifetime of the connection in the pool
+         */
+        private Duration maxLifetime = Duration.ofMinutes(30);
+        /**
+         * Maximal time for waiting on the free connection from the pool
+         */
+        private Duration connectionTimeout = Duration.ofSeconds(30);
+        /**
+         * Maximal time for validation of the connection
+         */
+        private Duration validationTimeout = Duration.ofSeconds(5);
+        /**
+         * Query used for the connection validation. If it is not set, JDBC4 {@code Connection.isValid} is used.
+         */
+        private String validationQuery;
+    }
+
+    /**
+     * Settings of the in-memory cache of connection properties read from the database
+     */
+    @Data
+    public static class ConnectionCache {
+        /**
+         * Maximal number of cached connection properties
+         */
+        private long maxSize = 1000;
+    }
+
+    /**
+     * Settings of the in-memory cache of database metadata
+     */
+    @Data
+    public static class MetadataCache {
+        /**
+         * Maximal number of cached entries. Least recently used entries are evicted first.
+         */
+        private long maxSize = 10000;
+        /**
+         * Time to live of the cached entry, if it is not set for the connection
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+        /**
+         * Time to live of the cached entry for the given connection name
+         */
+        private Map<String, Duration> connectionTtl = new HashMap<>();
+    }
+
+    /**
+     * Settings of the statistics computation
+     */
+    @Data
+    public static class Statistics {
+        /**
+         * Maximal number of columns evaluated by one aggregate query. Every column adds three expressions into the
+         * select list, so drivers with limited select list need lower value. Value 1 means one query per column.
+         */
+        private int batchSize = 100;
+        /**
+         * Timeout of the statistics and profile requests, which scan the whole table and can take much longer than
+         * other requests. The computation is cancelled when it expires. Computations which take longer should be
+         * submitted as statistics jobs.
+         */
+        private Duration timeout = Duration.ofMinutes(30);
+    }
+
+    /**
+     * Settings of the table data export
+     */
+    @Data
+    public static class Export {
+        /**
+         * Number of rows fetched from the database in one round trip
+         */
+        private int fetchSize = 1000;
+        /**
+         * Timeout of the streamed responses, which can take much longer than other requests. Other asynchronous
+         * requests use {@code spring.mvc.async.request-timeout}.
+         */
+        private Duration timeout = Duration.ofHours(1);
+    }
+
+    /**
+     * Settings of the paged table data preview
+     */
+    @Data
+    public static class Preview {
+        /**
+         * Number of rows in the page, if it is not requested
+         */
+        private int pageSize = 20;
+        /**
+         * Maximal number of rows in the page which can be requested
+         */
+        private int maxPageSize = 1000;
+    }
+
+    /**
+     * Settings of the approximate column profiling
+     */
+    @Data
+    public static class Profile {
+        /**
+         * Precision of the distinct count sketch. The sketch has 2^precision bytes and relative error about
+         * 1.04 / sqrt(2^precision).
+         */
+        private int distinctPrecision = 12;
+        /**
+         * Size of the quantile sketch. Bigger sketch gives more accurate quantiles.
+         */
+        private int quantileSketchSize = 200;
+        /**
+         * Fractions of the computed quantiles
+         */
+        private List<Double> quantiles = Arrays.asList(0.0, 0.25, 0.5, 0.75, 1.0);
+        /**
+         * Number of returned most frequent values. Ten times more values are monitored by the sketch.
+         */
+        private int topValues = 10;
+        /**
+         * Maximal number of primary key ranges profiled in parallel. It is also limited by the pool size.
+         */
+        private int maxParallelism = 4;
+        /**
+         * Number of threads shared by all parallel profiling requests
+         */
+        private int threads = 8;
+    }
+
+    /**
+     * Settings of the asynchronous statistics jobs
+     */
+    @Data
+    public static class Jobs {
+        /**
+         * Number of jobs running in parallel
+         */
+        private int threads = 4;
+        /**
+         * Maximal number of jobs waiting for execution. Jobs submitted above this limit are rejected.
+         */
+        private int queueCapacity = 100;
+        /**
+         * Timeout of every query run by the job, zero means no timeout
+         */
+        private Duration queryTimeout = Duration.ofMinutes(10);
+        /**
+         * Time for which the finished job and its result are kept
+         */
+        private Duration retention = Duration.ofHours(1);
+    }
+
+    /**
+     * Settings of the executor running the database requests of one connection. Every stored connection has its own
+     * executor with these settings, so slow database cannot use up the threads of the others.
+     */
+    @Data
+    public static class ConnectionExecutor {
+        /**
+         * Maximal number of requests of one connection running in parallel. There is no reason for more threads than
+         * connections in the pool.
+         */
+        private int threads = 5;
+        /**
+         * Maximal number of requests of one connection waiting for a thread. Requests above this limit are rejected.
+         */
+        private int queueCapacity = 50;
+        /**
+         * Time after which the idle thread of the executor is stopped
+         */
+        private Duration keepAlive = Duration.ofMinutes(1);
+    }
+
+    /**
+     * Settings of the ad-hoc read-only queries
+     */
+    @Data
+    public static class Query {
+        /**
+         * Maximal number of rows returned by one query. The client can request less rows, but not more.
+         */
+        private int maxRows = 10000;
+        /**
+         * Timeout of the query
+         */
+        private Duration timeout = Duration.ofSeconds(30);
+        /**
+         * Allow queries on database engines, which cannot enforce read-only transaction (e.g. H2 and SQL Server).
+         * The validation of the query is the only barrier against writes there.
+         */
+        private boolean allowUnenforcedReadOnly = false;
+    }
+
+    /**
+     * Settings of the cache of prepared statements of the generated queries. Every connection in every pool has its
+     * own cache with these settings.
+     */
+    @Data
+    public static class StatementCache {
+        /**
+         * Maximal number of cached statements of one connection. Least recently used statements are closed first.
+         * Zero disables the cache.
+         */
+        private long maxSize = 100;
+    }
+}
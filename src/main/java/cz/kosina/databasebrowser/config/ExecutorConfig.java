@@ -0,0 +1,39 @@
+package cz.kosina.databasebrowser.config;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration of executors used for background database work
+ */
+@Configuration
+public class ExecutorConfig {
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService profilingExecutor(DatabaseBrowserProperties properties) {
+        return Executors.newFixedThreadPool(
+                properties.getProfile().getThreads(),
+                new ThreadFactoryBuilder().setNameFormat("profiling-%d").setDaemon(true).build()
+        );
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService statisticsExecutor(DatabaseBrowserProperties properties) {
+        final DatabaseBrowserProperties.Jobs jobs = properties.getJobs();
+        return new ThreadPoolExecutor(
+                jobs.getThreads(),
+                jobs.getThreads(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(jobs.getQueueCapacity()),
+                new ThreadFactoryBuilder().setNameFormat("statistics-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+}
@@ -0,0 +1,33 @@
+package cz.kosina.databasebrowser.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Configuration of the binary response encodings. The converters replace the default ones registered by Spring MVC,
+ * so they keep their place after the JSON converter and JSON stays the default, but their mappers use the same
+ * settings as the application JSON mapper. The shared builder only configures the new mappers, so its JSON factory
+ * is not replaced.
+ */
+@Configuration
+public class JacksonFormatConfig {
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        final ObjectMapper mapper = new ObjectMapper(new SmileFactory());
+        builder.configure(mapper);
+        return new MappingJackson2SmileHttpMessageConverter(mapper);
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        final ObjectMapper mapper = new ObjectMapper(new CBORFactory());
+        builder.configure(mapper);
+        return new MappingJackson2CborHttpMessageConverter(mapper);
+    }
+}
@@ -0,0 +1,84 @@
+package cz.kosina.databasebrowser.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.Validate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Object mappers of the response encodings supported by Jackson, used by the responses written directly into the
+ * output stream. JSON is the default, the binary Smile and CBOR encodings are used only when the client asks for them.
+ */
+@Component
+public class JacksonFormats {
+
+    /**
+     * Media type of the Smile encoding
+     */
+    public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+    /**
+     * Media type of the CBOR encoding
+     */
+    public static final MediaType CBOR = new MediaType("application", "cbor");
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper;
+    private final ObjectMapper cborMapper;
+
+    @Autowired
+    public JacksonFormats(ObjectMapper objectMapper,
+                          MappingJackson2SmileHttpMessageConverter smileConverter,
+                          MappingJackson2CborHttpMessageConverter cborConverter) {
+        this.jsonMapper = Validate.notNull(objectMapper);
+        this.smileMapper = Validate.notNull(smileConverter).getObjectMapper();
+        this.cborMapper = Validate.notNull(cborConverter).getObjectMapper();
+    }
+
+    /**
+     * Select the encoding of the response by the Accept header. The binary encoding is selected only if its media
+     * type is preferred to JSON, wildcards select JSON.
+     *
+     * @param accept value of the Accept header or null
+     * @return media type of the selected encoding
+     */
+    public MediaType negotiate(String accept) {
+        if (accept == null) {
+            return MediaType.APPLICATION_JSON_UTF8;
+        }
+        final List<MediaType> acceptable = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(acceptable);
+        for (MediaType mediaType : acceptable) {
+            if (mediaType.isWildcardSubtype() || MediaType.APPLICATION_JSON.isCompatibleWith(mediaType)) {
+                break;
+            }
+            if (SMILE.isCompatibleWith(mediaType)) {
+                return SMILE;
+            }
+            if (CBOR.isCompatibleWith(mediaType)) {
+                return CBOR;
+            }
+        }
+        return MediaType.APPLICATION_JSON_UTF8;
+    }
+
+    /**
+     * Get the mapper of the encoding selected by {@link #negotiate(String)}
+     *
+     * @param mediaType media type of the encoding
+     * @return mapper writing the encoding
+     */
+    public ObjectMapper getMapper(MediaType mediaType) {
+        if (SMILE.equals(mediaType)) {
+            return smileMapper;
+        }
+        if (CBOR.equals(mediaType)) {
+            return cborMapper;
+        }
+        return jsonMapper;
+    }
+}
@@ -0,0 +1,36 @@
+package cz.kosina.databasebrowser.config;
+
+import org.apache.commons.lang3.Validate;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Interceptor setting the timeout of the streamed responses. The body of the streamed response is written by the
+ * {@link Callable}, which is the only callable processing in the application, so the longer timeout applies only to
+ * them and the deferred results keep the default timeout after which they are cancelled.
+ */
+public class StreamingTimeoutInterceptor implements CallableProcessingInterceptor {
+
+    /**
+     * Timeout of the streamed responses in milliseconds
+     */
+    private final long timeout;
+
+    public StreamingTimeoutInterceptor(long timeout) {
+        Validate.isTrue(timeout > 0, "Timeout must be positive");
+        this.timeout = timeout;
+    }
+
+    /**
+     * {@inheritDoc} The timeout is set before the asynchronous processing starts.
+     */
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        if (request instanceof AsyncWebRequest) {
+            ((AsyncWebRequest) request).setTimeout(timeout);
+        }
+    }
+}
@@ -1,25 +1,66 @@
 package cz.kosina.databasebrowser.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.kosina.databasebrowser.config.DatabaseBrowserProperties;
+import cz.kosina.databasebrowser.config.JacksonFormats;
+import cz.kosina.databasebrowser.controller.export.CsvRowHandler;
+import cz.kosina.databasebrowser.controller.export.ExportFormat;
+import cz.kosina.databasebrowser.controller.export.JsonPageHandler;
+import cz.kosina.databasebrowser.controller.export.JsonQueryHandler;
+import cz.kosina.databasebrowser.controller.export.NdjsonRowHandler;
+import cz.kosina.databasebrowser.domain.dto.ColumnProfile;
 import cz.kosina.databasebrowser.domain.dto.ColumnStatistics;
+import cz.kosina.databasebrowser.domain.dto.DataSelection;
 import cz.kosina.databasebrowser.domain.dto.DatabaseObject;
+import cz.kosina.databasebrowser.domain.dto.QueryRequest;
+import cz.kosina.databasebrowser.domain.dto.Sampling;
 import cz.kosina.databasebrowser.domain.dto.TableColumn;
 import cz.kosina.databasebrowser.domain.dto.TableStatistics;
+import cz.kosina.databasebrowser.service.api.ConnectionExecutorRegistry;
 import cz.kosina.databasebrowser.service.api.DatabaseService;
+import cz.kosina.databasebrowser.service.api.MetadataCacheService;
 import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiImplicitParam;
+import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import lombok.SneakyThrows;
 import org.apache.commons.lang3.Validate;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import springfox.documentation.annotations.ApiIgnore;
 
+import javax.validation.Valid;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * Controller used for accesing information about database object defined by connection
@@ -32,13 +73,36 @@ public class DatabaseObjectController {
     private static final String[] STRING_DEF_MAP = new String[0];
     private static final DatabaseObject[] TABLE_DEF_MAP = new DatabaseObject[0];
     private static final TableColumn[] COLUMN_DEF_MAP = new TableColumn[0];
+    private static final String CONTINUATION_HEADER = "X-Continuation-Token";
+    private static final String SAMPLED_HEADER = "X-Sampled";
+    private static final String COLUMNAR_MEDIA_TYPE_VALUE = "application/vnd.database-browser.columnar+json";
+    private static final MediaType COLUMNAR_MEDIA_TYPE = MediaType.parseMediaType(COLUMNAR_MEDIA_TYPE_VALUE);
+    private static final String ROWS_FORMAT = "rows";
+    private static final String COLUMNS_PARAMETER = "columns";
+    private static final String FILTER_PARAMETER = "filter";
+    private static final String ORDER_BY_PARAMETER = "orderBy";
+    private static final String COLUMNAR_FORMAT = "columnar";
+    private static final String SELECTION_SEPARATOR = ":";
+    private static final String VALUES_SEPARATOR = "|";
+    private static final String DESCENDING = "desc";
 
     private final DatabaseService databaseService;
+    private final MetadataCacheService metadataCacheService;
+    private final ConnectionExecutorRegistry connectionExecutorRegistry;
+    private final JacksonFormats jacksonFormats;
+    private final DatabaseBrowserProperties properties;
 
     @Autowired
     public DatabaseObjectController(DatabaseService databaseService,
-                                    ModelMapper modelMapper) {
+                                    MetadataCacheService metadataCacheService,
+                                    ConnectionExecutorRegistry connectionExecutorRegistry,
+                                    JacksonFormats jacksonFormats,
+                                    DatabaseBrowserProperties properties) {
         this.databaseService = Validate.notNull(databaseService);
+        this.metadataCacheService = Validate.notNull(metadataCacheService);
+        this.connectionExecutorRegistry = Validate.notNull(connectionExecutorRegistry);
+        this.jacksonFormats = Validate.notNull(jacksonFormats);
+        this.properties = Validate.notNull(properties);
     }
 
     @ApiOperation(value = "Find all catalogs stored in defined connection")
@@ -47,11 +111,11 @@ public class DatabaseObjectController {
             @ApiResponse(code = 404, message = "If there is none stored connection"),
     })
     @GetMapping(value = "/{id}/catalogs")
-    public ResponseEntity<String[]> findCatalogs(@PathVariable String id) {
-        return databaseService.findCatalogs(id)
+    public DeferredResult<ResponseEntity<String[]>> findCatalogs(@PathVariable String id) {
+        return onConnection(id, () -> databaseService.findCatalogs(id)
                 .map(i -> i.toArray(STRING_DEF_MAP))
                 .map(ResponseEntity::ok)
-                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)));
     }
 
 
@@ -61,11 +125,12 @@ public class DatabaseObjectController {
             @ApiResponse(code = 404, message = "If there is none stored connection"),
     })
     @GetMapping(value = "/{id}/{catalog}/schemas")
-    public ResponseEntity<String[]> findSchemas(@PathVariable String id, @PathVariable String catalog) {
-        return databaseService.findSchemas(id, catalog)
+    public DeferredResult<ResponseEntity<String[]>> findSchemas(@PathVariable String id,
+                                                                @PathVariable String catalog) {
+        return onConnection(id, () -> databaseService.findSchemas(id, catalog)
                 .map(i -> i.toArray(STRING_DEF_MAP))
                 .map(ResponseEntity::ok)
-                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)));
     }
 
 
@@ -75,11 +140,46 @@ public class DatabaseObjectController {
             @ApiResponse(code = 404, message = "If there is none stored connection"),
     })
     @GetMapping(value = "/{id}/{catalog}/{schema}/tables")
-    public ResponseEntity<DatabaseObject[]> findTables(@PathVariable String id, @PathVariable String catalog,
-                                                       @PathVariable String schema) {
-        return databaseService.findTables(id, catalog, schema)
+    public DeferredResult<ResponseEntity<DatabaseObject[]>> findTables(@PathVariable String id,
+                                                                       @PathVariable String catalog,
+                                                                       @PathVariable String schema) {
+        return onConnection(id, () -> databaseService.findTables(id, catalog, schema)
                 .map(i -> i.toArray(TABLE_DEF_MAP))
                 .map(ResponseEntity::ok)
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)));
+    }
+
+
+    @ApiOperation(value = "Stream all tables stored in the defined catalog and schema as they are read from the "
+            + "database. The metadata cache is not used.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "If connection exists"),
+            @ApiResponse(code = 404, message = "If there is none stored connection"),
+    })
+    @GetMapping(value = "/{id}/{catalog}/{schema}/tables", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamTables(@PathVariable String id,
+                                                              @PathVariable String catalog,
+                                                              @PathVariable String schema,
+                                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return databaseService.exportTables(id, catalog, schema)
+                .map(export -> streamResponse(accept, onConnection(id, arrayOf(export::writeTo))))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+
+    @ApiOperation(value = "Find columns of all tables stored in the defined catalog and schema. The columns are "
+            + "streamed grouped by table as they are read from the database.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "If connection exists"),
+            @ApiResponse(code = 404, message = "If there is none stored connection"),
+    })
+    @GetMapping(value = "/{id}/{catalog}/{schema}/columns")
+    public ResponseEntity<StreamingResponseBody> findSchemaColumns(@PathVariable String id,
+                                                                   @PathVariable String catalog,
+                                                                   @PathVariable String schema,
+                                                                   @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return databaseService.exportSchemaColumns(id, catalog, schema)
+                .map(export -> streamResponse(accept, onConnection(id, arrayOf(export::writeTo))))
                 .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
@@ -90,62 +190,605 @@ public class DatabaseObjectController {
             @ApiResponse(code = 404, message = "If there is none stored connection"),
     })
     @GetMapping(value = "/{id}/{catalog}/{schema}/{tableName}/columns")
-    public ResponseEntity<TableColumn[]> findColumns(@PathVariable String id,
-                                                     @PathVariable String catalog,
-                                                     @PathVariable String schema,
-                                                     @PathVariable String tableName) {
-        return databaseService.findColumns(id, catalog, schema, tableName)
+    public DeferredResult<ResponseEntity<TableColumn[]>> findColumns(@PathVariable String id,
+                                                                     @PathVariable String catalog,
+                                                                     @PathVariable String schema,
+                                                                     @PathVariable String tableName) {
+        return onConnection(id, () -> databaseService.findColumns(id, catalog, schema, tableName)
                 .map(i -> i.toArray(COLUMN_DEF_MAP))
                 .map(ResponseEntity::ok)
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)));
+    }
+
+
+    @ApiOperation(value = "Stream all columns stored in the table identified by catalog, schema and table name as "
+            + "they are read from the database. The metadata cache is not used.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "If connection exists"),
+            @ApiResponse(code = 404, message = "If there is none stored connection"),
+    })
+    @GetMapping(value = "/{id}/{catalog}/{schema}/{tableName}/columns", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamColumns(@PathVariable String id,
+                                                               @PathVariable String catalog,
+                                                               @PathVariable String schema,
+                                                               @PathVariable String tableName,
+                                                               @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return databaseService.exportColumns(id, catalog, schema, tableName)
+                .map(export -> streamResponse(accept, onConnection(id, arrayOf(export::writeTo))))
                 .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
 
-    @ApiOperation(value = "Preview first 20 rows stored in the table identified by catalog, schema and table name")
+    @ApiOperation(value = "Preview one page of rows stored in the table identified by catalog, schema and table name. "
+            + "If there are more rows, the token for the next page is returned in the X-Continuation-Token header. "
+            + "Rows are returned as arrays of strings, unless the columnar form with typed values is requested by "
+            + "Accept header " + COLUMNAR_MEDIA_TYPE_VALUE + " or by parameter format=columnar. Only the listed "
+            + "columns are returned, rows are restricted by filters column:operator:value (operators eq, ne, lt, le, "
+            + "gt, ge, in with values separated by |, null and not_null) and ordered by orderBy column[:desc]. Random "
+            + "sample of the rows given by samplePercent or sampleRows is returned in single page marked by the "
+            + "X-Sampled header.")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "If connection exists"),
+            @ApiResponse(code = 400, message = "If the continuation token, page size, selection or sample is not "
+                    + "valid"),
             @ApiResponse(code = 404, message = "If there is none stored connection"),
     })
+    @ApiImplicitParams(value = {
+            @ApiImplicitParam(name = COLUMNS_PARAMETER, paramType = "query", allowMultiple = true),
+            @ApiImplicitParam(name = FILTER_PARAMETER, paramType = "query", allowMultiple = true),
+            @ApiImplicitParam(name = ORDER_BY_PARAMETER, paramType = "query", allowMultiple = true),
+    })
     @GetMapping(value = "/{id}/{catalog}/{schema}/{tableName}/data")
-    public ResponseEntity<List<List<String>>> previewData(@PathVariable String id,
-                                                          @PathVariable String catalog,
-                                                          @PathVariable String schema,
-                                                          @PathVariable String tableName) {
-        return databaseService.listData(id, catalog, schema, tableName)
-                .map(ResponseEntity::ok)
+    public DeferredResult<ResponseEntity<?>> previewData(@PathVariable String id,
+                                                         @PathVariable String catalog,
+                                                         @PathVariable String schema,
+                                                         @PathVariable String tableName,
+                                                         @ApiIgnore @RequestParam MultiValueMap<String, String> parameters,
+                                                         @RequestParam(required = false) Double samplePercent,
+                                                         @RequestParam(required = false) Long sampleRows,
+                                                         @RequestParam(required = false) String continuation,
+                                                         @RequestParam(required = false) Integer pageSize,
+                                                         @RequestParam(required = false) String format,
+                                                         @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        final DataSelection selection = createSelection(parameters,
+                createSampling(samplePercent, sampleRows));
+        return this.<ResponseEntity<?>>onConnection(id, () -> {
+            if (isColumnarRequested(format, accept)) {
+                return databaseService.listColumnarData(id, catalog, schema, tableName, selection, continuation,
+                        pageSize)
+                        .map(i -> pageResponse(i.getContinuation(), selection.getSample() != null)
+                                .contentType(COLUMNAR_MEDIA_TYPE)
+                                .body(i))
+                        .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+            }
+            return databaseService.listData(id, catalog, schema, tableName, selection, continuation, pageSize)
+                    .map(i -> pageResponse(i.getContinuation(), selection.getSample() != null).body(i.getRows()))
+                    .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        });
+    }
+
+    @ApiOperation(value = "Stream one page of rows stored in the table identified by catalog, schema and table name "
+            + "as they are read from the database. The rows are returned as arrays of strings in the object together "
+            + "with the continuation token, which follows the rows, because it is known only after the last one. "
+            + "The columns, filters, order and sample are selected in the same way as in the preview.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "If connection exists"),
+            @ApiResponse(code = 400, message = "If the continuation token, page size, selection, sample or format is "
+                    + "not valid"),
+            @ApiResponse(code = 404, message = "If there is none stored connection"),
+    })
+    @ApiImplicitParams(value = {
+            @ApiImplicitParam(name = COLUMNS_PARAMETER, paramType = "query", allowMultiple = true),
+            @ApiImplicitParam(name = FILTER_PARAMETER, paramType = "query", allowMultiple = true),
+            @ApiImplicitParam(name = ORDER_BY_PARAMETER, paramType = "query", allowMultiple = true),
+    })
+    @GetMapping(value = "/{id}/{catalog}/{schema}/{tableName}/data", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamData(@PathVariable String id,
+                                                            @PathVariable String catalog,
+                                                            @PathVariable String schema,
+                                                            @PathVariable String tableName,
+                                                            @ApiIgnore @RequestParam MultiValueMap<String, String> parameters,
+                                                            @RequestParam(required = false) Double samplePercent,
+                                                            @RequestParam(required = false) Long sampleRows,
+                                                            @RequestParam(required = false) String continuation,
+                                                            @RequestParam(required = false) Integer pageSize,
+                                                            @RequestParam(required = false) String format,
+                                                            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        Validate.isTrue(format == null || ROWS_FORMAT.equals(format), "Streamed data support only %s format",
+                ROWS_FORMAT);
+        final DataSelection selection = createSelection(parameters,
+                createSampling(samplePercent, sampleRows));
+        return databaseService.exportDataPage(id, catalog, schema, tableName, selection, continuation, pageSize)
+                .map(export -> streamResponse(pageResponse(null, selection.getSample() != null), accept,
+                        onConnection(id, generator -> export.writeTo(new JsonPageHandler(generator)))))
                 .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
+    /**
+     * Create the data selection from the request parameters. The parameters are read without conversion, because the
+     * conversion into list would split the values on commas, which can be part of the filter value.
+     *
+     * @param parameters request parameters with repeated columns (names of the selected columns, all if none), filter
+     *                   (filters in form column:operator[:value], all rows if none) and orderBy (order items in form
+     *                   column[:desc], the primary key order if none)
+     * @param sample     random sample of the rows or null for all rows
+     * @return data selection
+     * @throws IllegalArgumentException if the filter or order item is not valid
+     */
+    private static DataSelection createSelection(MultiValueMap<String, String> parameters, Sampling sample) {
+        final List<String> columns = parameters.get(COLUMNS_PARAMETER);
+        final List<String> filters = parameters.get(FILTER_PARAMETER);
+        final List<String> orderBy = parameters.get(ORDER_BY_PARAMETER);
+        return new DataSelection(
+                columns == null ? Collections.emptyList() : columns,
+                filters == null ? Collections.emptyList() : filters.stream()
+                        .map(DatabaseObjectController::parseFilter)
+                        .collect(Collectors.toList()),
+                orderBy == null ? Collections.emptyList() : orderBy.stream()
+                        .map(DatabaseObjectController::parseOrder)
+                        .collect(Collectors.toList()),
+                sample
+        );
+    }
+
+    /**
+     * Create the sampling from the request parameters
+     *
+     * @param percent percentage of the sampled rows or null
+     * @param rows    target number of the sampled rows or null
+     * @return sampling or null if none of the parameters is set
+     */
+    private static Sampling createSampling(Double percent, Long rows) {
+        return percent == null && rows == null ? null : new Sampling(percent, rows);
+    }
+
+    /**
+     * Parse the filter in form column:operator[:value]. The values of operator in are separated by |.
+     *
+     * @param filter filter parameter
+     * @return parsed filter
+     * @throws IllegalArgumentException if the filter has not the column or the operator is unknown
+     */
+    private static DataSelection.Filter parseFilter(String filter) {
+        final String[] parts = filter.split(SELECTION_SEPARATOR, 3);
+        Validate.isTrue(parts.length >= 2 && !parts[0].isEmpty(), "Filter %s must be column:operator[:value]", filter);
+        final DataSelection.Operator operator = parseOperator(parts[1]);
+        final List<String> values;
+        if (parts.length < 3) {
+            values = Collections.emptyList();
+        } else if (operator == DataSelection.Operator.IN) {
+            values = Arrays.asList(parts[2].split(Pattern.quote(VALUES_SEPARATOR), -1));
+        } else {
+            values = Collections.singletonList(parts[2]);
+        }
+        return new DataSelection.Filter(parts[0], operator, values);
+    }
+
+    /**
+     * Parse the operator name without case
+     *
+     * @param operator name of the operator
+     * @return operator
+     * @throws IllegalArgumentException if the operator is unknown
+     */
+    private static DataSelection.Operator parseOperator(String operator) {
+        try {
+            return DataSelection.Operator.valueOf(operator.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Unknown filter operator %s, expected one of %s",
+                    operator, Arrays.toString(DataSelection.Operator.values())), e);
+        }
+    }
+
+    /**
+     * Parse the order item in form column[:desc]
+     *
+     * @param order order parameter
+     * @return parsed order
+     * @throws IllegalArgumentException if the direction is not desc or asc
+     */
+    private static DataSelection.Order parseOrder(String order) {
+        final String[] parts = order.split(SELECTION_SEPARATOR, 2);
+        Validate.isTrue(!parts[0].isEmpty(), "Order %s must be column[:desc]", order);
+        if (parts.length < 2) {
+            return new DataSelection.Order(parts[0], false);
+        }
+        Validate.isTrue(DESCENDING.equalsIgnoreCase(parts[1]) || "asc".equalsIgnoreCase(parts[1]),
+                "Order %s must be column[:desc]", order);
+        return new DataSelection.Order(parts[0], DESCENDING.equalsIgnoreCase(parts[1]));
+    }
+
+    /**
+     * Check if the columnar form of data is requested. The Accept header must contain the columnar media type
+     * explicitly, wildcards like application/*+json do not select it.
+     *
+     * @param format requested format of the data or null
+     * @param accept value of the Accept header or null
+     * @return true if the columnar form is requested
+     */
+    private boolean isColumnarRequested(String format, String accept) {
+        if (format != null) {
+            Validate.isTrue(COLUMNAR_FORMAT.equals(format) || ROWS_FORMAT.equals(format),
+                    "Format must be %s or %s", ROWS_FORMAT, COLUMNAR_FORMAT);
+            return COLUMNAR_FORMAT.equals(format);
+        }
+        return accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(i -> COLUMNAR_MEDIA_TYPE.getType().equalsIgnoreCase(i.getType())
+                        && COLUMNAR_MEDIA_TYPE.getSubtype().equalsIgnoreCase(i.getSubtype()));
+    }
+
+    /**
+     * Create response builder of the data page with the continuation and sample headers
+     *
+     * @param continuation token of the next page or null if there is no next page
+     * @param sampled      true if the page contains random sample of the rows
+     * @return response builder
+     */
+    private ResponseEntity.BodyBuilder pageResponse(String continuation, boolean sampled) {
+        final ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (continuation != null) {
+            builder.header(CONTINUATION_HEADER, continuation);
+        }
+        if (sampled) {
+            builder.header(SAMPLED_HEADER, Boolean.TRUE.toString());
+        }
+        return builder;
+    }
+
 
-    @ApiOperation(value = "Compute basic column statistics for the table identified by catalog, schema and table name")
+    @ApiOperation(value = "Export all rows stored in the table identified by catalog, schema and table name. The export "
+            + "runs on the executor of the connection and it is cancelled when the request times out.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "If connection exists, rows are streamed as they are read"),
+            @ApiResponse(code = 404, message = "If there is none stored connection"),
+    })
+    @GetMapping(value = "/{id}/{catalog}/{schema}/{tableName}/export")
+    public ResponseEntity<StreamingResponseBody> exportData(@PathVariable String id,
+                                                            @PathVariable String catalog,
+                                                            @PathVariable String schema,
+                                                            @PathVariable String tableName,
+                                                            @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        return databaseService.exportData(id, catalog, schema, tableName)
+                .map(export -> ResponseEntity.ok()
+                        .contentType(format.getMediaType())
+                        // the table name is encoded, so quotes and line breaks in it cannot break the header
+                        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.builder("attachment")
+                                .filename(String.format("%s.%s", tableName, format.name().toLowerCase()),
+                                        StandardCharsets.UTF_8)
+                                .build()
+                                .toString())
+                        .body(streamOnConnection(id, out -> {
+                            if (format == ExportFormat.CSV) {
+                                final Writer writer = new BufferedWriter(
+                                        new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                                export.writeTo(new CsvRowHandler(writer));
+                                writer.flush();
+                            } else {
+                                final JsonGenerator generator = createGenerator(
+                                        jacksonFormats.getMapper(MediaType.APPLICATION_JSON_UTF8), out);
+                                export.writeTo(new NdjsonRowHandler(generator));
+                                generator.flush();
+                            }
+                        })))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+
+    @ApiOperation(value = "Compute basic column statistics for the table identified by catalog, schema and table name. "
+            + "The statistics are computed from random sample of the rows, if samplePercent or sampleRows is set. The request is cancelled after "
+            + "the statistics timeout (database-browser.statistics.timeout), longer computations should be submitted "
+            + "as statistics jobs.")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "If connection exists"),
+            @ApiResponse(code = 400, message = "If the sample is not valid"),
             @ApiResponse(code = 404, message = "If there is none stored connection"),
     })
     @GetMapping(value = "/{id}/{catalog}/{schema}/{tableName}/columnStatistics")
-    public ResponseEntity<List<ColumnStatistics>> computeColumnStatistics(@PathVariable String id,
-                                                                          @PathVariable String catalog,
-                                                                          @PathVariable String schema,
-                                                                          @PathVariable String tableName) {
-        return databaseService.getColumnsStatistics(id, catalog, schema, tableName)
+    public DeferredResult<ResponseEntity<List<ColumnStatistics>>> computeColumnStatistics(@PathVariable String id,
+                                                                                          @PathVariable String catalog,
+                                                                                          @PathVariable String schema,
+                                                                                          @PathVariable String tableName,
+                                                                                          @RequestParam(required = false) Double samplePercent,
+                                                                                          @RequestParam(required = false) Long sampleRows) {
+        final Sampling sampling = createSampling(samplePercent, sampleRows);
+        return onConnection(id, statisticsTimeout(), () -> databaseService.getColumnsStatistics(id, catalog, schema, tableName, sampling)
                 .map(ResponseEntity::ok)
-                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)));
     }
 
 
-    @ApiOperation(value = "Compute table statistics for the table identified by catalog, schema and table name")
+    @ApiOperation(value = "Compute approximate profile (distinct count, quantiles and most frequent values) of all "
+            + "columns in the table identified by catalog, schema and table name. Tables with single integer primary "
+            + "key can be profiled in parallel over key ranges. The request is cancelled after "
+            + "the statistics timeout (database-browser.statistics.timeout), longer computations should be submitted "
+            + "as statistics jobs.")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "If connection exists"),
+            @ApiResponse(code = 400, message = "If the parallelism is not positive"),
+            @ApiResponse(code = 404, message = "If there is none stored connection"),
+    })
+    @GetMapping(value = "/{id}/{catalog}/{schema}/{tableName}/profile")
+    public DeferredResult<ResponseEntity<List<ColumnProfile>>> computeColumnProfile(@PathVariable String id,
+                                                                                    @PathVariable String catalog,
+                                                                                    @PathVariable String schema,
+                                                                                    @PathVariable String tableName,
+                                                                                    @RequestParam(required = false) Integer parallelism) {
+        return onConnection(id, statisticsTimeout(), () -> databaseService.getColumnsProfile(id, catalog, schema, tableName, parallelism)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)));
+    }
+
+
+    @ApiOperation(value = "Compute table statistics for the table identified by catalog, schema and table name. "
+            + "The number of rows is estimated by the database engine, unless exact=true is requested. If samplePercent "
+            + "or sampleRows is set, than the number of rows is extrapolated from random sample of the rows. The request is cancelled after "
+            + "the statistics timeout (database-browser.statistics.timeout), longer computations should be submitted "
+            + "as statistics jobs.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "If connection exists"),
+            @ApiResponse(code = 400, message = "If the sample is not valid or it is requested with exact count"),
             @ApiResponse(code = 404, message = "If there is none stored connection"),
     })
     @GetMapping(value = "/{id}/{catalog}/{schema}/{tableName}/statistics")
-    public ResponseEntity<TableStatistics> computeTableStatistics(@PathVariable String id,
-                                                                  @PathVariable String catalog,
-                                                                  @PathVariable String schema,
-                                                                  @PathVariable String tableName) {
-        return databaseService.getTableStatistics(id, catalog, schema, tableName)
+    public DeferredResult<ResponseEntity<TableStatistics>> computeTableStatistics(@PathVariable String id,
+                                                                                  @PathVariable String catalog,
+                                                                                  @PathVariable String schema,
+                                                                                  @PathVariable String tableName,
+                                                                                  @RequestParam(defaultValue = "false") boolean exact,
+                                                                                  @RequestParam(required = false) Double samplePercent,
+                                                                                  @RequestParam(required = false) Long sampleRows) {
+        final Sampling sampling = createSampling(samplePercent, sampleRows);
+        return onConnection(id, statisticsTimeout(), () -> databaseService.getTableStatistics(id, catalog, schema, tableName, exact,
+                sampling)
                 .map(ResponseEntity::ok)
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)));
+    }
+
+
+    @ApiOperation(value = "Run single read-only select statement in read-only transaction. Values are bound to its ? "
+            + "placeholders from the parameters. The rows are streamed as arrays of strings as they are read, at most "
+            + "the row limit of them, and the truncation flag follows them. The query runs on the executor of the "
+            + "connection and it is cancelled when the request times out.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "If connection exists"),
+            @ApiResponse(code = 400, message = "If the query is not single read-only statement, the row limit is not "
+                    + "valid or the database cannot enforce read-only transaction"),
+            @ApiResponse(code = 404, message = "If there is none stored connection"),
+    })
+    @PostMapping(value = "/{id}/query")
+    public ResponseEntity<StreamingResponseBody> executeQuery(@PathVariable String id,
+                                                              @RequestBody @Valid QueryRequest query,
+                                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return databaseService.executeQuery(id, query.getSql(), query.getParameters(), query.getMaxRows())
+                .map(export -> streamResponse(accept, onConnection(id,
+                        generator -> export.writeTo(new JsonQueryHandler(generator)))))
                 .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
+
+    @ApiOperation(value = "Invalidate cached metadata of the connection, catalog, schema or table and all objects below")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Cached metadata was invalidated"),
+    })
+    @DeleteMapping(value = {
+            "/{id}/cache",
+            "/{id}/{catalog}/cache",
+            "/{id}/{catalog}/{schema}/cache",
+            "/{id}/{catalog}/{schema}/{tableName}/cache"
+    })
+    public ResponseEntity invalidateCache(@PathVariable String id,
+                                          @PathVariable(required = false) String catalog,
+                                          @PathVariable(required = false) String schema,
+                                          @PathVariable(required = false) String tableName) {
+        metadataCacheService.invalidate(id, catalog, schema, tableName);
+        return new ResponseEntity(HttpStatus.OK);
+    }
+
+    /**
+     * Create response with streamed body encoded as requested by the Accept header. JSON is used unless the binary
+     * encoding is requested explicitly.
+     *
+     * @param accept value of the Accept header or null
+     * @param body   body written by the generator of the selected encoding
+     * @return response with the body
+     */
+    private ResponseEntity<StreamingResponseBody> streamResponse(String accept, GeneratorBody body) {
+        return streamResponse(ResponseEntity.ok(), accept, body);
+    }
+
+    /**
+     * Create response with streamed body encoded as requested by the Accept header
+     *
+     * @param builder response builder with the headers
+     * @param accept  value of the Accept header or null
+     * @param body    body written by the generator of the selected encoding
+     * @return response with the body
+     * @see #streamResponse(String, GeneratorBody)
+     */
+    private ResponseEntity<StreamingResponseBody> streamResponse(ResponseEntity.BodyBuilder builder,
+                                                                 String accept,
+                                                                 GeneratorBody body) {
+        final MediaType mediaType = jacksonFormats.negotiate(accept);
+        final ObjectMapper mapper = jacksonFormats.getMapper(mediaType);
+        return builder
+                .contentType(mediaType)
+                .body(out -> {
+                    final JsonGenerator generator = createGenerator(mapper, out);
+                    body.writeTo(generator);
+                    generator.flush();
+                });
+    }
+
+    /**
+     * Create body writing array of the elements as they are passed from the export
+     *
+     * @param export export passing the elements into the consumer
+     * @param <T>    type of the elements
+     * @return body writing the array
+     */
+    private static <T> GeneratorBody arrayOf(Consumer<Consumer<T>> export) {
+        return generator -> {
+            generator.writeStartArray();
+            export.accept(i -> {
+                try {
+                    generator.writeObject(i);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        };
+    }
+
+    /**
+     * Create generator writing into the response, which does not close the response stream
+     *
+     * @param mapper mapper of the response encoding
+     * @param out    stream of the response
+     * @return new generator
+     * @throws IOException if the generator cannot be created
+     */
+    private static JsonGenerator createGenerator(ObjectMapper mapper, OutputStream out) throws IOException {
+        final JsonGenerator generator = mapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    /**
+     * Run the request on the executor of the connection, so the servlet thread is not blocked by the database. If the
+     * request times out or the client disconnects, the request is cancelled together with its running statements.
+     *
+     * @param id      name of the connection
+     * @param request request using the database
+     * @param <T>     type of the response
+     * @return response completed when the request finishes
+     */
+    private <T> DeferredResult<T> onConnection(String id, Supplier<T> request) {
+        return onConnection(id, null, request);
+    }
+
+    /**
+     * Run the request on the executor of the connection with its own timeout
+     *
+     * @param id      name of the connection
+     * @param timeout timeout of the request in milliseconds, null for {@code spring.mvc.async.request-timeout}
+     * @param request request using the database
+     * @param <T>     type of the response
+     * @return response completed when the request finishes
+     * @see #onConnection(String, Supplier)
+     */
+    private <T> DeferredResult<T> onConnection(String id, Long timeout, Supplier<T> request) {
+        final DeferredResult<T> response = new DeferredResult<>(timeout);
+        final CompletableFuture<T> result = connectionExecutorRegistry.submit(id, request);
+        response.onTimeout(() -> result.cancel(true));
+        response.onError(e -> result.cancel(true));
+        result.whenComplete((value, e) -> {
+            if (e == null) {
+                response.setResult(value);
+            } else {
+                response.setErrorResult(e instanceof CompletionException ? e.getCause() : e);
+            }
+        });
+        return response;
+    }
+
+    /**
+     * Get the timeout of the statistics requests
+     *
+     * @return timeout in milliseconds
+     */
+    private long statisticsTimeout() {
+        return properties.getStatistics().getTimeout().toMillis();
+    }
+
+    /**
+     * Write the streamed body on the executor of the connection, so it shares the limit of concurrent requests of the
+     * connection with other requests. The streaming thread waits for it. When the request times out, the streaming
+     * thread is interrupted and the body is cancelled together with its running statements.
+     *
+     * @param id   name of the connection
+     * @param body body using the database
+     * @return body waiting for the body written on the executor of the connection
+     */
+    private GeneratorBody onConnection(String id, GeneratorBody body) {
+        return generator -> writeOnConnection(id, () -> body.writeTo(generator));
+    }
+
+    /**
+     * Write the raw streamed body on the executor of the connection
+     *
+     * @param id   name of the connection
+     * @param body body using the database
+     * @return body waiting for the body written on the executor of the connection
+     * @see #onConnection(String, GeneratorBody)
+     */
+    private StreamingResponseBody streamOnConnection(String id, StreamingResponseBody body) {
+        return out -> writeOnConnection(id, () -> body.writeTo(out));
+    }
+
+    /**
+     * Run the writing of the body on the executor of the connection and wait for it
+     *
+     * @param id     name of the connection
+     * @param writer writing of the body
+     * @throws IOException if the body cannot be written or the request was cancelled
+     */
+    private void writeOnConnection(String id, BodyWriter writer) throws IOException {
+        final CompletableFuture<Void> result = connectionExecutorRegistry.submit(id, () -> {
+            try {
+                writer.write();
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        try {
+            await(result);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Request was cancelled");
+        }
+    }
+
+    /**
+     * Wait for the result and rethrow the exception which completed it
+     *
+     * @param result result of the request
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    @SneakyThrows
+    private static void await(CompletableFuture<?> result) throws InterruptedException {
+        try {
+            result.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+        }
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleRejected(RejectedExecutionException e) {
+        return new ResponseEntity<>("Too many requests for the connection", HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidArgument(IllegalArgumentException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Body of the streamed response written by the generator
+     */
+    @FunctionalInterface
+    private interface GeneratorBody {
+        void writeTo(JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * Writing of the streamed body
+     */
+    @FunctionalInterface
+    private interface BodyWriter {
+        void write() throws IOException;
+    }
 }
@@ -0,0 +1,118 @@
+package cz.kosina.databasebrowser.controller;
+
+import cz.kosina.databasebrowser.domain.dto.StatisticsJob;
+import cz.kosina.databasebrowser.service.api.StatisticsJobService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.apache.commons.lang3.Validate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Controller used for computing statistics of database tables in background
+ */
+@SuppressWarnings("unused")
+@RestController
+@RequestMapping("jobs")
+@Api(tags = {"Jobs"})
+public class StatisticsJobController {
+
+    /**
+     * Service running the statistics jobs
+     */
+    private final StatisticsJobService statisticsJobService;
+
+    @Autowired
+    public StatisticsJobController(StatisticsJobService statisticsJobService) {
+        this.statisticsJobService = Validate.notNull(statisticsJobService);
+    }
+
+    @ApiOperation(value = "Submit job computing basic column statistics for the table identified by catalog, schema "
+            + "and table name")
+    @ApiResponses(value = {
+            @ApiResponse(code = 202, message = "If connection exists and the job was submitted"),
+            @ApiResponse(code = 404, message = "If there is none stored connection"),
+            @ApiResponse(code = 503, message = "If there are too many waiting jobs"),
+    })
+    @PostMapping(value = "/{id}/{catalog}/{schema}/{tableName}/columnStatistics")
+    public ResponseEntity<StatisticsJob> submitColumnStatistics(@PathVariable String id,
+                                                                @PathVariable String catalog,
+                                                                @PathVariable String schema,
+                                                                @PathVariable String tableName) {
+        return submit(StatisticsJob.Type.COLUMN_STATISTICS, id, catalog, schema, tableName, false);
+    }
+
+    @ApiOperation(value = "Submit job computing table statistics for the table identified by catalog, schema and table "
+            + "name. The number of rows is estimated by the database engine, unless exact=true is requested.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 202, message = "If connection exists and the job was submitted"),
+            @ApiResponse(code = 404, message = "If there is none stored connection"),
+            @ApiResponse(code = 503, message = "If there are too many waiting jobs"),
+    })
+    @PostMapping(value = "/{id}/{catalog}/{schema}/{tableName}/statistics")
+    public ResponseEntity<StatisticsJob> submitTableStatistics(@PathVariable String id,
+                                                               @PathVariable String catalog,
+                                                               @PathVariable String schema,
+                                                               @PathVariable String tableName,
+                                                               @RequestParam(defaultValue = "false") boolean exact) {
+        return submit(StatisticsJob.Type.TABLE_STATISTICS, id, catalog, schema, tableName, exact);
+    }
+
+    private ResponseEntity<StatisticsJob> submit(StatisticsJob.Type type,
+                                                 String id,
+                                                 String catalog,
+                                                 String schema,
+                                                 String tableName,
+                                                 boolean exact) {
+        return statisticsJobService.submit(type, id, catalog, schema, tableName, exact)
+                .map(i -> new ResponseEntity<>(i, HttpStatus.ACCEPTED))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @ApiOperation(value = "Get state and progress of the job")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "If the job exists"),
+            @ApiResponse(code = 404, message = "If the job does not exist or it has expired"),
+    })
+    @GetMapping(value = "/{jobId}")
+    public ResponseEntity<StatisticsJob> getJob(@PathVariable String jobId) {
+        return statisticsJobService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @ApiOperation(value = "Get result of the completed job")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "If the job is completed"),
+            @ApiResponse(code = 404, message = "If the job does not exist or it is not completed"),
+    })
+    @GetMapping(value = "/{jobId}/result")
+    public ResponseEntity<Object> getResult(@PathVariable String jobId) {
+        return statisticsJobService.getResult(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @ApiOperation(value = "Cancel the job and its running queries")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "If the job exists"),
+            @ApiResponse(code = 404, message = "If the job does not exist or it has expired"),
+    })
+    @DeleteMapping(value = "/{jobId}")
+    public ResponseEntity<StatisticsJob> cancel(@PathVariable String jobId) {
+        return statisticsJobService.cancel(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleRejected(RejectedExecutionException e) {
+        return new ResponseEntity<>("Too many waiting jobs", HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
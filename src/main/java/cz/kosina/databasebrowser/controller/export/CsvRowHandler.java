@@ -0,0 +1,80 @@
+package cz.kosina.databasebrowser.controller.export;
+
+import cz.kosina.databasebrowser.service.api.RowHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * {@link RowHandler} writing rows in CSV format (RFC 4180). The first line contains names of the columns, null values
+ * are written as empty fields.
+ */
+public class CsvRowHandler implements RowHandler {
+
+    private static final String LINE_SEPARATOR = "\r\n";
+
+    /**
+     * Output of the written rows
+     */
+    private final Writer writer;
+
+    public CsvRowHandler(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void start(List<String> columnNames) {
+        writeLine(columnNames);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void row(List<String> values) {
+        writeLine(values);
+    }
+
+    /**
+     * Write one line of the values separated by comma
+     *
+     * @param values values to be written
+     */
+    private void writeLine(List<String> values) {
+        try {
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeValue(values.get(i));
+            }
+            writer.write(LINE_SEPARATOR);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write one value, quoted if it contains separator, quote or line break
+     *
+     * @param value value to be written
+     * @throws IOException if the value cannot be written
+     */
+    private void writeValue(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+        } else {
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package cz.kosina.databasebrowser.controller.export;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Supported formats of the exported data
+ */
+public enum ExportFormat {
+    /**
+     * Newline delimited JSON, one JSON object per row
+     */
+    NDJSON(new MediaType("application", "x-ndjson")),
+    /**
+     * Comma separated values with header line
+     */
+    CSV(new MediaType("text", "csv"));
+
+    /**
+     * Content type of the response
+     */
+    private final MediaType mediaType;
+
+    ExportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+}
@@ -0,0 +1,68 @@
+package cz.kosina.databasebrowser.controller.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import cz.kosina.databasebrowser.service.api.PageHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * {@link PageHandler} writing the page as JSON object with the same fields as
+ * {@link cz.kosina.databasebrowser.domain.dto.DataPage}. Rows are written as arrays of strings when they are read, the
+ * continuation token follows them, because it is known only after the last row.
+ */
+public class JsonPageHandler implements PageHandler {
+
+    /**
+     * Generator used for writing of the page
+     */
+    private final JsonGenerator generator;
+
+    public JsonPageHandler(JsonGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void start(List<String> columnNames) {
+        try {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("rows");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void row(List<String> values) {
+        try {
+            generator.writeStartArray();
+            for (String value : values) {
+                generator.writeString(value);
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void end(String continuation) {
+        try {
+            generator.writeEndArray();
+            generator.writeStringField("continuation", continuation);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package cz.kosina.databasebrowser.controller.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import cz.kosina.databasebrowser.service.api.QueryHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * {@link QueryHandler} writing the query result as JSON object with the same fields as
+ * {@link cz.kosina.databasebrowser.domain.dto.QueryResult}. Rows are written as arrays of strings when they are read,
+ * the truncation flag follows them, because it is known only after the last row.
+ */
+public class JsonQueryHandler implements QueryHandler {
+
+    /**
+     * Generator used for writing of the result
+     */
+    private final JsonGenerator generator;
+
+    public JsonQueryHandler(JsonGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void start(List<String> columnNames) {
+        try {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("columns");
+            for (String columnName : columnNames) {
+                generator.writeString(columnName);
+            }
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("rows");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void row(List<String> values) {
+        try {
+            generator.writeStartArray();
+            for (String value : values) {
+                generator.writeString(value);
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void end(boolean truncated) {
+        try {
+            generator.writeEndArray();
+            generator.writeBooleanField("truncated", truncated);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package cz.kosina.databasebrowser.controller.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import cz.kosina.databasebrowser.service.api.RowHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * {@link RowHandler} writing rows in newline delimited JSON. Every row is written as JSON object with column names as
+ * keys on its own line.
+ */
+public class NdjsonRowHandler implements RowHandler {
+
+    /**
+     * Generator used for writing of the rows
+     */
+    private final JsonGenerator generator;
+    /**
+     * Names of the columns used as keys
+     */
+    private List<String> columnNames;
+
+    public NdjsonRowHandler(JsonGenerator generator) {
+        this.generator = generator;
+        generator.setRootValueSeparator(null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void start(List<String> columnNames) {
+        this.columnNames = columnNames;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void row(List<String> values) {
+        try {
+            generator.writeStartObject();
+            for (int i = 0; i < values.size(); i++) {
+                generator.writeStringField(columnNames.get(i), values.get(i));
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package cz.kosina.databasebrowser.domain.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approximate profile of the column computed from sketches in one pass over the table
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ColumnProfile {
+    /**
+     * Name of the column
+     */
+    @NotNull
+    private String name;
+    /**
+     * Name of the SQL type of the column
+     */
+    private String type;
+    /**
+     * Number of rows in the table
+     */
+    @NotNull
+    private long rows;
+    /**
+     * Number of null values for given column
+     */
+    @NotNull
+    private long nullValuesNumber;
+    /**
+     * Estimated number of distinct non null values
+     */
+    @NotNull
+    private long distinctValues;
+    /**
+     * Estimated quantiles identified by their fraction (0.5 is median). Only numeric columns have quantiles.
+     */
+    private Map<String, Double> quantiles;
+    /**
+     * Estimated most frequent non null values ordered by count
+     */
+    private List<ValueFrequency> topValues;
+}
@@ -33,4 +33,9 @@ public class ColumnStatistics {
      */
     @NotNull
     private int nullValuesNumber;
+    /**
+     * Percentage of the sampled rows, if the statistics were computed from the random sample. Null if all rows were
+     * read. The null values are counted in the sample only.
+     */
+    private Double samplePercent;
 }
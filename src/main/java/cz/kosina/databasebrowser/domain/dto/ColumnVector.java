@@ -0,0 +1,59 @@
+package cz.kosina.databasebrowser.domain.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Values of one column stored in typed array. Only one of the value arrays is filled according to the type:
+ * <ul>
+ * <li>integer types - {@code longValues}</li>
+ * <li>floating point types - {@code doubleValues}</li>
+ * <li>boolean types and single bit - {@code booleanValues}</li>
+ * <li>bit strings of more bits (e.g. {@code BIT(8)} of MySQL) - {@code stringValues} with the bits, e.g.
+ * {@code 00001010}</li>
+ * <li>date, time and timestamp - {@code stringValues} with local ISO-8601 values as they are stored in the database,
+ * e.g. {@code 2018-01-31}, {@code 10:15:30} and {@code 2018-01-31T10:15:30.123}</li>
+ * <li>other types (including decimals to keep their precision) - {@code stringValues}</li>
+ * </ul>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ColumnVector {
+    /**
+     * Name of the column
+     */
+    @NotNull
+    private String name;
+    /**
+     * SQL type of the column ({@link java.sql.Types} name)
+     */
+    @NotNull
+    private String type;
+    /**
+     * Bitmap of null values, bit {@code i % 8} of byte {@code i / 8} is set if the value in row {@code i} is null.
+     * It is not present if there are no null values.
+     */
+    private byte[] nulls;
+    /**
+     * Values of integer columns
+     */
+    private long[] longValues;
+    /**
+     * Values of floating point columns
+     */
+    private double[] doubleValues;
+    /**
+     * Values of boolean columns
+     */
+    private boolean[] booleanValues;
+    /**
+     * Values of temporal columns and all other columns converted to a string
+     */
+    private String[] stringValues;
+}
@@ -0,0 +1,30 @@
+package cz.kosina.databasebrowser.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+/**
+ * One page of the data stored in the table in columnar form
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ColumnarData {
+    /**
+     * Number of rows in the page
+     */
+    private int rowCount;
+    /**
+     * Values of all columns in the table order
+     */
+    @NotNull
+    private List<ColumnVector> columns;
+    /**
+     * Opaque token used for reading of the next page. Null if this is the last page.
+     */
+    private String continuation;
+}
@@ -0,0 +1,26 @@
+package cz.kosina.databasebrowser.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+/**
+ * One page of the data stored in the table
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DataPage {
+    /**
+     * Rows of the page converted to a string
+     */
+    @NotNull
+    private List<List<String>> rows;
+    /**
+     * Opaque token used for reading of the next page. Null if this is the last page.
+     */
+    private String continuation;
+}
@@ -0,0 +1,135 @@
+package cz.kosina.databasebrowser.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Selection of the table data: the returned columns, the conditions on the rows and their order. Empty selection
+ * returns all columns of all rows ordered by the primary key.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DataSelection {
+    /**
+     * Names of the returned columns in their order, all columns if empty
+     */
+    @NotNull
+    private List<String> columns = Collections.emptyList();
+    /**
+     * Conditions which must be met by all returned rows
+     */
+    @NotNull
+    private List<Filter> filters = Collections.emptyList();
+    /**
+     * Order of the rows, the primary key order if empty
+     */
+    @NotNull
+    private List<Order> orderBy = Collections.emptyList();
+    /**
+     * Random sample of the rows, all rows if null. The sampled data are returned in single page.
+     */
+    private Sampling sample;
+
+    /**
+     * Check if the selection returns everything
+     *
+     * @return true if there are no columns, filters, order nor sample
+     */
+    public boolean isEmpty() {
+        return (columns == null || columns.isEmpty())
+                && (filters == null || filters.isEmpty())
+                && (orderBy == null || orderBy.isEmpty())
+                && sample == null;
+    }
+
+    /**
+     * Operator of the filter
+     */
+    public enum Operator {
+        /**
+         * Column is equal to the value
+         */
+        EQ,
+        /**
+         * Column is not equal to the value
+         */
+        NE,
+        /**
+         * Column is less than the value
+         */
+        LT,
+        /**
+         * Column is less than or equal to the value
+         */
+        LE,
+        /**
+         * Column is greater than the value
+         */
+        GT,
+        /**
+         * Column is greater than or equal to the value
+         */
+        GE,
+        /**
+         * Column is equal to one of the values
+         */
+        IN,
+        /**
+         * Column is null, there is no value
+         */
+        NULL,
+        /**
+         * Column is not null, there is no value
+         */
+        NOT_NULL
+    }
+
+    /**
+     * Condition on one column. The values are sent as strings and they are converted into the column type by the
+     * database driver.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Filter {
+        /**
+         * Name of the column
+         */
+        @NotNull
+        private String column;
+        /**
+         * Operator comparing the column with the values
+         */
+        @NotNull
+        private Operator operator;
+        /**
+         * Compared values, one for comparisons, at least one for {@link Operator#IN} and none for null checks
+         */
+        @NotNull
+        private List<String> values = Collections.emptyList();
+    }
+
+    /**
+     * Order by one column
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Order {
+        /**
+         * Name of the column
+         */
+        @NotNull
+        private String column;
+        /**
+         * True for the descending order
+         */
+        private boolean descending;
+    }
+}
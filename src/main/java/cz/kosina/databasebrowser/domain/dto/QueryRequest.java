@@ -0,0 +1,30 @@
+package cz.kosina.databasebrowser.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+/**
+ * Read-only query run against the stored connection
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class QueryRequest {
+    /**
+     * Single select statement, values are passed by {@code ?} placeholders
+     */
+    @NotNull
+    private String sql;
+    /**
+     * Values bound to the placeholders in their order
+     */
+    private List<Object> parameters;
+    /**
+     * Maximal number of returned rows or null for the configured limit
+     */
+    private Integer maxRows;
+}
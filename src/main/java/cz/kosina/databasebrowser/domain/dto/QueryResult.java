@@ -0,0 +1,31 @@
+package cz.kosina.databasebrowser.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+/**
+ * Result of the read-only query
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class QueryResult {
+    /**
+     * Labels of the columns in the result
+     */
+    @NotNull
+    private List<String> columns;
+    /**
+     * Rows of the result converted to a string
+     */
+    @NotNull
+    private List<List<String>> rows;
+    /**
+     * True if the query returned more rows than the row limit and the rest was not read
+     */
+    private boolean truncated;
+}
@@ -0,0 +1,24 @@
+package cz.kosina.databasebrowser.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Random sample of the table rows read instead of the whole table. The size of the sample is given either by the
+ * percentage of the rows or by the target number of rows, which is converted into the percentage by the estimated
+ * number of rows in the table.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Sampling {
+    /**
+     * Percentage of the sampled rows from (0, 100] or null if the target number of rows is set
+     */
+    private Double percent;
+    /**
+     * Target number of the sampled rows or null if the percentage is set
+     */
+    private Long rows;
+}
@@ -0,0 +1,74 @@
+package cz.kosina.databasebrowser.domain.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * State of the asynchronous statistics computation
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StatisticsJob {
+
+    /**
+     * Type of the computed statistics
+     */
+    public enum Type {
+        COLUMN_STATISTICS,
+        TABLE_STATISTICS
+    }
+
+    /**
+     * State of the job
+     */
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED;
+
+        /**
+         * Check if the job cannot change its state anymore
+         *
+         * @return true if the job is finished
+         */
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    /**
+     * Identification of the job
+     */
+    @NotNull
+    private String id;
+    /**
+     * Type of the computed statistics
+     */
+    @NotNull
+    private Type type;
+    /**
+     * Current state of the job
+     */
+    @NotNull
+    private Status status;
+    /**
+     * Number of finished steps (queries) of the job
+     */
+    private int completedSteps;
+    /**
+     * Number of all steps of the job, zero if it is not known yet
+     */
+    private int totalSteps;
+    /**
+     * Error message if the job failed
+     */
+    private String error;
+}
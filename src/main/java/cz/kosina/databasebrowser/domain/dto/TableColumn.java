@@ -29,7 +29,7 @@ public class TableColumn {
     @NotNull
     private String type;
     /**
-     * Size of the column stored in DB
+     * Size of the column stored in DB, null if the provider does not know it for the type
      */
     private Integer size;
     /**
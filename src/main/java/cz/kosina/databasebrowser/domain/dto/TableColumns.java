@@ -0,0 +1,27 @@
+package cz.kosina.databasebrowser.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+/**
+ * All columns of one table
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TableColumns {
+    /**
+     * Name of the table
+     */
+    @NotNull
+    private String tableName;
+    /**
+     * Columns of the table ordered by their position
+     */
+    @NotNull
+    private List<TableColumn> columns;
+}
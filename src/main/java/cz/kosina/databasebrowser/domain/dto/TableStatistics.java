@@ -15,10 +15,15 @@ import java.util.List;
 @NoArgsConstructor
 public class TableStatistics {
     /**
-     * Number of rows in the table
+     * Number of rows in the table, exact or estimated by the database engine
      */
     @NotNull
-    private Integer rows;
+    private Long rows;
+    /**
+     * True if the number of rows was counted, false if it is the estimate of the database engine
+     */
+    @NotNull
+    private Boolean exact;
     /**
      * Number of columns in the table
      */
@@ -27,4 +32,9 @@ public class TableStatistics {
      * List of all columns in the table
      */
     private List<TableColumn> columnStatisticsList;
+    /**
+     * Percentage of the sampled rows, if the number of rows was extrapolated from the random sample. Null if the rows
+     * were counted or estimated by the database engine.
+     */
+    private Double samplePercent;
 }
@@ -0,0 +1,31 @@
+package cz.kosina.databasebrowser.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Approximate frequency of one value in the column
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ValueFrequency {
+    /**
+     * Value converted to a string
+     */
+    @NotNull
+    private String value;
+    /**
+     * Estimated number of occurrences, it is never lower than the real one
+     */
+    @NotNull
+    private long count;
+    /**
+     * Maximal overestimation of the count
+     */
+    @NotNull
+    private long error;
+}
@@ -0,0 +1,20 @@
+package cz.kosina.databasebrowser.domain.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Event published when the stored connection properties are created, updated or deleted. Everything what is bound to
+ * the connection (pools, caches ...) should be dropped after receiving this event.
+ */
+@Data
+@AllArgsConstructor
+public class ConnectionChangedEvent {
+    /**
+     * Name of the changed connection
+     */
+    @NotNull
+    private String name;
+}
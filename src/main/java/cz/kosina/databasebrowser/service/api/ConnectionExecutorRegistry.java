@@ -0,0 +1,32 @@
+package cz.kosina.databasebrowser.service.api;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Registry of bounded executors running blocking database requests. There is one executor for every stored connection,
+ * so the requests waiting for one slow database do not block the requests of other connections.
+ */
+public interface ConnectionExecutorRegistry {
+
+    /**
+     * Run the task on the executor of the connection. Cancelling of the returned future cancels the statements executed
+     * by the task, so the database stops working on them and the connection returns to its pool.
+     *
+     * @param connectionName name of the connection stored in db
+     * @param task           blocking task using the connection
+     * @param <T>            type of the result
+     * @return result of the task, completed with {@link RejectedExecutionException} if the executor of the connection
+     * is full
+     */
+    <T> CompletableFuture<T> submit(String connectionName, Supplier<T> task);
+
+    /**
+     * Shut down the executor of the connection. Already submitted tasks are finished. If there is no such executor,
+     * nothing happens.
+     *
+     * @param connectionName name of the connection stored in db
+     */
+    void evict(String connectionName);
+}
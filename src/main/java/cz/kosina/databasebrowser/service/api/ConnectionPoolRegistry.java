@@ -0,0 +1,29 @@
+package cz.kosina.databasebrowser.service.api;
+
+import cz.kosina.databasebrowser.domain.dto.ConnectionProperties;
+
+import javax.sql.DataSource;
+
+/**
+ * Registry of connection pools. There is one pool for every stored {@link ConnectionProperties}.
+ */
+public interface ConnectionPoolRegistry {
+
+    /**
+     * Get the pooled data source for the connection properties. If the pool does not exist or it was created for other
+     * properties, than new pool is created for the currently stored properties and the old one is closed. Requests
+     * holding properties, which were changed meanwhile, get the pool of the current properties.
+     *
+     * @param connectionProperties properties stored in database
+     * @return pooled data source for given connection
+     * @throws IllegalStateException if the properties differ from the pool and the connection was removed
+     */
+    DataSource getDataSource(ConnectionProperties connectionProperties);
+
+    /**
+     * Close the pool for the connection identified by name. If there is no such pool, nothing happens.
+     *
+     * @param connectionName name of the connection stored in db
+     */
+    void evict(String connectionName);
+}
@@ -1,7 +1,12 @@
 package cz.kosina.databasebrowser.service.api;
 
+import cz.kosina.databasebrowser.domain.dto.ColumnProfile;
 import cz.kosina.databasebrowser.domain.dto.ColumnStatistics;
+import cz.kosina.databasebrowser.domain.dto.ColumnarData;
+import cz.kosina.databasebrowser.domain.dto.DataPage;
+import cz.kosina.databasebrowser.domain.dto.DataSelection;
 import cz.kosina.databasebrowser.domain.dto.DatabaseObject;
+import cz.kosina.databasebrowser.domain.dto.Sampling;
 import cz.kosina.databasebrowser.domain.dto.TableColumn;
 import cz.kosina.databasebrowser.domain.dto.TableStatistics;
 
@@ -9,7 +14,8 @@ import java.util.List;
 import java.util.Optional;
 
 /**
- * Service used for listing information from datables
+ * Service used for listing information from datables. Lists of catalogs, schemas, tables and columns are cached and
+ * they cannot be modified.
  */
 public interface DatabaseService {
 
@@ -24,6 +30,31 @@ public interface DatabaseService {
      */
     Optional<List<TableColumn>> findColumns(String connectionName, String catalogName, String schemaName, String tableName);
 
+    /**
+     * Prepare export of all columns of the table. The columns are read from the database when the export is written
+     * and passed on one by one, the cache is not used.
+     *
+     * @param connectionName name of the connection stored in db
+     * @param catalogName    name of the catalog
+     * @param schemaName     name of the schema
+     * @param tableName      name of the table
+     * @return export of the columns if the connection exists. Otherwise empty
+     */
+    Optional<MetadataExport<TableColumn>> exportColumns(String connectionName, String catalogName, String schemaName,
+                                                        String tableName);
+
+    /**
+     * Prepare export of the columns of all tables in the schema. The columns of the whole schema are read by constant
+     * number of metadata queries and they are passed to the handler grouped by table as they are read, so the whole
+     * schema is never held in memory. If the connection is not stored, than the result is empty.
+     *
+     * @param connectionName name of the connection stored in db
+     * @param catalogName    name of the catalog
+     * @param schemaName     name of the schema
+     * @return export of the columns if the connection exists. Otherwise empty
+     */
+    Optional<SchemaColumnsExport> exportSchemaColumns(String connectionName, String catalogName, String schemaName);
+
     /**
      * Find all table stored in catalog and schema. If the connection does not exists, than the result is empty optional.
      *
@@ -34,6 +65,18 @@ public interface DatabaseService {
      */
     Optional<List<DatabaseObject>> findTables(String connectionName, String catalogName, String schemaName);
 
+    /**
+     * Prepare export of all database objects (table, view ...) in the catalog and the schema. The objects are read
+     * from the database when the export is written and passed on one by one, the cache is not used.
+     *
+     * @param connectionName name of the connection stored in db
+     * @param catalogName    name of the catalog
+     * @param schemaName     name of the schema
+     * @return export of the database objects if the connection exists. Otherwise empty
+     */
+    Optional<MetadataExport<DatabaseObject>> exportTables(String connectionName, String catalogName,
+                                                          String schemaName);
+
     /**
      * Find all schemas in the catalog. If the connection does not exists, than the result is empty optional.
      *
@@ -64,6 +107,95 @@ public interface DatabaseService {
     Optional<List<List<String>>> listData(String connectionName, String catalogName,
                                           String schemaName, String tableName);
 
+    /**
+     * List one page of data stored in the table and convert them into string. If the connection is not stored, than
+     * the result is empty.
+     * <p>
+     * Tables with primary key are paged by the key (keyset pagination): rows are ordered by the primary key columns
+     * and the next page starts after the key of the last row of the previous page, so every page costs the same. Tables
+     * without primary key are paged by the number of already read rows: the rows are read in the order returned by
+     * the database and the already read rows are skipped, so the cost grows with the page number and the pages are
+     * stable only if the table is not changed during paging. Keys of types, which cannot be stored in the token without
+     * loss (e.g. timestamps with time zone), are paged by the number of read rows ordered by the key.
+     * <p>
+     * The selection restricts the columns and rows of the page and it is pushed into the query, so the database reads
+     * and sends only the requested data. Rows ordered by other columns than the primary key and pages without all key
+     * columns are paged by the number of already read rows. The continuation token is valid only with the same
+     * selection.
+     *
+     * @param connectionName name of the connection stored in db
+     * @param catalogName    name of the catalog
+     * @param schemaName     name of the schema
+     * @param tableName      name of the table
+     * @param selection      selected columns, filters and order or null for all columns of all rows
+     * @param continuation   token returned with the previous page or null for the first page
+     * @param pageSize       maximal number of rows in the page or null for the default size
+     * @return page of data converted into string if the connection exists. Otherwise empty
+     * @throws IllegalArgumentException if the continuation token, page size or selection is not valid
+     */
+    Optional<DataPage> listData(String connectionName, String catalogName, String schemaName, String tableName,
+                                DataSelection selection, String continuation, Integer pageSize);
+
+    /**
+     * List one page of data stored in the table in columnar form. Every column is sent with its name and type once
+     * and its values are stored in typed array, so numeric values are not converted into string. Temporal values are
+     * sent as local ISO-8601 strings, which do not depend on the time zone of the server. The
+     * paging and the selection work in the same way as in
+     * {@link #listData(String, String, String, String, DataSelection, String, Integer)}. If the connection is not
+     * stored, than the result is empty.
+     *
+     * @param connectionName name of the connection stored in db
+     * @param catalogName    name of the catalog
+     * @param schemaName     name of the schema
+     * @param tableName      name of the table
+     * @param selection      selected columns, filters and order or null for all columns of all rows
+     * @param continuation   token returned with the previous page or null for the first page
+     * @param pageSize       maximal number of rows in the page or null for the default size
+     * @return page of data in columnar form if the connection exists. Otherwise empty
+     * @throws IllegalArgumentException if the continuation token, page size or selection is not valid
+     */
+    Optional<ColumnarData> listColumnarData(String connectionName, String catalogName, String schemaName,
+                                            String tableName, DataSelection selection, String continuation,
+                                            Integer pageSize);
+
+    /**
+     * Prepare export of one page of data stored in the table. The rows are read from the database when the export is
+     * written and passed on one by one, so the page is never held in memory. The paging works in the same way as in
+     * {@link #listData(String, String, String, String, DataSelection, String, Integer)}. If the connection is not
+     * stored, than the result is empty.
+     *
+     * @param connectionName name of the connection stored in db
+     * @param catalogName    name of the catalog
+     * @param schemaName     name of the schema
+     * @param tableName      name of the table
+     * @param selection      selected columns, filters and order or null for all columns of all rows
+     * @param continuation   token returned with the previous page or null for the first page
+     * @param pageSize       maximal number of rows in the page or null for the default size
+     * @return export of the page if the connection exists. Otherwise empty
+     * @throws IllegalArgumentException if the continuation token, page size or selection is not valid
+     */
+    Optional<PageExport> exportDataPage(String connectionName, String catalogName, String schemaName,
+                                        String tableName, DataSelection selection, String continuation,
+                                        Integer pageSize);
+
+    /**
+     * Compute approximate profile of every column of the table in the catalog and schema: number of nulls, distinct
+     * values, quantiles of numeric columns and the most frequent values. All columns are profiled during single pass
+     * over the table with bounded memory per column. If the parallelism is greater than one and the table has single
+     * integer primary key, than the key range is split into parts, which are profiled on separate connections and their
+     * sketches are merged. If the connection is not stored, than the result is empty.
+     *
+     * @param connectionName name of the connection stored in db
+     * @param catalogName    name of the catalog
+     * @param schemaName     name of the schema
+     * @param tableName      name of the table
+     * @param parallelism    requested number of parts profiled in parallel or null for sequential profiling
+     * @return profiles of the columns in the table order if the connection exists. Otherwise empty
+     * @throws IllegalArgumentException if the parallelism is not positive
+     */
+    Optional<List<ColumnProfile>> getColumnsProfile(String connectionName, String catalogName, String schemaName,
+                                                    String tableName, Integer parallelism);
+
     /**
      * Get the column statistics for the table in the catalog and schema. If the
      * connection is not stored, than the result is empty.
@@ -78,15 +210,100 @@ public interface DatabaseService {
                                                           String schemaName, String tableName);
 
     /**
-     * Get the table statistics for the table in the catalog and schema. If the
-     * connection is not stored, than the result is empty.
+     * Get the column statistics for the table in the catalog and schema. If the sampling is requested, than the
+     * statistics are computed from the random sample of the rows read by the sampling of the database engine, so the
+     * large table is not scanned whole. If the connection is not stored, than the result is empty.
+     *
+     * @param connectionName name of the connection stored in db
+     * @param catalogName    name of the catalog
+     * @param schemaName     name of the schema
+     * @param tableName      name of the table
+     * @param sampling       size of the sample or null for all rows
+     * @return column statistics if the connection exists. Otherwise empty
+     * @throws IllegalArgumentException if the sampling is not valid
+     */
+    Optional<List<ColumnStatistics>> getColumnsStatistics(String connectionName, String catalogName,
+                                                          String schemaName, String tableName, Sampling sampling);
+
+    /**
+     * Get the table statistics for the table in the catalog and schema with the number of rows estimated by the
+     * database engine. If the connection is not stored, than the result is empty.
      *
      * @param connectionName name of the connection stored in db
      * @param catalogName    name of the catalog
      * @param schemaName     name of the schema
      * @param tableName      name of the table
      * @return table statistics if the connection exists. Otherwise empty
+     * @see #getTableStatistics(String, String, String, String, boolean)
      */
     Optional<TableStatistics> getTableStatistics(String connectionName, String catalogName,
                                                  String schemaName, String tableName);
+
+    /**
+     * Get the table statistics for the table in the catalog and schema. If the exact count is not requested, than the
+     * number of rows is read from the statistics of the database engine, which is much faster on large tables. The
+     * rows are counted only if the exact count is requested or the engine has no statistics for the table. If the
+     * connection is not stored, than the result is empty.
+     *
+     * @param connectionName name of the connection stored in db
+     * @param catalogName    name of the catalog
+     * @param schemaName     name of the schema
+     * @param tableName      name of the table
+     * @param exact          true if the rows must be counted
+     * @return table statistics if the connection exists. Otherwise empty
+     */
+    Optional<TableStatistics> getTableStatistics(String connectionName, String catalogName,
+                                                 String schemaName, String tableName, boolean exact);
+
+    /**
+     * Get the table statistics for the table in the catalog and schema. If the sampling is requested, than the rows
+     * are counted in the random sample and the number of rows is extrapolated from it, which is useful for tables
+     * without statistics of the database engine. Otherwise it works in the same way as
+     * {@link #getTableStatistics(String, String, String, String, boolean)}. If the connection is not stored, than the
+     * result is empty.
+     *
+     * @param connectionName name of the connection stored in db
+     * @param catalogName    name of the catalog
+     * @param schemaName     name of the schema
+     * @param tableName      name of the table
+     * @param exact          true if the rows must be counted
+     * @param sampling       size of the sample or null for all rows
+     * @return table statistics if the connection exists. Otherwise empty
+     * @throws IllegalArgumentException if the sampling is not valid or it is requested together with the exact count
+     */
+    Optional<TableStatistics> getTableStatistics(String connectionName, String catalogName,
+                                                 String schemaName, String tableName, boolean exact,
+                                                 Sampling sampling);
+
+    /**
+     * Prepare export of all rows stored in the table. The rows are read from the database only when the export is
+     * written and they are passed to the handler one by one, so the whole table is never held in memory. If the
+     * connection is not stored, than the result is empty.
+     *
+     * @param connectionName name of the connection stored in db
+     * @param catalogName    name of the catalog
+     * @param schemaName     name of the schema
+     * @param tableName      name of the table
+     * @return export of the table data if the connection exists. Otherwise empty
+     */
+    Optional<TableExport> exportData(String connectionName, String catalogName,
+                                     String schemaName, String tableName);
+
+    /**
+     * Prepare ad-hoc read-only query. The query must be single select statement, values are bound to its {@code ?}
+     * placeholders. It runs in read-only transaction enforced by the database with query timeout and at most the row
+     * limit of rows is read. Engines, which cannot enforce read-only transaction, refuse the query, unless it is
+     * allowed by the configuration; the validation of the query is the only barrier against writes there. The rows
+     * are read when the export is written and they are passed to the handler one by one. If the connection is not
+     * stored, than the result is empty.
+     *
+     * @param connectionName name of the connection stored in db
+     * @param sql            select statement
+     * @param parameters     values bound to the placeholders or null if there are none
+     * @param maxRows        maximal number of returned rows or null for the configured limit
+     * @return export of the query result if the connection exists. Otherwise empty
+     * @throws IllegalArgumentException if the query is not single read-only statement or the row limit is not valid,
+     *                                  the export throws it if the engine cannot enforce read-only transaction
+     */
+    Optional<QueryExport> executeQuery(String connectionName, String sql, List<Object> parameters, Integer maxRows);
 }
@@ -0,0 +1,47 @@
+package cz.kosina.databasebrowser.service.api;
+
+import java.util.function.Supplier;
+
+/**
+ * Cache of metadata read from the databases (catalogs, schemas, tables and columns). The entries are identified by
+ * connection, catalog, schema and table, so it is possible to invalidate whole subtree of the database objects.
+ */
+public interface MetadataCacheService {
+
+    /**
+     * Type of the cached metadata
+     */
+    enum Type {
+        CATALOGS,
+        SCHEMAS,
+        TABLES,
+        COLUMNS
+    }
+
+    /**
+     * Get the cached metadata. If there is no valid entry, than the value is loaded by the loader and stored in cache.
+     * Concurrent requests for the same entry wait for the single load.
+     *
+     * @param type           type of the metadata
+     * @param connectionName name of the connection stored in db
+     * @param catalogName    name of the catalog or null for the connection level
+     * @param schemaName     name of the schema or null for the catalog level
+     * @param tableName      name of the table or null for the schema level
+     * @param loader         loader of the metadata used when the entry is not cached
+     * @param <T>            type of the cached value
+     * @return cached or loaded value
+     */
+    <T> T get(Type type, String connectionName, String catalogName, String schemaName, String tableName,
+              Supplier<T> loader);
+
+    /**
+     * Invalidate all entries of the connection on the given level and below. If the catalog is null, than all entries
+     * of the connection are invalidated, if the schema is null all entries of the catalog are invalidated etc.
+     *
+     * @param connectionName name of the connection stored in db
+     * @param catalogName    name of the catalog or null
+     * @param schemaName     name of the schema or null
+     * @param tableName      name of the table or null
+     */
+    void invalidate(String connectionName, String catalogName, String schemaName, String tableName);
+}
@@ -0,0 +1,20 @@
+package cz.kosina.databasebrowser.service.api;
+
+import java.util.function.Consumer;
+
+/**
+ * Prepared export of the database metadata. The database is queried when the export is written, not when it is
+ * created, and the metadata are passed into the handler as they are read, without collecting them into list.
+ *
+ * @param <T> type of the exported metadata
+ */
+@FunctionalInterface
+public interface MetadataExport<T> {
+
+    /**
+     * Read the metadata and pass them into the handler one by one
+     *
+     * @param handler handler receiving the metadata
+     */
+    void writeTo(Consumer<T> handler);
+}
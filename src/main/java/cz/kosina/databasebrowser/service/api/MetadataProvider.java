@@ -0,0 +1,176 @@
+package cz.kosina.databasebrowser.service.api;
+
+import cz.kosina.databasebrowser.domain.dto.DatabaseObject;
+import cz.kosina.databasebrowser.domain.dto.TableColumn;
+import cz.kosina.databasebrowser.domain.dto.TableColumns;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+
+/**
+ * Provider of the metadata read from the database engine. Generic JDBC {@link java.sql.DatabaseMetaData} is slow for
+ * some drivers and engines can answer some questions from their own catalog much faster, so every supported engine can
+ * have its own provider. The provider is chosen by the JDBC URL of the connection. Names passed to the provider are
+ * exact names, not patterns.
+ */
+public interface MetadataProvider {
+
+    /**
+     * Check if the provider can be used for the database
+     *
+     * @param url JDBC URL of the connection
+     * @return true if the provider supports the database
+     */
+    boolean supports(String url);
+
+    /**
+     * List all catalogs in the database
+     *
+     * @param con open database connection
+     * @return names of all catalogs
+     * @throws SQLException if reading of the metadata fails
+     */
+    List<String> listCatalogs(Connection con) throws SQLException;
+
+    /**
+     * List all schemas in the catalog
+     *
+     * @param con         open database connection
+     * @param catalogName name of the catalog
+     * @return names of all schemas
+     * @throws SQLException if reading of the metadata fails
+     */
+    List<String> listSchemas(Connection con, String catalogName) throws SQLException;
+
+    /**
+     * List all database objects (table, view ...) in the catalog and the schema
+     *
+     * @param con         open database connection
+     * @param catalogName name of the catalog
+     * @param schemaName  name of the schema
+     * @return all database objects
+     * @throws SQLException if reading of the metadata fails
+     */
+    List<DatabaseObject> listTables(Connection con, String catalogName, String schemaName) throws SQLException;
+
+    /**
+     * Read all database objects (table, view ...) in the catalog and the schema and pass them into the handler one by
+     * one as they are read, without collecting them into list
+     *
+     * @param con         open database connection
+     * @param catalogName name of the catalog
+     * @param schemaName  name of the schema
+     * @param handler     handler receiving the database objects
+     * @throws SQLException if reading of the metadata fails
+     */
+    void exportTables(Connection con, String catalogName, String schemaName, Consumer<DatabaseObject> handler)
+            throws SQLException;
+
+    /**
+     * List all columns of the table
+     *
+     * @param con         open database connection
+     * @param catalogName name of the catalog
+     * @param schemaName  name of the schema
+     * @param tableName   name of the table
+     * @return columns of the table ordered by their position
+     * @throws SQLException if reading of the metadata fails
+     */
+    List<TableColumn> listColumns(Connection con, String catalogName, String schemaName, String tableName)
+            throws SQLException;
+
+    /**
+     * Read all columns of the table and pass them into the handler one by one as they are read, without collecting
+     * them into list
+     *
+     * @param con         open database connection
+     * @param catalogName name of the catalog
+     * @param schemaName  name of the schema
+     * @param tableName   name of the table
+     * @param handler     handler receiving the columns ordered by their position
+     * @throws SQLException if reading of the metadata fails
+     */
+    void exportColumns(Connection con,
+                       String catalogName,
+                       String schemaName,
+                       String tableName,
+                       Consumer<TableColumn> handler) throws SQLException;
+
+    /**
+     * List the primary key columns of the table
+     *
+     * @param con         open database connection
+     * @param catalogName name of the catalog
+     * @param schemaName  name of the schema
+     * @param tableName   name of the table
+     * @return names of the primary key columns ordered by their sequence in the key
+     * @throws SQLException if reading of the metadata fails
+     */
+    List<String> listPrimaryKeys(Connection con, String catalogName, String schemaName, String tableName)
+            throws SQLException;
+
+    /**
+     * Read columns of all tables in the schema by constant number of queries and pass them into the handler grouped
+     * by table as they are read
+     *
+     * @param con         open database connection
+     * @param catalogName name of the catalog
+     * @param schemaName  name of the schema
+     * @param handler     handler receiving the columns of one table
+     * @throws SQLException if reading of the metadata fails
+     */
+    void exportSchemaColumns(Connection con, String catalogName, String schemaName, Consumer<TableColumns> handler)
+            throws SQLException;
+
+    /**
+     * Estimate number of rows in the table from the statistics kept by the database engine. The estimate can be
+     * outdated, if the statistics were not refreshed after the last changes of the table.
+     *
+     * @param con         open database connection
+     * @param catalogName name of the catalog
+     * @param schemaName  name of the schema
+     * @param tableName   name of the table
+     * @return estimated number of rows or empty if the engine does not have the statistics for the table
+     * @throws SQLException if reading of the statistics fails
+     */
+    OptionalLong estimateRowCount(Connection con, String catalogName, String schemaName, String tableName)
+            throws SQLException;
+
+    /**
+     * Create the table expression reading random sample of the table rows. The expression is used in the from clause
+     * instead of the table name, so the sampling is done by the database engine and only the sampled rows are
+     * processed by the query. The percentage is a parameter of the expression bound by
+     * {@link #bindSample(PreparedStatement, int, double)}, unless the engine accepts only literal there.
+     *
+     * @param fullTableName full table name
+     * @param percent       percentage of the sampled rows from (0, 100]
+     * @return table expression of the sample
+     */
+    String sampleTable(String fullTableName, double percent);
+
+    /**
+     * Bind the parameters of the expression created by {@link #sampleTable(String, double)}
+     *
+     * @param statement statement with the expression
+     * @param first     index of the first parameter of the expression
+     * @param percent   percentage of the sampled rows from (0, 100]
+     * @return index of the parameter following the expression
+     * @throws SQLException if the value cannot be bound
+     */
+    int bindSample(PreparedStatement statement, int first, double percent) throws SQLException;
+
+    /**
+     * Start transaction, in which the database refuses any change of the data. The connection is switched into
+     * read-only mode and its auto-commit is disabled. The read-only mode is only a hint for many drivers, so the
+     * transaction is made read-only by the database if the engine supports it.
+     *
+     * @param con open database connection
+     * @return true if the database enforces the read-only transaction, false if the read-only mode is only a hint
+     * @throws SQLException if the connection cannot be switched
+     */
+    boolean startReadOnlyTransaction(Connection con) throws SQLException;
+}
@@ -0,0 +1,16 @@
+package cz.kosina.databasebrowser.service.api;
+
+/**
+ * Prepared export of one page of the table data. The database is queried when the export is written, not when it is
+ * created.
+ */
+@FunctionalInterface
+public interface PageExport {
+
+    /**
+     * Read the rows of the page and pass them into the handler
+     *
+     * @param handler handler receiving the rows
+     */
+    void writeTo(PageHandler handler);
+}
@@ -0,0 +1,14 @@
+package cz.kosina.databasebrowser.service.api;
+
+/**
+ * {@link RowHandler} of one page of data, which is notified about the end of the page
+ */
+public interface PageHandler extends RowHandler {
+
+    /**
+     * Called once after the last row of the page
+     *
+     * @param continuation token of the next page or null if this is the last page
+     */
+    void end(String continuation);
+}
@@ -0,0 +1,16 @@
+package cz.kosina.databasebrowser.service.api;
+
+/**
+ * Prepared export of the result of the ad-hoc query. The database is queried when the export is written, not when it
+ * is created.
+ */
+@FunctionalInterface
+public interface QueryExport {
+
+    /**
+     * Run the query and pass the rows of its result into the handler
+     *
+     * @param handler handler receiving the rows
+     */
+    void writeTo(QueryHandler handler);
+}
@@ -0,0 +1,14 @@
+package cz.kosina.databasebrowser.service.api;
+
+/**
+ * {@link RowHandler} of the result of the ad-hoc query, which is notified about the end of the result
+ */
+public interface QueryHandler extends RowHandler {
+
+    /**
+     * Called once after the last row of the result
+     *
+     * @param truncated true if the query returned more rows than the row limit and the rest was not read
+     */
+    void end(boolean truncated);
+}
@@ -0,0 +1,24 @@
+package cz.kosina.databasebrowser.service.api;
+
+import java.util.List;
+
+/**
+ * Handler of rows read from the database. The rows are passed one by one as they are read from the result set, so
+ * the handler must not expect that all rows are available at once.
+ */
+public interface RowHandler {
+
+    /**
+     * Called once before the first row
+     *
+     * @param columnNames names of the columns in the result
+     */
+    void start(List<String> columnNames);
+
+    /**
+     * Called for every read row
+     *
+     * @param values values of the row converted to string in the same order as column names
+     */
+    void row(List<String> values);
+}
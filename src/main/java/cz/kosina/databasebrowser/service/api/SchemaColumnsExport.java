@@ -0,0 +1,20 @@
+package cz.kosina.databasebrowser.service.api;
+
+import cz.kosina.databasebrowser.domain.dto.TableColumns;
+
+import java.util.function.Consumer;
+
+/**
+ * Prepared export of the columns of all tables in the schema. The database is queried when the export is written, not
+ * when it is created.
+ */
+@FunctionalInterface
+public interface SchemaColumnsExport {
+
+    /**
+     * Read columns of all tables and pass them into the handler table by table
+     *
+     * @param handler handler receiving the columns of one table
+     */
+    void writeTo(Consumer<TableColumns> handler);
+}
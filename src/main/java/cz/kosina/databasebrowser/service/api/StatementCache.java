@@ -0,0 +1,44 @@
+package cz.kosina.databasebrowser.service.api;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Cache of prepared statements of the generated queries. Statements are cached for every physical connection of the
+ * pool, so the repeated query on the same table reuses the statement and the plan prepared by the database even when
+ * the connection is borrowed again from the pool.
+ */
+public interface StatementCache {
+
+    /**
+     * Run the call with the prepared statement of the SQL. The statement is taken from the cache of the connection or
+     * it is prepared and cached. The statement is reset before the call, so it has no bound parameters, row limit,
+     * fetch size nor query timeout. The call must close the result sets, but it must not close the statement. If the
+     * call fails, the statement is closed and dropped from the cache.
+     *
+     * @param con            connection borrowed from the pool
+     * @param connectionName name of the connection stored in db
+     * @param sql            SQL of the statement
+     * @param call           call using the statement
+     * @param <T>            type of the result
+     * @return result of the call
+     * @throws SQLException if the statement cannot be prepared or the call fails
+     */
+    <T> T execute(Connection con, String connectionName, String sql, StatementCall<T> call) throws SQLException;
+
+    /**
+     * Call using the prepared statement
+     *
+     * @param <T> type of the result
+     */
+    @FunctionalInterface
+    interface StatementCall<T> {
+        /**
+         * @param statement prepared statement, which must not be closed
+         * @return result of the call
+         * @throws SQLException if the call fails
+         */
+        T call(PreparedStatement statement) throws SQLException;
+    }
+}
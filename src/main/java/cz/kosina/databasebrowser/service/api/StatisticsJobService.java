@@ -0,0 +1,54 @@
+package cz.kosina.databasebrowser.service.api;
+
+import cz.kosina.databasebrowser.domain.dto.StatisticsJob;
+
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Service used for computing statistics in background. The job is submitted, than its progress is polled and when it
+ * is completed, the result is fetched. Running job can be cancelled, which stops its queries in the database.
+ */
+public interface StatisticsJobService {
+
+    /**
+     * Submit new job computing statistics of the table. If the connection is not stored, than the result is empty.
+     *
+     * @param type           type of the computed statistics
+     * @param connectionName name of the connection stored in db
+     * @param catalogName    name of the catalog
+     * @param schemaName     name of the schema
+     * @param tableName      name of the table
+     * @param exact          true if the rows must be counted, used only for the table statistics
+     * @return submitted job if the connection exists. Otherwise empty
+     * @throws RejectedExecutionException if there are too many waiting jobs
+     */
+    Optional<StatisticsJob> submit(StatisticsJob.Type type, String connectionName, String catalogName,
+                                   String schemaName, String tableName, boolean exact);
+
+    /**
+     * Get the current state of the job
+     *
+     * @param id identification of the job
+     * @return state of the job if it exists. Otherwise empty
+     */
+    Optional<StatisticsJob> getJob(String id);
+
+    /**
+     * Get the result of the job. The result is {@code List<ColumnStatistics>} or {@code TableStatistics} depending on
+     * the type of the job.
+     *
+     * @param id identification of the job
+     * @return result if the job exists and it is completed. Otherwise empty
+     */
+    Optional<Object> getResult(String id);
+
+    /**
+     * Cancel the job. Waiting job is not started at all, the queries of running job are cancelled. Finished job is not
+     * changed.
+     *
+     * @param id identification of the job
+     * @return state of the job after the cancellation if it exists. Otherwise empty
+     */
+    Optional<StatisticsJob> cancel(String id);
+}
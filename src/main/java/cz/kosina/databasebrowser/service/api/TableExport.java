@@ -0,0 +1,15 @@
+package cz.kosina.databasebrowser.service.api;
+
+/**
+ * Prepared export of the table data. The database is queried when the export is written, not when it is created.
+ */
+@FunctionalInterface
+public interface TableExport {
+
+    /**
+     * Read all rows of the table and pass them into the handler
+     *
+     * @param handler handler receiving the rows
+     */
+    void writeTo(RowHandler handler);
+}
@@ -0,0 +1,322 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import cz.kosina.databasebrowser.domain.dto.ColumnVector;
+import cz.kosina.databasebrowser.domain.dto.ColumnarData;
+import org.apache.commons.lang3.StringUtils;
+
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * {@link PageCollector} storing values of every column into typed array. Numeric and boolean values are kept in
+ * primitive arrays, so they are neither converted into string nor boxed. Temporal values are converted into local
+ * ISO-8601 strings as they are stored in the database, so they do not depend on the time zone of the JVM.
+ */
+class ColumnarPageCollector implements PageCollector<ColumnarData> {
+
+    /**
+     * Vectors of all columns in the result set order
+     */
+    private final List<Vector> vectors;
+    /**
+     * Number of collected rows
+     */
+    private int rowCount;
+
+    /**
+     * Create collector for the result set
+     *
+     * @param metaData  metadata of the result set
+     * @param capacity  expected number of rows
+     * @param typeNames conversion of SQL type into its name
+     * @throws SQLException if metadata cannot be read
+     */
+    ColumnarPageCollector(ResultSetMetaData metaData, int capacity, IntFunction<String> typeNames) throws SQLException {
+        vectors = new ArrayList<>(metaData.getColumnCount());
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            vectors.add(createVector(
+                    metaData.getColumnLabel(i),
+                    metaData.getColumnType(i),
+                    metaData.getPrecision(i),
+                    typeNames,
+                    capacity
+            ));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void collect(ResultSet rs) throws SQLException {
+        for (int i = 0; i < vectors.size(); i++) {
+            vectors.get(i).read(rs, i + 1, rowCount);
+        }
+        rowCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ColumnarData build(String continuation) {
+        final List<ColumnVector> columns = new ArrayList<>(vectors.size());
+        for (Vector vector : vectors) {
+            columns.add(vector.build(rowCount));
+        }
+        return new ColumnarData(rowCount, columns, continuation);
+    }
+
+    /**
+     * Create vector suitable for the SQL type
+     *
+     * @param name      name of the column
+     * @param sqlType   SQL type of the column
+     * @param precision precision of the column, number of bits for {@link Types#BIT}
+     * @param typeNames conversion of SQL type into its name
+     * @param capacity  expected number of rows
+     * @return new empty vector
+     */
+    private static Vector createVector(String name,
+                                       int sqlType,
+                                       int precision,
+                                       IntFunction<String> typeNames,
+                                       int capacity) {
+        final String typeName = typeNames.apply(sqlType);
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return new LongVector(name, typeName, capacity, (rs, i) -> rs.getLong(i));
+            case Types.DATE:
+                return new StringVector(name, typeName, capacity, (rs, i) -> {
+                    final java.sql.Date value = rs.getDate(i);
+                    return value == null ? null : value.toLocalDate().toString();
+                });
+            case Types.TIME:
+                return new StringVector(name, typeName, capacity, (rs, i) -> {
+                    final java.sql.Time value = rs.getTime(i);
+                    return value == null ? null : value.toLocalTime().toString();
+                });
+            case Types.TIMESTAMP:
+                return new StringVector(name, typeName, capacity, (rs, i) -> {
+                    final java.sql.Timestamp value = rs.getTimestamp(i);
+                    return value == null ? null : value.toLocalDateTime().toString();
+                });
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return new DoubleVector(name, typeName, capacity);
+            case Types.BIT:
+                // BIT(n) of MySQL and SQL Server is string of n bits, only single bit is boolean
+                if (precision > 1) {
+                    return new StringVector(name, typeName, capacity,
+                            (rs, i) -> toBitString(rs.getObject(i), precision));
+                }
+                return new BooleanVector(name, typeName, capacity);
+            case Types.BOOLEAN:
+                return new BooleanVector(name, typeName, capacity);
+            default:
+                return new StringVector(name, typeName, capacity, ResultSet::getString);
+        }
+    }
+
+    /**
+     * Convert the value of multi-bit column into string of bits. Drivers return it either as bytes (MySQL) or already
+     * as string of bits (PostgreSQL).
+     *
+     * @param value  value read from the result set
+     * @param length number of bits of the column
+     * @return string of bits padded to the column length or null
+     */
+    private static String toBitString(Object value, int length) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof byte[]) {
+            return StringUtils.leftPad(new BigInteger(1, (byte[]) value).toString(2), length, '0');
+        }
+        return value.toString();
+    }
+
+    /**
+     * Growing typed array of the column values with bitmap of nulls
+     */
+    private abstract static class Vector {
+        private final String name;
+        private final String type;
+        private final BitSet nulls = new BitSet();
+
+        Vector(String name, String type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        /**
+         * Read the value of the column from the current row
+         *
+         * @param rs     result set positioned on the row
+         * @param column index of the column in the result set
+         * @param row    index of the row in the page
+         * @throws SQLException if the value cannot be read
+         */
+        void read(ResultSet rs, int column, int row) throws SQLException {
+            readValue(rs, column, row);
+            if (rs.wasNull()) {
+                nulls.set(row);
+            }
+        }
+
+        /**
+         * Read the value into the typed array
+         *
+         * @param rs     result set positioned on the row
+         * @param column index of the column in the result set
+         * @param row    index of the row in the page
+         * @throws SQLException if the value cannot be read
+         */
+        abstract void readValue(ResultSet rs, int column, int row) throws SQLException;
+
+        /**
+         * Create the DTO with values
+         *
+         * @param rowCount number of read rows
+         * @return vector with the values
+         */
+        ColumnVector build(int rowCount) {
+            final ColumnVector vector = new ColumnVector();
+            vector.setName(name);
+            vector.setType(type);
+            if (!nulls.isEmpty()) {
+                vector.setNulls(Arrays.copyOf(nulls.toByteArray(), (rowCount + 7) / 8));
+            }
+            fill(vector, rowCount);
+            return vector;
+        }
+
+        /**
+         * Fill the values into the DTO
+         *
+         * @param vector   DTO to be filled
+         * @param rowCount number of read rows
+         */
+        abstract void fill(ColumnVector vector, int rowCount);
+    }
+
+    /**
+     * Reader of the long value from the result set
+     */
+    @FunctionalInterface
+    private interface LongReader {
+        long read(ResultSet rs, int column) throws SQLException;
+    }
+
+    /**
+     * Reader of the string value from the result set
+     */
+    @FunctionalInterface
+    private interface StringReader {
+        String read(ResultSet rs, int column) throws SQLException;
+    }
+
+    private static class LongVector extends Vector {
+        private final LongReader reader;
+        private long[] values;
+
+        LongVector(String name, String type, int capacity, LongReader reader) {
+            super(name, type);
+            this.reader = reader;
+            this.values = new long[capacity];
+        }
+
+        @Override
+        void readValue(ResultSet rs, int column, int row) throws SQLException {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, Math.max(16, row * 2));
+            }
+            values[row] = reader.read(rs, column);
+        }
+
+        @Override
+        void fill(ColumnVector vector, int rowCount) {
+            vector.setLongValues(Arrays.copyOf(values, rowCount));
+        }
+    }
+
+    private static class DoubleVector extends Vector {
+        private double[] values;
+
+        DoubleVector(String name, String type, int capacity) {
+            super(name, type);
+            this.values = new double[capacity];
+        }
+
+        @Override
+        void readValue(ResultSet rs, int column, int row) throws SQLException {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, Math.max(16, row * 2));
+            }
+            values[row] = rs.getDouble(column);
+        }
+
+        @Override
+        void fill(ColumnVector vector, int rowCount) {
+            vector.setDoubleValues(Arrays.copyOf(values, rowCount));
+        }
+    }
+
+    private static class BooleanVector extends Vector {
+        private boolean[] values;
+
+        BooleanVector(String name, String type, int capacity) {
+            super(name, type);
+            this.values = new boolean[capacity];
+        }
+
+        @Override
+        void readValue(ResultSet rs, int column, int row) throws SQLException {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, Math.max(16, row * 2));
+            }
+            values[row] = rs.getBoolean(column);
+        }
+
+        @Override
+        void fill(ColumnVector vector, int rowCount) {
+            vector.setBooleanValues(Arrays.copyOf(values, rowCount));
+        }
+    }
+
+    private static class StringVector extends Vector {
+        private final StringReader reader;
+        private String[] values;
+
+        StringVector(String name, String type, int capacity, StringReader reader) {
+            super(name, type);
+            this.reader = reader;
+            this.values = new String[capacity];
+        }
+
+        @Override
+        void readValue(ResultSet rs, int column, int row) throws SQLException {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, Math.max(16, row * 2));
+            }
+            values[row] = reader.read(rs, column);
+        }
+
+        @Override
+        void fill(ColumnVector vector, int rowCount) {
+            vector.setStringValues(Arrays.copyOf(values, rowCount));
+        }
+    }
+}
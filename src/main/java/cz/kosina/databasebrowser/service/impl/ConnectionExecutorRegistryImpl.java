@@ -0,0 +1,154 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import cz.kosina.databasebrowser.config.DatabaseBrowserProperties;
+import cz.kosina.databasebrowser.domain.event.ConnectionChangedEvent;
+import cz.kosina.databasebrowser.service.api.ConnectionExecutorRegistry;
+import cz.kosina.databasebrowser.service.api.ConnectionService;
+import org.apache.commons.lang3.Validate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Implementation of {@link ConnectionExecutorRegistry} with bounded thread pool for every stored connection. Full pool
+ * rejects the task immediately instead of queueing it without limit.
+ */
+@Service
+public class ConnectionExecutorRegistryImpl implements ConnectionExecutorRegistry {
+
+    /**
+     * Service used for checking that the connection exists
+     */
+    private final ConnectionService connectionService;
+    /**
+     * Settings used for every created executor
+     */
+    private final DatabaseBrowserProperties.ConnectionExecutor executorProperties;
+    /**
+     * Created executors identified by connection name
+     */
+    private final Map<String, ThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ConnectionExecutorRegistryImpl(ConnectionService connectionService, DatabaseBrowserProperties properties) {
+        this.connectionService = Validate.notNull(connectionService);
+        this.executorProperties = Validate.notNull(properties).getConnectionExecutor();
+    }
+
+    /**
+     * {@inheritDoc} Tasks for unknown connection are run by the calling thread, so no executor is created for them.
+     * They do not touch any database, because there is nothing to connect to.
+     */
+    @Override
+    public <T> CompletableFuture<T> submit(String connectionName, Supplier<T> task) {
+        if (!connectionService.getById(connectionName).isPresent()) {
+            return CompletableFuture.completedFuture(task.get());
+        }
+        final QueryControl control = new QueryControl(0, true);
+        final CompletableFuture<T> result = new CompletableFuture<T>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                control.cancel();
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        try {
+            execute(connectionName, () -> {
+                try {
+                    result.complete(control.run(task));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void evict(String connectionName) {
+        final ThreadPoolExecutor removed = executors.remove(connectionName);
+        if (removed != null) {
+            removed.shutdown();
+        }
+    }
+
+    /**
+     * Shut down the executor of the connection which was changed
+     *
+     * @param event event with name of the changed connection
+     */
+    @EventListener
+    public void onConnectionChanged(ConnectionChangedEvent event) {
+        evict(event.getName());
+    }
+
+    /**
+     * Stop all executors when the application is stopped
+     */
+    @PreDestroy
+    public void closeAll() {
+        executors.values().forEach(ThreadPoolExecutor::shutdownNow);
+        executors.clear();
+    }
+
+    /**
+     * Execute the command on the executor of the connection. The executor can be evicted and shut down by the change of
+     * the connection after it was looked up, than the command is executed by the new executor of the connection.
+     *
+     * @param connectionName name of the connection stored in db
+     * @param command        command using the database
+     * @throws RejectedExecutionException if the queue of the executor is full
+     */
+    private void execute(String connectionName, Runnable command) {
+        final ThreadPoolExecutor executor = executors.computeIfAbsent(connectionName, this::createExecutor);
+        try {
+            executor.execute(command);
+        } catch (RejectedExecutionException e) {
+            if (!executor.isShutdown()) {
+                throw e;
+            }
+            executors.remove(connectionName, executor);
+            executors.computeIfAbsent(connectionName, this::createExecutor).execute(command);
+        }
+    }
+
+    /**
+     * Create new executor for the connection
+     *
+     * @param connectionName name of the connection stored in db
+     * @return new bounded executor
+     */
+    ThreadPoolExecutor createExecutor(String connectionName) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                executorProperties.getThreads(),
+                executorProperties.getThreads(),
+                executorProperties.getKeepAlive().toMillis(),
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(executorProperties.getQueueCapacity()),
+                new ThreadFactoryBuilder()
+                        .setNameFormat(String.format("database-browser-%s-%%d", connectionName.replace("%", "%%")))
+                        .setDaemon(true)
+                        .build(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        // idle connections do not keep any threads
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,150 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import cz.kosina.databasebrowser.config.DatabaseBrowserProperties;
+import cz.kosina.databasebrowser.domain.dto.ConnectionProperties;
+import cz.kosina.databasebrowser.domain.event.ConnectionChangedEvent;
+import cz.kosina.databasebrowser.service.api.ConnectionPoolRegistry;
+import cz.kosina.databasebrowser.service.api.ConnectionService;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.commons.lang3.Validate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementation of {@link ConnectionPoolRegistry} backed by HikariCP pools. The pool is bound to the exact
+ * {@link ConnectionProperties} it was created from. If the properties of the request differ, the pool is created only
+ * for the currently stored properties, so the requests holding properties changed meanwhile do not replace the pool
+ * back. The versions cannot be compared instead, because the version of re-created connection starts again at 0.
+ */
+@Service
+public class ConnectionPoolRegistryImpl implements ConnectionPoolRegistry {
+
+    /**
+     * Service providing the currently stored connection properties
+     */
+    private final ConnectionService connectionService;
+    /**
+     * Settings used for every created pool
+     */
+    private final DatabaseBrowserProperties.Pool poolProperties;
+    /**
+     * Created pools identified by connection name
+     */
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ConnectionPoolRegistryImpl(ConnectionService connectionService, DatabaseBrowserProperties properties) {
+        this.connectionService = Validate.notNull(connectionService);
+        this.poolProperties = Validate.notNull(properties).getPool();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataSource getDataSource(ConnectionProperties connectionProperties) {
+        final Pool pool = pools.get(connectionProperties.getName());
+        if (pool != null && pool.getProperties().equals(connectionProperties)) {
+            return pool.getDataSource();
+        }
+        final ConnectionProperties current = connectionService.getById(connectionProperties.getName())
+                .orElseThrow(() -> new IllegalStateException(
+                        String.format("Connection %s was removed", connectionProperties.getName())));
+        return pools.compute(current.getName(), (name, existing) -> {
+            if (existing != null) {
+                if (existing.getProperties().equals(current)) {
+                    return existing;
+                }
+                existing.getDataSource().close();
+            }
+            return createPool(current);
+        }).getDataSource();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void evict(String connectionName) {
+        final Pool removed = pools.remove(connectionName);
+        if (removed != null) {
+            removed.getDataSource().close();
+        }
+    }
+
+    /**
+     * Close the pool of the connection which was changed
+     *
+     * @param event event with name of the changed connection
+     */
+    @EventListener
+    public void onConnectionChanged(ConnectionChangedEvent event) {
+        evict(event.getName());
+    }
+
+    /**
+     * Close all pools when the application is stopped
+     */
+    @PreDestroy
+    public void closeAll() {
+        pools.keySet().forEach(this::evict);
+    }
+
+    /**
+     * Create new pool for the connection properties
+     *
+     * @param connectionProperties properties stored in database
+     * @return new pool bound to the properties
+     */
+    private Pool createPool(ConnectionProperties connectionProperties) {
+        final HikariConfig config = new HikariConfig();
+        config.setPoolName(String.format("database-browser-%s", connectionProperties.getName()));
+        config.setJdbcUrl(connectionProperties.getUrl());
+        config.setUsername(connectionProperties.getUsername());
+        config.setPassword(connectionProperties.getPassword());
+        config.setMinimumIdle(poolProperties.getMinSize());
+        config.setMaximumPoolSize(poolProperties.getMaxSize());
+        config.setIdleTimeout(poolProperties.getIdleTimeout().toMillis());
+        config.setMaxLifetime(poolProperties.getMaxLifetime().toMillis());
+        config.setConnectionTimeout(poolProperties.getConnectionTimeout().toMillis());
+        config.setValidationTimeout(poolProperties.getValidationTimeout().toMillis());
+        config.setConnectionTestQuery(poolProperties.getValidationQuery());
+        // do not fail on pool creation, the connection problems are reported when the connection is requested
+        config.setInitializationFailTimeout(-1);
+        return new Pool(
+                new ConnectionProperties(
+                        connectionProperties.getName(),
+                        connectionProperties.getUrl(),
+                        connectionProperties.getUsername(),
+                        connectionProperties.getPassword(),
+                        connectionProperties.getVersion()
+                ),
+                new HikariDataSource(config)
+        );
+    }
+
+    /**
+     * Pool together with the properties it was created from
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class Pool {
+        /**
+         * Copy of the properties used for pool creation
+         */
+        private final ConnectionProperties properties;
+        /**
+         * Pooled data source
+         */
+        private final HikariDataSource dataSource;
+    }
+}
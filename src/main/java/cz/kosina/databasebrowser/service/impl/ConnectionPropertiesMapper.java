@@ -0,0 +1,62 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import cz.kosina.databasebrowser.domain.dto.ConnectionProperties;
+import cz.kosina.databasebrowser.domain.entity.ConnectionPropertiesEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mapper between {@link ConnectionPropertiesEntity} and {@link ConnectionProperties}. The properties are copied
+ * explicitly, so there is no reflection on the path of every connection lookup. New property of the connection must
+ * be added into all methods.
+ */
+@Component
+public class ConnectionPropertiesMapper {
+
+    /**
+     * Map entity object into DTO object
+     *
+     * @param entity entity object to by mapped
+     * @return new instance of DTO mapped from entity object
+     */
+    public ConnectionProperties toDto(ConnectionPropertiesEntity entity) {
+        return new ConnectionProperties(
+                entity.getName(),
+                entity.getUrl(),
+                entity.getUsername(),
+                entity.getPassword(),
+                entity.getVersion()
+        );
+    }
+
+    /**
+     * Map DTO object into Entity object
+     *
+     * @param dto original DTO object to be mapped
+     * @return new instance of entity object
+     */
+    public ConnectionPropertiesEntity toEntity(ConnectionProperties dto) {
+        return new ConnectionPropertiesEntity(
+                dto.getName(),
+                dto.getUrl(),
+                dto.getUsername(),
+                dto.getPassword(),
+                dto.getVersion()
+        );
+    }
+
+    /**
+     * Create copy of the DTO, so the original instance cannot be changed by the caller
+     *
+     * @param dto DTO object
+     * @return new instance with same values
+     */
+    public ConnectionProperties copy(ConnectionProperties dto) {
+        return new ConnectionProperties(
+                dto.getName(),
+                dto.getUrl(),
+                dto.getUsername(),
+                dto.getPassword(),
+                dto.getVersion()
+        );
+    }
+}
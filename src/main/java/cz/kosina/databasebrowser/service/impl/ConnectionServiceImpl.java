@@ -1,22 +1,32 @@
 package cz.kosina.databasebrowser.service.impl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import cz.kosina.databasebrowser.config.DatabaseBrowserProperties;
 import cz.kosina.databasebrowser.domain.dto.ConnectionProperties;
 import cz.kosina.databasebrowser.domain.entity.ConnectionPropertiesEntity;
+import cz.kosina.databasebrowser.domain.event.ConnectionChangedEvent;
 import cz.kosina.databasebrowser.repository.ConnectionRepository;
 import cz.kosina.databasebrowser.service.api.ConnectionService;
 import org.apache.commons.lang3.Validate;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 /**
- * Implementation of {@link ConnectionService} used for stored {@link ConnectionProperties} into Database
+ * Implementation of {@link ConnectionService} used for stored {@link ConnectionProperties} into Database. Read
+ * connection properties are kept in bounded in-memory cache, which is invalidated on every change. Properties read
+ * concurrently with the invalidation are not cached, so the cache does not need any expiration.
  */
 @Service
 public class ConnectionServiceImpl implements ConnectionService {
@@ -28,12 +38,38 @@ public class ConnectionServiceImpl implements ConnectionService {
     /**
      * Mapper for Entity/DTO
      */
-    private final ModelMapper modelMapper;
+    private final ConnectionPropertiesMapper mapper;
+    /**
+     * Publisher used for notification about changed connections
+     */
+    private final ApplicationEventPublisher eventPublisher;
+    /**
+     * Cache of connection properties identified by name
+     */
+    private final Cache<String, ConnectionProperties> cache;
+    /**
+     * Generation of the cache incremented by every invalidation. The properties read from the database are cached only
+     * if there was no invalidation since the read started.
+     */
+    private final AtomicLong generation = new AtomicLong();
+    /**
+     * Metrics of the operations
+     */
+    private final ServiceMetrics metrics;
 
     @Autowired
-    public ConnectionServiceImpl(ConnectionRepository connectionRepository, ModelMapper modelMapper) {
+    public ConnectionServiceImpl(ConnectionRepository connectionRepository,
+                                 ConnectionPropertiesMapper mapper,
+                                 ApplicationEventPublisher eventPublisher,
+                                 DatabaseBrowserProperties properties,
+                                 ServiceMetrics metrics) {
         this.connectionRepository = Validate.notNull(connectionRepository);
-        this.modelMapper = Validate.notNull(modelMapper);
+        this.mapper = Validate.notNull(mapper);
+        this.eventPublisher = Validate.notNull(eventPublisher);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(Validate.notNull(properties).getConnectionCache().getMaxSize())
+                .build();
+        this.metrics = Validate.notNull(metrics);
     }
 
     /**
@@ -42,16 +78,19 @@ public class ConnectionServiceImpl implements ConnectionService {
     @Transactional
     @Override
     public Optional<ConnectionProperties> create(ConnectionProperties connectionProperties) {
-        if (!getById(connectionProperties.getName()).isPresent()) {
-            ConnectionPropertiesEntity created = connectionRepository.save(
-                    mapToEntity(connectionProperties)
-            );
-            return Optional.of(
-                    mapToDTO(created)
-            );
-        } else {
-            return Optional.empty();
-        }
+        return operation("create", () -> {
+            if (!findById(connectionProperties.getName()).isPresent()) {
+                ConnectionPropertiesEntity created = connectionRepository.save(
+                        mapper.toEntity(connectionProperties)
+                );
+                publishChange(connectionProperties.getName());
+                return Optional.of(
+                        mapper.toDto(created)
+                );
+            } else {
+                return Optional.empty();
+            }
+        });
     }
 
     /**
@@ -60,16 +99,19 @@ public class ConnectionServiceImpl implements ConnectionService {
     @Transactional
     @Override
     public Optional<ConnectionProperties> update(ConnectionProperties connectionProperties) {
-        if (getById(connectionProperties.getName()).isPresent()) {
-            ConnectionPropertiesEntity updated = connectionRepository.save(
-                    mapToEntity(connectionProperties)
-            );
-            return Optional.of(
-                    mapToDTO(updated)
-            );
-        } else {
-            return Optional.empty();
-        }
+        return operation("update", () -> {
+            if (findById(connectionProperties.getName()).isPresent()) {
+                ConnectionPropertiesEntity updated = connectionRepository.save(
+                        mapper.toEntity(connectionProperties)
+                );
+                publishChange(connectionProperties.getName());
+                return Optional.of(
+                        mapper.toDto(updated)
+                );
+            } else {
+                return Optional.empty();
+            }
+        });
     }
 
     /**
@@ -78,12 +120,15 @@ public class ConnectionServiceImpl implements ConnectionService {
     @Transactional
     @Override
     public boolean delete(String name) {
-        if (getById(name).isPresent()) {
-            connectionRepository.deleteById(name);
-            return true;
-        } else {
-            return false;
-        }
+        return metrics.operation("connection", "delete", () -> {
+            if (findById(name).isPresent()) {
+                connectionRepository.deleteById(name);
+                publishChange(name);
+                return true;
+            } else {
+                return false;
+            }
+        }, deleted -> deleted ? name : ServiceMetrics.NO_CONNECTION);
     }
 
     /**
@@ -91,11 +136,11 @@ public class ConnectionServiceImpl implements ConnectionService {
      */
     @Override
     public List<ConnectionProperties> getAll() {
-        return StreamSupport.stream(
+        return metrics.operation("connection", "getAll", () -> StreamSupport.stream(
                 connectionRepository.findAll().spliterator(),
                 false
-        ).map(this::mapToDTO)
-                .collect(Collectors.toList());
+        ).map(mapper::toDto)
+                .collect(Collectors.toList()), all -> ServiceMetrics.NO_CONNECTION);
     }
 
     /**
@@ -103,26 +148,108 @@ public class ConnectionServiceImpl implements ConnectionService {
      */
     @Override
     public Optional<ConnectionProperties> getById(String name) {
-        return connectionRepository.findById(name).map(this::mapToDTO);
+        return operation("getById", () -> findById(name));
+    }
+
+    /**
+     * Find the connection properties in the cache or in the database
+     *
+     * @param name name of the connection
+     * @return connection properties if they exist. Otherwise empty
+     */
+    private Optional<ConnectionProperties> findById(String name) {
+        final ConnectionProperties cached = cache.getIfPresent(name);
+        if (cached != null) {
+            return Optional.of(mapper.copy(cached));
+        }
+        final long readGeneration = generation.get();
+        return connectionRepository.findById(name)
+                .map(mapper::toDto)
+                .map(i -> cacheIfNewer(i, readGeneration));
+    }
+
+    /**
+     * Measure the operation. Only the names of the existing connections are used as tags.
+     *
+     * @param operation name of the operation
+     * @param task      operation
+     * @return result of the operation
+     */
+    private Optional<ConnectionProperties> operation(String operation,
+                                                     Supplier<Optional<ConnectionProperties>> task) {
+        return metrics.operation("connection", operation, task,
+                result -> result.map(ConnectionProperties::getName).orElse(ServiceMetrics.NO_CONNECTION));
+    }
+
+    /**
+     * Store read connection properties into cache, unless there is already newer version of them or the cache was
+     * invalidated since the read started. The generation is checked once again after the properties are stored,
+     * because the invalidation can happen meanwhile. The invalidation increments the generation before it drops the
+     * properties, so the stale properties are always dropped either by the invalidation or by this check.
+     *
+     * @param connectionProperties properties read from the database
+     * @param readGeneration       generation of the cache when the read started
+     * @return copy of the properties, which is safe to be returned out of the service
+     */
+    private ConnectionProperties cacheIfNewer(ConnectionProperties connectionProperties, long readGeneration) {
+        if (generation.get() == readGeneration) {
+            cache.asMap().merge(
+                    connectionProperties.getName(),
+                    connectionProperties,
+                    (cached, read) -> versionOf(read) >= versionOf(cached) ? read : cached
+            );
+            if (generation.get() != readGeneration) {
+                cache.asMap().remove(connectionProperties.getName(), connectionProperties);
+            }
+        }
+        return mapper.copy(connectionProperties);
     }
 
     /**
-     * Map entity object into DTO object
+     * Get comparable version of the connection properties
      *
-     * @param entity entity object to by mapped
-     * @return new instance of DTO mapped from entity object
+     * @param connectionProperties properties with version
+     * @return version or -1 if the version is not set yet
      */
-    private ConnectionProperties mapToDTO(ConnectionPropertiesEntity entity) {
-        return modelMapper.map(entity, ConnectionProperties.class);
+    private long versionOf(ConnectionProperties connectionProperties) {
+        return connectionProperties.getVersion() == null ? -1 : connectionProperties.getVersion();
+    }
+
+    /**
+     * Drop the connection from the cache and notify all listeners that the connection was changed. If there is an
+     * active transaction, the cache is invalidated once again after the transaction ends, so the values read by
+     * concurrent requests before the commit (or rollback) are not kept, and the {@link ConnectionChangedEvent} is
+     * published only after the commit, so the listeners do not drop their resources for the change rolled back.
+     *
+     * @param name name of the changed connection
+     */
+    private void publishChange(String name) {
+        invalidate(name);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    eventPublisher.publishEvent(new ConnectionChangedEvent(name));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(name);
+                }
+            });
+        } else {
+            eventPublisher.publishEvent(new ConnectionChangedEvent(name));
+        }
     }
 
     /**
-     * Map DTO object into Entity object
+     * Drop the connection from the cache. The generation is incremented first, so the concurrent reads do not store
+     * the dropped value back.
      *
-     * @param dto original DTO object to be mapped
-     * @return new instance of entity object
+     * @param name name of the changed connection
      */
-    private ConnectionPropertiesEntity mapToEntity(ConnectionProperties dto) {
-        return modelMapper.map(dto, ConnectionPropertiesEntity.class);
+    private void invalidate(String name) {
+        generation.incrementAndGet();
+        cache.invalidate(name);
     }
 }
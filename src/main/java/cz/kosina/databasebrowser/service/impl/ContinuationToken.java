@@ -0,0 +1,303 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import cz.kosina.databasebrowser.domain.dto.DataSelection;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Position in the table where the next page of data starts. It is passed to the client as opaque URL safe string.
+ * Tables with primary key are paged by the values of the key of the last read row (keyset pagination), tables without
+ * primary key are paged by the number of already read rows. The key values are encoded by their SQL type, so that
+ * they are bound back without loss of precision: numbers keep all digits, dates and timestamps are local ISO-8601
+ * values and binary values are Base64 encoded. Keys of other types (e.g. timestamps with time zone) cannot be encoded
+ * and such tables are paged by the number of read rows too, see {@link #isSupported(int)}. The token carries the hash
+ * of the table and the selection of the page, so the token of other table, columns, filters or order is rejected.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ContinuationToken {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    /**
+     * SQL types ({@link java.sql.Types}) of the primary key columns
+     */
+    private List<Integer> types;
+    /**
+     * Values of the primary key columns of the last read row encoded by {@link #readKey(ResultSet, int, int)}
+     */
+    private List<String> values;
+    /**
+     * Number of already read rows, used only for tables without primary key
+     */
+    private Long offset;
+    /**
+     * Hash of the table and the selection created by {@link #hashOf(String, DataSelection)}
+     */
+    private String selection;
+
+    /**
+     * Create token for keyset pagination
+     *
+     * @param types     SQL types of the primary key columns
+     * @param values    values of the primary key columns of the last read row
+     * @param selection hash of the table and the selection
+     * @return new token
+     */
+    static ContinuationToken ofKeys(List<Integer> types, List<String> values, String selection) {
+        return new ContinuationToken(types, values, null, selection);
+    }
+
+    /**
+     * Create token for pagination by number of read rows
+     *
+     * @param offset    number of already read rows
+     * @param selection hash of the table and the selection
+     * @return new token
+     */
+    static ContinuationToken ofOffset(long offset, String selection) {
+        return new ContinuationToken(null, null, offset, selection);
+    }
+
+    /**
+     * Compute the hash of the table and the selection of its data. The sample is not included, because the sampled
+     * data are returned in single page.
+     *
+     * @param fullTableName full table name
+     * @param selection     selected columns, filters and order or null for everything
+     * @return hash stored in the token
+     */
+    static String hashOf(String fullTableName, DataSelection selection) {
+        final DataSelection valid = selection == null ? new DataSelection() : selection;
+        try {
+            return HASH.hashBytes(MAPPER.writeValueAsBytes(Arrays.asList(
+                    fullTableName,
+                    valid.getColumns() == null ? Collections.emptyList() : valid.getColumns(),
+                    valid.getFilters() == null ? Collections.emptyList() : valid.getFilters(),
+                    valid.getOrderBy() == null ? Collections.emptyList() : valid.getOrderBy()
+            ))).toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Check that the token was created for the same table and selection
+     *
+     * @param selection hash of the table and the selection created by {@link #hashOf(String, DataSelection)}
+     * @throws IllegalArgumentException if the token belongs to other table or selection
+     */
+    void validateSelection(String selection) {
+        if (!selection.equals(this.selection)) {
+            throw new IllegalArgumentException("Continuation token does not belong to the table and selection");
+        }
+    }
+
+    /**
+     * Check if the token contains keys of the last read row
+     *
+     * @return true if the token is used for keyset pagination
+     */
+    boolean isKeyset() {
+        return values != null;
+    }
+
+    /**
+     * Encode the token into the opaque string
+     *
+     * @return URL safe string
+     */
+    String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(this));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decode the token from the string created by {@link #encode()}
+     *
+     * @param encoded encoded token
+     * @return decoded token
+     * @throws IllegalArgumentException if the string is not valid token
+     */
+    static ContinuationToken decode(String encoded) {
+        try {
+            final ContinuationToken token = MAPPER.readValue(
+                    Base64.getUrlDecoder().decode(encoded),
+                    ContinuationToken.class
+            );
+            if (token.isKeyset() ? token.getTypes() == null || token.getTypes().size() != token.getValues().size()
+                    || !token.getTypes().stream().allMatch(ContinuationToken::isSupported)
+                    : token.getOffset() == null || token.getOffset() < 0) {
+                throw new IllegalArgumentException("Invalid continuation token");
+            }
+            return token;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid continuation token", e);
+        }
+    }
+
+    /**
+     * Check if the value of the key column can be stored in the token
+     *
+     * @param type SQL type of the column
+     * @return true if the value is encoded without loss
+     */
+    static boolean isSupported(int type) {
+        switch (type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.BOOLEAN:
+            case Types.DATE:
+            case Types.TIMESTAMP:
+            case Types.BINARY:
+            case Types.VARBINARY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Read the value of the key column and encode it into string
+     *
+     * @param rs    result set positioned on the row
+     * @param index index of the column
+     * @param type  SQL type of the column, must be {@link #isSupported(int) supported}
+     * @return encoded value or null
+     * @throws SQLException if the value cannot be read
+     */
+    static String readKey(ResultSet rs, int index, int type) throws SQLException {
+        final Object value;
+        switch (type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                value = rs.getLong(index);
+                break;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                value = rs.getBigDecimal(index);
+                break;
+            case Types.REAL:
+                value = rs.getFloat(index);
+                break;
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                value = rs.getDouble(index);
+                break;
+            case Types.BOOLEAN:
+                value = rs.getBoolean(index);
+                break;
+            case Types.DATE:
+                final Date date = rs.getDate(index);
+                value = date == null ? null : date.toLocalDate();
+                break;
+            case Types.TIMESTAMP:
+                final Timestamp timestamp = rs.getTimestamp(index);
+                value = timestamp == null ? null : timestamp.toLocalDateTime();
+                break;
+            case Types.BINARY:
+            case Types.VARBINARY:
+                final byte[] bytes = rs.getBytes(index);
+                value = bytes == null ? null : Base64.getEncoder().encodeToString(bytes);
+                break;
+            default:
+                value = rs.getString(index);
+        }
+        return rs.wasNull() ? null : value.toString();
+    }
+
+    /**
+     * Decode the value of the key column created by {@link #readKey(ResultSet, int, int)} and bind it
+     *
+     * @param statement statement with the parameter
+     * @param index     index of the parameter
+     * @param type      SQL type of the column
+     * @param value     encoded value or null
+     * @throws SQLException             if the value cannot be bound
+     * @throws IllegalArgumentException if the value is not valid
+     */
+    static void bindKey(PreparedStatement statement, int index, int type, String value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, type);
+            return;
+        }
+        try {
+            switch (type) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    statement.setLong(index, Long.parseLong(value));
+                    break;
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                    statement.setBigDecimal(index, new BigDecimal(value));
+                    break;
+                case Types.REAL:
+                    statement.setFloat(index, Float.parseFloat(value));
+                    break;
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    statement.setDouble(index, Double.parseDouble(value));
+                    break;
+                case Types.BOOLEAN:
+                    statement.setBoolean(index, Boolean.parseBoolean(value));
+                    break;
+                case Types.DATE:
+                    statement.setDate(index, Date.valueOf(LocalDate.parse(value)));
+                    break;
+                case Types.TIMESTAMP:
+                    statement.setTimestamp(index, Timestamp.valueOf(LocalDateTime.parse(value)));
+                    break;
+                case Types.BINARY:
+                case Types.VARBINARY:
+                    statement.setBytes(index, Base64.getDecoder().decode(value));
+                    break;
+                default:
+                    statement.setString(index, value);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid continuation token", e);
+        }
+    }
+}
@@ -1,16 +1,38 @@
 package cz.kosina.databasebrowser.service.impl;
 
+import com.google.common.collect.Lists;
+import cz.kosina.databasebrowser.config.DatabaseBrowserProperties;
 import cz.kosina.databasebrowser.domain.dto.*;
+import cz.kosina.databasebrowser.service.api.ConnectionPoolRegistry;
 import cz.kosina.databasebrowser.service.api.ConnectionService;
 import cz.kosina.databasebrowser.service.api.DatabaseService;
+import cz.kosina.databasebrowser.service.api.MetadataCacheService;
+import cz.kosina.databasebrowser.service.api.MetadataExport;
+import cz.kosina.databasebrowser.service.api.MetadataProvider;
+import cz.kosina.databasebrowser.service.api.PageExport;
+import cz.kosina.databasebrowser.service.api.QueryExport;
+import cz.kosina.databasebrowser.service.api.QueryHandler;
+import cz.kosina.databasebrowser.service.api.RowHandler;
+import cz.kosina.databasebrowser.service.api.SchemaColumnsExport;
+import cz.kosina.databasebrowser.service.api.StatementCache;
+import cz.kosina.databasebrowser.service.api.TableExport;
+import cz.kosina.databasebrowser.service.impl.metadata.MetadataProviderRegistry;
+import cz.kosina.databasebrowser.service.impl.metadata.SqlTypes;
+import cz.kosina.databasebrowser.service.impl.sketch.ColumnSketch;
 import lombok.SneakyThrows;
 import org.apache.commons.lang3.Validate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
-import java.lang.reflect.Field;
+import java.math.BigInteger;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -22,35 +44,107 @@ import java.util.stream.Stream;
 @Service
 public class DatabaseServiceImpl implements DatabaseService {
 
+    /**
+     * SQL types with integer values, which can be used for splitting the table into key ranges
+     */
+    private static final Set<Integer> INTEGER_TYPES = new HashSet<>(Arrays.asList(
+            Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT
+    ));
+    /**
+     * SQL types with numeric values, which have quantiles in the column profile
+     */
+    private static final Set<Integer> NUMERIC_TYPES = new HashSet<>(Arrays.asList(
+            Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT,
+            Types.REAL, Types.FLOAT, Types.DOUBLE, Types.DECIMAL, Types.NUMERIC
+    ));
+    /**
+     * SQL types, which cannot be used in order by of all databases
+     */
+    private static final Set<Integer> UNORDERABLE_TYPES = new HashSet<>(Arrays.asList(
+            Types.BLOB, Types.CLOB, Types.NCLOB, Types.LONGVARBINARY, Types.LONGVARCHAR, Types.LONGNVARCHAR,
+            Types.SQLXML, Types.ARRAY, Types.STRUCT, Types.REF, Types.DATALINK, Types.JAVA_OBJECT, Types.OTHER
+    ));
+
     /**
      * Service used for getting the information about connections
      */
     private final ConnectionService connectionService;
     /**
-     * Convert map between numerical SQL Types and real names
+     * Registry of pools used for getting connections into databases
+     */
+    private final ConnectionPoolRegistry connectionPoolRegistry;
+    /**
+     * Cache of catalogs, schemas, tables and columns
+     */
+    private final MetadataCacheService metadataCache;
+    /**
+     * Providers of the metadata specific for the database engine
+     */
+    private final MetadataProviderRegistry metadataProviders;
+    /**
+     * Maximal number of columns evaluated by one statistics query
+     */
+    private final int statisticsBatchSize;
+    /**
+     * Number of rows fetched in one round trip during export
+     */
+    private final int exportFetchSize;
+    /**
+     * Settings of the paged data preview
+     */
+    private final DatabaseBrowserProperties.Preview previewProperties;
+    /**
+     * Settings of the column profiling
+     */
+    private final DatabaseBrowserProperties.Profile profileProperties;
+    /**
+     * Maximal number of connections in one pool, which limits the parallel profiling
      */
-    private final Map<Integer, String> typeNames;
+    private final int poolMaxSize;
+    /**
+     * Settings of the ad-hoc queries
+     */
+    private final DatabaseBrowserProperties.Query queryProperties;
+    /**
+     * Executor used for profiling of key ranges in parallel
+     */
+    private final ExecutorService profilingExecutor;
+    /**
+     * Metrics of the operations and queries
+     */
+    private final ServiceMetrics metrics;
+    /**
+     * Cache of the prepared statements of the generated queries
+     */
+    private final StatementCache statementCache;
+    /**
+     * Concurrent identical statistics and profile requests sharing one computation
+     */
+    private final SingleFlight<List<Object>> statisticsFlights = new SingleFlight<>();
 
     @Autowired
-    public DatabaseServiceImpl(ConnectionService connectionService) {
+    public DatabaseServiceImpl(ConnectionService connectionService,
+                               ConnectionPoolRegistry connectionPoolRegistry,
+                               MetadataCacheService metadataCache,
+                               MetadataProviderRegistry metadataProviders,
+                               DatabaseBrowserProperties properties,
+                               @Qualifier("profilingExecutor") ExecutorService profilingExecutor,
+                               ServiceMetrics metrics,
+                               StatementCache statementCache) {
         this.connectionService = Validate.notNull(connectionService);
-        typeNames = Stream.of(Types.class.getFields()).collect(
-                Collectors.toMap(
-                        this::getTypeInt,
-                        Field::getName
-                )
-        );
-    }
-
-    /**
-     * Get the integer representation of the field
-     *
-     * @param i field to be evaluated
-     * @return numerical representation
-     */
-    @SneakyThrows
-    private Integer getTypeInt(Field i) {
-        return i.getInt(null);
+        this.connectionPoolRegistry = Validate.notNull(connectionPoolRegistry);
+        this.metadataCache = Validate.notNull(metadataCache);
+        this.metadataProviders = Validate.notNull(metadataProviders);
+        this.statisticsBatchSize = Validate.notNull(properties).getStatistics().getBatchSize();
+        Validate.isTrue(statisticsBatchSize > 0, "Statistics batch size must be positive");
+        this.exportFetchSize = properties.getExport().getFetchSize();
+        this.previewProperties = properties.getPreview();
+        this.profileProperties = properties.getProfile();
+        this.poolMaxSize = properties.getPool().getMaxSize();
+        this.queryProperties = properties.getQuery();
+        this.profilingExecutor = Validate.notNull(profilingExecutor);
+        this.metrics = Validate.notNull(metrics);
+        this.statementCache = Validate.notNull(statementCache);
     }
 
     /**
@@ -69,7 +163,10 @@ public class DatabaseServiceImpl implements DatabaseService {
     @Override
     public Optional<List<String>> findSchemas(String connectionName, String catalogName) {
         return getConnProperties(connectionName)
-                .map(i -> listSchemas(i, catalogName));
+                .map(i -> operation("findSchemas", connectionName, () -> metadataCache.get(
+                        MetadataCacheService.Type.SCHEMAS, connectionName, catalogName, null, null,
+                        () -> Collections.unmodifiableList(listSchemas(i, catalogName))
+                )));
     }
 
     /**
@@ -78,7 +175,10 @@ public class DatabaseServiceImpl implements DatabaseService {
     @Override
     public Optional<List<String>> findCatalogs(String connectionName) {
         return getConnProperties(connectionName)
-                .map(this::listCatalogs);
+                .map(i -> operation("findCatalogs", connectionName, () -> metadataCache.get(
+                        MetadataCacheService.Type.CATALOGS, connectionName, null, null, null,
+                        () -> Collections.unmodifiableList(listCatalogs(i))
+                )));
     }
 
     /**
@@ -87,7 +187,24 @@ public class DatabaseServiceImpl implements DatabaseService {
     @Override
     public Optional<List<DatabaseObject>> findTables(String connectionName, String catalogName, String schemaName) {
         return getConnProperties(connectionName)
-                .map(i -> listTables(i, catalogName, schemaName));
+                .map(i -> operation("findTables", connectionName, () -> metadataCache.get(
+                        MetadataCacheService.Type.TABLES, connectionName, catalogName, schemaName, null,
+                        () -> Collections.unmodifiableList(listTables(i, catalogName, schemaName))
+                )));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<MetadataExport<DatabaseObject>> exportTables(String connectionName,
+                                                                 String catalogName,
+                                                                 String schemaName) {
+        return getConnProperties(connectionName)
+                .map(i -> handler -> operation("exportTables", connectionName, () -> {
+                    exportMetadata(i, (provider, con) -> provider.exportTables(con, catalogName, schemaName, handler));
+                    return null;
+                }));
     }
 
     /**
@@ -102,19 +219,8 @@ public class DatabaseServiceImpl implements DatabaseService {
     private List<DatabaseObject> listTables(ConnectionProperties connectionProperties,
                                             String catalogName,
                                             String schemaName) {
-        try (Connection con = establishConnection(connectionProperties);
-             ResultSet tables = con.getMetaData().getTables(catalogName, schemaName, null, null)) {
-            final List<DatabaseObject> dbObjectsList = new ArrayList<>();
-            while (tables.next()) {
-                dbObjectsList.add(
-                        new DatabaseObject(
-                                tables.getString("TABLE_NAME"),
-                                tables.getString("TABLE_TYPE"),
-                                tables.getString("REMARKS")
-                        )
-                );
-            }
-            return dbObjectsList;
+        try (Connection con = establishConnection(connectionProperties)) {
+            return metadataProvider(connectionProperties).listTables(con, catalogName, schemaName);
         }
     }
 
@@ -127,13 +233,8 @@ public class DatabaseServiceImpl implements DatabaseService {
      */
     @SneakyThrows
     private List<String> listSchemas(ConnectionProperties connectionProperties, String catalogName) {
-        try (Connection con = establishConnection(connectionProperties);
-             final ResultSet schemas = con.getMetaData().getSchemas(catalogName, null)) {
-            final List<String> schemasList = new ArrayList<>();
-            while (schemas.next()) {
-                schemasList.add(schemas.getString("TABLE_SCHEM"));
-            }
-            return schemasList;
+        try (Connection con = establishConnection(connectionProperties)) {
+            return metadataProvider(connectionProperties).listSchemas(con, catalogName);
         }
     }
 
@@ -145,13 +246,8 @@ public class DatabaseServiceImpl implements DatabaseService {
      */
     @SneakyThrows
     private List<String> listCatalogs(ConnectionProperties connectionProperties) {
-        try (Connection con = establishConnection(connectionProperties);
-             final ResultSet catalogs = con.getMetaData().getCatalogs()) {
-            final List<String> catalogList = new ArrayList<>();
-            while (catalogs.next()) {
-                catalogList.add(catalogs.getString("TABLE_CAT"));
-            }
-            return catalogList;
+        try (Connection con = establishConnection(connectionProperties)) {
+            return metadataProvider(connectionProperties).listCatalogs(con);
         }
     }
 
@@ -161,33 +257,55 @@ public class DatabaseServiceImpl implements DatabaseService {
     @Override
     public Optional<List<TableColumn>> findColumns(String connectionName, String catalogName, String schemaName, String tableName) {
         return getConnProperties(connectionName)
-                .map(i -> listColumns(i, catalogName, schemaName, tableName));
+                .map(i -> operation("findColumns", connectionName,
+                        () -> cachedColumns(i, catalogName, schemaName, tableName)));
     }
 
     /**
-     * Get all primary keys for the given table
+     * Find all columns in to table in the metadata cache or in the database
      *
-     * @param con         connection used for communication with database
-     * @param catalogName name of the catalog
-     * @param schemaName  name of the schema
-     * @param tableName   name of te table
-     * @return set of all columns which are primary key in the table
-     * @throws SQLException if getting information from DB does not work
-     */
-    private Set<String> listPrimaryKeys(Connection con,
-                                        String catalogName,
-                                        String schemaName,
-                                        String tableName) throws SQLException {
-        final Set<String> columns = new HashSet<>();
-        try (ResultSet primaryKeys = con.getMetaData().getPrimaryKeys(
-                catalogName,
-                schemaName,
-                tableName)
-        ) {
-            while (primaryKeys.next()) {
-                columns.add(primaryKeys.getString("COLUMN_NAME"));
-            }
-            return columns;
+     * @param connectionProperties properties read from database
+     * @param catalogName          name of the catalog
+     * @param schemaName           name of the schema
+     * @param tableName            name of the table
+     * @return list of all columns in the table
+     */
+    private List<TableColumn> cachedColumns(ConnectionProperties connectionProperties,
+                                            String catalogName,
+                                            String schemaName,
+                                            String tableName) {
+        return metadataCache.get(
+                MetadataCacheService.Type.COLUMNS, connectionProperties.getName(), catalogName, schemaName, tableName,
+                () -> Collections.unmodifiableList(listColumns(connectionProperties, catalogName, schemaName, tableName))
+        );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<MetadataExport<TableColumn>> exportColumns(String connectionName,
+                                                               String catalogName,
+                                                               String schemaName,
+                                                               String tableName) {
+        return getConnProperties(connectionName)
+                .map(i -> handler -> operation("exportColumns", connectionName, () -> {
+                    exportMetadata(i, (provider, con) ->
+                            provider.exportColumns(con, catalogName, schemaName, tableName, handler));
+                    return null;
+                }));
+    }
+
+    /**
+     * Read the metadata by the {@link MetadataProvider} of the database on the new connection
+     *
+     * @param connectionProperties connection stored in db
+     * @param export               export of the metadata passing them into the handler
+     */
+    @SneakyThrows
+    private void exportMetadata(ConnectionProperties connectionProperties, ProviderCall export) {
+        try (Connection con = establishConnection(connectionProperties)) {
+            export.call(metadataProvider(connectionProperties), con);
         }
     }
 
@@ -206,47 +324,53 @@ public class DatabaseServiceImpl implements DatabaseService {
                                           String schemaName,
                                           String tableName) {
         try (Connection con = establishConnection(connectionProperties)) {
-            return listColumns(con, catalogName, schemaName, tableName);
+            return metadataProvider(connectionProperties).listColumns(con, catalogName, schemaName, tableName);
         }
     }
 
     /**
-     * Find all columns in to table. If the connection does not exists, than the result is empty optional.
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<SchemaColumnsExport> exportSchemaColumns(String connectionName,
+                                                             String catalogName,
+                                                             String schemaName) {
+        return getConnProperties(connectionName)
+                .map(i -> handler -> operation("exportSchemaColumns", connectionName, () -> {
+                    exportSchemaColumns(i, catalogName, schemaName, handler);
+                    return null;
+                }));
+    }
+
+    /**
+     * Read columns of all tables in the schema by the {@link MetadataProvider} of the database. Every table is passed
+     * to the handler as soon as its last column is read, so the whole schema is never held in memory.
      *
-     * @param con         open database connection
-     * @param catalogName name of the catalog
-     * @param schemaName  name of the schema
-     * @param tableName   name of the table
-     * @return list of all columns in the table if the connection exists. Otherwise empty
+     * @param connectionProperties connection stored in db
+     * @param catalogName          name of the catalog
+     * @param schemaName           name of the schema
+     * @param handler              handler receiving the columns of one table
      */
-    private List<TableColumn> listColumns(Connection con, String catalogName, String schemaName, String tableName) throws SQLException {
-        final Set<String> primaryKeys = listPrimaryKeys(con, catalogName, schemaName, tableName);
-        final List<TableColumn> columnList = new ArrayList<>();
-        try (ResultSet columns = con.getMetaData().getColumns(
-                catalogName,
-                schemaName,
-                tableName,
-                null)
-        ) {
-            while (columns.next()) {
-                final String columnName = columns.getString("COLUMN_NAME");
-                columnList.add(
-                        new TableColumn(
-                                columns.getInt("ORDINAL_POSITION"),
-                                columnName,
-                                typeNames.get(columns.getInt("DATA_TYPE")),
-                                columns.getInt("COLUMN_SIZE"),
-                                columns.getString("IS_NULLABLE"),
-                                primaryKeys.contains(columnName),
-                                columns.getString("REMARKS"),
-                                columns.getInt("DECIMAL_DIGITS")
-                        )
-                );
-            }
-            return columnList;
+    @SneakyThrows
+    private void exportSchemaColumns(ConnectionProperties connectionProperties,
+                                     String catalogName,
+                                     String schemaName,
+                                     Consumer<TableColumns> handler) {
+        try (Connection con = establishConnection(connectionProperties)) {
+            metadataProvider(connectionProperties).exportSchemaColumns(con, catalogName, schemaName, handler);
         }
     }
 
+    /**
+     * Get the metadata provider for the database of the connection
+     *
+     * @param connectionProperties connection stored in db
+     * @return provider supporting the database
+     */
+    private MetadataProvider metadataProvider(ConnectionProperties connectionProperties) {
+        return metadataProviders.getProvider(connectionProperties.getUrl());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -255,8 +379,102 @@ public class DatabaseServiceImpl implements DatabaseService {
                                                  String catalogName,
                                                  String schemaName,
                                                  String tableName) {
+        return listData(connectionName, catalogName, schemaName, tableName, null, null, null)
+                .map(DataPage::getRows);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<DataPage> listData(String connectionName,
+                                       String catalogName,
+                                       String schemaName,
+                                       String tableName,
+                                       DataSelection selection,
+                                       String continuation,
+                                       Integer pageSize) {
+        return listPage("listData", connectionName, catalogName, schemaName, tableName, selection, continuation,
+                pageSize, (metaData, size) -> new RowPageCollector(metaData.getColumnCount()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<ColumnarData> listColumnarData(String connectionName,
+                                                   String catalogName,
+                                                   String schemaName,
+                                                   String tableName,
+                                                   DataSelection selection,
+                                                   String continuation,
+                                                   Integer pageSize) {
+        return listPage("listColumnarData", connectionName, catalogName, schemaName, tableName, selection,
+                continuation, pageSize, (metaData, size) -> new ColumnarPageCollector(metaData, size, SqlTypes::name));
+    }
+
+    /**
+     * Validate the paging parameters and list one page of data stored in the table
+     *
+     * @param operation        name of the measured operation
+     * @param connectionName   name of the connection stored in db
+     * @param catalogName      name of the catalog
+     * @param schemaName       name of the schema
+     * @param tableName        name of the table
+     * @param selection        selected columns, filters and order or null for everything
+     * @param continuation     token returned with the previous page or null for the first page
+     * @param pageSize         maximal number of rows in the page or null for the default size
+     * @param collectorFactory factory of the collector creating the page
+     * @param <T>              type of the page
+     * @return page of data if the connection exists. Otherwise empty
+     */
+    private <T> Optional<T> listPage(String operation,
+                                     String connectionName,
+                                     String catalogName,
+                                     String schemaName,
+                                     String tableName,
+                                     DataSelection selection,
+                                     String continuation,
+                                     Integer pageSize,
+                                     PageCollector.Factory<T> collectorFactory) {
+        final int size = validPageSize(pageSize);
+        final ContinuationToken token = continuation == null ? null : ContinuationToken.decode(continuation);
         return getConnProperties(connectionName)
-                .map(i -> previewData(i, catalogName, schemaName, tableName));
+                .map(i -> operation(operation, connectionName,
+                        () -> previewData(i, catalogName, schemaName, tableName, selection, token, size,
+                                collectorFactory)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<PageExport> exportDataPage(String connectionName,
+                                               String catalogName,
+                                               String schemaName,
+                                               String tableName,
+                                               DataSelection selection,
+                                               String continuation,
+                                               Integer pageSize) {
+        final int size = validPageSize(pageSize);
+        final ContinuationToken token = continuation == null ? null : ContinuationToken.decode(continuation);
+        return getConnProperties(connectionName)
+                .map(i -> handler -> operation("exportDataPage", connectionName,
+                        () -> previewData(i, catalogName, schemaName, tableName, selection, token, size,
+                                (metaData, maxRows) -> new StreamingPageCollector(metaData, handler))));
+    }
+
+    /**
+     * Get the requested page size or the default one and validate it
+     *
+     * @param pageSize maximal number of rows in the page or null for the default size
+     * @return valid page size
+     */
+    private int validPageSize(Integer pageSize) {
+        final int size = pageSize == null ? previewProperties.getPageSize() : pageSize;
+        Validate.inclusiveBetween(1, previewProperties.getMaxPageSize(), size,
+                "Page size must be between 1 and %d", previewProperties.getMaxPageSize());
+        return size;
     }
 
     /**
@@ -264,9 +482,46 @@ public class DatabaseServiceImpl implements DatabaseService {
      */
     @Override
     public Optional<List<ColumnStatistics>> getColumnsStatistics(String connectionName, String catalogName, String schemaName, String tableName) {
+        return getColumnsStatistics(connectionName, catalogName, schemaName, tableName, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<List<ColumnStatistics>> getColumnsStatistics(String connectionName,
+                                                                 String catalogName,
+                                                                 String schemaName,
+                                                                 String tableName,
+                                                                 Sampling sampling) {
+        validateSampling(sampling);
         return getConnProperties(connectionName)
-                .map(i -> previewColumnStatistics(i, catalogName, schemaName, tableName));
+                .map(i -> operation("getColumnsStatistics", connectionName, () -> coalesce(
+                        Arrays.asList("columnStatistics", connectionName, i.getVersion(), catalogName, schemaName, tableName,
+                                sampling),
+                        () -> previewColumnStatistics(i, catalogName, schemaName, tableName, sampling)
+                )));
+
+    }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<List<ColumnProfile>> getColumnsProfile(String connectionName,
+                                                           String catalogName,
+                                                           String schemaName,
+                                                           String tableName,
+                                                           Integer parallelism) {
+        final int parts = parallelism == null ? 1 : parallelism;
+        Validate.isTrue(parts > 0, "Parallelism must be positive");
+        final int limitedParts = Math.min(parts, Math.min(profileProperties.getMaxParallelism(), poolMaxSize));
+        return getConnProperties(connectionName)
+                .map(i -> operation("getColumnsProfile", connectionName, () -> coalesce(
+                        Arrays.asList("columnProfile", connectionName, i.getVersion(), catalogName, schemaName, tableName,
+                                limitedParts),
+                        () -> profileColumns(i, catalogName, schemaName, tableName, limitedParts)
+                )));
     }
 
     /**
@@ -274,47 +529,750 @@ public class DatabaseServiceImpl implements DatabaseService {
      */
     @Override
     public Optional<TableStatistics> getTableStatistics(String connectionName, String catalogName, String schemaName, String tableName) {
+        return getTableStatistics(connectionName, catalogName, schemaName, tableName, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<TableStatistics> getTableStatistics(String connectionName, String catalogName, String schemaName, String tableName, boolean exact) {
+        return getTableStatistics(connectionName, catalogName, schemaName, tableName, exact, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<TableStatistics> getTableStatistics(String connectionName,
+                                                        String catalogName,
+                                                        String schemaName,
+                                                        String tableName,
+                                                        boolean exact,
+                                                        Sampling sampling) {
+        validateSampling(sampling);
+        Validate.isTrue(!exact || sampling == null, "Exact count cannot be computed from the sample");
         return getConnProperties(connectionName)
-                .map(i -> previewTableStatistics(i, catalogName, schemaName, tableName));
+                .map(i -> operation("getTableStatistics", connectionName, () -> coalesce(
+                        Arrays.asList("tableStatistics", connectionName, i.getVersion(), catalogName, schemaName, tableName,
+                                exact, sampling),
+                        () -> previewTableStatistics(i, catalogName, schemaName, tableName, exact, sampling)
+                )));
 
     }
 
     /**
-     * List sample of data stored in the table and convert them into string to be readable in the HTTP response. If the
-     * connection is not stored, than the result is empty.
+     * Check the size of the sample
+     *
+     * @param sampling size of the sample or null for all rows
+     * @throws IllegalArgumentException if the sampling has not exactly one of percentage and rows or it is out of
+     *                                  range
+     */
+    private static void validateSampling(Sampling sampling) {
+        if (sampling == null) {
+            return;
+        }
+        Validate.isTrue((sampling.getPercent() == null) != (sampling.getRows() == null),
+                "Sample must have either percent or rows");
+        Validate.isTrue(sampling.getPercent() == null || sampling.getPercent() > 0 && sampling.getPercent() <= 100,
+                "Sample percent must be greater than 0 and at most 100");
+        Validate.isTrue(sampling.getRows() == null || sampling.getRows() > 0, "Sample rows must be positive");
+    }
+
+    /**
+     * Compute the percentage of the sampled rows. The target number of rows is converted by the number of rows
+     * estimated by the {@link MetadataProvider} of the database, the rows are counted only if there is no estimate.
      *
+     * @param con                  open database connection
      * @param connectionProperties connection stored in db
      * @param catalogName          name of the catalog
      * @param schemaName           name of the schema
      * @param tableName            name of the table
-     * @return sample data converted into string if the connection exists. Otherwise empty
+     * @param sampling             valid size of the sample
+     * @return percentage of the sampled rows
+     * @throws SQLException if the rows cannot be estimated nor counted
+     */
+    private double samplePercent(Connection con,
+                                 ConnectionProperties connectionProperties,
+                                 String catalogName,
+                                 String schemaName,
+                                 String tableName,
+                                 Sampling sampling) throws SQLException {
+        if (sampling.getPercent() != null) {
+            return sampling.getPercent();
+        }
+        final OptionalLong estimate = metadataProvider(connectionProperties)
+                .estimateRowCount(con, catalogName, schemaName, tableName);
+        final long rowCount = estimate.isPresent()
+                ? estimate.getAsLong()
+                : countRows(con, connectionProperties.getName(),
+                TableSource.table(createFullTableName(catalogName, schemaName, tableName)));
+        return rowCount <= sampling.getRows() ? 100 : sampling.getRows() * 100.0 / rowCount;
+    }
+
+    /**
+     * Measure the operation of the existing connection
+     *
+     * @param operation      name of the operation
+     * @param connectionName name of the existing connection
+     * @param task           operation
+     * @param <T>            type of the result
+     * @return result of the operation
+     */
+    private <T> T operation(String operation, String connectionName, Supplier<T> task) {
+        return metrics.operation("database", operation, connectionName, task);
+    }
+
+    /**
+     * Run the computation once for all identical concurrent requests. Tasks whose {@link QueryControl} does not allow
+     * shared results (statistics jobs reporting their own progress) are not coalesced. The shared computation is
+     * cancelled only when all requests waiting for it are cancelled.
+     *
+     * @param key  name of the operation followed by the connection name and version and the other arguments, so the
+     *             requests after the change of the connection do not join the computation on the old database
+     * @param task computation of the result
+     * @param <T>  type of the result
+     * @return result computed by this or concurrent request
+     */
+    private <T> T coalesce(List<Object> key, Supplier<T> task) {
+        final QueryControl control = QueryControl.current();
+        return control == null || control.isShared() ? statisticsFlights.run(key, task, control) : task.get();
+    }
+
+    /**
+     * List one page of data stored in the table. The selection is validated against the table columns, which are read
+     * from the metadata cache before the connection for the page is borrowed. The page is read by keyset pagination if
+     * the table has primary key, the rows are ordered by it and all its columns are selected, otherwise the already
+     * read rows are skipped. The skipped rows are ordered by the primary key, so the pages do not overlap. Rows of the
+     * table without key are ordered by all selected columns, if some of them cannot be ordered, the rows are returned
+     * in single page. The random sample of the rows is read by the sampling of the database engine and it is returned
+     * in single page, because the next query would read different sample.
+     *
+     * @param connectionProperties connection stored in db
+     * @param catalogName          name of the catalog
+     * @param schemaName           name of the schema
+     * @param tableName            name of the table
+     * @param selection            selected columns, filters and order or null for everything
+     * @param token                position of the page or null for the first page
+     * @param pageSize             maximal number of rows in the page
+     * @param collectorFactory     factory of the collector creating the page
+     * @param <T>                  type of the page
+     * @return page of data
+     */
+    @SneakyThrows
+    private <T> T previewData(ConnectionProperties connectionProperties,
+                              String catalogName,
+                              String schemaName,
+                              String tableName,
+                              DataSelection selection,
+                              ContinuationToken token,
+                              int pageSize,
+                              PageCollector.Factory<T> collectorFactory) {
+        final List<TableColumn> tableColumns = cachedColumns(connectionProperties, catalogName, schemaName, tableName);
+        final SelectionQuery query = selection == null || selection.isEmpty()
+                ? SelectionQuery.ALL
+                : SelectionQuery.of(selection, tableColumns);
+        final Sampling sampling = selection == null ? null : selection.getSample();
+        validateSampling(sampling);
+        Validate.isTrue(sampling == null || token == null, "Sampled data are returned in single page");
+        try (Connection con = establishConnection(connectionProperties)) {
+            final String fullTableName = createFullTableName(catalogName, schemaName, tableName);
+            final List<String> primaryKeys = metadataProvider(connectionProperties)
+                    .listPrimaryKeys(con, catalogName, schemaName, tableName);
+            final String connectionName = connectionProperties.getName();
+            final String selectionHash = ContinuationToken.hashOf(fullTableName, selection);
+            if (token != null) {
+                token.validateSelection(selectionHash);
+            }
+            if (sampling != null) {
+                final TableSource sampledTable = TableSource.sample(metadataProvider(connectionProperties),
+                        fullTableName,
+                        samplePercent(con, connectionProperties, catalogName, schemaName, tableName, sampling));
+                return metrics.database(ServiceMetrics.QUERY, "preview", connectionName, () -> previewDataByOffset(
+                        con, connectionName, sampledTable, query, query.orderBy(primaryKeys), null, null, pageSize,
+                        collectorFactory));
+            }
+            if (!query.isKeyset(primaryKeys)) {
+                final Optional<List<String>> orderKeys = primaryKeys.isEmpty()
+                        ? orderableColumns(query.selectedColumns(tableColumns))
+                        : Optional.of(primaryKeys);
+                // without stable order of the rows the next page could overlap, so there is no continuation
+                return metrics.database(ServiceMetrics.QUERY, "preview", connectionName, () -> previewDataByOffset(
+                        con, connectionName, TableSource.table(fullTableName), query,
+                        query.orderBy(orderKeys.orElse(Collections.emptyList())), token,
+                        orderKeys.isPresent() ? selectionHash : null, pageSize, collectorFactory));
+            }
+            // the key of unsupported type was not stored in the token, the rows ordered by the key are skipped
+            return metrics.database(ServiceMetrics.QUERY, "preview", connectionName, () -> token == null
+                    || token.isKeyset()
+                    ? previewDataByKeys(con, connectionName, fullTableName, query, primaryKeys, token, selectionHash,
+                    pageSize, collectorFactory)
+                    : previewDataByOffset(con, connectionName, TableSource.table(fullTableName), query, primaryKeys,
+                    token, selectionHash, pageSize, collectorFactory));
+        }
+    }
+
+    /**
+     * Get the columns giving stable order to the rows of the table without primary key. The order of identical rows
+     * does not matter, because they cannot be distinguished.
+     *
+     * @param columns selected columns of the table
+     * @return names of the columns or empty if some of them cannot be ordered
+     */
+    private static Optional<List<String>> orderableColumns(List<TableColumn> columns) {
+        final boolean orderable = columns.stream()
+                .map(i -> SqlTypes.type(i.getType()))
+                .allMatch(i -> i != null && !UNORDERABLE_TYPES.contains(i));
+        return orderable
+                ? Optional.of(columns.stream().map(TableColumn::getName).collect(Collectors.toList()))
+                : Optional.empty();
+    }
+
+    /**
+     * List one page of data ordered by primary key. The page starts after the key stored in the token.
+     *
+     * @param con              open database connection
+     * @param connectionName   name of the connection stored in db
+     * @param fullTableName    full table name
+     * @param query            selected columns and filters
+     * @param primaryKeys      primary key columns ordered by their sequence in the key
+     * @param token            position of the page or null for the first page
+     * @param selectionHash    hash of the table and the selection stored in the token of the next page
+     * @param pageSize         maximal number of rows in the page
+     * @param collectorFactory factory of the collector creating the page
+     * @param <T>              type of the page
+     * @return page of data with token pointing after its last row
+     * @throws SQLException if the query fails
+     */
+    private <T> T previewDataByKeys(Connection con,
+                                    String connectionName,
+                                    String fullTableName,
+                                    SelectionQuery query,
+                                    List<String> primaryKeys,
+                                    ContinuationToken token,
+                                    String selectionHash,
+                                    int pageSize,
+                                    PageCollector.Factory<T> collectorFactory) throws SQLException {
+        final List<String> conditions = new ArrayList<>(query.conditions());
+        if (token != null) {
+            Validate.isTrue(token.isKeyset() && token.getValues().size() == primaryKeys.size(),
+                    "Continuation token does not belong to the table");
+            conditions.add(String.format("(%s)", createKeysetCondition(primaryKeys)));
+        }
+        final String sql = createSelect(query, fullTableName, conditions, primaryKeys);
+        return cached(con, connectionName, sql, statement -> {
+            statement.setFetchSize(pageSize + 1);
+            statement.setMaxRows(pageSize + 1);
+            final int next = query.bind(statement, 1);
+            if (token != null) {
+                bindKeysetCondition(statement, token, next);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                final ResultSetMetaData metaData = rs.getMetaData();
+                final PageCollector<T> collector = collectorFactory.create(metaData, pageSize);
+                final int[] keyIndexes = new int[primaryKeys.size()];
+                final List<Integer> types = new ArrayList<>(keyIndexes.length);
+                for (int i = 0; i < keyIndexes.length; i++) {
+                    keyIndexes[i] = rs.findColumn(primaryKeys.get(i));
+                    types.add(metaData.getColumnType(keyIndexes[i]));
+                }
+                final boolean supported = types.stream().allMatch(ContinuationToken::isSupported);
+                int rows = 0;
+                while (rows < pageSize && rs.next()) {
+                    collector.collect(rs);
+                    rows++;
+                }
+                metrics.rows("preview", connectionName, rows);
+                if (rows < pageSize) {
+                    return collector.build(null);
+                }
+                final List<String> lastKey = new ArrayList<>(keyIndexes.length);
+                if (supported) {
+                    for (int i = 0; i < keyIndexes.length; i++) {
+                        lastKey.add(ContinuationToken.readKey(rs, keyIndexes[i], types.get(i)));
+                    }
+                }
+                if (!rs.next()) {
+                    return collector.build(null);
+                }
+                // the key cannot be stored in the token, the next pages skip the rows ordered by the key
+                return collector.build(supported
+                        ? ContinuationToken.ofKeys(types, lastKey, selectionHash).encode()
+                        : ContinuationToken.ofOffset(rows, selectionHash).encode());
+            }
+        });
+    }
+
+    /**
+     * Create condition selecting rows with the key greater than the key of the last read row. The condition is
+     * expanded into disjunction, because not all databases support row value comparison: for key (a, b) it is
+     * {@code (a > ?) or (a = ? and b > ?)}.
+     *
+     * @param primaryKeys primary key columns ordered by their sequence in the key
+     * @return SQL condition with parameters bound by {@link #bindKeysetCondition(PreparedStatement, ContinuationToken, int)}
+     */
+    private String createKeysetCondition(List<String> primaryKeys) {
+        return IntStream.range(0, primaryKeys.size())
+                .mapToObj(i -> Stream.concat(
+                        primaryKeys.subList(0, i).stream().map(c -> String.format("%s = ?", c)),
+                        Stream.of(String.format("%s > ?", primaryKeys.get(i)))
+                ).collect(Collectors.joining(" and ", "(", ")")))
+                .collect(Collectors.joining(" or "));
+    }
+
+    /**
+     * Bind the key stored in token into condition created by {@link #createKeysetCondition(List)}
+     *
+     * @param statement statement with the condition
+     * @param token     token with the key of the last read row
+     * @param first     index of the first parameter of the condition
+     * @throws SQLException if the value cannot be bound
+     */
+    private void bindKeysetCondition(PreparedStatement statement, ContinuationToken token, int first)
+            throws SQLException {
+        int parameter = first;
+        for (int i = 0; i < token.getValues().size(); i++) {
+            for (int j = 0; j <= i; j++) {
+                ContinuationToken.bindKey(statement, parameter++, token.getTypes().get(j), token.getValues().get(j));
+            }
+        }
+    }
+
+    /**
+     * List one page of data of the table, which cannot be paged by the primary key values. Already read rows given by
+     * the token are skipped.
+     *
+     * @param con              open database connection
+     * @param connectionName   name of the connection stored in db
+     * @param table            whole table or its sample
+     * @param query            selected columns, filters and order
+     * @param orderBy          order by items, empty for the database order
+     * @param token            position of the page or null for the first page
+     * @param selectionHash    hash of the table and the selection stored in the token of the next page or null if
+     *                         the page is the last one even if there are more rows
+     * @param pageSize         maximal number of rows in the page
+     * @param collectorFactory factory of the collector creating the page
+     * @param <T>              type of the page
+     * @return page of data with token pointing after its last row
+     * @throws SQLException if the query fails
+     */
+    private <T> T previewDataByOffset(Connection con,
+                                      String connectionName,
+                                      TableSource table,
+                                      SelectionQuery query,
+                                      List<String> orderBy,
+                                      ContinuationToken token,
+                                      String selectionHash,
+                                      int pageSize,
+                                      PageCollector.Factory<T> collectorFactory) throws SQLException {
+        final long offset;
+        if (token == null) {
+            offset = 0;
+        } else {
+            Validate.isTrue(!token.isKeyset(), "Continuation token does not belong to the table");
+            offset = token.getOffset();
+        }
+        final String sql = createSelect(query, table.expression(), query.conditions(), orderBy);
+        return cached(con, connectionName, sql, statement -> {
+            statement.setFetchSize(pageSize + 1);
+            statement.setMaxRows((int) Math.min(Integer.MAX_VALUE, offset + pageSize + 1));
+            query.bind(statement, table.bind(statement, 1));
+            try (ResultSet rs = statement.executeQuery()) {
+                for (long i = 0; i < offset && rs.next(); i++) {
+                    // skip already read rows
+                }
+                final PageCollector<T> collector = collectorFactory.create(rs.getMetaData(), pageSize);
+                int rows = 0;
+                while (rows < pageSize && rs.next()) {
+                    collector.collect(rs);
+                    rows++;
+                }
+                metrics.rows("preview", connectionName, rows);
+                return collector.build(selectionHash != null && rs.next()
+                        ? ContinuationToken.ofOffset(offset + rows, selectionHash).encode()
+                        : null);
+            }
+        });
+    }
+
+    /**
+     * Create the select of the page
+     *
+     * @param query         selected columns
+     * @param fullTableName full table name
+     * @param conditions    conditions joined by and, empty for all rows
+     * @param orderBy       order by items, empty for the database order
+     * @return SQL of the select
+     */
+    private String createSelect(SelectionQuery query,
+                                String fullTableName,
+                                List<String> conditions,
+                                List<String> orderBy) {
+        final StringBuilder sql = new StringBuilder("select ").append(query.selectList())
+                .append(" from ").append(fullTableName);
+        if (!conditions.isEmpty()) {
+            sql.append(" where ").append(String.join(" and ", conditions));
+        }
+        if (!orderBy.isEmpty()) {
+            sql.append(" order by ").append(String.join(", ", orderBy));
+        }
+        return sql.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<TableExport> exportData(String connectionName,
+                                            String catalogName,
+                                            String schemaName,
+                                            String tableName) {
+        return getConnProperties(connectionName)
+                .map(i -> handler -> operation("exportData", connectionName, () -> {
+                    exportData(i, catalogName, schemaName, tableName, handler);
+                    return null;
+                }));
+    }
+
+    /**
+     * Read all rows of the table and pass them one by one into the handler. Rows are fetched from the database in
+     * batches, so the memory consumption does not depend on the table size. The statement is cancelled together with
+     * the request, which is exporting the rows.
+     *
+     * @param connectionProperties connection stored in db
+     * @param catalogName          name of the catalog
+     * @param schemaName           name of the schema
+     * @param tableName            name of the table
+     * @param handler              handler receiving the rows
+     */
+    @SneakyThrows
+    private void exportData(ConnectionProperties connectionProperties,
+                            String catalogName,
+                            String schemaName,
+                            String tableName,
+                            RowHandler handler) {
+        try (Connection con = establishConnection(connectionProperties)) {
+            // some drivers (e.g. PostgreSQL) use cursor based fetching only outside of auto commit mode
+            con.setAutoCommit(false);
+            Throwable failure = null;
+            try (Statement statement = controlled(con.createStatement())) {
+                statement.setFetchSize(exportFetchSize);
+                final String query = String.format("select * from %s",
+                        createFullTableName(catalogName, schemaName, tableName));
+                try (ResultSet rs = metrics.database(ServiceMetrics.QUERY, "export", connectionProperties.getName(),
+                        () -> statement.executeQuery(query))) {
+                    final ResultSetMetaData metaData = rs.getMetaData();
+                    final int columnCount = metaData.getColumnCount();
+                    final List<String> columnNames = new ArrayList<>(columnCount);
+                    for (int i = 1; i <= columnCount; i++) {
+                        columnNames.add(metaData.getColumnLabel(i));
+                    }
+                    handler.start(columnNames);
+                    long rows = 0;
+                    while (rs.next()) {
+                        handler.row(
+                                IntStream.rangeClosed(1, columnCount)
+                                        .mapToObj(i -> extractFromResultSet(rs, i))
+                                        .collect(Collectors.toList())
+                        );
+                        rows++;
+                    }
+                    metrics.rows("export", connectionProperties.getName(), rows);
+                }
+            } catch (Throwable e) {
+                failure = e;
+                throw e;
+            } finally {
+                rollback(con, failure);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<QueryExport> executeQuery(String connectionName,
+                                              String sql,
+                                              List<Object> parameters,
+                                              Integer maxRows) {
+        QueryValidator.validate(sql);
+        final int limit = maxRows == null ? queryProperties.getMaxRows() : maxRows;
+        Validate.inclusiveBetween(1, queryProperties.getMaxRows(), limit,
+                "Row limit must be between 1 and %d", queryProperties.getMaxRows());
+        final List<Object> values = parameters == null ? Collections.emptyList() : parameters;
+        return getConnProperties(connectionName)
+                .map(i -> handler -> operation("executeQuery", connectionName, () -> {
+                    executeQuery(i, sql, values, limit, handler);
+                    return null;
+                }));
+    }
+
+    /**
+     * Run the read-only query and pass at most limit rows of its result one by one into the handler. The query runs in
+     * read-only transaction, which is always rolled back. If the engine cannot enforce it, the query is refused or
+     * validated by the stricter rules if it is allowed. The pool restores the connection mode when the connection is
+     * returned.
+     *
+     * @param connectionProperties connection stored in db
+     * @param sql                  validated select statement
+     * @param parameters           values bound to the placeholders
+     * @param limit                maximal number of returned rows
+     * @param handler              handler receiving the rows
+     */
+    @SneakyThrows
+    private void executeQuery(ConnectionProperties connectionProperties,
+                              String sql,
+                              List<Object> parameters,
+                              int limit,
+                              QueryHandler handler) {
+        try (Connection con = establishConnection(connectionProperties)) {
+            final boolean enforced = metadataProvider(connectionProperties).startReadOnlyTransaction(con);
+            Throwable failure = null;
+            try (PreparedStatement statement = controlled(con.prepareStatement(sql))) {
+                if (!enforced) {
+                    Validate.isTrue(queryProperties.isAllowUnenforcedReadOnly(),
+                            "Database of the connection cannot enforce read-only query");
+                    QueryValidator.validateUnenforced(sql);
+                }
+                final int timeout = (int) Math.max(1, queryProperties.getTimeout().getSeconds());
+                if (statement.getQueryTimeout() == 0 || statement.getQueryTimeout() > timeout) {
+                    statement.setQueryTimeout(timeout);
+                }
+                // one more row tells that the result was truncated
+                statement.setMaxRows(limit + 1);
+                statement.setFetchSize(Math.min(exportFetchSize, limit + 1));
+                for (int i = 0; i < parameters.size(); i++) {
+                    if (parameters.get(i) == null) {
+                        statement.setNull(i + 1, Types.NULL);
+                    } else {
+                        statement.setObject(i + 1, parameters.get(i));
+                    }
+                }
+                try (ResultSet rs = metrics.database(ServiceMetrics.QUERY, "query", connectionProperties.getName(),
+                        statement::executeQuery)) {
+                    final ResultSetMetaData metaData = rs.getMetaData();
+                    final int columnCount = metaData.getColumnCount();
+                    final List<String> columnNames = new ArrayList<>(columnCount);
+                    for (int i = 1; i <= columnCount; i++) {
+                        columnNames.add(metaData.getColumnLabel(i));
+                    }
+                    handler.start(columnNames);
+                    int rows = 0;
+                    boolean truncated = false;
+                    while (rs.next()) {
+                        if (rows == limit) {
+                            truncated = true;
+                            break;
+                        }
+                        final List<String> row = new ArrayList<>(columnCount);
+                        for (int i = 1; i <= columnCount; i++) {
+                            row.add(rs.getString(i));
+                        }
+                        handler.row(row);
+                        rows++;
+                    }
+                    metrics.rows("query", connectionProperties.getName(), rows);
+                    handler.end(truncated);
+                }
+            } catch (Throwable e) {
+                failure = e;
+                throw e;
+            } finally {
+                rollback(con, failure);
+            }
+        }
+    }
+
+    /**
+     * Profile all columns of the table. If the parallelism is greater than one and the table has single integer primary
+     * key, than the key range is split and the parts are profiled in parallel, otherwise the table is profiled on the
+     * calling thread.
+     *
+     * @param connectionProperties connection stored in db
+     * @param catalogName          name of the catalog
+     * @param schemaName           name of the schema
+     * @param tableName            name of the table
+     * @param parallelism          maximal number of parts profiled in parallel
+     * @return profiles of the columns
+     */
+    @SneakyThrows
+    private List<ColumnProfile> profileColumns(ConnectionProperties connectionProperties,
+                                               String catalogName,
+                                               String schemaName,
+                                               String tableName,
+                                               int parallelism) {
+        final String fullTableName = createFullTableName(catalogName, schemaName, tableName);
+        String keyColumn = null;
+        List<long[]> ranges = Collections.emptyList();
+        if (parallelism > 1) {
+            try (Connection con = establishConnection(connectionProperties)) {
+                final List<String> primaryKeys = metadataProvider(connectionProperties)
+                        .listPrimaryKeys(con, catalogName, schemaName, tableName);
+                if (primaryKeys.size() == 1) {
+                    keyColumn = primaryKeys.get(0);
+                    final String key = keyColumn;
+                    ranges = metrics.database(ServiceMetrics.QUERY, "keyRange", connectionProperties.getName(),
+                            () -> splitKeyRange(con, fullTableName, key, parallelism));
+                }
+            }
+        }
+        final List<ColumnSketch> sketches;
+        if (ranges.size() > 1) {
+            final String rangeKey = keyColumn;
+            // the parts are cancelled together with the calling task
+            final QueryControl control = QueryControl.current();
+            final List<CompletableFuture<List<ColumnSketch>>> futures = ranges.stream()
+                    .map(i -> CompletableFuture.supplyAsync(
+                            () -> control == null
+                                    ? profileRange(connectionProperties, fullTableName, rangeKey, i)
+                                    : control.run(() -> profileRange(connectionProperties, fullTableName, rangeKey, i)),
+                            profilingExecutor
+                    ))
+                    .collect(Collectors.toList());
+            try {
+                sketches = futures.get(0).join();
+                for (CompletableFuture<List<ColumnSketch>> future : futures.subList(1, futures.size())) {
+                    final List<ColumnSketch> part = future.join();
+                    for (int i = 0; i < sketches.size(); i++) {
+                        sketches.get(i).merge(part.get(i));
+                    }
+                }
+            } catch (CompletionException e) {
+                futures.forEach(i -> i.cancel(true));
+                throw e.getCause();
+            }
+        } else {
+            sketches = profileRange(connectionProperties, fullTableName, null, null);
+        }
+        return sketches.stream()
+                .map(i -> i.toProfile(profileProperties.getQuantiles(), profileProperties.getTopValues()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Split the range of the integer key into parts of similar size
+     *
+     * @param con           open database connection
+     * @param fullTableName full table name
+     * @param keyColumn     name of the key column
+     * @param parts         requested number of parts
+     * @return inclusive ranges of the key or empty list if the key is not integer or the table is empty
+     * @throws SQLException if the query fails
+     */
+    private List<long[]> splitKeyRange(Connection con,
+                                       String fullTableName,
+                                       String keyColumn,
+                                       int parts) throws SQLException {
+        try (Statement statement = controlled(con.createStatement());
+             ResultSet rs = statement.executeQuery(
+                     String.format("select min(%1$s), max(%1$s) from %2$s", keyColumn, fullTableName)
+             )) {
+            if (!INTEGER_TYPES.contains(rs.getMetaData().getColumnType(1)) || !rs.next()) {
+                return Collections.emptyList();
+            }
+            final long min = rs.getLong(1);
+            if (rs.wasNull()) {
+                return Collections.emptyList();
+            }
+            final BigInteger start = BigInteger.valueOf(min);
+            final BigInteger span = BigInteger.valueOf(rs.getLong(2)).subtract(start).add(BigInteger.ONE);
+            final BigInteger count = BigInteger.valueOf(parts);
+            final List<long[]> ranges = new ArrayList<>(parts);
+            for (int i = 0; i < parts; i++) {
+                final long from = start.add(span.multiply(BigInteger.valueOf(i)).divide(count)).longValue();
+                final long to = start.add(span.multiply(BigInteger.valueOf(i + 1)).divide(count))
+                        .subtract(BigInteger.ONE).longValue();
+                if (from <= to) {
+                    ranges.add(new long[]{from, to});
+                }
+            }
+            return ranges;
+        }
+    }
+
+    /**
+     * Build sketches of all columns from the rows of the table in single pass. Rows are fetched from the database in
+     * batches, so the memory consumption does not depend on the number of rows.
+     *
+     * @param connectionProperties connection stored in db
+     * @param fullTableName        full table name
+     * @param keyColumn            name of the key column or null if the whole table is profiled
+     * @param range                inclusive range of the key or null if the whole table is profiled
+     * @return sketches of the columns in the table order
      */
     @SneakyThrows
-    private List<List<String>> previewData(ConnectionProperties connectionProperties,
-                                           String catalogName,
-                                           String schemaName,
-                                           String tableName) {
-        try (Connection con = establishConnection(connectionProperties);
-             Statement statement = con.createStatement()) {
-            final int fetchSize = 20;
-            statement.setFetchSize(fetchSize);
-            statement.setMaxRows(fetchSize);
-            List<List<String>> retResults = new ArrayList<>();
-            try (ResultSet rs = statement.executeQuery(
-                    String.format("select * from %s", createFullTableName(catalogName, schemaName, tableName))
-            )) {
-                int columnCount = rs.getMetaData().getColumnCount();
-                while (rs.next()) {
-                    List<String> resLine = IntStream.rangeClosed(1, columnCount)
-                            .mapToObj(i -> extractFromResultSet(rs, i))
-                            .collect(Collectors.toList());
-                    retResults.add(resLine);
+    private List<ColumnSketch> profileRange(ConnectionProperties connectionProperties,
+                                            String fullTableName,
+                                            String keyColumn,
+                                            long[] range) {
+        final String query = range == null
+                ? String.format("select * from %s", fullTableName)
+                : String.format("select * from %1$s where %2$s >= ? and %2$s <= ?", fullTableName, keyColumn);
+        try (Connection con = establishConnection(connectionProperties)) {
+            // some drivers (e.g. PostgreSQL) use cursor based fetching only outside of auto commit mode
+            con.setAutoCommit(false);
+            Throwable failure = null;
+            try (PreparedStatement statement = controlled(con.prepareStatement(query))) {
+                statement.setFetchSize(exportFetchSize);
+                if (range != null) {
+                    statement.setLong(1, range[0]);
+                    statement.setLong(2, range[1]);
+                }
+                try (ResultSet rs = metrics.database(ServiceMetrics.QUERY, "profile", connectionProperties.getName(),
+                        statement::executeQuery)) {
+                    final ResultSetMetaData metaData = rs.getMetaData();
+                    final List<ColumnSketch> sketches = new ArrayList<>(metaData.getColumnCount());
+                    for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                        sketches.add(new ColumnSketch(
+                                metaData.getColumnLabel(i),
+                                SqlTypes.name(metaData.getColumnType(i)),
+                                NUMERIC_TYPES.contains(metaData.getColumnType(i)),
+                                profileProperties.getDistinctPrecision(),
+                                profileProperties.getTopValues() * 10,
+                                profileProperties.getQuantileSketchSize()
+                        ));
+                    }
+                    long rows = 0;
+                    while (rs.next()) {
+                        for (int i = 0; i < sketches.size(); i++) {
+                            final ColumnSketch sketch = sketches.get(i);
+                            sketch.add(rs.getString(i + 1), sketch.isNumeric() ? rs.getDouble(i + 1) : 0);
+                        }
+                        rows++;
+                    }
+                    metrics.rows("profile", connectionProperties.getName(), rows);
+                    return sketches;
                 }
-                return retResults;
+            } catch (Throwable e) {
+                failure = e;
+                throw e;
+            } finally {
+                rollback(con, failure);
             }
         }
     }
 
+    /**
+     * Roll back the work done on the connection. If the work failed, than the failure of the rollback is added to the
+     * failure of the work as suppressed, so it does not hide the original cause.
+     *
+     * @param con     open database connection outside of auto commit mode
+     * @param failure failure of the work or null if it succeeded
+     * @throws SQLException if the rollback of the successful work fails
+     */
+    private static void rollback(Connection con, Throwable failure) throws SQLException {
+        if (failure == null) {
+            con.rollback();
+            return;
+        }
+        try {
+            con.rollback();
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
     /**
      * Create full table name with basic SQL injection protection
      *
@@ -337,85 +1295,219 @@ public class DatabaseServiceImpl implements DatabaseService {
      * @param catalogName          name of the catalog
      * @param schemaName           name of the schema
      * @param tableName            name of the table
+     * @param sampling             size of the sample or null for all rows
      * @return column statistics if the connection exists. Otherwise empty
      */
     @SneakyThrows
     private List<ColumnStatistics> previewColumnStatistics(ConnectionProperties connectionProperties,
                                                            String catalogName,
                                                            String schemaName,
-                                                           String tableName) {
-        try (Connection con = establishConnection(connectionProperties);
-             Statement statement = con.createStatement()) {
-            final String fullTableName = createFullTableName(catalogName, schemaName, tableName);
-            return listColumns(con, catalogName, schemaName, tableName).stream()
-                    .map(i -> computeStatistics(fullTableName, statement, i))
-                    .collect(Collectors.toList());
+                                                           String tableName,
+                                                           Sampling sampling) {
+        try (Connection con = establishConnection(connectionProperties)) {
+            final Double samplePercent = sampling == null
+                    ? null
+                    : samplePercent(con, connectionProperties, catalogName, schemaName, tableName, sampling);
+            final TableSource table = samplePercent == null
+                    ? TableSource.table(createFullTableName(catalogName, schemaName, tableName))
+                    : TableSource.sample(metadataProvider(connectionProperties),
+                    createFullTableName(catalogName, schemaName, tableName), samplePercent);
+            final List<List<TableColumn>> batches = Lists.partition(
+                    metadataProvider(connectionProperties).listColumns(con, catalogName, schemaName, tableName),
+                    statisticsBatchSize
+            );
+            final List<ColumnStatistics> statistics = new ArrayList<>();
+            for (int i = 0; i < batches.size(); i++) {
+                reportProgress(i, batches.size());
+                final List<TableColumn> batch = batches.get(i);
+                statistics.addAll(metrics.database(ServiceMetrics.QUERY, "statistics", connectionProperties.getName(),
+                        () -> computeStatistics(con, connectionProperties.getName(), table, batch,
+                                samplePercent)));
+            }
+            reportProgress(batches.size(), batches.size());
+            return statistics;
         }
     }
 
     /**
-     * Get the table statistics for the table in the catalog and schema. If the
-     * connection is not stored, than the result is empty.
+     * Get the table statistics for the table in the catalog and schema. The number of rows is estimated by the
+     * {@link MetadataProvider} of the database, unless the exact count is requested or there is no estimate. If the
+     * sampling is requested, than the rows are counted in the sample and the count is extrapolated.
      *
      * @param connectionProperties connection stored in db
      * @param catalogName          name of the catalog
      * @param schemaName           name of the schema
      * @param tableName            name of the table
-     * @return table statistics if the connection exists. Otherwise empty
+     * @param exact                true if the rows must be counted
+     * @param sampling             size of the sample or null for all rows
+     * @return table statistics
      */
     @SneakyThrows
     private TableStatistics previewTableStatistics(ConnectionProperties connectionProperties,
                                                    String catalogName,
                                                    String schemaName,
-                                                   String tableName) {
-        final String fullTableName = createFullTableName(catalogName, schemaName, tableName);
-        try (Connection con = establishConnection(connectionProperties);
-             Statement statement = con.createStatement();
-             ResultSet resultSet = statement.executeQuery(
-                     String.format("select count(*) from %s", fullTableName)
-             )) {
-            if (resultSet.next()) {
-                final Integer rowCount = resultSet.getInt(1);
-                List<TableColumn> columns = listColumns(con, catalogName, schemaName, tableName);
-                return new TableStatistics(
-                        rowCount,
-                        columns.size(),
-                        columns
-                );
+                                                   String tableName,
+                                                   boolean exact,
+                                                   Sampling sampling) {
+        reportProgress(0, 1);
+        try (Connection con = establishConnection(connectionProperties)) {
+            final String fullTableName = createFullTableName(catalogName, schemaName, tableName);
+            final Double samplePercent = sampling == null
+                    ? null
+                    : samplePercent(con, connectionProperties, catalogName, schemaName, tableName, sampling);
+            final OptionalLong estimate = exact || samplePercent != null
+                    ? OptionalLong.empty()
+                    : metadataProvider(connectionProperties).estimateRowCount(con, catalogName, schemaName, tableName);
+            final long rowCount;
+            if (samplePercent != null) {
+                final TableSource sampledTable = TableSource.sample(metadataProvider(connectionProperties),
+                        fullTableName, samplePercent);
+                rowCount = Math.round(metrics.database(ServiceMetrics.QUERY, "count", connectionProperties.getName(),
+                        () -> countRows(con, connectionProperties.getName(), sampledTable)) * 100 / samplePercent);
             } else {
-                throw new IllegalStateException("Count does not have any results");
+                rowCount = estimate.isPresent()
+                        ? estimate.getAsLong()
+                        : metrics.database(ServiceMetrics.QUERY, "count", connectionProperties.getName(),
+                        () -> countRows(con, connectionProperties.getName(), TableSource.table(fullTableName)));
             }
+            reportProgress(1, 1);
+            final List<TableColumn> columns = metadataProvider(connectionProperties)
+                    .listColumns(con, catalogName, schemaName, tableName);
+            return new TableStatistics(
+                    rowCount,
+                    samplePercent == null && !estimate.isPresent(),
+                    columns.size(),
+                    columns,
+                    samplePercent
+            );
         }
     }
 
     /**
-     * Compute column statistics for given table column. Supported statistics are: min, max and number of null entries
+     * Count all rows in the table
      *
-     * @param fullTableName full table name
-     * @param statement     statement for execution
-     * @param tableColumn   column to be evaluated
-     * @return statistics for given column
+     * @param con            open database connection
+     * @param connectionName name of the connection stored in db
+     * @param table          whole table or its sample
+     * @return number of rows
+     * @throws SQLException if the query fails
+     */
+    private long countRows(Connection con, String connectionName, TableSource table) throws SQLException {
+        return cached(con, connectionName, String.format("select count(*) from %s", table.expression()), statement -> {
+            table.bind(statement, 1);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getLong(1);
+                } else {
+                    throw new IllegalStateException("Count does not have any results");
+                }
+            }
+        });
+    }
+
+    /**
+     * Compute column statistics for given table columns by single aggregate query, so the table is scanned only once
+     * for all of them. Supported statistics are: min, max and number of null entries
+     *
+     * @param con            open database connection
+     * @param connectionName name of the connection stored in db
+     * @param table          whole table or its sample
+     * @param tableColumns   columns to be evaluated
+     * @param samplePercent  percentage of the sampled rows or null if the whole table is read
+     * @return statistics for given columns in the same order
      */
     @SneakyThrows
-    private ColumnStatistics computeStatistics(String fullTableName, Statement statement, TableColumn tableColumn) {
-        final String columnName = tableColumn.getName();
-        try (ResultSet rs = statement.executeQuery(
-                String.format(
-                        "select min(%1$s), max(%1$s), " +
-                                "sum(case when %1$s is null then 1 else 0 end) from %2$s",
-                        columnName,
-                        fullTableName)
-        )) {
-            if (rs.next()) {
-                return new ColumnStatistics(
-                        columnName,
-                        rs.getString(1),
-                        rs.getString(2),
-                        rs.getInt(3)
-                );
-            } else {
-                throw new IllegalStateException("Count does not have any results");
+    private List<ColumnStatistics> computeStatistics(Connection con,
+                                                     String connectionName,
+                                                     TableSource table,
+                                                     List<TableColumn> tableColumns,
+                                                     Double samplePercent) {
+        final String selectList = tableColumns.stream()
+                .map(i -> String.format(
+                        "min(%1$s), max(%1$s), sum(case when %1$s is null then 1 else 0 end)",
+                        i.getName()))
+                .collect(Collectors.joining(", "));
+        final String query = String.format("select %s from %s", selectList, table.expression());
+        return cached(con, connectionName, query, statement -> {
+            table.bind(statement, 1);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (rs.next()) {
+                    final List<ColumnStatistics> statistics = new ArrayList<>(tableColumns.size());
+                    for (int i = 0; i < tableColumns.size(); i++) {
+                        final int offset = i * 3;
+                        statistics.add(
+                                new ColumnStatistics(
+                                        tableColumns.get(i).getName(),
+                                        rs.getString(offset + 1),
+                                        rs.getString(offset + 2),
+                                        rs.getInt(offset + 3),
+                                        samplePercent
+                                )
+                        );
+                    }
+                    return statistics;
+                } else {
+                    throw new IllegalStateException("Count does not have any results");
+                }
+            }
+        });
+    }
+
+    /**
+     * Register the statement in the {@link QueryControl} of the current background task or request, so it gets the
+     * query timeout and it can be cancelled. Statements created outside of the controlled task are not changed.
+     *
+     * @param statement newly created statement
+     * @param <S>       type of the statement
+     * @return the same statement
+     * @throws SQLException if the timeout cannot be set
+     */
+    private static <S extends Statement> S controlled(S statement) throws SQLException {
+        final QueryControl control = QueryControl.current();
+        return control == null ? statement : control.register(statement);
+    }
+
+    /**
+     * Run the call with the cached prepared statement registered in the {@link QueryControl} of the current
+     * background task or request, so it gets the query timeout and it can be cancelled. The statement is released from
+     * the control after the call, because it can be used by other task later.
+     *
+     * @param con            open database connection
+     * @param connectionName name of the connection stored in db
+     * @param sql            SQL of the statement
+     * @param call           call using the statement, which must not close it
+     * @param <T>            type of the result
+     * @return result of the call
+     * @throws SQLException if the statement cannot be prepared or the call fails
+     */
+    private <T> T cached(Connection con,
+                         String connectionName,
+                         String sql,
+                         StatementCache.StatementCall<T> call) throws SQLException {
+        return statementCache.execute(con, connectionName, sql, statement -> {
+            final QueryControl control = QueryControl.current();
+            if (control == null) {
+                return call.call(statement);
             }
+            control.register(statement);
+            try {
+                return call.call(statement);
+            } finally {
+                control.release(statement);
+            }
+        });
+    }
+
+    /**
+     * Report progress to the {@link QueryControl} of the current background task, if there is any
+     *
+     * @param completed number of finished steps
+     * @param total     number of all steps
+     */
+    private static void reportProgress(int completed, int total) {
+        final QueryControl control = QueryControl.current();
+        if (control != null) {
+            control.progress(completed, total);
         }
     }
 
@@ -442,17 +1534,28 @@ public class DatabaseServiceImpl implements DatabaseService {
     }
 
     /**
-     * Create new connection into database defined by properties
+     * Borrow connection into database defined by properties from the connection pool. The connection is returned back
+     * into the pool when it is closed.
      *
      * @param properties properties for database connection
-     * @return new database connection
+     * @return pooled database connection
      * @throws SQLException if there is some problem with connection initialization
      */
     private Connection establishConnection(ConnectionProperties properties) throws SQLException {
-        return DriverManager.getConnection(
-                properties.getUrl(),
-                properties.getUsername(),
-                properties.getPassword()
-        );
+        return metrics.database(ServiceMetrics.CONNECTION_ACQUIRE, "pool", properties.getName(),
+                () -> connectionPoolRegistry.getDataSource(properties).getConnection());
+    }
+
+    /**
+     * Call of the {@link MetadataProvider} on the open connection
+     */
+    @FunctionalInterface
+    private interface ProviderCall {
+        /**
+         * @param provider provider of the database
+         * @param con      open database connection
+         * @throws SQLException if reading of the metadata fails
+         */
+        void call(MetadataProvider provider, Connection con) throws SQLException;
     }
 }
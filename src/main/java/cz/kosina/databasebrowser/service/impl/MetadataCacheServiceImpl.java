@@ -0,0 +1,173 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import cz.kosina.databasebrowser.config.DatabaseBrowserProperties;
+import cz.kosina.databasebrowser.domain.event.ConnectionChangedEvent;
+import cz.kosina.databasebrowser.service.api.MetadataCacheService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.SneakyThrows;
+import org.apache.commons.lang3.Validate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Implementation of {@link MetadataCacheService} backed by bounded LRU cache. Every entry has time to live given by
+ * the connection it belongs to. Entries loaded while the connection was invalidated are not kept.
+ */
+@Service
+public class MetadataCacheServiceImpl implements MetadataCacheService {
+
+    /**
+     * Settings of the cache
+     */
+    private final DatabaseBrowserProperties.MetadataCache cacheProperties;
+    /**
+     * Cached entries
+     */
+    private final Cache<Key, Entry> cache;
+    /**
+     * Generations of the connections incremented by every invalidation, so the entries loaded before the invalidation
+     * are not kept
+     */
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MetadataCacheServiceImpl(DatabaseBrowserProperties properties) {
+        this.cacheProperties = Validate.notNull(properties).getMetadataCache();
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(cacheProperties.getMaxSize())
+                .build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    @SneakyThrows
+    @Override
+    public <T> T get(Type type, String connectionName, String catalogName, String schemaName, String tableName,
+                     Supplier<T> loader) {
+        final Key key = new Key(type, connectionName, catalogName, schemaName, tableName);
+        final Entry cached = cache.getIfPresent(key);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                return (T) cached.getValue();
+            }
+            cache.asMap().remove(key, cached);
+        }
+        try {
+            final Entry loaded = cache.get(key, () -> {
+                final long readGeneration = generationOf(connectionName).get();
+                return new Entry(
+                        loader.get(),
+                        System.nanoTime() + ttlOf(connectionName).toNanos(),
+                        readGeneration
+                );
+            });
+            // the connection was invalidated while the entry was loaded, so it can contain stale metadata
+            if (generationOf(connectionName).get() != loaded.getGeneration()) {
+                cache.asMap().remove(key, loaded);
+            }
+            return (T) loaded.getValue();
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidate(String connectionName, String catalogName, String schemaName, String tableName) {
+        generationOf(connectionName).incrementAndGet();
+        cache.asMap().keySet().removeIf(i -> i.getConnectionName().equals(connectionName)
+                && (catalogName == null || Objects.equals(i.getCatalogName(), catalogName))
+                && (schemaName == null || Objects.equals(i.getSchemaName(), schemaName))
+                && (tableName == null || Objects.equals(i.getTableName(), tableName)));
+    }
+
+    /**
+     * Drop all entries of the connection which was changed
+     *
+     * @param event event with name of the changed connection
+     */
+    @EventListener
+    public void onConnectionChanged(ConnectionChangedEvent event) {
+        invalidate(event.getName(), null, null, null);
+    }
+
+    /**
+     * Get generation of the connection, which is incremented before its entries are invalidated
+     *
+     * @param connectionName name of the connection stored in db
+     * @return generation of the connection
+     */
+    private AtomicLong generationOf(String connectionName) {
+        return generations.computeIfAbsent(connectionName, i -> new AtomicLong());
+    }
+
+    /**
+     * Get time to live of entries for the connection
+     *
+     * @param connectionName name of the connection stored in db
+     * @return time to live for the connection or the default one
+     */
+    private Duration ttlOf(String connectionName) {
+        return cacheProperties.getConnectionTtl().getOrDefault(connectionName, cacheProperties.getTtl());
+    }
+
+    /**
+     * Identification of the cached entry
+     */
+    @Data
+    @AllArgsConstructor
+    private static class Key {
+        private final Type type;
+        private final String connectionName;
+        private final String catalogName;
+        private final String schemaName;
+        private final String tableName;
+    }
+
+    /**
+     * Cached value together with its expiration
+     */
+    @Data
+    @AllArgsConstructor
+    private static class Entry {
+        /**
+         * Cached value
+         */
+        private final Object value;
+        /**
+         * Value of {@link System#nanoTime()} after which the entry is expired
+         */
+        private final long expiresAt;
+        /**
+         * Generation of the connection when the loading of the value started
+         */
+        private final long generation;
+
+        /**
+         * Check if the entry is expired
+         *
+         * @return true if the time to live of the entry elapsed
+         */
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+    }
+}
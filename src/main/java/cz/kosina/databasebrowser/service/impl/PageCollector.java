@@ -0,0 +1,48 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Collector of rows read into one page of data
+ *
+ * @param <T> type of the created page
+ */
+interface PageCollector<T> {
+
+    /**
+     * Collect the current row of the result set
+     *
+     * @param rs result set positioned on the row
+     * @throws SQLException if the row cannot be read
+     */
+    void collect(ResultSet rs) throws SQLException;
+
+    /**
+     * Create page from all collected rows
+     *
+     * @param continuation token of the next page or null if this is the last page
+     * @return created page
+     */
+    T build(String continuation);
+
+    /**
+     * Factory of the collectors
+     *
+     * @param <T> type of the created page
+     */
+    @FunctionalInterface
+    interface Factory<T> {
+
+        /**
+         * Create new empty collector for the result set
+         *
+         * @param metaData metadata of the result set
+         * @param pageSize maximal number of rows in the page
+         * @return new collector
+         * @throws SQLException if metadata cannot be read
+         */
+        PageCollector<T> create(ResultSetMetaData metaData, int pageSize) throws SQLException;
+    }
+}
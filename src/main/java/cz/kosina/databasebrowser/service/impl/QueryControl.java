@@ -0,0 +1,184 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Control of the database work done by one background task or request. While the task runs, the control is bound to
+ * its thread, so the statements created by {@link DatabaseServiceImpl} are registered here, get the query timeout and
+ * can be cancelled from other thread. The task also reports its progress through the control.
+ */
+public class QueryControl {
+
+    private static final ThreadLocal<QueryControl> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Query timeout in seconds applied to every registered statement, zero means no timeout
+     */
+    private final int queryTimeout;
+    /**
+     * True if the task can share the result of identical concurrent task instead of computing its own
+     */
+    private final boolean shared;
+    /**
+     * Statements created by the task
+     */
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+    /**
+     * Actions run when the task is cancelled
+     */
+    private final List<Runnable> cancelListeners = new CopyOnWriteArrayList<>();
+    /**
+     * Number of threads running the task, the task can run on more threads in parallel
+     */
+    private final AtomicInteger runs = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile int completedSteps;
+    private volatile int totalSteps;
+
+    public QueryControl(int queryTimeout, boolean shared) {
+        this.queryTimeout = queryTimeout;
+        this.shared = shared;
+    }
+
+    /**
+     * Get the control bound to the current thread
+     *
+     * @return control of the running task or null if the thread does not run any controlled task
+     */
+    public static QueryControl current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Run the task with this control bound to the current thread. The same control can be bound to more threads
+     * running parts of the task in parallel.
+     *
+     * @param task task doing the database work
+     * @param <T>  type of the result
+     * @return result of the task
+     * @throws CancellationException if the control was cancelled before the task started
+     */
+    public <T> T run(Supplier<T> task) {
+        checkCancelled();
+        final QueryControl previous = CURRENT.get();
+        CURRENT.set(this);
+        runs.incrementAndGet();
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+            if (runs.decrementAndGet() == 0) {
+                statements.clear();
+            }
+        }
+    }
+
+    /**
+     * Register the statement, so it can be cancelled, and apply the query timeout on it
+     *
+     * @param statement newly created statement
+     * @param <S>       type of the statement
+     * @return the same statement
+     * @throws SQLException          if the timeout cannot be set
+     * @throws CancellationException if the control is already cancelled
+     */
+    public <S extends Statement> S register(S statement) throws SQLException {
+        checkCancelled();
+        statement.setQueryTimeout(queryTimeout);
+        statements.add(statement);
+        // cancel could run between the check and the registration, so the statement would be missed by it
+        checkCancelled();
+        return statement;
+    }
+
+    /**
+     * Stop cancelling of the statement, which is not closed after its use, but it is kept for other tasks
+     *
+     * @param statement registered statement
+     */
+    public void release(Statement statement) {
+        statements.remove(statement);
+    }
+
+    /**
+     * Report the progress of the task
+     *
+     * @param completed number of finished steps
+     * @param total     number of all steps
+     */
+    public void progress(int completed, int total) {
+        this.totalSteps = total;
+        this.completedSteps = completed;
+    }
+
+    /**
+     * Cancel the task. All registered statements are cancelled, so the running queries stop in the database, and no
+     * other statement can be registered.
+     */
+    public void cancel() {
+        cancelled = true;
+        for (Runnable listener : cancelListeners) {
+            // the listener added concurrently by onCancel can be run by it, the removal decides who runs it
+            if (cancelListeners.remove(listener)) {
+                listener.run();
+            }
+        }
+        for (Statement statement : statements) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                // the statement is already closed or the driver does not support cancelling, nothing to stop
+            }
+        }
+    }
+
+    /**
+     * Add the action run when the task is cancelled. If the task is already cancelled, the action is run immediately.
+     *
+     * @param listener action run on cancel
+     */
+    public void onCancel(Runnable listener) {
+        cancelListeners.add(listener);
+        if (cancelled && cancelListeners.remove(listener)) {
+            listener.run();
+        }
+    }
+
+    public int getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public int getCompletedSteps() {
+        return completedSteps;
+    }
+
+    public int getTotalSteps() {
+        return totalSteps;
+    }
+
+    private void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Task was cancelled");
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Validation of the ad-hoc query before it is sent to the database. The query must be single statement starting by
+ * {@code select}, {@code with} or {@code values} and it must not contain keywords of statements changing the data.
+ * Comments, string literals and quoted identifiers are skipped, so they can contain anything. The engine is not known
+ * here, so the query is split into words by the literal syntax of every supported engine (standard doubled quotes,
+ * MySQL backslash escapes, PostgreSQL dollar quoting and escape strings) and it must pass in all of them.
+ * <p>
+ * The validation only rejects obvious writes with clear message. The query is protected by the read-only transaction
+ * enforced by the database, see {@link cz.kosina.databasebrowser.service.api.MetadataProvider#startReadOnlyTransaction}.
+ * On engines, which cannot enforce it, the stricter {@link #validateUnenforced(String)} is the only barrier, but the
+ * query can still call a function with side effects there.
+ */
+final class QueryValidator {
+
+    private static final Set<String> ALLOWED_FIRST_KEYWORDS = new HashSet<>(Arrays.asList(
+            "SELECT", "WITH", "VALUES"
+    ));
+    /**
+     * Writes inside the select and functions writing files, which are not stopped by read-only transaction
+     */
+    private static final Set<String> FORBIDDEN_KEYWORDS = new HashSet<>(Arrays.asList(
+            "INSERT", "UPDATE", "DELETE", "MERGE", "UPSERT", "INTO", "CSVWRITE", "FILE_WRITE", "LINK_SCHEMA",
+            "LO_EXPORT"
+    ));
+    /**
+     * Forbidden keywords and statements, which cannot be nested in single select, but some engines run them without
+     * separator. The statements are rejected only if the database does not enforce read-only transaction, because
+     * they are valid identifiers too.
+     */
+    private static final Set<String> UNENFORCED_FORBIDDEN_KEYWORDS = new HashSet<>(Arrays.asList(
+            "CREATE", "ALTER", "DROP", "TRUNCATE", "RENAME", "GRANT", "REVOKE", "CALL", "EXEC", "EXECUTE", "LOCK",
+            "COPY", "COMMIT", "ROLLBACK", "SAVEPOINT"
+    ));
+
+    static {
+        UNENFORCED_FORBIDDEN_KEYWORDS.addAll(FORBIDDEN_KEYWORDS);
+    }
+
+    /**
+     * Syntax of the literals and comments of the database engines
+     */
+    private enum Dialect {
+        /**
+         * Standard SQL, quote inside literal is doubled
+         */
+        STANDARD,
+        /**
+         * MySQL, backslash escapes the next character in literals and {@code #} starts line comment
+         */
+        MYSQL,
+        /**
+         * PostgreSQL, dollar quoted strings {@code $tag$...$tag$} and escape strings {@code E'...'} with backslash
+         * escapes
+         */
+        POSTGRES
+    }
+
+    private QueryValidator() {
+    }
+
+    /**
+     * Check that the query is single read-only statement for database enforcing read-only transaction
+     *
+     * @param sql query sent by the client
+     * @throws IllegalArgumentException if the query is empty, contains more statements or it is not read-only
+     */
+    static void validate(String sql) {
+        validate(sql, FORBIDDEN_KEYWORDS);
+    }
+
+    /**
+     * Check that the query is single read-only statement for database, which does not enforce read-only transaction.
+     * Statements changing the schema, calls of procedures and transaction control are rejected too.
+     *
+     * @param sql query sent by the client
+     * @throws IllegalArgumentException if the query is empty, contains more statements or it is not read-only
+     */
+    static void validateUnenforced(String sql) {
+        validate(sql, UNENFORCED_FORBIDDEN_KEYWORDS);
+    }
+
+    /**
+     * Check the query split by every dialect, in which it can be parsed
+     *
+     * @param sql       query sent by the client
+     * @param forbidden keywords which must not be present
+     * @throws IllegalArgumentException if the query is not valid
+     */
+    private static void validate(String sql, Set<String> forbidden) {
+        Validate.isTrue(sql != null, "Query must be set");
+        boolean parsed = false;
+        for (Dialect dialect : Dialect.values()) {
+            final List<String> keywords = keywords(sql, dialect);
+            if (keywords == null) {
+                // the engine of this dialect refuses the query itself
+                continue;
+            }
+            parsed = true;
+            Validate.isTrue(!keywords.isEmpty(), "Query must not be empty");
+            Validate.isTrue(ALLOWED_FIRST_KEYWORDS.contains(keywords.get(0)),
+                    "Query must start by one of %s", ALLOWED_FIRST_KEYWORDS);
+            for (String keyword : keywords) {
+                Validate.isTrue(!forbidden.contains(keyword), "Query must not contain %s", keyword);
+            }
+        }
+        Validate.isTrue(parsed, "Query contains unterminated literal or comment");
+    }
+
+    /**
+     * Split the query into upper case words outside of comments, literals and quoted identifiers
+     *
+     * @param sql     query sent by the client
+     * @param dialect syntax of the literals and comments
+     * @return words of the query in their order or null if the query contains unterminated literal or comment
+     * @throws IllegalArgumentException if the query contains more statements
+     */
+    private static List<String> keywords(String sql, Dialect dialect) {
+        final List<String> keywords = new ArrayList<>();
+        boolean terminated = false;
+        int i = 0;
+        while (i < sql.length()) {
+            final char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (sql.startsWith("--", i) || dialect == Dialect.MYSQL && c == '#') {
+                final int end = sql.indexOf('\n', i);
+                i = end < 0 ? sql.length() : end + 1;
+            } else if (sql.startsWith("/*", i)) {
+                final int end = sql.indexOf("*/", i + 2);
+                if (end < 0) {
+                    return null;
+                }
+                i = end + 2;
+            } else {
+                Validate.isTrue(!terminated, "Query must be single statement");
+                if (c == ';') {
+                    terminated = true;
+                    i++;
+                } else if (c == '\'' || c == '"' || c == '`') {
+                    i = skipQuoted(sql, i, c, dialect == Dialect.MYSQL && c != '`');
+                } else if (dialect == Dialect.POSTGRES && (c == 'E' || c == 'e')
+                        && i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                    i = skipQuoted(sql, i + 1, '\'', true);
+                } else if (dialect == Dialect.POSTGRES && c == '$' && dollarTag(sql, i) != null) {
+                    final String tag = dollarTag(sql, i);
+                    final int end = sql.indexOf(tag, i + tag.length());
+                    i = end < 0 ? -1 : end + tag.length();
+                } else if (Character.isLetter(c) || c == '_') {
+                    int end = i + 1;
+                    while (end < sql.length() && (Character.isLetterOrDigit(sql.charAt(end))
+                            || sql.charAt(end) == '_' || sql.charAt(end) == '$')) {
+                        end++;
+                    }
+                    keywords.add(sql.substring(i, end).toUpperCase(Locale.ROOT));
+                    i = end;
+                } else {
+                    i++;
+                }
+                if (i < 0) {
+                    return null;
+                }
+            }
+        }
+        return keywords;
+    }
+
+    /**
+     * Skip the literal or quoted identifier, doubled quote inside is an escaped quote
+     *
+     * @param sql       query sent by the client
+     * @param start     position of the opening quote
+     * @param quote     quote character
+     * @param backslash true if backslash escapes the next character
+     * @return position after the closing quote or -1 if the closing quote is missing
+     */
+    private static int skipQuoted(String sql, int start, char quote, boolean backslash) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            final char c = sql.charAt(i);
+            if (backslash && c == '\\') {
+                i += 2;
+            } else if (c != quote) {
+                i++;
+            } else if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                i += 2;
+            } else {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Read the opening tag of PostgreSQL dollar quoted string, e.g. {@code $$} or {@code $body$}
+     *
+     * @param sql   query sent by the client
+     * @param start position of the first dollar
+     * @return the tag including both dollars or null if there is no tag, e.g. in the parameter {@code $1}
+     */
+    private static String dollarTag(String sql, int start) {
+        int i = start + 1;
+        while (i < sql.length() && (Character.isLetter(sql.charAt(i)) || sql.charAt(i) == '_'
+                || i > start + 1 && Character.isDigit(sql.charAt(i)))) {
+            i++;
+        }
+        return i < sql.length() && sql.charAt(i) == '$' ? sql.substring(start, i + 1) : null;
+    }
+}
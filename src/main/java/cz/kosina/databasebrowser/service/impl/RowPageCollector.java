@@ -0,0 +1,47 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import cz.kosina.databasebrowser.domain.dto.DataPage;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link PageCollector} converting every value of the row into string
+ */
+class RowPageCollector implements PageCollector<DataPage> {
+
+    /**
+     * Number of columns in the result set
+     */
+    private final int columnCount;
+    /**
+     * Collected rows
+     */
+    private final List<List<String>> rows = new ArrayList<>();
+
+    RowPageCollector(int columnCount) {
+        this.columnCount = columnCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void collect(ResultSet rs) throws SQLException {
+        final List<String> row = new ArrayList<>(columnCount);
+        for (int i = 1; i <= columnCount; i++) {
+            row.add(rs.getString(i));
+        }
+        rows.add(row);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataPage build(String continuation) {
+        return new DataPage(rows, continuation);
+    }
+}
@@ -0,0 +1,262 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import cz.kosina.databasebrowser.domain.dto.DataSelection;
+import cz.kosina.databasebrowser.domain.dto.TableColumn;
+import cz.kosina.databasebrowser.service.impl.metadata.SqlTypes;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.apache.commons.lang3.Validate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Parts of the preview query created from the {@link DataSelection}. Every column of the selection must be one of the
+ * table columns, so only the names read from the database metadata get into the SQL. The filter values are bound as
+ * parameters typed by their column, so the driver converts them from string.
+ */
+class SelectionQuery {
+
+    /**
+     * Query of all columns of all rows
+     */
+    static final SelectionQuery ALL = new SelectionQuery(
+            Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+
+    /**
+     * Names of the selected columns, all columns if empty
+     */
+    private final List<String> columns;
+    /**
+     * Conditions with parameters, they are joined by and
+     */
+    private final List<String> conditions;
+    /**
+     * Values of the parameters together with their SQL types
+     */
+    private final List<Parameter> parameters;
+    /**
+     * Order of the rows, the primary key order if empty
+     */
+    private final List<DataSelection.Order> orderBy;
+
+    private SelectionQuery(List<String> columns,
+                           List<String> conditions,
+                           List<Parameter> parameters,
+                           List<DataSelection.Order> orderBy) {
+        this.columns = columns;
+        this.conditions = conditions;
+        this.parameters = parameters;
+        this.orderBy = orderBy;
+    }
+
+    /**
+     * Create the query parts of the selection
+     *
+     * @param selection    requested selection
+     * @param tableColumns columns of the table read from the database metadata
+     * @return query parts
+     * @throws IllegalArgumentException if the selection contains unknown column or the filter has wrong number of
+     *                                  values
+     */
+    static SelectionQuery of(DataSelection selection, List<TableColumn> tableColumns) {
+        final List<String> columns = nonNull(selection.getColumns()).stream()
+                .map(i -> findColumn(tableColumns, i).getName())
+                .collect(Collectors.toList());
+        final List<String> conditions = new ArrayList<>();
+        final List<Parameter> parameters = new ArrayList<>();
+        for (DataSelection.Filter filter : nonNull(selection.getFilters())) {
+            Validate.notNull(filter.getOperator(), "Filter of column %s must have operator", filter.getColumn());
+            final TableColumn column = findColumn(tableColumns, filter.getColumn());
+            final List<String> values = nonNull(filter.getValues());
+            conditions.add(createCondition(column.getName(), filter.getOperator(), values));
+            final Integer type = SqlTypes.type(column.getType());
+            values.forEach(i -> parameters.add(new Parameter(i, type)));
+        }
+        final List<DataSelection.Order> orderBy = nonNull(selection.getOrderBy()).stream()
+                .map(i -> new DataSelection.Order(findColumn(tableColumns, i.getColumn()).getName(), i.isDescending()))
+                .collect(Collectors.toList());
+        return new SelectionQuery(columns, conditions, parameters, orderBy);
+    }
+
+    /**
+     * Get the select list
+     *
+     * @return names of the selected columns or * for all of them
+     */
+    String selectList() {
+        return columns.isEmpty() ? "*" : String.join(", ", columns);
+    }
+
+    /**
+     * Get the conditions of the selection
+     *
+     * @return conditions which must be joined by and, empty if all rows are selected
+     */
+    List<String> conditions() {
+        return conditions;
+    }
+
+    /**
+     * Get the order of the rows. The key columns are appended to the requested order or they are used alone if there
+     * is no requested order, so the rows have stable order and the pages neither overlap nor skip rows. The key columns
+     * do not have to be selected.
+     *
+     * @param keys columns identifying the rows (primary key), empty if the rows cannot be ordered in stable way
+     * @return order by items, empty if there is neither requested order nor key
+     */
+    List<String> orderBy(List<String> keys) {
+        final List<String> items = orderBy.stream()
+                .map(i -> i.isDescending() ? i.getColumn() + " desc" : i.getColumn())
+                .collect(Collectors.toList());
+        keys.stream()
+                .filter(i -> orderBy.stream().noneMatch(o -> o.getColumn().equals(i)))
+                .forEach(items::add);
+        return items;
+    }
+
+    /**
+     * Get the selected columns of the table
+     *
+     * @param tableColumns columns of the table read from the database metadata
+     * @return selected columns in the select list order
+     */
+    List<TableColumn> selectedColumns(List<TableColumn> tableColumns) {
+        if (columns.isEmpty()) {
+            return tableColumns;
+        }
+        return columns.stream()
+                .map(i -> findColumn(tableColumns, i))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Check if the page can be read by keyset pagination, which needs the rows ordered by the primary key and the key
+     * values in the result
+     *
+     * @param primaryKeys primary key columns of the table
+     * @return true if the rows are ordered by the key and all key columns are selected
+     */
+    boolean isKeyset(List<String> primaryKeys) {
+        return !primaryKeys.isEmpty() && orderBy.isEmpty() && (columns.isEmpty() || columns.containsAll(primaryKeys));
+    }
+
+    /**
+     * Bind the values of the conditions
+     *
+     * @param statement statement with the conditions
+     * @param first     index of the first parameter of the conditions
+     * @return index of the parameter following the conditions
+     * @throws SQLException if the value cannot be bound
+     */
+    int bind(PreparedStatement statement, int first) throws SQLException {
+        int index = first;
+        for (Parameter parameter : parameters) {
+            if (parameter.getType() == null) {
+                statement.setString(index++, parameter.getValue());
+            } else {
+                statement.setObject(index++, parameter.getValue(), parameter.getType());
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Replace missing list by empty one
+     *
+     * @param list list or null
+     * @param <T>  type of the elements
+     * @return the list or empty list
+     */
+    private static <T> List<T> nonNull(List<T> list) {
+        return list == null ? Collections.emptyList() : list;
+    }
+
+    /**
+     * Find the table column of the requested name. The exact name is preferred, otherwise the name is compared
+     * without case.
+     *
+     * @param tableColumns columns of the table
+     * @param name         requested name
+     * @return column of the table
+     * @throws IllegalArgumentException if there is no such column
+     */
+    private static TableColumn findColumn(List<TableColumn> tableColumns, String name) {
+        Validate.notNull(name, "Column name must be set");
+        return tableColumns.stream()
+                .filter(i -> i.getName().equals(name))
+                .findFirst()
+                .orElseGet(() -> tableColumns.stream()
+                        .filter(i -> i.getName().equalsIgnoreCase(name))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException(String.format("Unknown column %s", name))));
+    }
+
+    /**
+     * Create the condition of the filter
+     *
+     * @param column   name of the table column
+     * @param operator operator of the filter
+     * @param values   compared values
+     * @return condition with parameters
+     * @throws IllegalArgumentException if the number of values does not match the operator
+     */
+    private static String createCondition(String column, DataSelection.Operator operator, List<String> values) {
+        switch (operator) {
+            case NULL:
+            case NOT_NULL:
+                Validate.isTrue(values.isEmpty(), "Filter %s of column %s has no value", operator, column);
+                return String.format(operator == DataSelection.Operator.NULL ? "%s is null" : "%s is not null",
+                        column);
+            case IN:
+                Validate.isTrue(!values.isEmpty(), "Filter %s of column %s needs at least one value", operator,
+                        column);
+                return values.stream().map(i -> "?").collect(Collectors.joining(", ", column + " in (", ")"));
+            default:
+                Validate.isTrue(values.size() == 1, "Filter %s of column %s needs one value", operator, column);
+                return String.format("%s %s ?", column, comparison(operator));
+        }
+    }
+
+    /**
+     * Get the SQL comparison of the operator
+     *
+     * @param operator operator comparing with one value
+     * @return SQL comparison operator
+     */
+    private static String comparison(DataSelection.Operator operator) {
+        switch (operator) {
+            case EQ:
+                return "=";
+            case NE:
+                return "<>";
+            case LT:
+                return "<";
+            case LE:
+                return "<=";
+            case GT:
+                return ">";
+            case GE:
+                return ">=";
+            default:
+                throw new IllegalArgumentException(String.format("Operator %s is not comparison", operator));
+        }
+    }
+
+    /**
+     * Value of the parameter with its SQL type
+     */
+    @Data
+    @AllArgsConstructor
+    private static class Parameter {
+        private final String value;
+        /**
+         * Numerical SQL type of the column or null if it is unknown
+         */
+        private final Integer type;
+    }
+}
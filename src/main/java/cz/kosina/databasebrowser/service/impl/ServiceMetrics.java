@@ -0,0 +1,188 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.lang3.Validate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Metrics of the service operations and the database work done by them. All meters are tagged by the name of the
+ * stored connection, so the slow databases can be found. Only names of existing connections are used as tags, so the
+ * requests for unknown connections cannot create unbounded number of meters.
+ */
+@Component
+public class ServiceMetrics {
+
+    /**
+     * Timer of the service operations tagged by service, operation, connection and outcome
+     */
+    public static final String OPERATION = "database.browser.operation";
+    /**
+     * Number of items in the results of the service operations returning collections
+     */
+    public static final String RESULT_SIZE = "database.browser.result.size";
+    /**
+     * Timer of borrowing the connection from the pool
+     */
+    public static final String CONNECTION_ACQUIRE = "database.browser.connection.acquire";
+    /**
+     * Timer of the query execution tagged by query type. Streamed results (export, query and profile) are measured
+     * until the first results are available, so the timer does not include the client reading the stream. Queries
+     * returning a page or aggregated values (preview, keyRange, statistics and count) are measured including the
+     * reading of their results.
+     */
+    public static final String QUERY = "database.browser.query";
+    /**
+     * Counter of the rows fetched from the databases, tagged by query type
+     */
+    public static final String ROWS = "database.browser.rows";
+    /**
+     * Counter of the lookups in the prepared statement cache, tagged by result (hit or miss)
+     */
+    public static final String STATEMENT_CACHE = "database.browser.statement.cache";
+    /**
+     * Connection tag of the operations which do not belong to any existing connection
+     */
+    public static final String NO_CONNECTION = "none";
+
+    private final MeterRegistry registry;
+
+    @Autowired
+    public ServiceMetrics(MeterRegistry registry) {
+        this.registry = Validate.notNull(registry);
+    }
+
+    /**
+     * Measure the operation of the existing connection
+     *
+     * @param service        name of the service
+     * @param operation      name of the operation
+     * @param connectionName name of the existing connection
+     * @param task           operation
+     * @param <T>            type of the result
+     * @return result of the operation
+     */
+    public <T> T operation(String service, String operation, String connectionName, Supplier<T> task) {
+        return measure(service, operation, task, i -> connectionName, connectionName);
+    }
+
+    /**
+     * Measure the operation, whose connection is known from its result. Failed operation is tagged by
+     * {@link #NO_CONNECTION}. If the result is collection or optional collection, its size is recorded.
+     *
+     * @param service        name of the service
+     * @param operation      name of the operation
+     * @param task           operation
+     * @param connectionName function getting the connection tag from the result
+     * @param <T>            type of the result
+     * @return result of the operation
+     */
+    public <T> T operation(String service,
+                           String operation,
+                           Supplier<T> task,
+                           Function<? super T, String> connectionName) {
+        return measure(service, operation, task, connectionName, NO_CONNECTION);
+    }
+
+    /**
+     * Measure the operation and record the size of its result
+     *
+     * @param service          name of the service
+     * @param operation        name of the operation
+     * @param task             operation
+     * @param connectionName   function getting the connection tag from the result
+     * @param failedConnection connection tag of the failed operation
+     * @param <T>              type of the result
+     * @return result of the operation
+     */
+    private <T> T measure(String service,
+                          String operation,
+                          Supplier<T> task,
+                          Function<? super T, String> connectionName,
+                          String failedConnection) {
+        final Timer.Sample sample = Timer.start(registry);
+        final T result;
+        try {
+            result = task.get();
+        } catch (Throwable e) {
+            // database failures are SQLExceptions rethrown without being declared
+            sample.stop(registry.timer(OPERATION, "service", service, "operation", operation,
+                    "connection", failedConnection, "outcome", "ERROR"));
+            throw e;
+        }
+        final String connection = connectionName.apply(result);
+        sample.stop(registry.timer(OPERATION, "service", service, "operation", operation,
+                "connection", connection, "outcome", "SUCCESS"));
+        final Object value = result instanceof Optional ? ((Optional<?>) result).orElse(null) : result;
+        if (value instanceof Collection) {
+            registry.summary(RESULT_SIZE, "service", service, "operation", operation, "connection", connection)
+                    .record(((Collection<?>) value).size());
+        }
+        return result;
+    }
+
+    /**
+     * Measure the database call
+     *
+     * @param meter          name of the timer
+     * @param type           type of the call (query type or pool)
+     * @param connectionName name of the existing connection
+     * @param call           call of the database
+     * @param <T>            type of the result
+     * @return result of the call
+     * @throws SQLException if the call fails
+     */
+    public <T> T database(String meter, String type, String connectionName, SqlCall<T> call) throws SQLException {
+        final Timer.Sample sample = Timer.start(registry);
+        String outcome = "ERROR";
+        try {
+            final T result = call.call();
+            outcome = "SUCCESS";
+            return result;
+        } finally {
+            sample.stop(registry.timer(meter, "type", type, "connection", connectionName, "outcome", outcome));
+        }
+    }
+
+    /**
+     * Count the rows fetched from the database
+     *
+     * @param type           type of the query
+     * @param connectionName name of the existing connection
+     * @param rows           number of fetched rows
+     */
+    public void rows(String type, String connectionName, long rows) {
+        registry.counter(ROWS, "type", type, "connection", connectionName).increment(rows);
+    }
+
+    /**
+     * Count the lookup in the prepared statement cache
+     *
+     * @param connectionName name of the existing connection
+     * @param hit            true if the statement was found in the cache
+     */
+    public void statementCache(String connectionName, boolean hit) {
+        registry.counter(STATEMENT_CACHE, "result", hit ? "hit" : "miss", "connection", connectionName).increment();
+    }
+
+    /**
+     * Call of the database
+     *
+     * @param <T> type of the result
+     */
+    @FunctionalInterface
+    public interface SqlCall<T> {
+        /**
+         * @return result of the call
+         * @throws SQLException if the call fails
+         */
+        T call() throws SQLException;
+    }
+}
@@ -0,0 +1,148 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import lombok.SneakyThrows;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Deduplication of identical concurrent computations. The first caller of the key runs the computation in its own
+ * thread, every caller coming with the same key before it finishes waits for it and receives the same result or
+ * exception. Nothing is remembered after the computation finishes, so the next caller computes the value again.
+ * <p>
+ * The computation runs under its own {@link QueryControl}. Cancelled caller stops waiting, but the computation is
+ * cancelled only when all its callers are cancelled.
+ *
+ * @param <K> type of the key identifying the computation
+ */
+public class SingleFlight<K> {
+
+    /**
+     * Computations in progress identified by key
+     */
+    private final ConcurrentMap<K, Flight> flights = new ConcurrentHashMap<>();
+
+    /**
+     * Run the computation or join the one already running for the key
+     *
+     * @param key  identification of the computation
+     * @param task computation of the value
+     * @param <T>  type of the value
+     * @return value computed by this or concurrent caller
+     */
+    public <T> T run(K key, Supplier<T> task) {
+        return run(key, task, null);
+    }
+
+    /**
+     * Run the computation or join the one already running for the key
+     *
+     * @param key    identification of the computation
+     * @param task   computation of the value
+     * @param caller control of the calling task or null if the caller cannot be cancelled
+     * @param <T>    type of the value
+     * @return value computed by this or concurrent caller
+     * @throws java.util.concurrent.CancellationException if the caller was cancelled
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T run(K key, Supplier<T> task, QueryControl caller) {
+        final Flight flight = new Flight(new QueryControl(caller == null ? 0 : caller.getQueryTimeout(), true));
+        final Flight running = flights.putIfAbsent(key, flight);
+        if (running != null) {
+            running.waiters.incrementAndGet();
+            final CompletableFuture<Object> result = running.result.thenApply(Function.identity());
+            if (caller != null) {
+                caller.onCancel(() -> {
+                    result.cancel(false);
+                    running.leave();
+                });
+            }
+            return (T) join(result);
+        }
+        if (caller != null) {
+            caller.onCancel(flight::leave);
+        }
+        try {
+            final T value = flight.control.run(task);
+            flight.result.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // the task may throw undeclared checked exception (SQLException), followers have to receive it too
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * Get number of the computations in progress
+     *
+     * @return number of keys being computed
+     */
+    public int size() {
+        return flights.size();
+    }
+
+    /**
+     * Get number of the callers of the running computation
+     *
+     * @param key identification of the computation
+     * @return number of the callers including the one running the computation, zero if nothing runs for the key
+     */
+    int callers(K key) {
+        final Flight flight = flights.get(key);
+        return flight == null ? 0 : flight.waiters.get();
+    }
+
+    /**
+     * Wait for the running computation and rethrow its exception
+     *
+     * @param running result of the running computation
+     * @return computed value
+     */
+    @SneakyThrows
+    private static Object join(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Computation in progress
+     */
+    private static class Flight {
+        /**
+         * Control of the computation
+         */
+        private final QueryControl control;
+        /**
+         * Result of the computation
+         */
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        /**
+         * Number of callers waiting for the result
+         */
+        private final AtomicInteger waiters = new AtomicInteger(1);
+
+        Flight(QueryControl control) {
+            this.control = control;
+        }
+
+        /**
+         * Remove the cancelled caller and cancel the computation if nobody waits for it
+         */
+        void leave() {
+            if (waiters.decrementAndGet() == 0) {
+                control.cancel();
+            }
+        }
+    }
+}
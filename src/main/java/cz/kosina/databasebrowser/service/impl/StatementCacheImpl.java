@@ -0,0 +1,158 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import cz.kosina.databasebrowser.config.DatabaseBrowserProperties;
+import cz.kosina.databasebrowser.domain.event.ConnectionChangedEvent;
+import cz.kosina.databasebrowser.service.api.StatementCache;
+import org.apache.commons.lang3.Validate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementation of {@link StatementCache} keeping bounded LRU cache of statements for every physical connection. The
+ * statements are prepared on the connection unwrapped from the pool proxy, because the pool closes all statements
+ * prepared through the proxy when the connection is returned. The statements reference their connection, so the
+ * connections are held strongly: the caches of the connections closed by the pool are swept when the pool opens new
+ * connection and the caches of the whole pool are dropped when the pool is closed on the connection change. Borrowed
+ * connection is used only by one thread, so its statements are never used concurrently.
+ */
+@Service
+public class StatementCacheImpl implements StatementCache {
+
+    /**
+     * Maximal number of cached statements of one connection, zero disables the cache
+     */
+    private final long maxSize;
+    /**
+     * Cached statements by SQL for every physical connection by connection name
+     */
+    private final Map<String, Map<Connection, Cache<String, PreparedStatement>>> statements =
+            new ConcurrentHashMap<>();
+    /**
+     * Metrics of the hits and misses
+     */
+    private final ServiceMetrics metrics;
+
+    @Autowired
+    public StatementCacheImpl(DatabaseBrowserProperties properties, ServiceMetrics metrics) {
+        this.maxSize = Validate.notNull(properties).getStatementCache().getMaxSize();
+        Validate.isTrue(maxSize >= 0, "Statement cache size must not be negative");
+        this.metrics = Validate.notNull(metrics);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> T execute(Connection con, String connectionName, String sql, StatementCall<T> call)
+            throws SQLException {
+        if (maxSize == 0) {
+            try (PreparedStatement statement = con.prepareStatement(sql)) {
+                return call.call(statement);
+            }
+        }
+        final Cache<String, PreparedStatement> cache = statementsOf(connectionName, con.unwrap(Connection.class));
+        PreparedStatement statement = cache.getIfPresent(sql);
+        metrics.statementCache(connectionName, statement != null);
+        if (statement == null) {
+            statement = con.unwrap(Connection.class).prepareStatement(sql);
+            cache.put(sql, statement);
+        } else {
+            reset(statement);
+        }
+        try {
+            return call.call(statement);
+        } catch (SQLException | RuntimeException | Error e) {
+            // cancelled statement or statement with outdated plan (e.g. changed table) is not used again
+            cache.invalidate(sql);
+            throw e;
+        }
+    }
+
+    /**
+     * Drop the caches of the pool of the changed connection. The pool is closed, so are its connections and statements.
+     *
+     * @param event event with name of the changed connection
+     */
+    @EventListener
+    public void onConnectionChanged(ConnectionChangedEvent event) {
+        statements.remove(event.getName());
+    }
+
+    /**
+     * Check whether the statements of the physical connection are cached
+     *
+     * @param connectionName name of the connection stored in db
+     * @param physical       connection unwrapped from the pool proxy
+     * @return true if the cache of the connection exists
+     */
+    boolean isCached(String connectionName, Connection physical) {
+        final Map<Connection, Cache<String, PreparedStatement>> pool = statements.get(connectionName);
+        return pool != null && pool.containsKey(physical);
+    }
+
+    /**
+     * Get the cache of the physical connection. The caches of the connections closed by the pool are dropped when the
+     * cache of new connection is created, so there are never more caches than open connections and the connections
+     * closed since the pool opened the last one.
+     *
+     * @param connectionName name of the connection stored in db
+     * @param physical       connection unwrapped from the pool proxy
+     * @return statements of the connection
+     * @throws SQLException if the state of the connection cannot be read
+     */
+    private Cache<String, PreparedStatement> statementsOf(String connectionName, Connection physical)
+            throws SQLException {
+        final Map<Connection, Cache<String, PreparedStatement>> pool =
+                statements.computeIfAbsent(connectionName, i -> new ConcurrentHashMap<>());
+        final Cache<String, PreparedStatement> cache = pool.get(physical);
+        if (cache != null) {
+            return cache;
+        }
+        for (Map.Entry<Connection, Cache<String, PreparedStatement>> entry : pool.entrySet()) {
+            if (entry.getKey().isClosed()) {
+                pool.remove(entry.getKey());
+                entry.getValue().invalidateAll();
+            }
+        }
+        return pool.computeIfAbsent(physical, i -> CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .removalListener((RemovalListener<String, PreparedStatement>) j -> close(j.getValue()))
+                .build());
+    }
+
+    /**
+     * Reset the settings of the statement left by its previous use
+     *
+     * @param statement cached statement
+     * @throws SQLException if the statement cannot be reset
+     */
+    private void reset(PreparedStatement statement) throws SQLException {
+        statement.clearParameters();
+        statement.setMaxRows(0);
+        statement.setFetchSize(0);
+        statement.setQueryTimeout(0);
+    }
+
+    /**
+     * Close the statement dropped from the cache
+     *
+     * @param statement dropped statement
+     */
+    private void close(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // the connection is already closed, so is the statement
+        }
+    }
+}
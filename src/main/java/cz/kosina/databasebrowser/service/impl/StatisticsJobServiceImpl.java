@@ -0,0 +1,229 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import cz.kosina.databasebrowser.config.DatabaseBrowserProperties;
+import cz.kosina.databasebrowser.domain.dto.StatisticsJob;
+import cz.kosina.databasebrowser.service.api.ConnectionService;
+import cz.kosina.databasebrowser.service.api.DatabaseService;
+import cz.kosina.databasebrowser.service.api.StatisticsJobService;
+import org.apache.commons.lang3.Validate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Implementation of {@link StatisticsJobService} running the jobs on bounded executor. Finished jobs are kept for the
+ * configured retention, than they are removed by the next access to the jobs.
+ */
+@Service
+public class StatisticsJobServiceImpl implements StatisticsJobService {
+
+    /**
+     * Service used for checking that the connection exists
+     */
+    private final ConnectionService connectionService;
+    /**
+     * Service computing the statistics
+     */
+    private final DatabaseService databaseService;
+    /**
+     * Executor running the jobs
+     */
+    private final ExecutorService statisticsExecutor;
+    /**
+     * Query timeout in seconds applied to the statements of the job
+     */
+    private final int queryTimeout;
+    /**
+     * Time for which the finished job is kept
+     */
+    private final Duration retention;
+    /**
+     * Submitted jobs identified by id
+     */
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StatisticsJobServiceImpl(ConnectionService connectionService,
+                                    DatabaseService databaseService,
+                                    DatabaseBrowserProperties properties,
+                                    @Qualifier("statisticsExecutor") ExecutorService statisticsExecutor) {
+        this.connectionService = Validate.notNull(connectionService);
+        this.databaseService = Validate.notNull(databaseService);
+        this.statisticsExecutor = Validate.notNull(statisticsExecutor);
+        this.queryTimeout = (int) Validate.notNull(properties).getJobs().getQueryTimeout().getSeconds();
+        this.retention = properties.getJobs().getRetention();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<StatisticsJob> submit(StatisticsJob.Type type,
+                                          String connectionName,
+                                          String catalogName,
+                                          String schemaName,
+                                          String tableName,
+                                          boolean exact) {
+        removeExpiredJobs();
+        if (!connectionService.getById(connectionName).isPresent()) {
+            return Optional.empty();
+        }
+        final Supplier<Object> task;
+        if (type == StatisticsJob.Type.COLUMN_STATISTICS) {
+            task = () -> databaseService.getColumnsStatistics(connectionName, catalogName, schemaName, tableName)
+                    .orElseThrow(() -> new IllegalStateException("Connection was removed"));
+        } else {
+            task = () -> databaseService.getTableStatistics(connectionName, catalogName, schemaName, tableName, exact)
+                    .orElseThrow(() -> new IllegalStateException("Connection was removed"));
+        }
+        final Job job = new Job(UUID.randomUUID().toString(), type, new QueryControl(queryTimeout, false));
+        jobs.put(job.id, job);
+        try {
+            job.future = statisticsExecutor.submit(() -> job.run(task));
+        } catch (RuntimeException e) {
+            jobs.remove(job.id);
+            throw e;
+        }
+        return Optional.of(job.toDto());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<StatisticsJob> getJob(String id) {
+        removeExpiredJobs();
+        return Optional.ofNullable(jobs.get(id)).map(Job::toDto);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Object> getResult(String id) {
+        removeExpiredJobs();
+        return Optional.ofNullable(jobs.get(id))
+                .filter(i -> i.status == StatisticsJob.Status.COMPLETED)
+                .map(i -> i.result);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<StatisticsJob> cancel(String id) {
+        removeExpiredJobs();
+        return Optional.ofNullable(jobs.get(id))
+                .map(i -> {
+                    i.cancel();
+                    return i.toDto();
+                });
+    }
+
+    /**
+     * Remove finished jobs older than the retention
+     */
+    private void removeExpiredJobs() {
+        final long now = System.nanoTime();
+        jobs.values().removeIf(i -> i.status.isFinished() && now - i.finishedAt > retention.toNanos());
+    }
+
+    /**
+     * Submitted job with its state
+     */
+    private static class Job {
+        private final String id;
+        private final StatisticsJob.Type type;
+        private final QueryControl control;
+        private volatile StatisticsJob.Status status = StatisticsJob.Status.QUEUED;
+        private volatile Future<?> future;
+        private volatile Object result;
+        private volatile String error;
+        /**
+         * Value of {@link System#nanoTime()} when the job was finished
+         */
+        private volatile long finishedAt;
+
+        Job(String id, StatisticsJob.Type type, QueryControl control) {
+            this.id = id;
+            this.type = type;
+            this.control = control;
+        }
+
+        /**
+         * Run the task of the job with the query control
+         *
+         * @param task task computing the statistics
+         */
+        void run(Supplier<Object> task) {
+            if (!transition(StatisticsJob.Status.QUEUED, StatisticsJob.Status.RUNNING)) {
+                return;
+            }
+            try {
+                final Object value = control.run(task);
+                synchronized (this) {
+                    if (status == StatisticsJob.Status.RUNNING) {
+                        result = value;
+                        finish(StatisticsJob.Status.COMPLETED);
+                    }
+                }
+            } catch (Throwable e) {
+                // the database service rethrows SQLException (e.g. query timeout) without declaring it and an error
+                // must not leave the job running forever
+                synchronized (this) {
+                    if (status == StatisticsJob.Status.RUNNING) {
+                        error = e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+                        finish(StatisticsJob.Status.FAILED);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Cancel the job, if it is not finished yet
+         */
+        synchronized void cancel() {
+            if (status.isFinished()) {
+                return;
+            }
+            finish(StatisticsJob.Status.CANCELLED);
+            control.cancel();
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        private synchronized boolean transition(StatisticsJob.Status from, StatisticsJob.Status to) {
+            if (status != from) {
+                return false;
+            }
+            status = to;
+            return true;
+        }
+
+        private void finish(StatisticsJob.Status finalStatus) {
+            status = finalStatus;
+            finishedAt = System.nanoTime();
+        }
+
+        StatisticsJob toDto() {
+            return new StatisticsJob(
+                    id,
+                    type,
+                    status,
+                    control.getCompletedSteps(),
+                    control.getTotalSteps(),
+                    error
+            );
+        }
+    }
+}
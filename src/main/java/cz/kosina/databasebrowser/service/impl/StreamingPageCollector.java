@@ -0,0 +1,63 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import cz.kosina.databasebrowser.service.api.PageHandler;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link PageCollector} passing every row converted into strings directly into the {@link PageHandler}, so the page is
+ * never held in memory
+ */
+class StreamingPageCollector implements PageCollector<Void> {
+
+    /**
+     * Handler receiving the rows
+     */
+    private final PageHandler handler;
+    /**
+     * Number of columns in the result set
+     */
+    private final int columnCount;
+
+    /**
+     * Create collector for the result set and start the page in the handler
+     *
+     * @param metaData metadata of the result set
+     * @param handler  handler receiving the rows
+     * @throws SQLException if metadata cannot be read
+     */
+    StreamingPageCollector(ResultSetMetaData metaData, PageHandler handler) throws SQLException {
+        this.handler = handler;
+        this.columnCount = metaData.getColumnCount();
+        final List<String> columnNames = new ArrayList<>(columnCount);
+        for (int i = 1; i <= columnCount; i++) {
+            columnNames.add(metaData.getColumnLabel(i));
+        }
+        handler.start(columnNames);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void collect(ResultSet rs) throws SQLException {
+        final List<String> row = new ArrayList<>(columnCount);
+        for (int i = 1; i <= columnCount; i++) {
+            row.add(rs.getString(i));
+        }
+        handler.row(row);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Void build(String continuation) {
+        handler.end(continuation);
+        return null;
+    }
+}
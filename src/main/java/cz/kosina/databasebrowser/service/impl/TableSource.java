@@ -0,0 +1,76 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import cz.kosina.databasebrowser.service.api.MetadataProvider;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Table expression used in the from clause of the generated queries: the whole table or its random sample. The
+ * percentage of the sample is bound as parameter, so the statements of all sample sizes share one SQL and the cached
+ * statement is reused.
+ */
+final class TableSource {
+
+    /**
+     * Table name or the table expression of the sample with parameters
+     */
+    private final String expression;
+    /**
+     * Provider binding the parameters of the sample, null for the whole table
+     */
+    private final MetadataProvider provider;
+    /**
+     * Percentage of the sampled rows, null for the whole table
+     */
+    private final Double percent;
+
+    private TableSource(String expression, MetadataProvider provider, Double percent) {
+        this.expression = expression;
+        this.provider = provider;
+        this.percent = percent;
+    }
+
+    /**
+     * Create the source of all rows of the table
+     *
+     * @param fullTableName full table name
+     * @return source of the table
+     */
+    static TableSource table(String fullTableName) {
+        return new TableSource(fullTableName, null, null);
+    }
+
+    /**
+     * Create the source of the random sample of the table rows
+     *
+     * @param provider      provider of the database engine
+     * @param fullTableName full table name
+     * @param percent       percentage of the sampled rows from (0, 100]
+     * @return source of the sample
+     */
+    static TableSource sample(MetadataProvider provider, String fullTableName, double percent) {
+        return new TableSource(provider.sampleTable(fullTableName, percent), provider, percent);
+    }
+
+    /**
+     * Get the expression used in the from clause
+     *
+     * @return table name or table expression with parameters
+     */
+    String expression() {
+        return expression;
+    }
+
+    /**
+     * Bind the parameters of the expression
+     *
+     * @param statement statement with the expression
+     * @param first     index of the first parameter of the expression
+     * @return index of the parameter following the expression
+     * @throws SQLException if the value cannot be bound
+     */
+    int bind(PreparedStatement statement, int first) throws SQLException {
+        return percent == null ? first : provider.bindSample(statement, first, percent);
+    }
+}
@@ -0,0 +1,211 @@
+package cz.kosina.databasebrowser.service.impl.metadata;
+
+import cz.kosina.databasebrowser.domain.dto.DatabaseObject;
+import cz.kosina.databasebrowser.domain.dto.TableColumn;
+import cz.kosina.databasebrowser.domain.dto.TableColumns;
+import cz.kosina.databasebrowser.service.api.MetadataProvider;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+
+/**
+ * {@link MetadataProvider} for H2 database reading its {@code INFORMATION_SCHEMA}. Columns are read together with the
+ * primary key flag by one query instead of separate columns and primary keys queries.
+ */
+@Component
+@Order(100)
+public class H2MetadataProvider extends JdbcMetadataProvider {
+
+    /**
+     * Query of the columns with primary key flag, optionally restricted to one table
+     */
+    private static final String COLUMNS_QUERY = "select C.TABLE_NAME, C.ORDINAL_POSITION, C.COLUMN_NAME, "
+            + "C.DATA_TYPE, C.CHARACTER_MAXIMUM_LENGTH, C.IS_NULLABLE, C.REMARKS, C.NUMERIC_SCALE, "
+            + "K.COLUMN_NAME is not null PRIMARY_KEY "
+            + "from INFORMATION_SCHEMA.COLUMNS C "
+            + "left join (select TABLE_NAME, COLUMN_NAME from INFORMATION_SCHEMA.INDEXES "
+            + "where PRIMARY_KEY = TRUE and TABLE_CATALOG = ? and TABLE_SCHEMA = ?) K "
+            + "on K.TABLE_NAME = C.TABLE_NAME and K.COLUMN_NAME = C.COLUMN_NAME "
+            + "where C.TABLE_CATALOG = ? and C.TABLE_SCHEMA = ? %s"
+            + "order by C.TABLE_NAME, C.ORDINAL_POSITION";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supports(String url) {
+        return url.startsWith("jdbc:h2:");
+    }
+
+    /**
+     * {@inheritDoc} H2 ignores the read-only mode of the connection and it has no read-only transactions, so it cannot
+     * enforce them.
+     */
+    @Override
+    public boolean startReadOnlyTransaction(Connection con) throws SQLException {
+        con.setReadOnly(true);
+        con.setAutoCommit(false);
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> listCatalogs(Connection con) throws SQLException {
+        try (PreparedStatement statement = con.prepareStatement(
+                "select CATALOG_NAME from INFORMATION_SCHEMA.CATALOGS order by CATALOG_NAME");
+             ResultSet rs = statement.executeQuery()) {
+            return readStrings(rs);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> listSchemas(Connection con, String catalogName) throws SQLException {
+        try (PreparedStatement statement = con.prepareStatement(
+                "select SCHEMA_NAME from INFORMATION_SCHEMA.SCHEMATA where CATALOG_NAME = ? order by SCHEMA_NAME")) {
+            statement.setString(1, catalogName);
+            try (ResultSet rs = statement.executeQuery()) {
+                return readStrings(rs);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void exportTables(Connection con, String catalogName, String schemaName, Consumer<DatabaseObject> handler)
+            throws SQLException {
+        try (PreparedStatement statement = con.prepareStatement(
+                "select TABLE_NAME, TABLE_TYPE, REMARKS from INFORMATION_SCHEMA.TABLES "
+                        + "where TABLE_CATALOG = ? and TABLE_SCHEMA = ? order by TABLE_TYPE, TABLE_NAME")) {
+            statement.setString(1, catalogName);
+            statement.setString(2, schemaName);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    handler.accept(new DatabaseObject(rs.getString(1), rs.getString(2), rs.getString(3)));
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void exportColumns(Connection con,
+                              String catalogName,
+                              String schemaName,
+                              String tableName,
+                              Consumer<TableColumn> handler) throws SQLException {
+        try (PreparedStatement statement = con.prepareStatement(
+                String.format(COLUMNS_QUERY, "and C.TABLE_NAME = ? "))) {
+            setSchema(statement, catalogName, schemaName);
+            statement.setString(5, tableName);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    handler.accept(toTableColumn(rs));
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> listPrimaryKeys(Connection con, String catalogName, String schemaName, String tableName)
+            throws SQLException {
+        try (PreparedStatement statement = con.prepareStatement(
+                "select COLUMN_NAME from INFORMATION_SCHEMA.INDEXES where PRIMARY_KEY = TRUE "
+                        + "and TABLE_CATALOG = ? and TABLE_SCHEMA = ? and TABLE_NAME = ? order by ORDINAL_POSITION")) {
+            statement.setString(1, catalogName);
+            statement.setString(2, schemaName);
+            statement.setString(3, tableName);
+            try (ResultSet rs = statement.executeQuery()) {
+                return readStrings(rs);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc} All columns of the schema are read by one query.
+     */
+    @Override
+    public void exportSchemaColumns(Connection con,
+                                    String catalogName,
+                                    String schemaName,
+                                    Consumer<TableColumns> handler) throws SQLException {
+        try (PreparedStatement statement = con.prepareStatement(String.format(COLUMNS_QUERY, ""))) {
+            setSchema(statement, catalogName, schemaName);
+            try (ResultSet rs = statement.executeQuery()) {
+                groupByTable(rs, "TABLE_NAME", handler, (row, table) -> toTableColumn(row));
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc} The estimate is {@code ROW_COUNT_ESTIMATE} kept by H2 for every table.
+     */
+    @Override
+    public OptionalLong estimateRowCount(Connection con, String catalogName, String schemaName, String tableName)
+            throws SQLException {
+        try (PreparedStatement statement = con.prepareStatement(
+                "select ROW_COUNT_ESTIMATE from INFORMATION_SCHEMA.TABLES "
+                        + "where TABLE_CATALOG = ? and TABLE_SCHEMA = ? and TABLE_NAME = ? and TABLE_TYPE = 'TABLE'")) {
+            statement.setString(1, catalogName);
+            statement.setString(2, schemaName);
+            statement.setString(3, tableName);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? OptionalLong.of(rs.getLong(1)) : OptionalLong.empty();
+            }
+        }
+    }
+
+    /**
+     * Set the catalog and schema parameters of {@link #COLUMNS_QUERY}
+     *
+     * @param statement   prepared columns query
+     * @param catalogName name of the catalog
+     * @param schemaName  name of the schema
+     * @throws SQLException if setting of the parameters fails
+     */
+    private static void setSchema(PreparedStatement statement, String catalogName, String schemaName)
+            throws SQLException {
+        statement.setString(1, catalogName);
+        statement.setString(2, schemaName);
+        statement.setString(3, catalogName);
+        statement.setString(4, schemaName);
+    }
+
+    /**
+     * Convert the current row of {@link #COLUMNS_QUERY} result into the column
+     *
+     * @param rs result positioned on the column
+     * @return column of the table
+     * @throws SQLException if reading of the result fails
+     */
+    private static TableColumn toTableColumn(ResultSet rs) throws SQLException {
+        return new TableColumn(
+                rs.getInt("ORDINAL_POSITION"),
+                rs.getString("COLUMN_NAME"),
+                SqlTypes.name(rs.getInt("DATA_TYPE")),
+                rs.getInt("CHARACTER_MAXIMUM_LENGTH"),
+                rs.getString("IS_NULLABLE"),
+                rs.getBoolean("PRIMARY_KEY"),
+                rs.getString("REMARKS"),
+                rs.getInt("NUMERIC_SCALE")
+        );
+    }
+}
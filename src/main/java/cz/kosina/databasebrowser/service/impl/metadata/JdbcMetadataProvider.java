@@ -0,0 +1,368 @@
+package cz.kosina.databasebrowser.service.impl.metadata;
+
+import cz.kosina.databasebrowser.domain.dto.DatabaseObject;
+import cz.kosina.databasebrowser.domain.dto.TableColumn;
+import cz.kosina.databasebrowser.domain.dto.TableColumns;
+import cz.kosina.databasebrowser.service.api.MetadataProvider;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Generic {@link MetadataProvider} using only {@link DatabaseMetaData}. It supports every database, so it is used when
+ * there is no provider specific for the engine. Providers for the engines extend it and override the operations they
+ * can do faster.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class JdbcMetadataProvider implements MetadataProvider {
+
+    /**
+     * Products of the databases, whose drivers do not read primary keys without table name
+     */
+    private static final Set<String> PER_TABLE_PRIMARY_KEYS = new HashSet<>(Arrays.asList(
+            "MySQL", "MariaDB", "Microsoft SQL Server"
+    ));
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supports(String url) {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> listCatalogs(Connection con) throws SQLException {
+        try (ResultSet catalogs = con.getMetaData().getCatalogs()) {
+            final List<String> catalogList = new ArrayList<>();
+            while (catalogs.next()) {
+                catalogList.add(catalogs.getString("TABLE_CAT"));
+            }
+            return catalogList;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> listSchemas(Connection con, String catalogName) throws SQLException {
+        try (ResultSet schemas = con.getMetaData().getSchemas(catalogName, null)) {
+            final List<String> schemasList = new ArrayList<>();
+            while (schemas.next()) {
+                schemasList.add(schemas.getString("TABLE_SCHEM"));
+            }
+            return schemasList;
+        }
+    }
+
+    /**
+     * {@inheritDoc} The tables are collected from {@link #exportTables(Connection, String, String, Consumer)}.
+     */
+    @Override
+    public List<DatabaseObject> listTables(Connection con, String catalogName, String schemaName)
+            throws SQLException {
+        final List<DatabaseObject> tables = new ArrayList<>();
+        exportTables(con, catalogName, schemaName, tables::add);
+        return tables;
+    }
+
+    /**
+     * {@inheritDoc} The columns are collected from
+     * {@link #exportColumns(Connection, String, String, String, Consumer)}.
+     */
+    @Override
+    public List<TableColumn> listColumns(Connection con, String catalogName, String schemaName, String tableName)
+            throws SQLException {
+        final List<TableColumn> columns = new ArrayList<>();
+        exportColumns(con, catalogName, schemaName, tableName, columns::add);
+        return columns;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void exportTables(Connection con, String catalogName, String schemaName, Consumer<DatabaseObject> handler)
+            throws SQLException {
+        try (ResultSet tables = con.getMetaData().getTables(catalogName, schemaName, null, null)) {
+            while (tables.next()) {
+                handler.accept(
+                        new DatabaseObject(
+                                tables.getString("TABLE_NAME"),
+                                tables.getString("TABLE_TYPE"),
+                                tables.getString("REMARKS")
+                        )
+                );
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void exportColumns(Connection con,
+                              String catalogName,
+                              String schemaName,
+                              String tableName,
+                              Consumer<TableColumn> handler) throws SQLException {
+        final Set<String> primaryKeys = new HashSet<>(listPrimaryKeys(con, catalogName, schemaName, tableName));
+        try (ResultSet columns = con.getMetaData().getColumns(
+                catalogName,
+                schemaName,
+                tableName,
+                null)
+        ) {
+            while (columns.next()) {
+                handler.accept(toTableColumn(columns, primaryKeys));
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> listPrimaryKeys(Connection con, String catalogName, String schemaName, String tableName)
+            throws SQLException {
+        final SortedMap<Short, String> columns = new TreeMap<>();
+        try (ResultSet primaryKeys = con.getMetaData().getPrimaryKeys(
+                catalogName,
+                schemaName,
+                tableName)
+        ) {
+            while (primaryKeys.next()) {
+                columns.put(primaryKeys.getShort("KEY_SEQ"), primaryKeys.getString("COLUMN_NAME"));
+            }
+            return new ArrayList<>(columns.values());
+        }
+    }
+
+    /**
+     * {@inheritDoc} The schema is read by one primary keys query and one columns query. JDBC does not require drivers
+     * to support {@link DatabaseMetaData#getPrimaryKeys} for all tables at once, so if the driver is known not to
+     * support it or it refuses it, the primary keys are read table by table. That costs one more query per table and
+     * the columns of the whole schema are held in memory, because they are read before the keys: many drivers do not
+     * allow another metadata query while the result of the columns query is open.
+     */
+    @Override
+    public void exportSchemaColumns(Connection con,
+                                    String catalogName,
+                                    String schemaName,
+                                    Consumer<TableColumns> handler) throws SQLException {
+        final Map<String, Set<String>> primaryKeys = readsSchemaPrimaryKeys(con.getMetaData())
+                ? readSchemaPrimaryKeys(con, catalogName, schemaName)
+                : null;
+        if (primaryKeys != null) {
+            try (ResultSet columns = con.getMetaData().getColumns(catalogName, schemaName, null, null)) {
+                groupByTable(columns, "TABLE_NAME", handler, (rs, table) -> toTableColumn(rs,
+                        primaryKeys.getOrDefault(table, Collections.emptySet())));
+            }
+            return;
+        }
+        final List<TableColumns> tables = new ArrayList<>();
+        try (ResultSet columns = con.getMetaData().getColumns(catalogName, schemaName, null, null)) {
+            groupByTable(columns, "TABLE_NAME", tables::add, (rs, table) -> toTableColumn(rs,
+                    Collections.emptySet()));
+        }
+        for (TableColumns table : tables) {
+            final List<String> keys = listPrimaryKeys(con, catalogName, schemaName, table.getTableName());
+            table.getColumns().forEach(i -> i.setPrimaryKey(keys.contains(i.getName())));
+            handler.accept(table);
+        }
+    }
+
+    /**
+     * Check if the driver returns the primary keys of all tables in the schema for {@code null} table name. The
+     * drivers of the listed databases require the table name.
+     *
+     * @param metaData metadata of the connection
+     * @return true if the primary keys of the schema can be read by one query
+     * @throws SQLException if the database product cannot be read
+     */
+    protected boolean readsSchemaPrimaryKeys(DatabaseMetaData metaData) throws SQLException {
+        return !PER_TABLE_PRIMARY_KEYS.contains(metaData.getDatabaseProductName());
+    }
+
+    /**
+     * Read the primary keys of all tables in the schema by one query
+     *
+     * @param con         open database connection
+     * @param catalogName name of the catalog
+     * @param schemaName  name of the schema
+     * @return primary key columns by table name or null if the driver refused the query without table name
+     */
+    private Map<String, Set<String>> readSchemaPrimaryKeys(Connection con, String catalogName, String schemaName) {
+        final Map<String, Set<String>> primaryKeys = new HashMap<>();
+        try (ResultSet keys = con.getMetaData().getPrimaryKeys(catalogName, schemaName, null)) {
+            while (keys.next()) {
+                primaryKeys.computeIfAbsent(keys.getString("TABLE_NAME"), i -> new HashSet<>())
+                        .add(keys.getString("COLUMN_NAME"));
+            }
+            return primaryKeys;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc} The estimate is the cardinality of the table statistic returned by
+     * {@link DatabaseMetaData#getIndexInfo} with approximate values allowed. Many drivers do not return it.
+     */
+    @Override
+    public OptionalLong estimateRowCount(Connection con, String catalogName, String schemaName, String tableName)
+            throws SQLException {
+        try (ResultSet indexInfo = con.getMetaData().getIndexInfo(catalogName, schemaName, tableName, false, true)) {
+            while (indexInfo.next()) {
+                if (indexInfo.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
+                    final long cardinality = indexInfo.getLong("CARDINALITY");
+                    return indexInfo.wasNull() ? OptionalLong.empty() : OptionalLong.of(cardinality);
+                }
+            }
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * {@inheritDoc} There is no standard table sampling clause, so every row is kept with the probability of the
+     * percentage by the {@code rand()} function supported by H2, MySQL and DB2. The engine still reads all rows, but
+     * only the sampled ones are aggregated and sent. Engines with native sampling override it.
+     */
+    @Override
+    public String sampleTable(String fullTableName, double percent) {
+        return String.format("(select * from %s where rand() * 100 < ?) sampled", fullTableName);
+    }
+
+    /**
+     * {@inheritDoc} The percentage is the only parameter of the expression.
+     */
+    @Override
+    public int bindSample(PreparedStatement statement, int first, double percent) throws SQLException {
+        statement.setDouble(first, percent);
+        return first + 1;
+    }
+
+    /**
+     * {@inheritDoc} The transaction is made read-only by the standard {@code set transaction read only} statement
+     * supported e.g. by PostgreSQL, MySQL and Oracle. If the engine refuses the statement, it cannot enforce the
+     * read-only transaction.
+     */
+    @Override
+    public boolean startReadOnlyTransaction(Connection con) throws SQLException {
+        con.setReadOnly(true);
+        con.setAutoCommit(false);
+        try (Statement statement = con.createStatement()) {
+            statement.execute("set transaction read only");
+            return true;
+        } catch (SQLException e) {
+            // the failed statement must not break the following query of the transaction
+            con.rollback();
+            return false;
+        }
+    }
+
+    /**
+     * Read columns ordered by table and pass every table into the handler as soon as its last column is read
+     *
+     * @param columns     result with one column per row ordered by table
+     * @param tableColumn name of the result column with the table name
+     * @param handler     handler receiving the columns of one table
+     * @param mapper      mapper of the current row into the column
+     * @throws SQLException if reading of the result fails
+     */
+    protected static void groupByTable(ResultSet columns,
+                                       String tableColumn,
+                                       Consumer<TableColumns> handler,
+                                       ColumnMapper mapper) throws SQLException {
+        String currentTable = null;
+        List<TableColumn> currentColumns = new ArrayList<>();
+        while (columns.next()) {
+            final String table = columns.getString(tableColumn);
+            if (!table.equals(currentTable)) {
+                if (currentTable != null) {
+                    handler.accept(new TableColumns(currentTable, currentColumns));
+                }
+                currentTable = table;
+                currentColumns = new ArrayList<>();
+            }
+            currentColumns.add(mapper.map(columns, table));
+        }
+        if (currentTable != null) {
+            handler.accept(new TableColumns(currentTable, currentColumns));
+        }
+    }
+
+    /**
+     * Read the first column of all rows of the result
+     *
+     * @param rs result of the query
+     * @return values of the first column
+     * @throws SQLException if reading of the result fails
+     */
+    protected static List<String> readStrings(ResultSet rs) throws SQLException {
+        final List<String> values = new ArrayList<>();
+        while (rs.next()) {
+            values.add(rs.getString(1));
+        }
+        return values;
+    }
+    /**
+     * Convert the current row of {@link DatabaseMetaData#getColumns} result into the column
+     *
+     * @param columns     result of the columns query positioned on the column
+     * @param primaryKeys names of the primary key columns of the table
+     * @return column of the table
+     * @throws SQLException if reading of the result fails
+     */
+    private TableColumn toTableColumn(ResultSet columns, Set<String> primaryKeys) throws SQLException {
+        final String columnName = columns.getString("COLUMN_NAME");
+        return new TableColumn(
+                columns.getInt("ORDINAL_POSITION"),
+                columnName,
+                SqlTypes.name(columns.getInt("DATA_TYPE")),
+                columns.getInt("COLUMN_SIZE"),
+                columns.getString("IS_NULLABLE"),
+                primaryKeys.contains(columnName),
+                columns.getString("REMARKS"),
+                columns.getInt("DECIMAL_DIGITS")
+        );
+    }
+
+    /**
+     * Mapper of the current row of the result into the column
+     */
+    @FunctionalInterface
+    protected interface ColumnMapper {
+        /**
+         * @param rs    result positioned on the row
+         * @param table name of the table of the column
+         * @return column of the table
+         * @throws SQLException if reading of the result fails
+         */
+        TableColumn map(ResultSet rs, String table) throws SQLException;
+    }
+}
@@ -0,0 +1,39 @@
+package cz.kosina.databasebrowser.service.impl.metadata;
+
+import cz.kosina.databasebrowser.service.api.MetadataProvider;
+import org.apache.commons.lang3.Validate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Registry choosing the {@link MetadataProvider} for the connection. Providers are asked in their order and the first
+ * one supporting the JDBC URL is used. {@link JdbcMetadataProvider} supports every URL, so it is the fallback.
+ */
+@Component
+public class MetadataProviderRegistry {
+
+    /**
+     * All providers ordered by their priority
+     */
+    private final List<MetadataProvider> providers;
+
+    @Autowired
+    public MetadataProviderRegistry(List<MetadataProvider> providers) {
+        this.providers = Validate.notEmpty(providers);
+    }
+
+    /**
+     * Get the provider for the database
+     *
+     * @param url JDBC URL of the connection
+     * @return provider supporting the database
+     */
+    public MetadataProvider getProvider(String url) {
+        return providers.stream()
+                .filter(i -> i.supports(url))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException(String.format("No metadata provider for %s", url)));
+    }
+}
@@ -0,0 +1,78 @@
+package cz.kosina.databasebrowser.service.impl.metadata;
+
+import cz.kosina.databasebrowser.service.api.MetadataProvider;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.OptionalLong;
+
+/**
+ * {@link MetadataProvider} for Oracle reading the row estimates from its data dictionary and sampling the tables by its
+ * {@code sample} clause. Other metadata are read by the generic JDBC provider.
+ */
+@Component
+@Order(100)
+public class OracleMetadataProvider extends JdbcMetadataProvider {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supports(String url) {
+        return url.startsWith("jdbc:oracle:");
+    }
+
+    /**
+     * {@inheritDoc} The estimate is {@code ALL_TABLES.NUM_ROWS} gathered with the optimizer statistics. The catalog is
+     * ignored, because Oracle does not use catalogs. Tables without gathered statistics have no estimate.
+     */
+    @Override
+    public OptionalLong estimateRowCount(Connection con, String catalogName, String schemaName, String tableName)
+            throws SQLException {
+        try (PreparedStatement statement = con.prepareStatement(
+                "select NUM_ROWS from ALL_TABLES where OWNER = ? and TABLE_NAME = ?")) {
+            statement.setString(1, schemaName);
+            statement.setString(2, tableName);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return OptionalLong.empty();
+                }
+                final long estimate = rs.getLong(1);
+                return rs.wasNull() ? OptionalLong.empty() : OptionalLong.of(estimate);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc} The sample is read by the {@code sample} clause, which accepts only percentage lower than 100, so
+     * the whole table is read for 100 percent. The clause accepts only numeric literal, so the percentage is part of
+     * the SQL.
+     */
+    @Override
+    public String sampleTable(String fullTableName, double percent) {
+        return percent < 100 ? String.format("%s sample (%s)", fullTableName, formatPercent(percent)) : fullTableName;
+    }
+
+    /**
+     * {@inheritDoc} The expression has no parameters.
+     */
+    @Override
+    public int bindSample(PreparedStatement statement, int first, double percent) {
+        return first;
+    }
+
+    /**
+     * Format the percentage as SQL numeric literal without exponent
+     *
+     * @param percent percentage of the sampled rows
+     * @return numeric literal
+     */
+    private static String formatPercent(double percent) {
+        return BigDecimal.valueOf(percent).stripTrailingZeros().toPlainString();
+    }
+}
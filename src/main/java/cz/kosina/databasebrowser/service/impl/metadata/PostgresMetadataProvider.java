@@ -0,0 +1,314 @@
+package cz.kosina.databasebrowser.service.impl.metadata;
+
+import com.google.common.collect.ImmutableMap;
+import cz.kosina.databasebrowser.domain.dto.DatabaseObject;
+import cz.kosina.databasebrowser.domain.dto.TableColumn;
+import cz.kosina.databasebrowser.domain.dto.TableColumns;
+import cz.kosina.databasebrowser.service.api.MetadataProvider;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+
+/**
+ * {@link MetadataProvider} for PostgreSQL reading its {@code pg_catalog}. The catalog name is ignored by all
+ * schema level queries, because the connection sees only its own database.
+ */
+@Component
+@Order(100)
+public class PostgresMetadataProvider extends JdbcMetadataProvider {
+
+    /**
+     * Query of the columns with primary key flag, optionally restricted to one table. Fractional digits are decoded
+     * from the type modifier for numeric types, the size is computed from the type modifier by
+     * {@link #columnSize(String, int)}.
+     */
+    private static final String COLUMNS_QUERY = "select c.relname as table_name, a.attnum, a.attname, "
+            + "coalesce(bt.typname, t.typname) as type_name, t.typcategory = 'A' as is_array, "
+            + "a.atttypmod, "
+            + "case when coalesce(bt.typname, t.typname) = 'numeric' and a.atttypmod >= 0 "
+            + "then (a.atttypmod - 4) & 65535 end as decimal_digits, "
+            + "case when a.attnotnull then 'NO' else 'YES' end as is_nullable, "
+            + "d.description, coalesce(a.attnum = any(i.indkey), false) as primary_key "
+            + "from pg_catalog.pg_class c "
+            + "join pg_catalog.pg_namespace n on n.oid = c.relnamespace "
+            + "join pg_catalog.pg_attribute a on a.attrelid = c.oid and a.attnum > 0 and not a.attisdropped "
+            + "join pg_catalog.pg_type t on t.oid = a.atttypid "
+            + "left join pg_catalog.pg_type bt on t.typtype = 'd' and bt.oid = t.typbasetype "
+            + "left join pg_catalog.pg_index i on i.indrelid = c.oid and i.indisprimary "
+            + "left join pg_catalog.pg_description d on d.objoid = c.oid and d.objsubid = a.attnum "
+            + "and d.classoid = 'pg_catalog.pg_class'::regclass "
+            + "where n.nspname = ? and c.relkind in ('r', 'p', 'v', 'm', 'f') %s"
+            + "order by c.relname, a.attnum";
+    /**
+     * Map between PostgreSQL type names and numerical SQL types. Other types are reported as {@link Types#OTHER}.
+     */
+    private static final Map<String, Integer> TYPES = ImmutableMap.<String, Integer>builder()
+            .put("bool", Types.BIT)
+            .put("int2", Types.SMALLINT)
+            .put("int4", Types.INTEGER)
+            .put("oid", Types.BIGINT)
+            .put("int8", Types.BIGINT)
+            .put("float4", Types.REAL)
+            .put("float8", Types.DOUBLE)
+            .put("numeric", Types.NUMERIC)
+            .put("money", Types.DOUBLE)
+            .put("bpchar", Types.CHAR)
+            .put("char", Types.CHAR)
+            .put("varchar", Types.VARCHAR)
+            .put("text", Types.VARCHAR)
+            .put("name", Types.VARCHAR)
+            .put("bytea", Types.BINARY)
+            .put("date", Types.DATE)
+            .put("time", Types.TIME)
+            .put("timetz", Types.TIME)
+            .put("timestamp", Types.TIMESTAMP)
+            .put("timestamptz", Types.TIMESTAMP)
+            .put("xml", Types.SQLXML)
+            .build();
+    /**
+     * Sizes of the types with fixed size as reported by the PostgreSQL JDBC driver: the precision of the numeric types
+     * and the display size of the temporal types
+     */
+    private static final Map<String, Integer> FIXED_SIZES = ImmutableMap.<String, Integer>builder()
+            .put("bool", 1)
+            .put("char", 1)
+            .put("int2", 5)
+            .put("int4", 10)
+            .put("oid", 10)
+            .put("int8", 19)
+            .put("float4", 8)
+            .put("float8", 17)
+            .put("date", 13)
+            .put("interval", 49)
+            .build();
+    /**
+     * Display sizes of the temporal types without the fractional seconds
+     */
+    private static final Map<String, Integer> TEMPORAL_SIZES = ImmutableMap.of(
+            "time", 8,
+            "timetz", 14,
+            "timestamp", 22,
+            "timestamptz", 28
+    );
+    /**
+     * Size reported by the PostgreSQL JDBC driver for the types without length limit
+     */
+    private static final int UNLIMITED_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supports(String url) {
+        return url.startsWith("jdbc:postgresql:");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> listCatalogs(Connection con) throws SQLException {
+        try (PreparedStatement statement = con.prepareStatement(
+                "select datname from pg_catalog.pg_database where datallowconn order by datname");
+             ResultSet rs = statement.executeQuery()) {
+            return readStrings(rs);
+        }
+    }
+
+    /**
+     * {@inheritDoc} Temporary schemas of other sessions are skipped.
+     */
+    @Override
+    public List<String> listSchemas(Connection con, String catalogName) throws SQLException {
+        try (PreparedStatement statement = con.prepareStatement(
+                "select nspname from pg_catalog.pg_namespace "
+                        + "where nspname !~ '^pg_(toast_)?temp_' order by nspname");
+             ResultSet rs = statement.executeQuery()) {
+            return readStrings(rs);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void exportTables(Connection con, String catalogName, String schemaName, Consumer<DatabaseObject> handler)
+            throws SQLException {
+        try (PreparedStatement statement = con.prepareStatement(
+                "select c.relname, case c.relkind when 'r' then 'TABLE' when 'p' then 'TABLE' when 'v' then 'VIEW' "
+                        + "when 'm' then 'MATERIALIZED VIEW' when 'f' then 'FOREIGN TABLE' "
+                        + "when 'S' then 'SEQUENCE' end as table_type, d.description "
+                        + "from pg_catalog.pg_class c "
+                        + "join pg_catalog.pg_namespace n on n.oid = c.relnamespace "
+                        + "left join pg_catalog.pg_description d on d.objoid = c.oid and d.objsubid = 0 "
+                        + "and d.classoid = 'pg_catalog.pg_class'::regclass "
+                        + "where n.nspname = ? and c.relkind in ('r', 'p', 'v', 'm', 'f', 'S') "
+                        + "order by table_type, c.relname")) {
+            statement.setString(1, schemaName);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    handler.accept(new DatabaseObject(rs.getString(1), rs.getString(2), rs.getString(3)));
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void exportColumns(Connection con,
+                              String catalogName,
+                              String schemaName,
+                              String tableName,
+                              Consumer<TableColumn> handler) throws SQLException {
+        try (PreparedStatement statement = con.prepareStatement(
+                String.format(COLUMNS_QUERY, "and c.relname = ? "))) {
+            statement.setString(1, schemaName);
+            statement.setString(2, tableName);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    handler.accept(toTableColumn(rs));
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> listPrimaryKeys(Connection con, String catalogName, String schemaName, String tableName)
+            throws SQLException {
+        try (PreparedStatement statement = con.prepareStatement(
+                "select a.attname from pg_catalog.pg_index i "
+                        + "join pg_catalog.pg_class c on c.oid = i.indrelid "
+                        + "join pg_catalog.pg_namespace n on n.oid = c.relnamespace "
+                        + "join pg_catalog.pg_attribute a on a.attrelid = c.oid and a.attnum = any(i.indkey) "
+                        + "where i.indisprimary and n.nspname = ? and c.relname = ? "
+                        + "order by array_position(i.indkey::int2[], a.attnum)")) {
+            statement.setString(1, schemaName);
+            statement.setString(2, tableName);
+            try (ResultSet rs = statement.executeQuery()) {
+                return readStrings(rs);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc} All columns of the schema are read by one query.
+     */
+    @Override
+    public void exportSchemaColumns(Connection con,
+                                    String catalogName,
+                                    String schemaName,
+                                    Consumer<TableColumns> handler) throws SQLException {
+        try (PreparedStatement statement = con.prepareStatement(String.format(COLUMNS_QUERY, ""))) {
+            statement.setString(1, schemaName);
+            try (ResultSet rs = statement.executeQuery()) {
+                groupByTable(rs, "table_name", handler, (row, table) -> toTableColumn(row));
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc} The estimate is {@code pg_class.reltuples} updated by vacuum and analyze. Tables which were never
+     * analyzed have no estimate: PostgreSQL 14 and newer report -1, older versions report 0 tuples in 0 pages, which
+     * cannot be distinguished from really empty table, so the rows are counted.
+     */
+    @Override
+    public OptionalLong estimateRowCount(Connection con, String catalogName, String schemaName, String tableName)
+            throws SQLException {
+        try (PreparedStatement statement = con.prepareStatement(
+                "select c.reltuples, c.relpages from pg_catalog.pg_class c "
+                        + "join pg_catalog.pg_namespace n on n.oid = c.relnamespace "
+                        + "where n.nspname = ? and c.relname = ?")) {
+            statement.setString(1, schemaName);
+            statement.setString(2, tableName);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return OptionalLong.empty();
+                }
+                final double estimate = rs.getDouble(1);
+                final boolean analyzed = estimate > 0 || estimate == 0 && rs.getLong(2) > 0;
+                return analyzed ? OptionalLong.of(Math.round(estimate)) : OptionalLong.empty();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc} The sample is read by {@code tablesample system}, which picks random pages of the table, so only
+     * the sampled pages are read from the disk. Rows on one page are returned together.
+     */
+    @Override
+    public String sampleTable(String fullTableName, double percent) {
+        return String.format("%s tablesample system (?)", fullTableName);
+    }
+
+    /**
+     * Compute the size of the column the same way as {@link java.sql.DatabaseMetaData#getColumns} of the PostgreSQL
+     * JDBC driver does: the precision of the numeric types, the display size of the temporal types and the length of
+     * the character and bit types.
+     *
+     * @param typeName name of the type (base type of the domain)
+     * @param typmod   type modifier of the column, negative if the column has none
+     * @return size of the column or null if it is not known for the type
+     */
+    static Integer columnSize(String typeName, int typmod) {
+        if (FIXED_SIZES.containsKey(typeName)) {
+            return FIXED_SIZES.get(typeName);
+        }
+        if (TEMPORAL_SIZES.containsKey(typeName)) {
+            // the fractional seconds with the decimal point, microseconds if the precision is not set
+            final int fraction = typmod < 0 ? 7 : typmod > 0 ? typmod + 1 : 0;
+            return TEMPORAL_SIZES.get(typeName) + fraction;
+        }
+        switch (typeName) {
+            case "numeric":
+                return typmod < 0 ? 0 : ((typmod - 4) >> 16) & 0xFFFF;
+            case "varchar":
+            case "bpchar":
+                return typmod < 0 ? UNLIMITED_SIZE : typmod - 4;
+            case "bit":
+            case "varbit":
+                return typmod < 0 ? UNLIMITED_SIZE : typmod;
+            case "text":
+            case "bytea":
+                return UNLIMITED_SIZE;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Convert the current row of {@link #COLUMNS_QUERY} result into the column
+     *
+     * @param rs result positioned on the column
+     * @return column of the table
+     * @throws SQLException if reading of the result fails
+     */
+    private static TableColumn toTableColumn(ResultSet rs) throws SQLException {
+        final int type = rs.getBoolean("is_array")
+                ? Types.ARRAY
+                : TYPES.getOrDefault(rs.getString("type_name"), Types.OTHER);
+        return new TableColumn(
+                rs.getInt("attnum"),
+                rs.getString("attname"),
+                SqlTypes.name(type),
+                type == Types.ARRAY ? null : columnSize(rs.getString("type_name"), rs.getInt("atttypmod")),
+                rs.getString("is_nullable"),
+                rs.getBoolean("primary_key"),
+                rs.getString("description"),
+                rs.getInt("decimal_digits")
+        );
+    }
+}
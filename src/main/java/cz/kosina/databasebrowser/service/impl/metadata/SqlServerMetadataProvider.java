@@ -0,0 +1,45 @@
+package cz.kosina.databasebrowser.service.impl.metadata;
+
+import cz.kosina.databasebrowser.service.api.MetadataProvider;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * {@link MetadataProvider} for Microsoft SQL Server sampling the tables by its {@code tablesample} clause. Other
+ * metadata are read by the generic JDBC provider.
+ */
+@Component
+@Order(100)
+public class SqlServerMetadataProvider extends JdbcMetadataProvider {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supports(String url) {
+        return url.startsWith("jdbc:sqlserver:");
+    }
+
+    /**
+     * {@inheritDoc} SQL Server has no read-only transactions, only the read-only intent of the connection used for
+     * routing to replicas, so it cannot enforce them.
+     */
+    @Override
+    public boolean startReadOnlyTransaction(Connection con) throws SQLException {
+        con.setReadOnly(true);
+        con.setAutoCommit(false);
+        return false;
+    }
+
+    /**
+     * {@inheritDoc} The sample is read by {@code tablesample}, which picks random pages of the table, so only the
+     * sampled pages are read from the disk. Rows on one page are returned together.
+     */
+    @Override
+    public String sampleTable(String fullTableName, double percent) {
+        return String.format("%s tablesample (? percent)", fullTableName);
+    }
+}
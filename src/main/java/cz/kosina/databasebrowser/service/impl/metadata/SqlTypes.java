@@ -0,0 +1,68 @@
+package cz.kosina.databasebrowser.service.impl.metadata;
+
+import lombok.SneakyThrows;
+
+import java.lang.reflect.Field;
+import java.sql.Types;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Names of the numerical SQL types defined in {@link Types}
+ */
+public final class SqlTypes {
+
+    /**
+     * Map between numerical SQL Types and real names
+     */
+    private static final Map<Integer, String> TYPE_NAMES = Stream.of(Types.class.getFields()).collect(
+            Collectors.toMap(
+                    SqlTypes::getTypeInt,
+                    Field::getName
+            )
+    );
+    /**
+     * Map between names of SQL types and numerical SQL types
+     */
+    private static final Map<String, Integer> TYPES = Stream.of(Types.class.getFields()).collect(
+            Collectors.toMap(
+                    Field::getName,
+                    SqlTypes::getTypeInt
+            )
+    );
+
+    private SqlTypes() {
+    }
+
+    /**
+     * Get the name of the SQL type
+     *
+     * @param type numerical SQL type
+     * @return name of the type or null if the type is unknown
+     */
+    public static String name(int type) {
+        return TYPE_NAMES.get(type);
+    }
+
+    /**
+     * Get the numerical SQL type of the name
+     *
+     * @param name name of the type returned by {@link #name(int)}
+     * @return numerical SQL type or null if the name is unknown
+     */
+    public static Integer type(String name) {
+        return TYPES.get(name);
+    }
+
+    /**
+     * Get the integer representation of the field
+     *
+     * @param i field to be evaluated
+     * @return numerical representation
+     */
+    @SneakyThrows
+    private static Integer getTypeInt(Field i) {
+        return i.getInt(null);
+    }
+}
@@ -0,0 +1,118 @@
+package cz.kosina.databasebrowser.service.impl.sketch;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import cz.kosina.databasebrowser.domain.dto.ColumnProfile;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sketches of one column. Distinct count is estimated by {@link HyperLogLog}, most frequent values by
+ * {@link SpaceSaving} and for numeric columns quantiles by {@link KllSketch}. The memory consumption does not depend on
+ * the number of rows and sketches of the same column built over different parts of the table can be merged.
+ */
+public class ColumnSketch {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final String name;
+    private final String type;
+    private final HyperLogLog distinct;
+    private final SpaceSaving frequent;
+    /**
+     * Sketch of numeric values or null if the column is not numeric
+     */
+    private final KllSketch quantiles;
+    private long rows;
+    private long nulls;
+
+    /**
+     * Create empty sketches for the column
+     *
+     * @param name               name of the column
+     * @param type               name of the SQL type of the column
+     * @param numeric            true if the quantiles should be computed
+     * @param distinctPrecision  precision of {@link HyperLogLog}
+     * @param frequentCapacity   number of values monitored by {@link SpaceSaving}
+     * @param quantileSketchSize size of {@link KllSketch}
+     */
+    public ColumnSketch(String name, String type, boolean numeric,
+                        int distinctPrecision, int frequentCapacity, int quantileSketchSize) {
+        this.name = name;
+        this.type = type;
+        this.distinct = new HyperLogLog(distinctPrecision);
+        this.frequent = new SpaceSaving(frequentCapacity);
+        this.quantiles = numeric ? new KllSketch(quantileSketchSize) : null;
+    }
+
+    /**
+     * Add the value of the column from one row
+     *
+     * @param value   value converted to string or null
+     * @param numeric numeric value used for quantiles, ignored for non numeric column
+     */
+    public void add(String value, double numeric) {
+        rows++;
+        if (value == null) {
+            nulls++;
+            return;
+        }
+        distinct.add(HASH.hashUnencodedChars(value).asLong());
+        frequent.add(value);
+        if (quantiles != null) {
+            quantiles.add(numeric);
+        }
+    }
+
+    /**
+     * Check if the quantiles are computed for the column
+     *
+     * @return true if the column is numeric
+     */
+    public boolean isNumeric() {
+        return quantiles != null;
+    }
+
+    /**
+     * Merge sketches of the same column built from other rows
+     *
+     * @param other sketches of the same column
+     */
+    public void merge(ColumnSketch other) {
+        rows += other.rows;
+        nulls += other.nulls;
+        distinct.merge(other.distinct);
+        frequent.merge(other.frequent);
+        if (quantiles != null && other.quantiles != null) {
+            quantiles.merge(other.quantiles);
+        }
+    }
+
+    /**
+     * Create profile of the column from the sketches
+     *
+     * @param fractions fractions of the returned quantiles
+     * @param topValues number of returned most frequent values
+     * @return profile of the column
+     */
+    public ColumnProfile toProfile(List<Double> fractions, int topValues) {
+        Map<String, Double> quantileValues = null;
+        if (quantiles != null) {
+            quantileValues = new LinkedHashMap<>();
+            for (Double fraction : fractions) {
+                quantileValues.put(String.valueOf(fraction), quantiles.quantile(fraction));
+            }
+        }
+        return new ColumnProfile(
+                name,
+                type,
+                rows,
+                nulls,
+                distinct.estimate(),
+                quantileValues,
+                frequent.top(topValues)
+        );
+    }
+}
@@ -0,0 +1,97 @@
+package cz.kosina.databasebrowser.service.impl.sketch;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * HyperLogLog sketch used for approximate count of distinct values in bounded memory. The sketch uses
+ * {@code 2^precision} one byte registers and its relative standard error is about {@code 1.04 / sqrt(2^precision)}.
+ * Sketches with the same precision can be merged.
+ */
+public class HyperLogLog {
+
+    /**
+     * Number of bits of the hash used for register index
+     */
+    private final int precision;
+    /**
+     * Maximal number of leading zeros observed in the hashes falling into the register (plus one)
+     */
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        Validate.inclusiveBetween(4, 18, precision, "Precision must be between 4 and 18");
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Add the 64 bit hash of the value into the sketch
+     *
+     * @param hash well distributed hash of the value
+     */
+    public void add(long hash) {
+        final int index = (int) (hash >>> (Long.SIZE - precision));
+        final int rank = Math.min(
+                Long.numberOfLeadingZeros(hash << precision) + 1,
+                Long.SIZE - precision + 1
+        );
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Merge other sketch into this one. The result is the same as if all values were added into this sketch.
+     *
+     * @param other sketch with the same precision
+     */
+    public void merge(HyperLogLog other) {
+        Validate.isTrue(precision == other.precision, "Only sketches with the same precision can be merged");
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Estimate the number of distinct added values. Small cardinalities are estimated by linear counting.
+     *
+     * @return estimated number of distinct values
+     */
+    public long estimate() {
+        final int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Bias correction constant for the number of registers
+     *
+     * @param m number of registers
+     * @return correction constant
+     */
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+}
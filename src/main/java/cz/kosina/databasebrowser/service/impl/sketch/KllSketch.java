@@ -0,0 +1,229 @@
+package cz.kosina.databasebrowser.service.impl.sketch;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * KLL sketch used for approximate quantiles of numeric values in bounded memory. Items are kept in hierarchy of
+ * compactors, the item on level {@code h} represents {@code 2^h} added values. When the sketch is full, the lowest full
+ * level is sorted and every other item is promoted to the next level. Sketches can be merged.
+ */
+public class KllSketch {
+
+    /**
+     * Ratio of the capacities of two neighbouring levels
+     */
+    private static final double CAPACITY_RATIO = 2.0 / 3.0;
+
+    /**
+     * Capacity of the top level, which drives the accuracy of the sketch
+     */
+    private final int k;
+    /**
+     * Compactors, level h contains items with weight 2^h
+     */
+    private final List<Level> levels = new ArrayList<>();
+    /**
+     * Source of randomness for compaction
+     */
+    private final Random random;
+    /**
+     * Capacities of the levels, they change only when new level is added
+     */
+    private int[] capacities;
+    /**
+     * Sum of the capacities of all levels
+     */
+    private int totalCapacity;
+    /**
+     * Number of items retained on all levels
+     */
+    private int retained;
+    /**
+     * Number of added values
+     */
+    private long count;
+    /**
+     * Minimal added value
+     */
+    private double min = Double.POSITIVE_INFINITY;
+    /**
+     * Maximal added value
+     */
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public KllSketch(int k) {
+        this(k, new Random());
+    }
+
+    KllSketch(int k, Random random) {
+        Validate.isTrue(k >= 8, "Sketch size must be at least 8");
+        this.k = k;
+        this.random = random;
+        addLevel();
+    }
+
+    /**
+     * Add the value into the sketch. The levels are compacted only when the sketch overflows its capacity.
+     *
+     * @param value added value
+     */
+    public void add(double value) {
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        levels.get(0).add(value);
+        if (++retained > totalCapacity) {
+            compress();
+        }
+    }
+
+    /**
+     * Merge other sketch into this one
+     *
+     * @param other sketch to be merged
+     */
+    public void merge(KllSketch other) {
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        while (levels.size() < other.levels.size()) {
+            addLevel();
+        }
+        for (int h = 0; h < other.levels.size(); h++) {
+            final Level level = other.levels.get(h);
+            for (int i = 0; i < level.size; i++) {
+                levels.get(h).add(level.items[i]);
+            }
+        }
+        retained += other.retained;
+        compress();
+    }
+
+    /**
+     * Number of added values
+     *
+     * @return number of added values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Get approximate quantile of the added values
+     *
+     * @param fraction quantile fraction between 0 and 1, 0.5 is median
+     * @return approximate quantile or null if no value was added
+     */
+    public Double quantile(double fraction) {
+        Validate.inclusiveBetween(0.0, 1.0, fraction, "Quantile fraction must be between 0 and 1");
+        if (count == 0) {
+            return null;
+        }
+        if (fraction == 0.0) {
+            return min;
+        }
+        if (fraction == 1.0) {
+            return max;
+        }
+        final double[] values = new double[retained];
+        final long[] weights = new long[retained];
+        final Integer[] order = new Integer[retained];
+        int index = 0;
+        long totalWeight = 0;
+        for (int h = 0; h < levels.size(); h++) {
+            final Level level = levels.get(h);
+            for (int i = 0; i < level.size; i++) {
+                values[index] = level.items[i];
+                weights[index] = 1L << h;
+                order[index] = index;
+                totalWeight += weights[index];
+                index++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        final double target = fraction * totalWeight;
+        long cumulative = 0;
+        for (Integer i : order) {
+            cumulative += weights[i];
+            if (cumulative >= target) {
+                return values[i];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Compact full levels until the sketch fits into its capacity
+     */
+    private void compress() {
+        while (retained > totalCapacity) {
+            for (int h = 0; h < levels.size(); h++) {
+                if (levels.get(h).size >= capacities[h]) {
+                    compact(h);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sort the level and promote every other item into the next level. If the level has odd size, the largest item
+     * stays on the level.
+     *
+     * @param h index of the level
+     */
+    private void compact(int h) {
+        if (h + 1 == levels.size()) {
+            addLevel();
+        }
+        final Level level = levels.get(h);
+        final Level next = levels.get(h + 1);
+        Arrays.sort(level.items, 0, level.size);
+        final int promoted = level.size - level.size % 2;
+        for (int i = random.nextBoolean() ? 1 : 0; i < promoted; i += 2) {
+            next.add(level.items[i]);
+        }
+        final boolean odd = level.size % 2 == 1;
+        final double kept = level.items[level.size - 1];
+        retained -= promoted / 2;
+        level.size = 0;
+        if (odd) {
+            level.add(kept);
+        }
+    }
+
+    /**
+     * Add new top level and recompute the capacities of the levels. The top level has capacity k, each lower level has
+     * capacity smaller by the constant ratio.
+     */
+    private void addLevel() {
+        levels.add(new Level());
+        capacities = new int[levels.size()];
+        totalCapacity = 0;
+        for (int h = 0; h < capacities.length; h++) {
+            final int depth = capacities.length - h - 1;
+            capacities[h] = Math.max(2, (int) Math.ceil(k * Math.pow(CAPACITY_RATIO, depth)));
+            totalCapacity += capacities[h];
+        }
+    }
+
+    /**
+     * Growing array of items on one level
+     */
+    private static class Level {
+        private double[] items = new double[8];
+        private int size;
+
+        void add(double value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package cz.kosina.databasebrowser.service.impl.sketch;
+
+import cz.kosina.databasebrowser.domain.dto.ValueFrequency;
+import org.apache.commons.lang3.Validate;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Space-Saving sketch used for approximate most frequent values in bounded memory. At most {@code capacity} values are
+ * monitored, new value replaces the least frequent monitored value and inherits its count as possible error. Sketches
+ * can be merged. The counters are kept ordered by count too, so the least frequent value is found in logarithmic time.
+ */
+public class SpaceSaving {
+
+    /**
+     * Maximal number of monitored values
+     */
+    private final int capacity;
+    /**
+     * Monitored values with their counters
+     */
+    private final Map<String, Counter> counters = new HashMap<>();
+    /**
+     * Monitored counters ordered by count, the first one is the least frequent
+     */
+    private final TreeSet<Counter> ordered = new TreeSet<>(
+            Comparator.comparingLong((Counter i) -> i.count).thenComparing(i -> i.value));
+
+    public SpaceSaving(int capacity) {
+        Validate.isTrue(capacity > 0, "Capacity must be positive");
+        this.capacity = capacity;
+    }
+
+    /**
+     * Add one occurrence of the value
+     *
+     * @param value added value
+     */
+    public void add(String value) {
+        final Counter counter = counters.get(value);
+        if (counter != null) {
+            ordered.remove(counter);
+            counter.count++;
+            ordered.add(counter);
+        } else if (counters.size() < capacity) {
+            put(new Counter(value, 1, 0));
+        } else {
+            final Counter min = ordered.pollFirst();
+            counters.remove(min.value);
+            put(new Counter(value, min.count + 1, min.count));
+        }
+    }
+
+    /**
+     * Merge other sketch into this one. Values not monitored by one of the sketches get the minimal count of that
+     * sketch as their possible error, than only the most frequent values are kept.
+     *
+     * @param other sketch to be merged
+     */
+    public void merge(SpaceSaving other) {
+        final long thisMin = minCount();
+        final long otherMin = other.minCount();
+        final Set<String> values = new HashSet<>(counters.keySet());
+        values.addAll(other.counters.keySet());
+        final Map<String, Counter> merged = new HashMap<>();
+        for (String value : values) {
+            final Counter thisCounter = counters.getOrDefault(value, new Counter(value, thisMin, thisMin));
+            final Counter otherCounter = other.counters.getOrDefault(value, new Counter(value, otherMin, otherMin));
+            merged.put(value, new Counter(
+                    value,
+                    thisCounter.count + otherCounter.count,
+                    thisCounter.error + otherCounter.error
+            ));
+        }
+        counters.clear();
+        ordered.clear();
+        merged.values().stream()
+                .sorted(Comparator.comparingLong((Counter i) -> i.count).reversed())
+                .limit(capacity)
+                .forEach(this::put);
+    }
+
+    /**
+     * Get the most frequent values
+     *
+     * @param limit maximal number of returned values
+     * @return most frequent values ordered by count descending
+     */
+    public List<ValueFrequency> top(int limit) {
+        return ordered.descendingSet().stream()
+                .limit(limit)
+                .map(i -> new ValueFrequency(i.value, i.count, i.error))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Minimal count of the monitored values. Zero if the sketch is not full, because values which are not monitored
+     * were never seen.
+     *
+     * @return minimal count
+     */
+    private long minCount() {
+        return counters.size() < capacity ? 0 : ordered.first().count;
+    }
+
+    private void put(Counter counter) {
+        counters.put(counter.value, counter);
+        ordered.add(counter);
+    }
+
+    /**
+     * Count of the monitored value with its maximal overestimation
+     */
+    private static class Counter {
+        private final String value;
+        private long count;
+        private final long error;
+
+        Counter(String value, long count, long error) {
+            this.value = value;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package cz.kosina.databasebrowser;
 
 import cz.kosina.databasebrowser.domain.dto.ConnectionProperties;
 import cz.kosina.databasebrowser.service.api.ConnectionService;
+import cz.kosina.databasebrowser.service.api.MetadataCacheService;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,8 +19,12 @@ public abstract class DatabaseTestStarter implements StarterOptions {
     @Autowired
     private ConnectionService connectionService;
 
+    @Autowired
+    private MetadataCacheService metadataCacheService;
+
     @Before
     public void init() {
+        metadataCacheService.invalidate(CONNECTION_NAME, null, null, null);
         connectionService.create(
                 new ConnectionProperties(
                         "TestH2",
@@ -0,0 +1,26 @@
+package cz.kosina.databasebrowser.config;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class StreamingTimeoutInterceptorTest {
+
+    @Test
+    public void timeoutIsSetBeforeStreamingStarts() {
+        final MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+        servletRequest.setAsyncSupported(true);
+        final StandardServletAsyncWebRequest request = new StandardServletAsyncWebRequest(servletRequest,
+                new MockHttpServletResponse());
+        request.setTimeout(60_000L);
+
+        new StreamingTimeoutInterceptor(3_600_000L).beforeConcurrentHandling(request, () -> null);
+        request.startAsync();
+
+        assertThat(servletRequest.getAsyncContext().getTimeout(), equalTo(3_600_000L));
+    }
+}
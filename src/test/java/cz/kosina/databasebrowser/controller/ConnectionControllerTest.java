@@ -1,11 +1,18 @@
 package cz.kosina.databasebrowser.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import cz.kosina.databasebrowser.RestTestStarter;
+import cz.kosina.databasebrowser.config.JacksonFormats;
 import cz.kosina.databasebrowser.domain.dto.ConnectionProperties;
 import org.junit.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
 
@@ -45,6 +52,24 @@ public class ConnectionControllerTest extends RestTestStarter {
         );
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void listObjectsAsCbor() throws IOException {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(JacksonFormats.CBOR));
+        ResponseEntity<byte[]> resp = template.exchange(
+                createUrl(PATH),
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                byte[].class
+        );
+        assertThat(resp.getHeaders().getContentType().isCompatibleWith(JacksonFormats.CBOR), is(true));
+        assertThat(
+                new ObjectMapper(new CBORFactory()).readValue(resp.getBody(), ConnectionProperties[].class),
+                hasItemInArray(hasProperty("name", equalTo("TestH2")))
+        );
+    }
+
     @Test
     public void createExistingWillFail() {
         ResponseEntity<ConnectionProperties> resp = template.postForEntity(
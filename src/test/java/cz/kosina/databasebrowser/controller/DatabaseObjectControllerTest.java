@@ -1,15 +1,33 @@
 package cz.kosina.databasebrowser.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import cz.kosina.databasebrowser.RestTestStarter;
+import cz.kosina.databasebrowser.config.JacksonFormats;
+import cz.kosina.databasebrowser.domain.dto.ColumnProfile;
 import cz.kosina.databasebrowser.domain.dto.ColumnStatistics;
+import cz.kosina.databasebrowser.domain.dto.ColumnarData;
+import cz.kosina.databasebrowser.domain.dto.DataPage;
 import cz.kosina.databasebrowser.domain.dto.DatabaseObject;
+import cz.kosina.databasebrowser.domain.dto.QueryRequest;
+import cz.kosina.databasebrowser.domain.dto.QueryResult;
 import cz.kosina.databasebrowser.domain.dto.TableColumn;
+import cz.kosina.databasebrowser.domain.dto.TableColumns;
 import cz.kosina.databasebrowser.domain.dto.TableStatistics;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
+import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -20,6 +38,9 @@ public class DatabaseObjectControllerTest extends RestTestStarter {
 
     private static final Map<String, String> URL_VARIABLES = new HashMap<>();
 
+    @Autowired
+    private Jackson2ObjectMapperBuilder objectMapperBuilder;
+
     @BeforeClass
     public static void initClass() {
         URL_VARIABLES.put("id", CONNECTION_NAME);
@@ -123,6 +144,40 @@ public class DatabaseObjectControllerTest extends RestTestStarter {
     }
 
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void findSchemaColumns() {
+        ResponseEntity<TableColumns[]> resp = template.getForEntity(
+                createUrl("{id}/{catalog}/{schema}/columns"),
+                TableColumns[].class,
+                URL_VARIABLES
+        );
+
+        assertThat(
+                resp,
+                allOf(
+                        hasProperty("statusCode", equalTo(HttpStatus.OK)),
+                        hasProperty("body",
+                                arrayContaining(
+                                        allOf(
+                                                hasProperty("tableName", equalTo(TEST_TABLE)),
+                                                hasProperty("columns", contains(
+                                                        allOf(
+                                                                hasProperty("name", equalTo("NAME")),
+                                                                hasProperty("primaryKey", equalTo(false))
+                                                        ),
+                                                        allOf(
+                                                                hasProperty("name", equalTo("ID")),
+                                                                hasProperty("primaryKey", equalTo(true))
+                                                        )
+                                                ))
+                                        )
+                                )
+                        )
+                )
+        );
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void findColumns() {
@@ -163,6 +218,400 @@ public class DatabaseObjectControllerTest extends RestTestStarter {
         );
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void previewDataPage() {
+        ResponseEntity<String[][]> resp = template.getForEntity(
+                createUrl("{id}/{catalog}/{schema}/{tableName}/data?pageSize=2"),
+                String[][].class,
+                URL_VARIABLES
+        );
+        assertThat(
+                resp,
+                allOf(
+                        hasProperty("statusCode", equalTo(HttpStatus.OK)),
+                        hasProperty("body",
+                                arrayContaining(
+                                        arrayContaining("a", "1"),
+                                        arrayContaining("b", "2")
+                                )
+                        )
+                )
+        );
+        assertThat(resp.getHeaders().getFirst("X-Continuation-Token"), notNullValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void previewSelectedData() {
+        ResponseEntity<String[][]> resp = template.getForEntity(
+                createUrl("{id}/{catalog}/{schema}/{tableName}/data?columns=NAME&filter=ID:gt:3&orderBy=ID:desc"),
+                String[][].class,
+                URL_VARIABLES
+        );
+        assertThat(
+                resp,
+                allOf(
+                        hasProperty("statusCode", equalTo(HttpStatus.OK)),
+                        hasProperty("body", arrayContaining(arrayContaining("e"), arrayContaining("d")))
+                )
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void previewDataFilteredByValueWithComma() {
+        ResponseEntity<String[][]> resp = template.getForEntity(
+                createUrl("{id}/{catalog}/{schema}/{tableName}/data?columns=NAME&filter=NAME:in:a|x,y"),
+                String[][].class,
+                URL_VARIABLES
+        );
+        assertThat(
+                resp,
+                allOf(
+                        hasProperty("statusCode", equalTo(HttpStatus.OK)),
+                        hasProperty("body", arrayContaining(arrayContaining("a")))
+                )
+        );
+    }
+
+    @Test
+    public void previewSampledData() {
+        ResponseEntity<String[][]> resp = template.getForEntity(
+                createUrl("{id}/{catalog}/{schema}/{tableName}/data?samplePercent=100&pageSize=2"),
+                String[][].class,
+                URL_VARIABLES
+        );
+        assertThat(resp.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(resp.getBody().length, equalTo(2));
+        assertThat(resp.getHeaders().getFirst("X-Sampled"), equalTo("true"));
+        assertThat(resp.getHeaders().getFirst("X-Continuation-Token"), nullValue());
+    }
+
+    @Test
+    public void sampledExactStatisticsAreRejected() {
+        ResponseEntity<String> resp = template.getForEntity(
+                createUrl("{id}/{catalog}/{schema}/{tableName}/statistics?exact=true&sampleRows=10"),
+                String.class,
+                URL_VARIABLES
+        );
+        assertThat(resp.getStatusCode(), equalTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @Test
+    public void previewDataUnknownOperator() {
+        ResponseEntity<String> resp = template.getForEntity(
+                createUrl("{id}/{catalog}/{schema}/{tableName}/data?filter=ID:like:3"),
+                String.class,
+                URL_VARIABLES
+        );
+        assertThat(resp.getStatusCode(), equalTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void streamTables() {
+        ResponseEntity<DatabaseObject[]> resp = template.getForEntity(
+                createUrl("{id}/{catalog}/{schema}/tables?stream=true"),
+                DatabaseObject[].class,
+                URL_VARIABLES
+        );
+
+        assertThat(
+                resp,
+                allOf(
+                        hasProperty("statusCode", equalTo(HttpStatus.OK)),
+                        hasProperty("body",
+                                arrayContaining(
+                                        allOf(
+                                                hasProperty("name", equalTo(TEST_TABLE)),
+                                                hasProperty("type", equalTo("TABLE"))
+                                        )
+                                )
+                        )
+                )
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void streamColumns() {
+        ResponseEntity<TableColumn[]> resp = template.getForEntity(
+                createUrl("{id}/{catalog}/{schema}/{tableName}/columns?stream=true"),
+                TableColumn[].class,
+                URL_VARIABLES
+        );
+
+        assertThat(
+                resp,
+                allOf(
+                        hasProperty("statusCode", equalTo(HttpStatus.OK)),
+                        hasProperty("body",
+                                arrayContaining(
+                                        allOf(
+                                                hasProperty("name", equalTo("NAME")),
+                                                hasProperty("primaryKey", equalTo(false))
+                                        ),
+                                        allOf(
+                                                hasProperty("name", equalTo("ID")),
+                                                hasProperty("primaryKey", equalTo(true))
+                                        )
+                                ))
+                )
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void streamDataPages() {
+        ResponseEntity<DataPage> first = template.getForEntity(
+                createUrl("{id}/{catalog}/{schema}/{tableName}/data?stream=true&pageSize=3"),
+                DataPage.class,
+                URL_VARIABLES
+        );
+        assertThat(
+                first,
+                allOf(
+                        hasProperty("statusCode", equalTo(HttpStatus.OK)),
+                        hasProperty("body", allOf(
+                                hasProperty("rows", contains(
+                                        contains("a", "1"),
+                                        contains("b", "2"),
+                                        contains("c", "3")
+                                )),
+                                hasProperty("continuation", notNullValue())
+                        ))
+                )
+        );
+
+        final Map<String, String> variables = new HashMap<>(URL_VARIABLES);
+        variables.put("continuation", first.getBody().getContinuation());
+        ResponseEntity<DataPage> second = template.getForEntity(
+                createUrl("{id}/{catalog}/{schema}/{tableName}/data?stream=true&pageSize=3"
+                        + "&continuation={continuation}"),
+                DataPage.class,
+                variables
+        );
+        assertThat(
+                second,
+                allOf(
+                        hasProperty("statusCode", equalTo(HttpStatus.OK)),
+                        hasProperty("body", allOf(
+                                hasProperty("rows", contains(
+                                        contains("d", "4"),
+                                        contains("e", "5")
+                                )),
+                                hasProperty("continuation", nullValue())
+                        ))
+                )
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void findTablesAsSmile() throws IOException {
+        ResponseEntity<byte[]> resp = getWithAccept("{id}/{catalog}/{schema}/tables", JacksonFormats.SMILE);
+
+        assertThat(resp.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(resp.getHeaders().getContentType().isCompatibleWith(JacksonFormats.SMILE), is(true));
+        assertThat(
+                new ObjectMapper(new SmileFactory()).readValue(resp.getBody(), DatabaseObject[].class),
+                arrayContaining(hasProperty("name", equalTo(TEST_TABLE)))
+        );
+    }
+
+    @Test
+    public void binaryFormatsKeepJsonMapperBuilder() {
+        assertThat(objectMapperBuilder.build().getFactory(),
+                not(anyOf(instanceOf(SmileFactory.class), instanceOf(CBORFactory.class))));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void streamColumnsAsCbor() throws IOException {
+        ResponseEntity<byte[]> resp = getWithAccept("{id}/{catalog}/{schema}/{tableName}/columns?stream=true",
+                JacksonFormats.CBOR);
+
+        assertThat(resp.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(resp.getHeaders().getContentType().isCompatibleWith(JacksonFormats.CBOR), is(true));
+        assertThat(
+                new ObjectMapper(new CBORFactory()).readValue(resp.getBody(), TableColumn[].class),
+                arrayContaining(hasProperty("name", equalTo("NAME")), hasProperty("name", equalTo("ID")))
+        );
+    }
+
+    @Test
+    public void wildcardAcceptIsAnsweredByJson() {
+        ResponseEntity<byte[]> tables = getWithAccept("{id}/{catalog}/{schema}/tables", MediaType.ALL);
+        ResponseEntity<byte[]> streamed = getWithAccept("{id}/{catalog}/{schema}/tables?stream=true", MediaType.ALL);
+
+        assertThat(tables.getHeaders().getContentType().isCompatibleWith(MediaType.APPLICATION_JSON), is(true));
+        assertThat(streamed.getHeaders().getContentType().isCompatibleWith(MediaType.APPLICATION_JSON), is(true));
+    }
+
+    /**
+     * Get raw response of the endpoint in the requested encoding
+     *
+     * @param path   path of the endpoint
+     * @param accept accepted media type
+     * @return response with the encoded body
+     */
+    private ResponseEntity<byte[]> getWithAccept(String path, MediaType accept) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(accept));
+        return template.exchange(createUrl(path), HttpMethod.GET, new HttpEntity<>(headers), byte[].class,
+                URL_VARIABLES);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void executeQuery() {
+        ResponseEntity<QueryResult> resp = template.postForEntity(
+                createUrl("{id}/query"),
+                new QueryRequest(
+                        String.format("select NAME from %s.%s where ID <= ? order by ID", TEST_SCHEME, TEST_TABLE),
+                        Collections.singletonList(2),
+                        null
+                ),
+                QueryResult.class,
+                URL_VARIABLES
+        );
+        assertThat(
+                resp,
+                allOf(
+                        hasProperty("statusCode", equalTo(HttpStatus.OK)),
+                        hasProperty("body", allOf(
+                                hasProperty("columns", contains("NAME")),
+                                hasProperty("rows", contains(contains("a"), contains("b"))),
+                                hasProperty("truncated", equalTo(false))
+                        ))
+                )
+        );
+    }
+
+    @Test
+    public void executeQueryRejectsWrite() {
+        ResponseEntity<String> resp = template.postForEntity(
+                createUrl("{id}/query"),
+                new QueryRequest(String.format("drop table %s.%s", TEST_SCHEME, TEST_TABLE), null, null),
+                String.class,
+                URL_VARIABLES
+        );
+        assertThat(resp.getStatusCode(), equalTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @Test
+    public void streamDataRejectsColumnarFormat() {
+        ResponseEntity<String> resp = template.getForEntity(
+                createUrl("{id}/{catalog}/{schema}/{tableName}/data?stream=true&format=columnar"),
+                String.class,
+                URL_VARIABLES
+        );
+        assertThat(resp.getStatusCode(), equalTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void previewColumnarDataByParameter() {
+        ResponseEntity<ColumnarData> resp = template.getForEntity(
+                createUrl("{id}/{catalog}/{schema}/{tableName}/data?format=columnar"),
+                ColumnarData.class,
+                URL_VARIABLES
+        );
+        assertThat(
+                resp,
+                allOf(
+                        hasProperty("statusCode", equalTo(HttpStatus.OK)),
+                        hasProperty("body", allOf(
+                                hasProperty("rowCount", equalTo(5)),
+                                hasProperty("columns", contains(
+                                        hasProperty("stringValues", arrayContaining("a", "b", "c", "d", "e")),
+                                        hasProperty("longValues", equalTo(new long[]{1, 2, 3, 4, 5}))
+                                ))
+                        ))
+                )
+        );
+    }
+
+    @Test
+    public void previewColumnarDataByAcceptHeader() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(
+                MediaType.parseMediaType("application/vnd.database-browser.columnar+json")));
+        ResponseEntity<ColumnarData> resp = template.exchange(
+                createUrl("{id}/{catalog}/{schema}/{tableName}/data?pageSize=2"),
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                ColumnarData.class,
+                URL_VARIABLES
+        );
+        assertThat(
+                resp,
+                allOf(
+                        hasProperty("statusCode", equalTo(HttpStatus.OK)),
+                        hasProperty("body", allOf(
+                                hasProperty("rowCount", equalTo(2)),
+                                hasProperty("continuation", notNullValue())
+                        ))
+                )
+        );
+    }
+
+    @Test
+    public void previewDataInvalidPageSize() {
+        ResponseEntity<String> resp = template.getForEntity(
+                createUrl("{id}/{catalog}/{schema}/{tableName}/data?pageSize=0"),
+                String.class,
+                URL_VARIABLES
+        );
+        assertThat(
+                resp,
+                hasProperty("statusCode", equalTo(HttpStatus.BAD_REQUEST))
+        );
+    }
+
+    @Test
+    public void exportNdjson() {
+        ResponseEntity<String> resp = template.getForEntity(
+                createUrl("{id}/{catalog}/{schema}/{tableName}/export"),
+                String.class,
+                URL_VARIABLES
+        );
+
+        assertThat(
+                resp,
+                allOf(
+                        hasProperty("statusCode", equalTo(HttpStatus.OK)),
+                        hasProperty("body", allOf(
+                                containsString("{\"NAME\":\"a\",\"ID\":\"1\"}\n"),
+                                containsString("{\"NAME\":\"e\",\"ID\":\"5\"}\n")
+                        ))
+                )
+        );
+    }
+
+    @Test
+    public void exportCsv() {
+        ResponseEntity<String> resp = template.getForEntity(
+                createUrl("{id}/{catalog}/{schema}/{tableName}/export?format=CSV"),
+                String.class,
+                URL_VARIABLES
+        );
+
+        assertThat(
+                resp,
+                allOf(
+                        hasProperty("statusCode", equalTo(HttpStatus.OK)),
+                        hasProperty("body", allOf(
+                                startsWith("NAME,ID\r\n"),
+                                containsString("c,3\r\n")
+                        ))
+                )
+        );
+        assertThat(resp.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION),
+                equalTo("attachment; filename*=UTF-8''SOME_FIRST_TABLE.csv"));
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void columnStatistics() {
@@ -196,6 +645,61 @@ public class DatabaseObjectControllerTest extends RestTestStarter {
         );
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void columnProfile() {
+        ResponseEntity<ColumnProfile[]> resp = template.getForEntity(
+                createUrl("{id}/{catalog}/{schema}/{tableName}/profile?parallelism=2"),
+                ColumnProfile[].class,
+                URL_VARIABLES
+        );
+
+        assertThat(
+                resp,
+                allOf(
+                        hasProperty("statusCode", equalTo(HttpStatus.OK)),
+                        hasProperty("body",
+                                arrayContaining(
+                                        allOf(
+                                                hasProperty("name", equalTo("NAME")),
+                                                hasProperty("rows", equalTo(5L)),
+                                                hasProperty("distinctValues", equalTo(5L)),
+                                                hasProperty("quantiles", nullValue())
+                                        ),
+                                        allOf(
+                                                hasProperty("name", equalTo("ID")),
+                                                hasProperty("rows", equalTo(5L)),
+                                                hasProperty("distinctValues", equalTo(5L)),
+                                                hasProperty("quantiles", hasEntry("0.5", 3.0))
+                                        )
+                                )
+                        )
+                )
+        );
+    }
+
+    @Test
+    public void computeTableStatisticsExact() {
+        ResponseEntity<TableStatistics> resp = template.getForEntity(
+                createUrl("{id}/{catalog}/{schema}/{tableName}/statistics?exact=true"),
+                TableStatistics.class,
+                URL_VARIABLES
+        );
+
+        assertThat(
+                resp,
+                allOf(
+                        hasProperty("statusCode", equalTo(HttpStatus.OK)),
+                        hasProperty("body",
+                                allOf(
+                                        hasProperty("rows", equalTo(5L)),
+                                        hasProperty("exact", equalTo(true))
+                                )
+                        )
+                )
+        );
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void computeTableStatistics() {
@@ -211,7 +715,8 @@ public class DatabaseObjectControllerTest extends RestTestStarter {
                         hasProperty("statusCode", equalTo(HttpStatus.OK)),
                         hasProperty("body",
                                 allOf(
-                                        hasProperty("rows", equalTo(5)),
+                                        hasProperty("rows", equalTo(5L)),
+                                        hasProperty("exact", equalTo(false)),
                                         hasProperty("columns", equalTo(2)),
                                         hasProperty("columnStatisticsList",
                                                 containsInAnyOrder(
@@ -243,4 +748,20 @@ public class DatabaseObjectControllerTest extends RestTestStarter {
         );
     }
 
-}
\ No newline at end of file
+    @Test
+    public void invalidateCache() {
+        ResponseEntity<Void> resp = template.exchange(
+                createUrl("{id}/{catalog}/{schema}/cache"),
+                HttpMethod.DELETE,
+                null,
+                Void.class,
+                URL_VARIABLES
+        );
+
+        assertThat(
+                resp,
+                hasProperty("statusCode", equalTo(HttpStatus.OK))
+        );
+    }
+
+}
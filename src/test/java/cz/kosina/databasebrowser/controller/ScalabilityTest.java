@@ -0,0 +1,143 @@
+package cz.kosina.databasebrowser.controller;
+
+import cz.kosina.databasebrowser.RestTestStarter;
+import cz.kosina.databasebrowser.domain.dto.ConnectionProperties;
+import cz.kosina.databasebrowser.generator.SchemaGenerator;
+import cz.kosina.databasebrowser.generator.SchemaSpec;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Scalability suite running every endpoint of {@link DatabaseObjectController} against generated databases of growing
+ * size. Latency, peak heap above the heap used before the request and response size of every request are printed as
+ * a table. The suite is slow, so it runs only with {@code -Dscalability=true}.
+ */
+public class ScalabilityTest extends RestTestStarter {
+
+    private static final String CONNECTION_NAME = "Scalability";
+
+    private static final List<SchemaSpec> SPECS = Arrays.asList(
+            new SchemaSpec(1, 1, 10, 10, 100, 0.5),
+            new SchemaSpec(1, 1, 100, 10, 100, 0.5),
+            new SchemaSpec(1, 1, 1000, 10, 100, 0.5),
+            new SchemaSpec(1, 1, 10000, 10, 100, 0.5),
+            new SchemaSpec(1, 10, 100, 10, 100, 0.5),
+            new SchemaSpec(5, 2, 100, 10, 100, 0.5),
+            new SchemaSpec(1, 1, 10, 100, 1000, 0.5),
+            new SchemaSpec(1, 1, 10, 1000, 1000, 0.5),
+            new SchemaSpec(1, 1, 10, 10, 100000, 0.5)
+    );
+
+    /**
+     * Endpoints by their name, all of them are called on the first catalog, schema and table
+     */
+    private static final Map<String, String> ENDPOINTS = new LinkedHashMap<>();
+
+    static {
+        ENDPOINTS.put("catalogs", "{id}/catalogs");
+        ENDPOINTS.put("schemas", "{id}/{catalog}/schemas");
+        ENDPOINTS.put("tables", "{id}/{catalog}/{schema}/tables");
+        ENDPOINTS.put("streamTables", "{id}/{catalog}/{schema}/tables?stream=true");
+        ENDPOINTS.put("schemaColumns", "{id}/{catalog}/{schema}/columns");
+        ENDPOINTS.put("columns", "{id}/{catalog}/{schema}/{tableName}/columns");
+        ENDPOINTS.put("streamColumns", "{id}/{catalog}/{schema}/{tableName}/columns?stream=true");
+        ENDPOINTS.put("data", "{id}/{catalog}/{schema}/{tableName}/data");
+        ENDPOINTS.put("columnarData", "{id}/{catalog}/{schema}/{tableName}/data?format=columnar");
+        ENDPOINTS.put("streamData", "{id}/{catalog}/{schema}/{tableName}/data?stream=true&pageSize=1000");
+        ENDPOINTS.put("export", "{id}/{catalog}/{schema}/{tableName}/export");
+        ENDPOINTS.put("columnStatistics", "{id}/{catalog}/{schema}/{tableName}/columnStatistics");
+        ENDPOINTS.put("profile", "{id}/{catalog}/{schema}/{tableName}/profile");
+        ENDPOINTS.put("statistics", "{id}/{catalog}/{schema}/{tableName}/statistics");
+        ENDPOINTS.put("exactStatistics", "{id}/{catalog}/{schema}/{tableName}/statistics?exact=true");
+    }
+
+    @Before
+    public void checkEnabled() {
+        Assume.assumeTrue("Scalability suite runs only with -Dscalability=true", Boolean.getBoolean("scalability"));
+    }
+
+    @Override
+    protected String createUrl(String name) {
+        return super.createUrl(String.format("databases/%s", name));
+    }
+
+    @Test
+    public void endpointsScale() throws SQLException {
+        System.out.printf("%-80s %-18s %12s %14s %14s%n", "schema", "endpoint", "latency [ms]", "peak heap [MB]",
+                "response [kB]");
+        for (SchemaSpec spec : SPECS) {
+            try (SchemaGenerator generator = new SchemaGenerator()) {
+                final List<String> urls = generator.generate("scalability", spec);
+                template.postForEntity(
+                        super.createUrl("connections"),
+                        new ConnectionProperties(CONNECTION_NAME, urls.get(0), "sa", "", null),
+                        ConnectionProperties.class
+                );
+                try {
+                    final Map<String, String> variables = new HashMap<>();
+                    variables.put("id", CONNECTION_NAME);
+                    variables.put("catalog", "SCALABILITY_0");
+                    variables.put("schema", SchemaGenerator.schemaName(0));
+                    variables.put("tableName", SchemaGenerator.tableName(0));
+                    for (Map.Entry<String, String> endpoint : ENDPOINTS.entrySet()) {
+                        measure(spec, endpoint.getKey(), endpoint.getValue(), variables);
+                    }
+                } finally {
+                    template.delete(super.createUrl("connections/{id}"), CONNECTION_NAME);
+                }
+            }
+        }
+    }
+
+    /**
+     * Call the endpoint once to warm it up and then once more after the metadata cache is invalidated, so the second
+     * call reads everything from the database. The second call is measured and reported.
+     *
+     * @param spec      size of the generated database
+     * @param name      name of the endpoint
+     * @param path      path of the endpoint
+     * @param variables variables of the path
+     */
+    private void measure(SchemaSpec spec, String name, String path, Map<String, String> variables) {
+        template.exchange(createUrl(path), HttpMethod.GET, null, byte[].class, variables);
+        template.delete(createUrl("{id}/cache"), variables);
+
+        final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(i -> i.getType() == MemoryType.HEAP)
+                .collect(Collectors.toList());
+        System.gc();
+        final long baseline = heapPools.stream().mapToLong(i -> i.getUsage().getUsed()).sum();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        final long start = System.nanoTime();
+        final ResponseEntity<byte[]> resp = template.exchange(createUrl(path), HttpMethod.GET, null, byte[].class,
+                variables);
+        final long elapsed = System.nanoTime() - start;
+        final long peakHeap = heapPools.stream().mapToLong(i -> i.getPeakUsage().getUsed()).sum() - baseline;
+
+        assertThat(name, resp.getStatusCode(), equalTo(HttpStatus.OK));
+        System.out.printf("%-80s %-18s %12.1f %14.1f %14.1f%n",
+                spec,
+                name,
+                elapsed / 1e6,
+                peakHeap / (1024.0 * 1024.0),
+                resp.getBody() == null ? 0 : resp.getBody().length / 1024.0);
+    }
+}
@@ -0,0 +1,93 @@
+package cz.kosina.databasebrowser.controller;
+
+import cz.kosina.databasebrowser.RestTestStarter;
+import cz.kosina.databasebrowser.domain.dto.StatisticsJob;
+import cz.kosina.databasebrowser.domain.dto.TableStatistics;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class StatisticsJobControllerTest extends RestTestStarter {
+
+    private static final Map<String, String> URL_VARIABLES = new HashMap<>();
+
+    @BeforeClass
+    public static void initClass() {
+        URL_VARIABLES.put("id", CONNECTION_NAME);
+        URL_VARIABLES.put("catalog", TEST_CATALOG);
+        URL_VARIABLES.put("schema", TEST_SCHEME);
+        URL_VARIABLES.put("tableName", TEST_TABLE);
+    }
+
+    @Override
+    protected String createUrl(String name) {
+        return super.createUrl(String.format("jobs/%s", name));
+    }
+
+    @Test
+    public void computeTableStatistics() throws InterruptedException {
+        ResponseEntity<StatisticsJob> submitted = template.postForEntity(
+                createUrl("{id}/{catalog}/{schema}/{tableName}/statistics"),
+                null,
+                StatisticsJob.class,
+                URL_VARIABLES
+        );
+        assertThat(submitted.getStatusCode(), equalTo(HttpStatus.ACCEPTED));
+        assertThat(submitted.getBody().getType(), equalTo(StatisticsJob.Type.TABLE_STATISTICS));
+
+        final String jobId = submitted.getBody().getId();
+        final long deadline = System.currentTimeMillis() + 10000;
+        StatisticsJob job = submitted.getBody();
+        while (!job.getStatus().isFinished()) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+            job = template.getForObject(createUrl("{jobId}"), StatisticsJob.class, jobId);
+        }
+        assertThat(job.getStatus(), equalTo(StatisticsJob.Status.COMPLETED));
+
+        ResponseEntity<TableStatistics> result = template.getForEntity(
+                createUrl("{jobId}/result"),
+                TableStatistics.class,
+                jobId
+        );
+        assertThat(
+                result,
+                allOf(
+                        hasProperty("statusCode", equalTo(HttpStatus.OK)),
+                        hasProperty("body", hasProperty("rows", equalTo(5L)))
+                )
+        );
+    }
+
+    @Test
+    public void submitFake() {
+        URL_VARIABLES.put("id", FAKE_CONNECTION_NAME);
+        try {
+            ResponseEntity<StatisticsJob> resp = template.postForEntity(
+                    createUrl("{id}/{catalog}/{schema}/{tableName}/columnStatistics"),
+                    null,
+                    StatisticsJob.class,
+                    URL_VARIABLES
+            );
+            assertThat(resp.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
+        } finally {
+            URL_VARIABLES.put("id", CONNECTION_NAME);
+        }
+    }
+
+    @Test
+    public void unknownJob() {
+        assertThat(template.getForEntity(createUrl("unknown"), String.class).getStatusCode(),
+                equalTo(HttpStatus.NOT_FOUND));
+        assertThat(template.getForEntity(createUrl("unknown/result"), String.class).getStatusCode(),
+                equalTo(HttpStatus.NOT_FOUND));
+    }
+}
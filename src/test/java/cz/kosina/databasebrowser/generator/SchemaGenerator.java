@@ -0,0 +1,141 @@
+package cz.kosina.databasebrowser.generator;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Generator of in-memory H2 databases of the given {@link SchemaSpec}. Schemas are named {@code SCHEMA_<n>} and
+ * tables {@code TABLE_<n>}. Every table has integer primary key {@code ID}, columns {@code C<n>} cycling through
+ * integer, decimal, varchar and date types and optionally foreign key column {@code PARENT_ID} referencing lower
+ * numbered table of the same schema. The databases exist until the generator is closed.
+ */
+public class SchemaGenerator implements AutoCloseable {
+
+    /**
+     * Open connections keeping the in-memory databases alive
+     */
+    private final List<Connection> connections = new ArrayList<>();
+    /**
+     * Random generator of the foreign keys, seeded so the generated databases are the same in every run
+     */
+    private final Random random = new Random(42);
+
+    /**
+     * Generate one database for every catalog of the specification
+     *
+     * @param name prefix of the database names
+     * @param spec size of the databases
+     * @return JDBC urls of the databases, catalog names are upper case names of the databases
+     * @throws SQLException if the database cannot be generated
+     */
+    public List<String> generate(String name, SchemaSpec spec) throws SQLException {
+        final List<String> urls = new ArrayList<>(spec.getCatalogs());
+        for (int catalog = 0; catalog < spec.getCatalogs(); catalog++) {
+            final String url = String.format("jdbc:h2:mem:%s_%d", name, catalog);
+            final Connection con = DriverManager.getConnection(url, "sa", "");
+            connections.add(con);
+            try (Statement statement = con.createStatement()) {
+                for (int schema = 0; schema < spec.getSchemas(); schema++) {
+                    statement.execute(String.format("create schema %s", schemaName(schema)));
+                    for (int table = 0; table < spec.getTables(); table++) {
+                        generateTable(statement, spec, schema, table);
+                    }
+                }
+            }
+            urls.add(url);
+        }
+        return urls;
+    }
+
+    /**
+     * Name of the generated schema
+     *
+     * @param schema number of the schema
+     * @return schema name
+     */
+    public static String schemaName(int schema) {
+        return String.format("SCHEMA_%d", schema);
+    }
+
+    /**
+     * Name of the generated table
+     *
+     * @param table number of the table
+     * @return table name
+     */
+    public static String tableName(int table) {
+        return String.format("TABLE_%d", table);
+    }
+
+    /**
+     * Drop all generated databases
+     *
+     * @throws SQLException if the database cannot be closed
+     */
+    @Override
+    public void close() throws SQLException {
+        for (Connection con : connections) {
+            try (Statement statement = con.createStatement()) {
+                statement.execute("drop all objects");
+            } finally {
+                con.close();
+            }
+        }
+        connections.clear();
+    }
+
+    private void generateTable(Statement statement, SchemaSpec spec, int schema, int table) throws SQLException {
+        final String fullTableName = String.format("%s.%s", schemaName(schema), tableName(table));
+        final boolean foreignKey = table > 0 && random.nextDouble() < spec.getForeignKeyDensity();
+        statement.execute(String.format("create table %s (ID bigint primary key%s%s)",
+                fullTableName,
+                IntStream.range(1, spec.getColumns())
+                        .mapToObj(i -> String.format(", C%d %s", i, columnType(i)))
+                        .collect(Collectors.joining()),
+                foreignKey ? ", PARENT_ID bigint" : ""));
+        statement.execute(String.format("insert into %s select X%s%s from system_range(1, %d)",
+                fullTableName,
+                IntStream.range(1, spec.getColumns())
+                        .mapToObj(i -> ", " + columnValue(i))
+                        .collect(Collectors.joining()),
+                foreignKey ? ", X" : "",
+                spec.getRows()));
+        if (foreignKey) {
+            statement.execute(String.format("alter table %s add foreign key (PARENT_ID) references %s.%s (ID)",
+                    fullTableName, schemaName(schema), tableName(random.nextInt(table))));
+        }
+    }
+
+    private static String columnType(int column) {
+        switch (column % 4) {
+            case 0:
+                return "integer";
+            case 1:
+                return "decimal(12, 2)";
+            case 2:
+                return "varchar(64)";
+            default:
+                return "date";
+        }
+    }
+
+    private static String columnValue(int column) {
+        switch (column % 4) {
+            case 0:
+                return String.format("mod(X * %d, 1000)", column);
+            case 1:
+                return String.format("X / %d.0", column);
+            case 2:
+                return String.format("case when mod(X, 10) = 0 then null else 'value ' || mod(X, %d) end", column + 10);
+            default:
+                return String.format("dateadd('DAY', mod(X, %d), date '2000-01-01')", column + 365);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package cz.kosina.databasebrowser.generator;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Size of the database generated by {@link SchemaGenerator}
+ */
+@Data
+@AllArgsConstructor
+public class SchemaSpec {
+    /**
+     * Number of catalogs. H2 has one catalog per database, so every catalog is separate database.
+     */
+    private final int catalogs;
+    /**
+     * Number of schemas in every catalog
+     */
+    private final int schemas;
+    /**
+     * Number of tables in every schema
+     */
+    private final int tables;
+    /**
+     * Number of columns of every table including the primary key
+     */
+    private final int columns;
+    /**
+     * Number of rows of every table
+     */
+    private final int rows;
+    /**
+     * Probability between 0 and 1 that the table has foreign key into another table of the same schema
+     */
+    private final double foreignKeyDensity;
+
+    /**
+     * @return total number of tables in all catalogs
+     */
+    public long getTotalTables() {
+        return (long) catalogs * schemas * tables;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d catalogs x %d schemas x %d tables x %d columns x %d rows, FK density %.2f",
+                catalogs, schemas, tables, columns, rows, foreignKeyDensity);
+    }
+}
@@ -0,0 +1,65 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import cz.kosina.databasebrowser.domain.dto.ColumnVector;
+import cz.kosina.databasebrowser.domain.dto.ColumnarData;
+import org.junit.Test;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ColumnarPageCollectorTest {
+
+    @Test
+    public void singleBitIsBoolean() throws SQLException {
+        final ResultSet rs = bitResultSet(1);
+        when(rs.getBoolean(1)).thenReturn(true);
+
+        final ColumnVector vector = collect(rs);
+        assertThat(vector.getBooleanValues()[0], equalTo(true));
+        assertThat(vector.getStringValues(), nullValue());
+    }
+
+    @Test
+    public void bitBytesAreBitString() throws SQLException {
+        final ResultSet rs = bitResultSet(10);
+        when(rs.getObject(1)).thenReturn(new byte[]{0x01, 0x0a});
+
+        final ColumnVector vector = collect(rs);
+        assertThat(vector.getStringValues(), arrayContaining("0100001010"));
+        assertThat(vector.getBooleanValues(), nullValue());
+    }
+
+    @Test
+    public void bitStringIsKept() throws SQLException {
+        final ResultSet rs = bitResultSet(4);
+        when(rs.getObject(1)).thenReturn("0101");
+
+        assertThat(collect(rs).getStringValues(), arrayContaining("0101"));
+    }
+
+    private static ResultSet bitResultSet(int precision) throws SQLException {
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("FLAGS");
+        when(metaData.getColumnType(1)).thenReturn(Types.BIT);
+        when(metaData.getPrecision(1)).thenReturn(precision);
+        final ResultSet rs = mock(ResultSet.class);
+        when(rs.getMetaData()).thenReturn(metaData);
+        return rs;
+    }
+
+    private static ColumnVector collect(ResultSet rs) throws SQLException {
+        final ColumnarPageCollector collector = new ColumnarPageCollector(rs.getMetaData(), 1, i -> "BIT");
+        collector.collect(rs);
+        final ColumnarData data = collector.build(null);
+        assertThat(data.getRowCount(), equalTo(1));
+        return data.getColumns().get(0);
+    }
+}
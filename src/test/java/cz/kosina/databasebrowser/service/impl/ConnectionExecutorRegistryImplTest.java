@@ -0,0 +1,163 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import cz.kosina.databasebrowser.DatabaseTestStarter;
+import cz.kosina.databasebrowser.config.DatabaseBrowserProperties;
+import cz.kosina.databasebrowser.domain.dto.ConnectionProperties;
+import cz.kosina.databasebrowser.service.api.ConnectionService;
+import cz.kosina.databasebrowser.service.api.DatabaseService;
+import lombok.SneakyThrows;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class ConnectionExecutorRegistryImplTest extends DatabaseTestStarter {
+
+    private static final String SLOW_URL = "jdbc:h2:mem:slowRequest;DB_CLOSE_DELAY=-1";
+    private static final CountDownLatch QUERY_STARTED = new CountDownLatch(1);
+
+    @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+    @Autowired
+    private ConnectionService connectionService;
+
+    @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+    @Autowired
+    private DatabaseService databaseService;
+
+    private ConnectionExecutorRegistryImpl registry;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setUp() {
+        final DatabaseBrowserProperties properties = new DatabaseBrowserProperties();
+        properties.getConnectionExecutor().setThreads(1);
+        properties.getConnectionExecutor().setQueueCapacity(1);
+        registry = new ConnectionExecutorRegistryImpl(connectionService, properties);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        registry.closeAll();
+    }
+
+    @Test
+    public void fullExecutorRejectTask() throws Exception {
+        final CompletableFuture<String> running = registry.submit(CONNECTION_NAME, this::blocked);
+        final CompletableFuture<String> queued = registry.submit(CONNECTION_NAME, () -> "queued");
+        final CompletableFuture<String> rejected = registry.submit(CONNECTION_NAME, () -> "rejected");
+
+        try {
+            rejected.get(1, TimeUnit.SECONDS);
+            fail("Task must be rejected");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(RejectedExecutionException.class));
+        }
+        release.countDown();
+        assertThat(running.get(10, TimeUnit.SECONDS), equalTo("running"));
+        assertThat(queued.get(10, TimeUnit.SECONDS), equalTo("queued"));
+    }
+
+    @Test
+    public void evictedExecutorIsReplaced() throws Exception {
+        final DatabaseBrowserProperties properties = new DatabaseBrowserProperties();
+        final AtomicInteger created = new AtomicInteger();
+        final ConnectionExecutorRegistryImpl evicting = new ConnectionExecutorRegistryImpl(connectionService,
+                properties) {
+            @Override
+            ThreadPoolExecutor createExecutor(String connectionName) {
+                final ThreadPoolExecutor executor = super.createExecutor(connectionName);
+                if (created.getAndIncrement() == 0) {
+                    // evicted by the change of the connection after the lookup of the executor
+                    executor.shutdown();
+                }
+                return executor;
+            }
+        };
+        try {
+            assertThat(evicting.submit(CONNECTION_NAME, () -> "done").get(10, TimeUnit.SECONDS), equalTo("done"));
+            assertThat(created.get(), equalTo(2));
+        } finally {
+            evicting.closeAll();
+        }
+    }
+
+    @Test
+    public void slowConnectionDoesNotBlockOthers() throws Exception {
+        connectionService.create(new ConnectionProperties(
+                "Other", "jdbc:h2:mem:other", "sa", null, 0L));
+        registry.submit(CONNECTION_NAME, this::blocked);
+        registry.submit(CONNECTION_NAME, this::blocked);
+
+        assertThat(registry.submit("Other", () -> "other").get(10, TimeUnit.SECONDS), equalTo("other"));
+    }
+
+    @Test
+    public void cancelRunningRequest() throws Exception {
+        try (Connection con = DriverManager.getConnection(SLOW_URL, "sa", null);
+             Statement statement = con.createStatement()) {
+            statement.execute(String.format("create alias if not exists SLOW_VALUE for \"%s.slowValue\"",
+                    ConnectionExecutorRegistryImplTest.class.getName()));
+            statement.execute("create view if not exists SLOW_VIEW as "
+                    + "select SLOW_VALUE(x) as ID from system_range(1, 1000000)");
+            connectionService.create(new ConnectionProperties("SlowRequest", SLOW_URL, "sa", null, 0L));
+
+            final CompletableFuture<?> request = registry.submit("SlowRequest", () -> databaseService
+                    .getColumnsStatistics("SlowRequest", "SLOWREQUEST", "PUBLIC", "SLOW_VIEW"));
+            assertTrue("Query was not started", QUERY_STARTED.await(10, TimeUnit.SECONDS));
+            request.cancel(true);
+
+            // H2 runs one statement at a time, so the next query finishes only when the cancelled one stopped
+            CompletableFuture<Boolean> next = CompletableFuture.supplyAsync(() -> isAvailable(statement));
+            assertTrue(next.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void unknownConnectionRunInCallerThread() throws Exception {
+        final Thread caller = Thread.currentThread();
+
+        assertThat(registry.submit("unknown", Thread::currentThread).get(), sameInstance(caller));
+    }
+
+    /**
+     * Function used in the view, so the scan of the view takes very long time
+     */
+    public static long slowValue(long value) throws InterruptedException {
+        QUERY_STARTED.countDown();
+        // the work of every row, so the cancelled query stops in the middle of the view
+        Thread.sleep(1);
+        return value;
+    }
+
+    @SneakyThrows
+    private boolean isAvailable(Statement statement) {
+        try (ResultSet rs = statement.executeQuery("select 1")) {
+            return rs.next();
+        }
+    }
+
+    private String blocked() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "running";
+    }
+}
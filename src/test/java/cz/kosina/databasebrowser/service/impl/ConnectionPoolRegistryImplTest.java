@@ -0,0 +1,96 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import com.zaxxer.hikari.HikariDataSource;
+import cz.kosina.databasebrowser.DatabaseTestStarter;
+import cz.kosina.databasebrowser.domain.dto.ConnectionProperties;
+import cz.kosina.databasebrowser.service.api.ConnectionPoolRegistry;
+import cz.kosina.databasebrowser.service.api.ConnectionService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class ConnectionPoolRegistryImplTest extends DatabaseTestStarter {
+
+    @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+    @Autowired
+    private ConnectionPoolRegistry connectionPoolRegistry;
+
+    @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+    @Autowired
+    private ConnectionService connectionService;
+
+    @Before
+    @After
+    public void evictPool() {
+        // pools outlive the test transaction, so pool of other test must not be reused
+        connectionPoolRegistry.evict(CONNECTION_NAME);
+    }
+
+    @Test
+    public void samePropertiesReusePool() {
+        DataSource first = connectionPoolRegistry.getDataSource(storedProperties());
+        DataSource second = connectionPoolRegistry.getDataSource(storedProperties());
+
+        assertThat(second, sameInstance(first));
+    }
+
+    @Test
+    public void changedPropertiesCreateNewPool() throws SQLException {
+        DataSource first = connectionPoolRegistry.getDataSource(storedProperties());
+        ConnectionProperties changed = storedProperties();
+        changed.setUrl(changed.getUrl() + ";IFEXISTS=TRUE");
+        connectionService.update(changed);
+        DataSource second = connectionPoolRegistry.getDataSource(storedProperties());
+
+        assertThat(second, not(sameInstance(first)));
+        assertTrue(((HikariDataSource) first).isClosed());
+        try (Connection con = second.getConnection()) {
+            assertTrue(con.isValid(1));
+        }
+    }
+
+    @Test
+    public void staleRequestUseCurrentPool() {
+        ConnectionProperties current = storedProperties();
+        // e.g. request started before the connection was re-created with other url, its version starts again at 0
+        ConnectionProperties stale = new ConnectionProperties(
+                CONNECTION_NAME, "jdbc:h2:mem:removed", "other", "secret", current.getVersion() + 5);
+
+        DataSource first = connectionPoolRegistry.getDataSource(stale);
+        DataSource second = connectionPoolRegistry.getDataSource(current);
+        DataSource third = connectionPoolRegistry.getDataSource(stale);
+
+        assertThat(((HikariDataSource) first).getJdbcUrl(), equalTo(current.getUrl()));
+        assertThat(second, sameInstance(first));
+        assertThat(third, sameInstance(first));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void removedConnectionHasNoPool() {
+        connectionPoolRegistry.getDataSource(new ConnectionProperties(
+                FAKE_CONNECTION_NAME, "jdbc:h2:mem:removed", "sa", null, 0L));
+    }
+
+    @Test
+    public void deleteEvictPool() {
+        DataSource first = connectionPoolRegistry.getDataSource(storedProperties());
+        connectionService.delete(CONNECTION_NAME);
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        assertTrue(((HikariDataSource) first).isClosed());
+    }
+
+    private ConnectionProperties storedProperties() {
+        return connectionService.getById(CONNECTION_NAME).orElseThrow(IllegalStateException::new);
+    }
+}
@@ -0,0 +1,40 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import cz.kosina.databasebrowser.domain.dto.ConnectionProperties;
+import cz.kosina.databasebrowser.domain.entity.ConnectionPropertiesEntity;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class ConnectionPropertiesMapperTest {
+
+    private final ConnectionPropertiesMapper mapper = new ConnectionPropertiesMapper();
+
+    @Test
+    public void mapsAllPropertiesToDto() {
+        assertThat(
+                mapper.toDto(new ConnectionPropertiesEntity("name", "url", "user", "secret", 3L)),
+                equalTo(new ConnectionProperties("name", "url", "user", "secret", 3L))
+        );
+    }
+
+    @Test
+    public void mapsAllPropertiesToEntity() {
+        assertThat(
+                mapper.toEntity(new ConnectionProperties("name", "url", "user", null, null)),
+                equalTo(new ConnectionPropertiesEntity("name", "url", "user", null, null))
+        );
+    }
+
+    @Test
+    public void copyIsNewInstance() {
+        final ConnectionProperties dto = new ConnectionProperties("name", "url", "user", "secret", 3L);
+        final ConnectionProperties copy = mapper.copy(dto);
+
+        assertThat(copy, equalTo(dto));
+        assertThat(copy, not(sameInstance(dto)));
+    }
+}
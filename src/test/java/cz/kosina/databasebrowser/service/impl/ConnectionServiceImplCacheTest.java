@@ -0,0 +1,127 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import cz.kosina.databasebrowser.config.DatabaseBrowserProperties;
+import cz.kosina.databasebrowser.domain.dto.ConnectionProperties;
+import cz.kosina.databasebrowser.domain.entity.ConnectionPropertiesEntity;
+import cz.kosina.databasebrowser.domain.event.ConnectionChangedEvent;
+import cz.kosina.databasebrowser.repository.ConnectionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class ConnectionServiceImplCacheTest {
+
+    private final Map<String, ConnectionPropertiesEntity> entities = new HashMap<>();
+    private final List<Object> events = new ArrayList<>();
+    private Runnable onRead = () -> {
+    };
+    private int reads;
+    private ConnectionServiceImpl connectionService;
+
+    @Before
+    public void init() {
+        entities.put("Test", new ConnectionPropertiesEntity("Test", "jdbc:h2:mem:a", "sa", "old", 0L));
+        final ConnectionRepository repository = (ConnectionRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{ConnectionRepository.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findById":
+                            reads++;
+                            final ConnectionPropertiesEntity read = entities.get((String) args[0]);
+                            final ConnectionPropertiesEntity copy = read == null
+                                    ? null
+                                    : new ConnectionPropertiesEntity(read.getName(), read.getUrl(),
+                                    read.getUsername(), read.getPassword(), read.getVersion());
+                            final Runnable hook = onRead;
+                            onRead = () -> {
+                            };
+                            hook.run();
+                            return Optional.ofNullable(copy);
+                        case "deleteById":
+                            entities.remove((String) args[0]);
+                            return null;
+                        case "save":
+                            final ConnectionPropertiesEntity saved = (ConnectionPropertiesEntity) args[0];
+                            saved.setVersion(saved.getVersion() == null ? 0 : saved.getVersion() + 1);
+                            entities.put(saved.getName(), saved);
+                            return saved;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        connectionService = new ConnectionServiceImpl(repository, new ConnectionPropertiesMapper(), events::add,
+                new DatabaseBrowserProperties(), new ServiceMetrics(new SimpleMeterRegistry()));
+    }
+
+    @After
+    public void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void readRacingWithUpdateIsNotCached() {
+        onRead = () -> connectionService.update(
+                new ConnectionProperties("Test", "jdbc:h2:mem:a", "sa", "new", 0L));
+
+        assertThat(connectionService.getById("Test").map(ConnectionProperties::getPassword),
+                equalTo(Optional.of("old")));
+        assertThat(connectionService.getById("Test").map(ConnectionProperties::getPassword),
+                equalTo(Optional.of("new")));
+    }
+
+    @Test
+    public void readIsCached() {
+        connectionService.getById("Test");
+        connectionService.getById("Test");
+
+        assertThat(reads, equalTo(1));
+    }
+
+    @Test
+    public void changeIsPublishedOnceAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        connectionService.update(new ConnectionProperties("Test", "jdbc:h2:mem:a", "sa", "new", 0L));
+        assertThat(events, empty());
+
+        final List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager
+                .getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(i -> i.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertThat(events, contains(hasProperty("name", equalTo("Test"))));
+    }
+
+    @Test
+    public void rolledBackChangeIsNotPublished() {
+        TransactionSynchronizationManager.initSynchronization();
+        connectionService.update(new ConnectionProperties("Test", "jdbc:h2:mem:a", "sa", "new", 0L));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(i -> i.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(events, empty());
+    }
+
+    @Test
+    public void changeWithoutTransactionIsPublishedImmediately() {
+        connectionService.delete("Test");
+
+        assertThat(events, contains(instanceOf(ConnectionChangedEvent.class)));
+    }
+}
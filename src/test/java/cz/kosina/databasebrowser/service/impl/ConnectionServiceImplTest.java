@@ -116,6 +116,33 @@ public class ConnectionServiceImplTest extends DatabaseTestStarter {
         );
     }
 
+    @Test
+    public void readByIdAfterUpdateIsOk() {
+        connectionService.getById("TestH2");
+        updateToNewTestValue();
+
+        Optional<ConnectionProperties> entity = connectionService.getById("TestH2");
+        assertTrue(entity.isPresent());
+        assertThat(entity.get(), hasProperty("password", equalTo("newVal")));
+    }
+
+    @Test
+    public void readByIdAfterDeleteWillReturnEmpty() {
+        connectionService.getById("TestH2");
+        connectionService.delete("TestH2");
+
+        assertFalse(connectionService.getById("TestH2").isPresent());
+    }
+
+    @Test
+    public void changeOfReadValueDoesNotChangeNextRead() {
+        connectionService.getById("TestH2").ifPresent(i -> i.setUrl("changed"));
+
+        Optional<ConnectionProperties> entity = connectionService.getById("TestH2");
+        assertTrue(entity.isPresent());
+        assertThat(entity.get(), hasProperty("url", equalTo("jdbc:h2:file:./src/test/resources/test")));
+    }
+
     @Test
     public void deleteFakeReturnFalse() {
         assertFalse(connectionService.delete("fake"));
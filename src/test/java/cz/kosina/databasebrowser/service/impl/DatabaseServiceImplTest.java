@@ -1,16 +1,47 @@
 package cz.kosina.databasebrowser.service.impl;
 
 import cz.kosina.databasebrowser.DatabaseTestStarter;
+import cz.kosina.databasebrowser.config.DatabaseBrowserProperties;
+import cz.kosina.databasebrowser.domain.dto.ColumnProfile;
 import cz.kosina.databasebrowser.domain.dto.ColumnStatistics;
+import cz.kosina.databasebrowser.domain.dto.ColumnarData;
+import cz.kosina.databasebrowser.domain.dto.ConnectionProperties;
+import cz.kosina.databasebrowser.domain.dto.DataPage;
+import cz.kosina.databasebrowser.domain.dto.DataSelection;
 import cz.kosina.databasebrowser.domain.dto.DatabaseObject;
+import cz.kosina.databasebrowser.domain.dto.Sampling;
 import cz.kosina.databasebrowser.domain.dto.TableColumn;
+import cz.kosina.databasebrowser.domain.dto.TableColumns;
 import cz.kosina.databasebrowser.domain.dto.TableStatistics;
+import cz.kosina.databasebrowser.service.api.ConnectionPoolRegistry;
+import cz.kosina.databasebrowser.service.api.ConnectionService;
 import cz.kosina.databasebrowser.service.api.DatabaseService;
+import cz.kosina.databasebrowser.service.api.MetadataCacheService;
+import cz.kosina.databasebrowser.service.api.QueryExport;
+import cz.kosina.databasebrowser.service.api.QueryHandler;
+import cz.kosina.databasebrowser.service.api.RowHandler;
+import cz.kosina.databasebrowser.service.api.SchemaColumnsExport;
+import cz.kosina.databasebrowser.service.api.StatementCache;
+import cz.kosina.databasebrowser.service.api.TableExport;
+import cz.kosina.databasebrowser.service.impl.metadata.MetadataProviderRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hamcrest.Matcher;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
@@ -21,6 +52,43 @@ public class DatabaseServiceImplTest extends DatabaseTestStarter {
     @Autowired
     private DatabaseService databaseService;
 
+    @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+    @Autowired
+    private ConnectionService connectionService;
+
+    @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+    @Autowired
+    private DatabaseBrowserProperties properties;
+
+    @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+    @Autowired
+    private ConnectionPoolRegistry connectionPoolRegistry;
+
+    @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+    @Autowired
+    private MetadataCacheService metadataCacheService;
+
+    @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+    @Autowired
+    private MetadataProviderRegistry metadataProviderRegistry;
+
+    @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+    @Autowired
+    @Qualifier("profilingExecutor")
+    private ExecutorService profilingExecutor;
+
+    @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+    @Autowired
+    private ServiceMetrics serviceMetrics;
+
+    @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+    @Autowired
+    private StatementCache statementCache;
+
     @Test
     public void findCatalogs() {
         Optional<List<String>> catalogs = databaseService.findCatalogs(CONNECTION_NAME);
@@ -95,6 +163,605 @@ public class DatabaseServiceImplTest extends DatabaseTestStarter {
         );
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void previewDataPagedByKeys() {
+        DataPage first = databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, null, null,
+                2)
+                .orElseThrow(IllegalStateException::new);
+        assertThat(first.getRows(), contains(contains("a", "1"), contains("b", "2")));
+        assertThat(first.getContinuation(), notNullValue());
+
+        DataPage second = databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE,
+                null, first.getContinuation(), 2)
+                .orElseThrow(IllegalStateException::new);
+        assertThat(second.getRows(), contains(contains("c", "3"), contains("d", "4")));
+
+        DataPage last = databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE,
+                null, second.getContinuation(), 2)
+                .orElseThrow(IllegalStateException::new);
+        assertThat(last.getRows(), contains(contains("e", "5")));
+        assertThat(last.getContinuation(), nullValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void previewDataPagedByOffset() throws SQLException {
+        final String url = "jdbc:h2:mem:paging;DB_CLOSE_DELAY=-1";
+        try (Connection con = DriverManager.getConnection(url, "sa", null);
+             Statement statement = con.createStatement()) {
+            statement.execute("create table if not exists NO_KEY(NAME varchar(10))");
+            statement.execute("delete from NO_KEY");
+            statement.execute("insert into NO_KEY values ('a'), ('b'), ('c')");
+        }
+        connectionService.create(new ConnectionProperties("NoKeyH2", url, "sa", null, 0L));
+
+        DataPage first = databaseService.listData("NoKeyH2", "PAGING", "PUBLIC", "NO_KEY", null, null, 2)
+                .orElseThrow(IllegalStateException::new);
+        assertThat(first.getRows(), contains(contains("a"), contains("b")));
+
+        DataPage last = databaseService.listData("NoKeyH2", "PAGING", "PUBLIC", "NO_KEY",
+                null, first.getContinuation(), 2)
+                .orElseThrow(IllegalStateException::new);
+        assertThat(last.getRows(), contains(contains("c")));
+        assertThat(last.getContinuation(), nullValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void previewDataPagedByTypedKeys() throws SQLException {
+        final String url = "jdbc:h2:mem:typedkeys;DB_CLOSE_DELAY=-1";
+        try (Connection con = DriverManager.getConnection(url, "sa", null);
+             Statement statement = con.createStatement()) {
+            statement.execute("create table if not exists TYPED_KEY(BIN varbinary(4), TS timestamp(9), "
+                    + "AMOUNT decimal(30, 20), NAME varchar(10), primary key (BIN, TS, AMOUNT))");
+            statement.execute("delete from TYPED_KEY");
+            statement.execute("insert into TYPED_KEY values "
+                    + "(X'00ff', '2018-01-01 10:00:00.123456789', 1.00000000000000000001, 'a'), "
+                    + "(X'00ff', '2018-01-01 10:00:00.123456789', 1.00000000000000000002, 'b'), "
+                    + "(X'00ff', '2018-01-01 10:00:00.123456790', 0, 'c'), "
+                    + "(X'0100', '2018-01-01 10:00:00', 0, 'd')");
+        }
+        connectionService.create(new ConnectionProperties("TypedKeyH2", url, "sa", null, 0L));
+
+        final List<String> names = new ArrayList<>();
+        String continuation = null;
+        do {
+            final DataPage page = databaseService.listData("TypedKeyH2", "TYPEDKEYS", "PUBLIC", "TYPED_KEY",
+                    null, continuation, 1)
+                    .orElseThrow(IllegalStateException::new);
+            names.add(page.getRows().get(0).get(3));
+            continuation = page.getContinuation();
+        } while (continuation != null);
+
+        assertThat(names, contains("a", "b", "c", "d"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void previewDataWithUnsupportedKeyPagedByOffset() throws SQLException {
+        final String url = "jdbc:h2:mem:zonedkeys;DB_CLOSE_DELAY=-1";
+        try (Connection con = DriverManager.getConnection(url, "sa", null);
+             Statement statement = con.createStatement()) {
+            statement.execute("create table if not exists ZONED_KEY(TS timestamp with time zone primary key, "
+                    + "NAME varchar(10))");
+            statement.execute("delete from ZONED_KEY");
+            statement.execute("insert into ZONED_KEY values ('2018-01-01 10:00:00+02', 'a'), "
+                    + "('2018-01-01 10:00:00+01', 'b'), ('2018-01-01 10:00:00+00', 'c')");
+        }
+        connectionService.create(new ConnectionProperties("ZonedKeyH2", url, "sa", null, 0L));
+
+        DataPage first = databaseService.listData("ZonedKeyH2", "ZONEDKEYS", "PUBLIC", "ZONED_KEY", null, null, 2)
+                .orElseThrow(IllegalStateException::new);
+        assertThat(first.getRows(), contains(hasItem("a"), hasItem("b")));
+
+        DataPage last = databaseService.listData("ZonedKeyH2", "ZONEDKEYS", "PUBLIC", "ZONED_KEY",
+                null, first.getContinuation(), 2)
+                .orElseThrow(IllegalStateException::new);
+        assertThat(last.getRows(), contains(hasItem("c")));
+        assertThat(last.getContinuation(), nullValue());
+    }
+
+    @Test
+    public void profileColumns() {
+        assertProfile(databaseService.getColumnsProfile(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, null));
+    }
+
+    @Test
+    public void profileColumnsInParallel() {
+        assertProfile(databaseService.getColumnsProfile(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void profileColumnsInvalidParallelism() {
+        databaseService.getColumnsProfile(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, 0);
+    }
+
+    @Test
+    public void profileColumnsFake() {
+        assertFalse(databaseService.getColumnsProfile(FAKE_CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE,
+                null).isPresent());
+    }
+
+    private void assertProfile(Optional<List<ColumnProfile>> profile) {
+        assertTrue(profile.isPresent());
+        assertThat(profile.get(), hasSize(2));
+
+        ColumnProfile name = profile.get().get(0);
+        assertThat(name.getName(), equalTo("NAME"));
+        assertThat(name.getRows(), equalTo(5L));
+        assertThat(name.getNullValuesNumber(), equalTo(0L));
+        assertThat(name.getDistinctValues(), equalTo(5L));
+        assertThat(name.getQuantiles(), nullValue());
+        assertThat(name.getTopValues(), hasSize(5));
+
+        ColumnProfile id = profile.get().get(1);
+        assertThat(id.getName(), equalTo("ID"));
+        assertThat(id.getDistinctValues(), equalTo(5L));
+        assertThat(id.getQuantiles().get("0.0"), equalTo(1.0));
+        assertThat(id.getQuantiles().get("0.5"), equalTo(3.0));
+        assertThat(id.getQuantiles().get("1.0"), equalTo(5.0));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void exportSchemaColumns() throws SQLException {
+        final String url = "jdbc:h2:mem:schema;DB_CLOSE_DELAY=-1";
+        try (Connection con = DriverManager.getConnection(url, "sa", null);
+             Statement statement = con.createStatement()) {
+            statement.execute("create table if not exists FIRST(ID integer primary key, NAME varchar(10))");
+            statement.execute("create table if not exists SECOND(CODE varchar(10))");
+        }
+        connectionService.create(new ConnectionProperties("SchemaH2", url, "sa", null, 0L));
+
+        SchemaColumnsExport export = databaseService.exportSchemaColumns("SchemaH2", "SCHEMA", "PUBLIC")
+                .orElseThrow(IllegalStateException::new);
+        List<TableColumns> tables = new ArrayList<>();
+        export.writeTo(tables::add);
+
+        assertThat(
+                tables,
+                contains(
+                        allOf(
+                                hasProperty("tableName", equalTo("FIRST")),
+                                hasProperty("columns", contains(
+                                        allOf(hasProperty("name", equalTo("ID")),
+                                                hasProperty("primaryKey", equalTo(true))),
+                                        allOf(hasProperty("name", equalTo("NAME")),
+                                                hasProperty("primaryKey", equalTo(false)))
+                                ))
+                        ),
+                        allOf(
+                                hasProperty("tableName", equalTo("SECOND")),
+                                hasProperty("columns", contains(hasProperty("name", equalTo("CODE"))))
+                        )
+                )
+        );
+    }
+
+    @Test
+    public void exportSchemaColumnsFake() {
+        assertFalse(databaseService.exportSchemaColumns(FAKE_CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME).isPresent());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void previewColumnarData() {
+        Optional<ColumnarData> data = databaseService.listColumnarData(
+                CONNECTION_NAME,
+                TEST_CATALOG,
+                TEST_SCHEME,
+                TEST_TABLE,
+                null,
+                null,
+                null
+        );
+        assertTrue(data.isPresent());
+        assertThat(data.get().getRowCount(), equalTo(5));
+        assertThat(
+                data.get().getColumns(),
+                contains(
+                        allOf(
+                                hasProperty("name", equalTo("NAME")),
+                                hasProperty("type", equalTo("VARCHAR")),
+                                hasProperty("nulls", nullValue()),
+                                hasProperty("stringValues", arrayContaining("a", "b", "c", "d", "e"))
+                        ),
+                        allOf(
+                                hasProperty("name", equalTo("ID")),
+                                hasProperty("type", equalTo("INTEGER")),
+                                hasProperty("nulls", nullValue()),
+                                hasProperty("longValues", equalTo(new long[]{1, 2, 3, 4, 5}))
+                        )
+                )
+        );
+        assertThat(data.get().getContinuation(), nullValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void previewColumnarTemporalData() throws SQLException {
+        final String url = "jdbc:h2:mem:temporal;DB_CLOSE_DELAY=-1";
+        try (Connection con = DriverManager.getConnection(url, "sa", null);
+             Statement statement = con.createStatement()) {
+            statement.execute("create table if not exists TEMPORAL(D date, T time, TS timestamp)");
+            statement.execute("delete from TEMPORAL");
+            statement.execute("insert into TEMPORAL values ('2018-01-31', '10:15:30', '2018-01-31 10:15:30.123'), "
+                    + "(null, null, null)");
+        }
+        connectionService.create(new ConnectionProperties("TemporalH2", url, "sa", null, 0L));
+
+        final ColumnarData data = databaseService.listColumnarData("TemporalH2", "TEMPORAL", "PUBLIC", "TEMPORAL",
+                null, null, null)
+                .orElseThrow(IllegalStateException::new);
+        assertThat(
+                data.getColumns(),
+                contains(
+                        allOf(
+                                hasProperty("name", equalTo("D")),
+                                hasProperty("nulls", equalTo(new byte[]{2})),
+                                hasProperty("stringValues", arrayContaining("2018-01-31", null))
+                        ),
+                        allOf(
+                                hasProperty("name", equalTo("T")),
+                                hasProperty("stringValues", arrayContaining("10:15:30", null))
+                        ),
+                        allOf(
+                                hasProperty("name", equalTo("TS")),
+                                hasProperty("stringValues", arrayContaining("2018-01-31T10:15:30.123", null))
+                        )
+                )
+        );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void previewDataInvalidToken() {
+        databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, null, "invalid", 2);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void previewSelectedData() {
+        final DataSelection selection = new DataSelection(
+                Collections.singletonList("name"),
+                Arrays.asList(
+                        new DataSelection.Filter("ID", DataSelection.Operator.GE, Collections.singletonList("2")),
+                        new DataSelection.Filter("NAME", DataSelection.Operator.IN, Arrays.asList("a", "b", "d"))
+                ),
+                Collections.emptyList(),
+                null
+        );
+
+        DataPage page = databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, selection,
+                null, null)
+                .orElseThrow(IllegalStateException::new);
+
+        assertThat(page.getRows(), contains(contains("b"), contains("d")));
+        assertThat(page.getContinuation(), nullValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void previewSelectedDataWithoutKeyPagedInKeyOrder() {
+        final DataSelection selection = new DataSelection(
+                Collections.singletonList("NAME"), Collections.emptyList(), Collections.emptyList(), null);
+
+        final List<List<String>> rows = new ArrayList<>();
+        String continuation = null;
+        do {
+            DataPage page = databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE,
+                    selection, continuation, 2)
+                    .orElseThrow(IllegalStateException::new);
+            assertThat(page.getRows().size(), lessThanOrEqualTo(2));
+            rows.addAll(page.getRows());
+            continuation = page.getContinuation();
+        } while (continuation != null);
+
+        assertThat(rows, contains(contains("a"), contains("b"), contains("c"), contains("d"), contains("e")));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void previewDataWithoutKeyAndOrderInSinglePage() throws SQLException {
+        final String url = "jdbc:h2:mem:unordered;DB_CLOSE_DELAY=-1";
+        try (Connection con = DriverManager.getConnection(url, "sa", null);
+             Statement statement = con.createStatement()) {
+            statement.execute("create table if not exists NO_ORDER(NAME varchar(10), NOTE clob)");
+            statement.execute("delete from NO_ORDER");
+            statement.execute("insert into NO_ORDER values ('a', 'x'), ('b', 'y'), ('c', 'z')");
+        }
+        connectionService.create(new ConnectionProperties("NoOrderH2", url, "sa", null, 0L));
+
+        DataPage page = databaseService.listData("NoOrderH2", "UNORDERED", "PUBLIC", "NO_ORDER", null, null, 2)
+                .orElseThrow(IllegalStateException::new);
+
+        assertThat(page.getRows(), hasSize(2));
+        assertThat(page.getContinuation(), nullValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void previewSelectedDataPagedByKeys() {
+        final DataSelection selection = new DataSelection(
+                Arrays.asList("ID", "NAME"),
+                Collections.singletonList(
+                        new DataSelection.Filter("NAME", DataSelection.Operator.NE, Collections.singletonList("b"))),
+                Collections.emptyList(),
+                null
+        );
+
+        DataPage first = databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, selection,
+                null, 2)
+                .orElseThrow(IllegalStateException::new);
+        assertThat(first.getRows(), contains(contains("1", "a"), contains("3", "c")));
+
+        DataPage last = databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, selection,
+                first.getContinuation(), 2)
+                .orElseThrow(IllegalStateException::new);
+        assertThat(last.getRows(), contains(contains("4", "d"), contains("5", "e")));
+        assertThat(last.getContinuation(), nullValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void previewOrderedDataPagedByOffset() {
+        final DataSelection selection = new DataSelection(
+                Collections.emptyList(),
+                Collections.singletonList(new DataSelection.Filter("NAME", DataSelection.Operator.NOT_NULL,
+                        Collections.emptyList())),
+                Collections.singletonList(new DataSelection.Order("NAME", true)),
+                null
+        );
+
+        DataPage first = databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, selection,
+                null, 3)
+                .orElseThrow(IllegalStateException::new);
+        assertThat(first.getRows(), contains(contains("e", "5"), contains("d", "4"), contains("c", "3")));
+
+        DataPage last = databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, selection,
+                first.getContinuation(), 3)
+                .orElseThrow(IllegalStateException::new);
+        assertThat(last.getRows(), contains(contains("b", "2"), contains("a", "1")));
+        assertThat(last.getContinuation(), nullValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void continuationOfOtherSelectionIsRejected() {
+        final DataSelection selection = new DataSelection(
+                Collections.emptyList(),
+                Collections.singletonList(
+                        new DataSelection.Filter("NAME", DataSelection.Operator.NE, Collections.singletonList("b"))),
+                Collections.emptyList(),
+                null
+        );
+        final String continuation = databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE,
+                null, null, 2)
+                .map(DataPage::getContinuation)
+                .orElseThrow(IllegalStateException::new);
+
+        databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, selection, continuation, 2);
+    }
+
+    @Test
+    public void previewNullFilteredData() {
+        final DataSelection selection = new DataSelection(
+                Collections.emptyList(),
+                Collections.singletonList(new DataSelection.Filter("NAME", DataSelection.Operator.NULL,
+                        Collections.emptyList())),
+                Collections.emptyList(),
+                null
+        );
+
+        Optional<DataPage> page = databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE,
+                selection, null, null);
+
+        assertTrue(page.isPresent());
+        assertThat(page.get().getRows(), empty());
+    }
+
+    @Test
+    public void previewSampledData() {
+        final DataSelection selection = new DataSelection(
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                new Sampling(100.0, null)
+        );
+
+        DataPage page = databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, selection,
+                null, 2)
+                .orElseThrow(IllegalStateException::new);
+
+        assertThat(page.getRows(), hasSize(2));
+        assertThat(page.getContinuation(), nullValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void previewSampledDataInRequestedOrder() {
+        final DataSelection selection = new DataSelection(
+                Collections.singletonList("NAME"),
+                Collections.emptyList(),
+                Collections.singletonList(new DataSelection.Order("NAME", true)),
+                new Sampling(100.0, null)
+        );
+
+        DataPage page = databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, selection,
+                null, 2)
+                .orElseThrow(IllegalStateException::new);
+
+        assertThat(page.getRows(), contains(contains("e"), contains("d")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sampledDataCannotBePaged() {
+        final DataSelection selection = new DataSelection(
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                new Sampling(null, 2L)
+        );
+        final String continuation = databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE,
+                null, null, 2)
+                .map(DataPage::getContinuation)
+                .orElseThrow(IllegalStateException::new);
+        databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, selection, continuation, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void previewDataUnknownColumn() {
+        final DataSelection selection = new DataSelection(
+                Collections.singletonList("NAME; drop table SOME_FIRST_TABLE"),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                null
+        );
+        databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, selection, null, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void previewDataFilterWithoutValue() {
+        final DataSelection selection = new DataSelection(
+                Collections.emptyList(),
+                Collections.singletonList(new DataSelection.Filter("ID", DataSelection.Operator.EQ,
+                        Collections.emptyList())),
+                Collections.emptyList(),
+                null
+        );
+        databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, selection, null, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void exportData() {
+        Optional<TableExport> export = databaseService.exportData(
+                CONNECTION_NAME,
+                TEST_CATALOG,
+                TEST_SCHEME,
+                TEST_TABLE
+        );
+        assertTrue(export.isPresent());
+
+        List<String> header = new ArrayList<>();
+        List<List<String>> rows = new ArrayList<>();
+        export.get().writeTo(new RowHandler() {
+            @Override
+            public void start(List<String> columnNames) {
+                header.addAll(columnNames);
+            }
+
+            @Override
+            public void row(List<String> values) {
+                rows.add(values);
+            }
+        });
+        assertThat(header, contains("NAME", "ID"));
+        assertThat(
+                rows,
+                containsInAnyOrder(
+                        contains("a", "1"),
+                        contains("b", "2"),
+                        contains("c", "3"),
+                        contains("d", "4"),
+                        contains("e", "5")
+                )
+        );
+    }
+
+    @Test
+    public void exportDataFake() {
+        assertFalse(databaseService.exportData(FAKE_CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE).isPresent());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void executeQuery() {
+        Optional<QueryExport> export = databaseService.executeQuery(
+                CONNECTION_NAME,
+                String.format("select NAME, ID from %s.%s where ID > ? order by ID", TEST_SCHEME, TEST_TABLE),
+                Collections.singletonList(1),
+                2
+        );
+        assertTrue(export.isPresent());
+
+        List<String> header = new ArrayList<>();
+        List<List<String>> rows = new ArrayList<>();
+        List<Boolean> truncated = new ArrayList<>();
+        export.get().writeTo(new QueryHandler() {
+            @Override
+            public void start(List<String> columnNames) {
+                header.addAll(columnNames);
+            }
+
+            @Override
+            public void row(List<String> values) {
+                rows.add(values);
+            }
+
+            @Override
+            public void end(boolean wasTruncated) {
+                truncated.add(wasTruncated);
+            }
+        });
+        assertThat(header, contains("NAME", "ID"));
+        assertThat(rows, contains(contains("b", "2"), contains("c", "3")));
+        assertThat(truncated, contains(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void executeQueryRejectsWrite() {
+        databaseService.executeQuery(CONNECTION_NAME,
+                String.format("delete from %s.%s", TEST_SCHEME, TEST_TABLE), null, null);
+    }
+
+    @Test
+    public void executeQueryRejectsFileWrite() {
+        final File file = new File("target/query-write.csv");
+        file.delete();
+        try {
+            databaseService.executeQuery(CONNECTION_NAME, "select csvwrite('target/query-write.csv', 'select 1')",
+                    null, null);
+            fail("File write must be rejected");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("CSVWRITE"));
+        }
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void executeQueryRejectsStatementOnUnenforcedDatabase() {
+        final QueryExport export = databaseService.executeQuery(CONNECTION_NAME, "select 1 as lock", null, null)
+                .orElseThrow(IllegalStateException::new);
+        try {
+            export.writeTo(ignoringHandler());
+            fail("Statement keyword must be rejected on H2");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("LOCK"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void executeQueryRefusedWithoutEnforcedReadOnly() {
+        final QueryExport export = databaseService.executeQuery(CONNECTION_NAME, "select 1", null, null)
+                .orElseThrow(IllegalStateException::new);
+        properties.getQuery().setAllowUnenforcedReadOnly(false);
+        try {
+            export.writeTo(ignoringHandler());
+        } finally {
+            properties.getQuery().setAllowUnenforcedReadOnly(true);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void executeQueryRejectsRowLimitAboveMaximum() {
+        databaseService.executeQuery(CONNECTION_NAME, "select 1", null, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void executeQueryFake() {
+        assertFalse(databaseService.executeQuery(FAKE_CONNECTION_NAME, "select 1", null, null).isPresent());
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void previewColumnStatistics() {
@@ -124,6 +791,152 @@ public class DatabaseServiceImplTest extends DatabaseTestStarter {
         );
     }
 
+    @Test
+    public void columnStatisticsInBatches() throws SQLException {
+        final String url = "jdbc:h2:mem:batches;DB_CLOSE_DELAY=-1";
+        try (Connection con = DriverManager.getConnection(url, "sa", null);
+             Statement statement = con.createStatement()) {
+            statement.execute("create table if not exists THREE_COLUMNS(A int, B varchar(10), C int)");
+            statement.execute("delete from THREE_COLUMNS");
+            statement.execute("insert into THREE_COLUMNS values (1, 'x', null), (2, null, null), (3, 'y', 7)");
+        }
+        connectionService.create(new ConnectionProperties("BatchesH2", url, "sa", null, 0L));
+
+        // one column per query, last batch smaller than the others and single batch of all columns
+        for (int batchSize : new int[]{1, 2, 3}) {
+            assertThat("Batch size " + batchSize, statisticsInBatches(batchSize), contains(
+                    columnStatistics("A", "1", "3", 0),
+                    columnStatistics("B", "x", "y", 1),
+                    columnStatistics("C", "7", "7", 2)
+            ));
+        }
+    }
+
+    private List<ColumnStatistics> statisticsInBatches(int batchSize) {
+        final DatabaseBrowserProperties batchProperties = new DatabaseBrowserProperties();
+        batchProperties.getStatistics().setBatchSize(batchSize);
+        final DatabaseService batchService = new DatabaseServiceImpl(connectionService, connectionPoolRegistry,
+                metadataCacheService, metadataProviderRegistry, batchProperties, profilingExecutor, serviceMetrics,
+                statementCache);
+        return batchService.getColumnsStatistics("BatchesH2", "BATCHES", "PUBLIC", "THREE_COLUMNS")
+                .orElseThrow(IllegalStateException::new);
+    }
+
+    private static Matcher<ColumnStatistics> columnStatistics(String name, String min, String max, int nulls) {
+        return allOf(
+                hasProperty("name", equalTo(name)),
+                hasProperty("minValue", equalTo(min)),
+                hasProperty("maxValue", equalTo(max)),
+                hasProperty("nullValuesNumber", equalTo(nulls))
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void sampledColumnStatistics() {
+        List<ColumnStatistics> columnsStatistics = databaseService.getColumnsStatistics(
+                CONNECTION_NAME,
+                TEST_CATALOG,
+                TEST_SCHEME,
+                TEST_TABLE,
+                new Sampling(100.0, null)
+        ).orElseThrow(IllegalStateException::new);
+        assertThat(
+                columnsStatistics,
+                contains(
+                        allOf(
+                                hasProperty("name", equalTo("NAME")),
+                                hasProperty("minValue", equalTo("a")),
+                                hasProperty("samplePercent", equalTo(100.0))
+                        ),
+                        allOf(
+                                hasProperty("name", equalTo("ID")),
+                                hasProperty("maxValue", equalTo("5")),
+                                hasProperty("samplePercent", equalTo(100.0))
+                        )
+                )
+        );
+    }
+
+    @Test
+    public void tableStatisticsExact() {
+        TableStatistics tableStatistics = databaseService.getTableStatistics(
+                CONNECTION_NAME,
+                TEST_CATALOG,
+                TEST_SCHEME,
+                TEST_TABLE,
+                true
+        ).orElseThrow(IllegalStateException::new);
+        assertThat(tableStatistics.getRows(), equalTo(5L));
+        assertTrue(tableStatistics.getExact());
+    }
+
+    @Test
+    public void tableStatisticsWithoutEstimate() throws SQLException {
+        final String url = "jdbc:h2:mem:estimate;DB_CLOSE_DELAY=-1";
+        try (Connection con = DriverManager.getConnection(url, "sa", null);
+             Statement statement = con.createStatement()) {
+            statement.execute("create view if not exists SMALL_VIEW as select x as ID from system_range(1, 3)");
+        }
+        connectionService.create(new ConnectionProperties("EstimateH2", url, "sa", null, 0L));
+
+        TableStatistics tableStatistics = databaseService.getTableStatistics(
+                "EstimateH2",
+                "ESTIMATE",
+                "PUBLIC",
+                "SMALL_VIEW"
+        ).orElseThrow(IllegalStateException::new);
+        assertThat(tableStatistics.getRows(), equalTo(3L));
+        assertTrue(tableStatistics.getExact());
+    }
+
+    @Test
+    public void sampledTableStatistics() {
+        TableStatistics tableStatistics = databaseService.getTableStatistics(
+                CONNECTION_NAME,
+                TEST_CATALOG,
+                TEST_SCHEME,
+                TEST_TABLE,
+                false,
+                new Sampling(100.0, null)
+        ).orElseThrow(IllegalStateException::new);
+        assertThat(tableStatistics.getRows(), equalTo(5L));
+        assertFalse(tableStatistics.getExact());
+        assertThat(tableStatistics.getSamplePercent(), equalTo(100.0));
+    }
+
+    @Test
+    public void sampleRowsAreConvertedByEstimate() {
+        TableStatistics tableStatistics = databaseService.getTableStatistics(
+                CONNECTION_NAME,
+                TEST_CATALOG,
+                TEST_SCHEME,
+                TEST_TABLE,
+                false,
+                new Sampling(null, 2L)
+        ).orElseThrow(IllegalStateException::new);
+        assertThat(tableStatistics.getSamplePercent(), equalTo(40.0));
+        assertFalse(tableStatistics.getExact());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void exactTableStatisticsCannotBeSampled() {
+        databaseService.getTableStatistics(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, true,
+                new Sampling(10.0, null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sampleMustHaveEitherPercentOrRows() {
+        databaseService.getColumnsStatistics(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE,
+                new Sampling(10.0, 100L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void samplePercentMustBePositive() {
+        databaseService.getColumnsStatistics(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE,
+                new Sampling(0.0, null));
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void tableStatistics() {
@@ -137,7 +950,8 @@ public class DatabaseServiceImplTest extends DatabaseTestStarter {
         assertThat(
                 tableStatistics.get(),
                 allOf(
-                        hasProperty("rows", equalTo(5)),
+                        hasProperty("rows", equalTo(5L)),
+                        hasProperty("exact", equalTo(false)),
                         hasProperty("columns", equalTo(2)),
                         hasProperty("columnStatisticsList",
                                 containsInAnyOrder(
@@ -203,4 +1017,87 @@ public class DatabaseServiceImplTest extends DatabaseTestStarter {
                 )
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void operationsAreMeasured() {
+        final double rowsBefore = rowsFetched();
+
+        databaseService.listData(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, null, null, 2);
+        databaseService.findCatalogs(FAKE_CONNECTION_NAME);
+
+        assertEquals(2, rowsFetched() - rowsBefore, 0);
+        assertNotNull(meterRegistry.find(ServiceMetrics.OPERATION)
+                .tags("service", "database", "operation", "listData", "connection", CONNECTION_NAME)
+                .timer());
+        assertNotNull(meterRegistry.find(ServiceMetrics.QUERY)
+                .tags("type", "preview", "connection", CONNECTION_NAME, "outcome", "SUCCESS")
+                .timer());
+        assertNotNull(meterRegistry.find(ServiceMetrics.CONNECTION_ACQUIRE)
+                .tags("connection", CONNECTION_NAME)
+                .timer());
+        assertNotNull(meterRegistry.find(ServiceMetrics.OPERATION)
+                .tags("service", "connection", "operation", "getById", "connection", ServiceMetrics.NO_CONNECTION)
+                .timer());
+        assertNull(meterRegistry.find(ServiceMetrics.OPERATION)
+                .tags("connection", FAKE_CONNECTION_NAME)
+                .timer());
+    }
+
+    @Test
+    public void failedOperationsAreMeasured() {
+        final Timer failed = meterRegistry.timer(ServiceMetrics.OPERATION, "service", "database",
+                "operation", "getTableStatistics", "connection", CONNECTION_NAME, "outcome", "ERROR");
+        final long failedBefore = failed.count();
+
+        try {
+            databaseService.getTableStatistics(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, "MISSING_TABLE", true);
+            fail("Missing table must fail");
+        } catch (Exception e) {
+            assertThat(e, instanceOf(SQLException.class));
+        }
+
+        assertEquals(1, failed.count() - failedBefore);
+    }
+
+    @Test
+    public void repeatedQueriesReusePreparedStatements() {
+        databaseService.getTableStatistics(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, true);
+        final double hitsBefore = statementCacheHits();
+
+        databaseService.getTableStatistics(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, true);
+
+        assertEquals(1, statementCacheHits() - hitsBefore, 0);
+    }
+
+    private double statementCacheHits() {
+        return meterRegistry.find(ServiceMetrics.STATEMENT_CACHE)
+                .tags("result", "hit", "connection", CONNECTION_NAME)
+                .counters().stream()
+                .mapToDouble(i -> i.count())
+                .sum();
+    }
+
+    private double rowsFetched() {
+        return meterRegistry.find(ServiceMetrics.ROWS)
+                .tags("type", "preview", "connection", CONNECTION_NAME)
+                .counters().stream()
+                .mapToDouble(i -> i.count())
+                .sum();
+    }
+
+    private static QueryHandler ignoringHandler() {
+        return new QueryHandler() {
+            @Override
+            public void start(List<String> columnNames) {
+            }
+
+            @Override
+            public void row(List<String> values) {
+            }
+
+            @Override
+            public void end(boolean truncated) {
+            }
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import cz.kosina.databasebrowser.DatabaseTestStarter;
+import cz.kosina.databasebrowser.service.api.ConnectionService;
+import cz.kosina.databasebrowser.service.api.MetadataCacheService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class MetadataCacheServiceImplTest extends DatabaseTestStarter {
+
+    @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+    @Autowired
+    private MetadataCacheService metadataCacheService;
+
+    @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+    @Autowired
+    private ConnectionService connectionService;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void secondReadIsCached() {
+        loadTables();
+        loadTables();
+
+        assertThat(loads.get(), equalTo(1));
+    }
+
+    @Test
+    public void invalidateSchemaReloadTables() {
+        loadTables();
+        metadataCacheService.invalidate(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, null);
+        loadTables();
+
+        assertThat(loads.get(), equalTo(2));
+    }
+
+    @Test
+    public void invalidateOtherSchemaKeepTables() {
+        loadTables();
+        metadataCacheService.invalidate(CONNECTION_NAME, TEST_CATALOG, "SECOND_SCHEMA", null);
+        loadTables();
+
+        assertThat(loads.get(), equalTo(1));
+    }
+
+    @Test
+    public void invalidateTableKeepTables() {
+        loadTables();
+        metadataCacheService.invalidate(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE);
+        loadTables();
+
+        assertThat(loads.get(), equalTo(1));
+    }
+
+    @Test
+    public void invalidateDuringLoadReloadTables() {
+        metadataCacheService.get(MetadataCacheService.Type.TABLES, CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, null,
+                () -> {
+                    metadataCacheService.invalidate(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, null);
+                    return loads.incrementAndGet();
+                });
+        loadTables();
+
+        assertThat(loads.get(), equalTo(2));
+    }
+
+    @Test
+    public void connectionChangeReloadTables() {
+        loadTables();
+        connectionService.delete(CONNECTION_NAME);
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        loadTables();
+
+        assertThat(loads.get(), equalTo(2));
+    }
+
+    private void loadTables() {
+        metadataCacheService.get(
+                MetadataCacheService.Type.TABLES,
+                CONNECTION_NAME,
+                TEST_CATALOG,
+                TEST_SCHEME,
+                null,
+                loads::incrementAndGet
+        );
+    }
+}
@@ -0,0 +1,82 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import org.junit.Test;
+
+public class QueryValidatorTest {
+
+    @Test
+    public void selectIsValid() {
+        QueryValidator.validate("select a, b from t where c = ? order by a");
+    }
+
+    @Test
+    public void commonTableExpressionIsValid() {
+        QueryValidator.validate("with x as (select 1 as a) select a from x;");
+    }
+
+    @Test
+    public void keywordsInLiteralsAndCommentsAreIgnored() {
+        QueryValidator.validate("select 'drop table t; delete', \"update\" -- insert into t\n"
+                + "from t /* ; truncate t */ where a = 'it''s'");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyQueryIsRejected() {
+        QueryValidator.validate(" -- nothing\n");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void writeIsRejected() {
+        QueryValidator.validate("update t set a = 1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void writeInCommonTableExpressionIsRejected() {
+        QueryValidator.validate("with x as (delete from t returning *) select * from x");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void selectIntoIsRejected() {
+        QueryValidator.validate("select * into copy from t");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void lockingSelectIsRejected() {
+        QueryValidator.validate("select * from t for update");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void secondStatementIsRejected() {
+        QueryValidator.validate("select 1; select 2");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unterminatedLiteralIsRejected() {
+        QueryValidator.validate("select 'a from t");
+    }
+
+    @Test
+    public void statementKeywordsAreIdentifiersOnEnforcedDatabase() {
+        QueryValidator.validate("select copy, lock, call from t");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void statementKeywordsAreRejectedOnUnenforcedDatabase() {
+        QueryValidator.validateUnenforced("select lock from t");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mySqlBackslashEscapeIsRejected() {
+        QueryValidator.validate("select 'a\\'' from t into outfile 'x' -- '");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void postgresDollarQuoteIsRejected() {
+        QueryValidator.validate("select $$'$$ into t from x -- '");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fileWriteFunctionIsRejected() {
+        QueryValidator.validate("select csvwrite('x.csv', 'select 1')");
+    }
+}
@@ -0,0 +1,166 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import lombok.SneakyThrows;
+import org.junit.After;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+
+    private final SingleFlight<String> singleFlight = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentCallersShareComputation() throws Exception {
+        final AtomicInteger computations = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Future<Integer> leader = executor.submit(() -> singleFlight.run("key", () -> {
+            started.countDown();
+            await(release);
+            return computations.incrementAndGet();
+        }));
+        started.await(10, TimeUnit.SECONDS);
+        final Future<Integer> follower = executor.submit(() -> singleFlight.run("key", computations::incrementAndGet));
+        final Future<Integer> other = executor.submit(() -> singleFlight.run("other", () -> 100));
+
+        assertEquals(100, (int) other.get(10, TimeUnit.SECONDS));
+        awaitCallers("key", 2);
+        assertFalse(follower.isDone());
+        release.countDown();
+        assertEquals(1, (int) leader.get(10, TimeUnit.SECONDS));
+        assertEquals(1, (int) follower.get(10, TimeUnit.SECONDS));
+        assertEquals(1, computations.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    public void exceptionIsPassedToAllCallers() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Future<Object> leader = executor.submit(() -> singleFlight.run("key", () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("Failed");
+        }));
+        started.await(10, TimeUnit.SECONDS);
+        final Future<Object> follower = executor.submit(() -> singleFlight.run("key", () -> "unused"));
+        awaitCallers("key", 2);
+        release.countDown();
+        for (Future<Object> future : new Future[]{leader, follower}) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                fail("Exception expected");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+            }
+        }
+    }
+
+    @Test
+    public void checkedExceptionIsPassedToAllCallers() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Future<Object> leader = executor.submit(() -> singleFlight.run("key", () -> {
+            started.countDown();
+            await(release);
+            return failWithSqlException();
+        }));
+        started.await(10, TimeUnit.SECONDS);
+        final Future<Object> follower = executor.submit(() -> singleFlight.run("key", () -> "unused"));
+        awaitCallers("key", 2);
+        release.countDown();
+        for (Future<Object> future : new Future[]{leader, follower}) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                fail("Exception expected");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(SQLException.class));
+            }
+        }
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    public void computationIsCancelledWhenAllCallersAreCancelled() throws Exception {
+        final QueryControl leaderControl = new QueryControl(0, true);
+        final QueryControl followerControl = new QueryControl(0, true);
+        final CountDownLatch started = new CountDownLatch(1);
+        final Future<Boolean> leader = executor.submit(() -> leaderControl.run(() -> singleFlight.run("key", () -> {
+            started.countDown();
+            final long deadline = System.currentTimeMillis() + 10000;
+            while (!QueryControl.current().isCancelled() && System.currentTimeMillis() < deadline) {
+                Thread.yield();
+            }
+            return QueryControl.current().isCancelled();
+        }, QueryControl.current())));
+        started.await(10, TimeUnit.SECONDS);
+        final Future<Boolean> follower = executor.submit(() -> followerControl.run(
+                () -> singleFlight.run("key", () -> false, QueryControl.current())));
+        awaitCallers("key", 2);
+
+        followerControl.cancel();
+        try {
+            follower.get(10, TimeUnit.SECONDS);
+            fail("Cancelled follower must stop waiting");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(CancellationException.class));
+        }
+        assertFalse(leader.isDone());
+
+        leaderControl.cancel();
+        assertTrue(leader.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void finishedComputationIsNotRemembered() {
+        final AtomicInteger computations = new AtomicInteger();
+        assertEquals(1, (int) singleFlight.run("key", computations::incrementAndGet));
+        assertEquals(2, (int) singleFlight.run("key", computations::incrementAndGet));
+    }
+
+    @SneakyThrows
+    private static Object failWithSqlException() {
+        throw new SQLException("Failed");
+    }
+
+    /**
+     * Wait until the callers joined the running computation
+     */
+    private void awaitCallers(String key, int callers) {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (singleFlight.callers(key) < callers) {
+            assertTrue("Callers did not join", System.currentTimeMillis() < deadline);
+            Thread.yield();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
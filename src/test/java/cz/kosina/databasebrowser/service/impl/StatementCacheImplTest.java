@@ -0,0 +1,135 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import cz.kosina.databasebrowser.config.DatabaseBrowserProperties;
+import cz.kosina.databasebrowser.domain.event.ConnectionChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StatementCacheImplTest {
+
+    private static final String CONNECTION_NAME = "Cache";
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private StatementCacheImpl statementCache;
+    private Connection con;
+
+    @Before
+    public void setUp() throws SQLException {
+        final DatabaseBrowserProperties properties = new DatabaseBrowserProperties();
+        properties.getStatementCache().setMaxSize(2);
+        statementCache = new StatementCacheImpl(properties, new ServiceMetrics(registry));
+        con = DriverManager.getConnection("jdbc:h2:mem:statementCache", "sa", "");
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        con.close();
+    }
+
+    @Test
+    public void statementIsReusedAndReset() throws SQLException {
+        final PreparedStatement first = statementCache.execute(con, CONNECTION_NAME, "select ?", statement -> {
+            statement.setMaxRows(1);
+            statement.setInt(1, 1);
+            return statement;
+        });
+        final PreparedStatement second = statementCache.execute(con, CONNECTION_NAME, "select ?", statement -> {
+            assertThat(statement.getMaxRows(), equalTo(0));
+            return statement;
+        });
+
+        assertThat(second, sameInstance(first));
+        assertThat(lookups("hit"), equalTo(1.0));
+        assertThat(lookups("miss"), equalTo(1.0));
+    }
+
+    @Test
+    public void leastRecentlyUsedStatementIsClosed() throws SQLException {
+        final PreparedStatement first = statementCache.execute(con, CONNECTION_NAME, "select 1", this::selectOne);
+        statementCache.execute(con, CONNECTION_NAME, "select 2", this::selectOne);
+        statementCache.execute(con, CONNECTION_NAME, "select 3", this::selectOne);
+
+        assertTrue(first.isClosed());
+    }
+
+    @Test
+    public void failedStatementIsDropped() throws SQLException {
+        final PreparedStatement first = statementCache.execute(con, CONNECTION_NAME, "select 1", this::selectOne);
+        try {
+            statementCache.execute(con, CONNECTION_NAME, "select 1", statement -> {
+                throw new SQLException("Statement was cancelled");
+            });
+            fail("Exception of the call must be thrown");
+        } catch (SQLException e) {
+            // expected
+        }
+        final PreparedStatement next = statementCache.execute(con, CONNECTION_NAME, "select 1", this::selectOne);
+
+        assertTrue(first.isClosed());
+        assertThat(next, not(sameInstance(first)));
+    }
+
+    @Test
+    public void closedConnectionIsDropped() throws SQLException {
+        final Connection closed = DriverManager.getConnection("jdbc:h2:mem:statementCache", "sa", "");
+        final PreparedStatement statement = statementCache.execute(closed, CONNECTION_NAME, "select 1",
+                this::selectOne);
+        assertTrue(statementCache.isCached(CONNECTION_NAME, closed));
+        closed.close();
+
+        statementCache.execute(con, CONNECTION_NAME, "select 1", this::selectOne);
+
+        assertFalse(statementCache.isCached(CONNECTION_NAME, closed));
+        assertTrue(statement.isClosed());
+        assertTrue(statementCache.isCached(CONNECTION_NAME, con));
+    }
+
+    @Test
+    public void changedConnectionIsDropped() throws SQLException {
+        statementCache.execute(con, CONNECTION_NAME, "select 1", this::selectOne);
+
+        statementCache.onConnectionChanged(new ConnectionChangedEvent(CONNECTION_NAME));
+
+        assertFalse(statementCache.isCached(CONNECTION_NAME, con));
+    }
+
+    @Test
+    public void disabledCacheClosesStatements() throws SQLException {
+        final DatabaseBrowserProperties properties = new DatabaseBrowserProperties();
+        properties.getStatementCache().setMaxSize(0);
+        final StatementCacheImpl disabled = new StatementCacheImpl(properties, new ServiceMetrics(registry));
+
+        final PreparedStatement statement = disabled.execute(con, CONNECTION_NAME, "select 1", this::selectOne);
+
+        assertTrue(statement.isClosed());
+    }
+
+    private PreparedStatement selectOne(PreparedStatement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            assertTrue(rs.next());
+        }
+        return statement;
+    }
+
+    private double lookups(String result) {
+        return registry.counter(ServiceMetrics.STATEMENT_CACHE, "result", result, "connection", CONNECTION_NAME)
+                .count();
+    }
+}
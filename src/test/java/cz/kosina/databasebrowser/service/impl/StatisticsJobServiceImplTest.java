@@ -0,0 +1,211 @@
+package cz.kosina.databasebrowser.service.impl;
+
+import cz.kosina.databasebrowser.DatabaseTestStarter;
+import cz.kosina.databasebrowser.config.DatabaseBrowserProperties;
+import cz.kosina.databasebrowser.domain.dto.ConnectionProperties;
+import cz.kosina.databasebrowser.domain.dto.StatisticsJob;
+import cz.kosina.databasebrowser.domain.dto.TableStatistics;
+import cz.kosina.databasebrowser.service.api.ConnectionService;
+import cz.kosina.databasebrowser.service.api.DatabaseService;
+import cz.kosina.databasebrowser.service.api.StatisticsJobService;
+import lombok.SneakyThrows;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StatisticsJobServiceImplTest extends DatabaseTestStarter {
+
+    private static final String SLOW_URL = "jdbc:h2:mem:slow;DB_CLOSE_DELAY=-1";
+    private static final CountDownLatch QUERY_STARTED = new CountDownLatch(1);
+
+    @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+    @Autowired
+    private StatisticsJobService statisticsJobService;
+
+    @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+    @Autowired
+    private ConnectionService connectionService;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void computeTableStatistics() throws InterruptedException {
+        StatisticsJob job = statisticsJobService.submit(StatisticsJob.Type.TABLE_STATISTICS,
+                CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, false)
+                .orElseThrow(IllegalStateException::new);
+
+        StatisticsJob finished = waitFor(job.getId(), i -> i.getStatus().isFinished());
+        assertThat(finished.getStatus(), equalTo(StatisticsJob.Status.COMPLETED));
+        assertThat(finished.getCompletedSteps(), equalTo(1));
+        assertThat(finished.getTotalSteps(), equalTo(1));
+
+        Object result = statisticsJobService.getResult(job.getId()).orElseThrow(IllegalStateException::new);
+        assertThat(result, instanceOf(TableStatistics.class));
+        assertThat(((TableStatistics) result).getRows(), equalTo(5L));
+    }
+
+    @Test
+    public void computeColumnStatistics() throws InterruptedException {
+        StatisticsJob job = statisticsJobService.submit(StatisticsJob.Type.COLUMN_STATISTICS,
+                CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, false)
+                .orElseThrow(IllegalStateException::new);
+
+        assertThat(waitFor(job.getId(), i -> i.getStatus().isFinished()).getStatus(),
+                equalTo(StatisticsJob.Status.COMPLETED));
+        Object result = statisticsJobService.getResult(job.getId()).orElseThrow(IllegalStateException::new);
+        assertThat((List<?>) result, hasSize(2));
+    }
+
+    @Test
+    public void cancelRunningJob() throws Exception {
+        try (Connection con = DriverManager.getConnection(SLOW_URL, "sa", null);
+             Statement statement = con.createStatement()) {
+            statement.execute(String.format("create alias if not exists SLOW_VALUE for \"%s.slowValue\"",
+                    StatisticsJobServiceImplTest.class.getName()));
+            statement.execute("create view if not exists SLOW_VIEW as "
+                    + "select SLOW_VALUE(x) as ID from system_range(1, 1000000)");
+            connectionService.create(new ConnectionProperties("SlowH2", SLOW_URL, "sa", null, 0L));
+
+            StatisticsJob job = statisticsJobService.submit(StatisticsJob.Type.COLUMN_STATISTICS,
+                    "SlowH2", "SLOW", "PUBLIC", "SLOW_VIEW", false)
+                    .orElseThrow(IllegalStateException::new);
+            assertTrue("Query was not started", QUERY_STARTED.await(10, TimeUnit.SECONDS));
+
+            StatisticsJob cancelled = statisticsJobService.cancel(job.getId()).orElseThrow(IllegalStateException::new);
+            assertThat(cancelled.getStatus(), equalTo(StatisticsJob.Status.CANCELLED));
+            assertFalse(statisticsJobService.getResult(job.getId()).isPresent());
+
+            // H2 runs one statement at a time, so the next query finishes only when the cancelled one stopped
+            CompletableFuture<Boolean> next = CompletableFuture.supplyAsync(() -> isAvailable(statement));
+            assertTrue(next.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void failMissingTable() throws InterruptedException {
+        StatisticsJob job = statisticsJobService.submit(StatisticsJob.Type.TABLE_STATISTICS,
+                CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, "MISSING_TABLE", true)
+                .orElseThrow(IllegalStateException::new);
+
+        StatisticsJob finished = waitFor(job.getId(), i -> i.getStatus().isFinished());
+        assertThat(finished.getStatus(), equalTo(StatisticsJob.Status.FAILED));
+        assertThat(finished.getError(), notNullValue());
+        assertFalse(statisticsJobService.getResult(job.getId()).isPresent());
+    }
+
+    @Test
+    public void failOnError() throws InterruptedException {
+        final DatabaseService failing = mock(DatabaseService.class);
+        when(failing.getTableStatistics(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, false))
+                .thenThrow(new AssertionError("Broken"));
+        final StatisticsJobService service = createService(failing, Duration.ofHours(1));
+
+        final StatisticsJob job = service.submit(StatisticsJob.Type.TABLE_STATISTICS,
+                CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, false)
+                .orElseThrow(IllegalStateException::new);
+
+        final StatisticsJob finished = waitFor(service, job.getId(), i -> i.getStatus().isFinished());
+        assertThat(finished.getStatus(), equalTo(StatisticsJob.Status.FAILED));
+        assertThat(finished.getError(), equalTo("Broken"));
+    }
+
+    @Test
+    public void expiredJobIsRemovedOnRead() throws InterruptedException {
+        final DatabaseService databaseService = mock(DatabaseService.class);
+        when(databaseService.getTableStatistics(CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, false))
+                .thenReturn(Optional.of(new TableStatistics()));
+        final StatisticsJobService service = createService(databaseService, Duration.ZERO);
+
+        final StatisticsJob job = service.submit(StatisticsJob.Type.TABLE_STATISTICS,
+                CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, false)
+                .orElseThrow(IllegalStateException::new);
+
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (service.getJob(job.getId()).isPresent()) {
+            assertTrue("Finished job was not removed", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        assertFalse(service.getResult(job.getId()).isPresent());
+        assertFalse(service.cancel(job.getId()).isPresent());
+    }
+
+    @Test
+    public void submitFake() {
+        assertFalse(statisticsJobService.submit(StatisticsJob.Type.TABLE_STATISTICS,
+                FAKE_CONNECTION_NAME, TEST_CATALOG, TEST_SCHEME, TEST_TABLE, false).isPresent());
+    }
+
+    @Test
+    public void unknownJob() {
+        assertFalse(statisticsJobService.getJob("unknown").isPresent());
+        assertFalse(statisticsJobService.getResult("unknown").isPresent());
+        assertFalse(statisticsJobService.cancel("unknown").isPresent());
+    }
+
+    /**
+     * Function used in the view, so the scan of the view takes very long time
+     */
+    public static long slowValue(long value) throws InterruptedException {
+        QUERY_STARTED.countDown();
+        // the work of every row, so the cancelled query stops in the middle of the view
+        Thread.sleep(1);
+        return value;
+    }
+
+    @SneakyThrows
+    private boolean isAvailable(Statement statement) {
+        try (ResultSet rs = statement.executeQuery("select 1")) {
+            return rs.next();
+        }
+    }
+
+    private StatisticsJobService createService(DatabaseService databaseService, Duration retention) {
+        final DatabaseBrowserProperties properties = new DatabaseBrowserProperties();
+        properties.getJobs().setRetention(retention);
+        final ConnectionService connections = mock(ConnectionService.class);
+        when(connections.getById(CONNECTION_NAME)).thenReturn(Optional.of(new ConnectionProperties()));
+        return new StatisticsJobServiceImpl(connections, databaseService, properties, executor);
+    }
+
+    private StatisticsJob waitFor(String id, Predicate<StatisticsJob> condition) throws InterruptedException {
+        return waitFor(statisticsJobService, id, condition);
+    }
+
+    private static StatisticsJob waitFor(StatisticsJobService service,
+                                         String id,
+                                         Predicate<StatisticsJob> condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (true) {
+            StatisticsJob job = service.getJob(id).orElseThrow(IllegalStateException::new);
+            if (condition.test(job)) {
+                return job;
+            }
+            assertTrue("Job did not reach expected state", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
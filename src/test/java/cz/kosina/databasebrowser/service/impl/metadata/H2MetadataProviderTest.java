@@ -0,0 +1,205 @@
+package cz.kosina.databasebrowser.service.impl.metadata;
+
+import cz.kosina.databasebrowser.domain.dto.TableColumns;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class H2MetadataProviderTest {
+
+    private final H2MetadataProvider provider = new H2MetadataProvider();
+    private final JdbcMetadataProvider jdbcProvider = new JdbcMetadataProvider();
+    private Connection con;
+
+    @Before
+    public void setUp() throws SQLException {
+        con = DriverManager.getConnection("jdbc:h2:mem:provider", "sa", "");
+        try (Statement statement = con.createStatement()) {
+            statement.execute("create schema S");
+            statement.execute("create table S.A (ID int, CODE varchar(10), PRICE decimal(10, 2), "
+                    + "NOTE varchar(100) not null, primary key (CODE, ID))");
+            statement.execute("comment on column S.A.NOTE is 'Some note'");
+            statement.execute("create table S.B (NAME varchar(20))");
+            statement.execute("create view S.V as select ID from S.A");
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        try (Statement statement = con.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        con.close();
+    }
+
+    @Test
+    public void sampleByRandomFraction() throws SQLException {
+        try (Statement statement = con.createStatement()) {
+            statement.execute("create table S.C as select X from system_range(1, 10000)");
+        }
+        final String sql = String.format("select count(*) from %s", provider.sampleTable("S.C", 10));
+        try (PreparedStatement statement = con.prepareStatement(sql)) {
+            assertThat(countSample(statement, 10), allOf(greaterThan(800L), lessThan(1200L)));
+            // the percentage is parameter, so the same statement is used for other sample size
+            assertThat(countSample(statement, 50), allOf(greaterThan(4700L), lessThan(5300L)));
+        }
+    }
+
+    @Test
+    public void sameMetadataAsJdbc() throws SQLException {
+        assertEquals(jdbcProvider.listCatalogs(con), provider.listCatalogs(con));
+        assertEquals(jdbcProvider.listSchemas(con, "PROVIDER"), provider.listSchemas(con, "PROVIDER"));
+        assertEquals(jdbcProvider.listTables(con, "PROVIDER", "S"), provider.listTables(con, "PROVIDER", "S"));
+        for (String table : Arrays.asList("A", "B", "V")) {
+            assertEquals(
+                    jdbcProvider.listColumns(con, "PROVIDER", "S", table),
+                    provider.listColumns(con, "PROVIDER", "S", table)
+            );
+        }
+    }
+
+    @Test
+    public void primaryKeysInKeyOrder() throws SQLException {
+        assertEquals(Arrays.asList("CODE", "ID"), provider.listPrimaryKeys(con, "PROVIDER", "S", "A"));
+        assertEquals(
+                jdbcProvider.listPrimaryKeys(con, "PROVIDER", "S", "A"),
+                provider.listPrimaryKeys(con, "PROVIDER", "S", "A")
+        );
+    }
+
+    @Test
+    public void exportSchemaColumnsByOneQuery() throws SQLException {
+        final List<TableColumns> expected = new ArrayList<>();
+        jdbcProvider.exportSchemaColumns(con, "PROVIDER", "S", expected::add);
+        final List<TableColumns> actual = new ArrayList<>();
+        provider.exportSchemaColumns(con, "PROVIDER", "S", actual::add);
+        assertEquals(3, actual.size());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void exportSchemaColumnsWithKeysByTable() throws SQLException {
+        final List<TableColumns> expected = new ArrayList<>();
+        jdbcProvider.exportSchemaColumns(con, "PROVIDER", "S", expected::add);
+        final List<TableColumns> actual = new ArrayList<>();
+        final List<String> keyTables = new ArrayList<>();
+        jdbcProvider.exportSchemaColumns(withMetaData(con, true, null, keyTables), "PROVIDER", "S", actual::add);
+        assertEquals(expected, actual);
+        assertEquals(Arrays.asList(null, "A", "B", "V"), keyTables);
+    }
+
+    @Test
+    public void exportSchemaColumnsWithKeysByTableForKnownDriver() throws SQLException {
+        final List<TableColumns> expected = new ArrayList<>();
+        jdbcProvider.exportSchemaColumns(con, "PROVIDER", "S", expected::add);
+        final List<TableColumns> actual = new ArrayList<>();
+        final List<String> keyTables = new ArrayList<>();
+        jdbcProvider.exportSchemaColumns(withMetaData(con, false, "MySQL", keyTables), "PROVIDER", "S", actual::add);
+        assertEquals(expected, actual);
+        assertEquals(Arrays.asList("A", "B", "V"), keyTables);
+    }
+
+    @Test
+    public void exportSchemaColumnsWithoutKeysByOneQuery() throws SQLException {
+        try (Statement statement = con.createStatement()) {
+            statement.execute("create schema N");
+            statement.execute("create table N.C (NAME varchar(20))");
+            statement.execute("create table N.D (VALUE int)");
+        }
+        final List<TableColumns> actual = new ArrayList<>();
+        final List<String> keyTables = new ArrayList<>();
+        jdbcProvider.exportSchemaColumns(withMetaData(con, false, null, keyTables), "PROVIDER", "N", actual::add);
+        assertEquals(2, actual.size());
+        assertEquals(Collections.singletonList(null), keyTables);
+    }
+
+    /**
+     * Wrap the connection into one, which records the tables of the primary keys queries. It can refuse the primary
+     * keys for all tables at once like some drivers do and it checks that the primary keys of single table are not
+     * read while the columns query is open.
+     *
+     * @param con         wrapped connection
+     * @param refuseBulk  true if the primary keys without table name fail
+     * @param productName reported database product, null for the real one
+     * @param keyTables   tables of the primary keys queries
+     * @return wrapped connection
+     */
+    private static Connection withMetaData(Connection con,
+                                           boolean refuseBulk,
+                                           String productName,
+                                           List<String> keyTables) throws SQLException {
+        final DatabaseMetaData metaData = con.getMetaData();
+        final List<ResultSet> columns = new ArrayList<>();
+        final DatabaseMetaData proxy = (DatabaseMetaData) Proxy.newProxyInstance(
+                DatabaseMetaData.class.getClassLoader(),
+                new Class<?>[]{DatabaseMetaData.class},
+                (object, method, args) -> {
+                    if (method.getName().equals("getDatabaseProductName") && productName != null) {
+                        return productName;
+                    }
+                    if (method.getName().equals("getPrimaryKeys")) {
+                        keyTables.add((String) args[2]);
+                        if (args[2] == null) {
+                            if (refuseBulk) {
+                                throw new SQLException("Table name must be set");
+                            }
+                        } else {
+                            for (ResultSet rs : columns) {
+                                assertTrue(rs.isClosed());
+                            }
+                        }
+                    }
+                    try {
+                        final Object result = method.invoke(metaData, args);
+                        if (method.getName().equals("getColumns")) {
+                            columns.add((ResultSet) result);
+                        }
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (object, method, args) -> {
+                    if (method.getName().equals("getMetaData")) {
+                        return proxy;
+                    }
+                    try {
+                        return method.invoke(con, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private long countSample(PreparedStatement statement, double percent) throws SQLException {
+        assertEquals(2, provider.bindSample(statement, 1, percent));
+        try (ResultSet rs = statement.executeQuery()) {
+            assertTrue(rs.next());
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package cz.kosina.databasebrowser.service.impl.metadata;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertThat;
+
+public class MetadataProviderRegistryTest {
+
+    private final MetadataProviderRegistry registry = new MetadataProviderRegistry(Arrays.asList(
+            new H2MetadataProvider(),
+            new PostgresMetadataProvider(),
+            new OracleMetadataProvider(),
+            new SqlServerMetadataProvider(),
+            new JdbcMetadataProvider()
+    ));
+
+    @Test
+    public void chooseProviderByUrl() {
+        assertThat(registry.getProvider("jdbc:h2:mem:test"), instanceOf(H2MetadataProvider.class));
+        assertThat(registry.getProvider("jdbc:postgresql://localhost/db"), instanceOf(PostgresMetadataProvider.class));
+        assertThat(registry.getProvider("jdbc:oracle:thin:@localhost:1521:db"),
+                instanceOf(OracleMetadataProvider.class));
+        assertThat(registry.getProvider("jdbc:sqlserver://localhost;databaseName=db"),
+                instanceOf(SqlServerMetadataProvider.class));
+    }
+
+    @Test
+    public void fallbackToJdbcProvider() {
+        assertThat(registry.getProvider("jdbc:mysql://localhost/db"), instanceOf(JdbcMetadataProvider.class));
+    }
+
+    @Test
+    public void sampleTableByEngine() {
+        assertThat(registry.getProvider("jdbc:postgresql://localhost/db").sampleTable("DB.S.T", 2.5),
+                equalTo("DB.S.T tablesample system (?)"));
+        assertThat(registry.getProvider("jdbc:sqlserver://localhost").sampleTable("DB.S.T", 10),
+                equalTo("DB.S.T tablesample (? percent)"));
+        assertThat(registry.getProvider("jdbc:oracle:thin:@localhost:1521:db").sampleTable("DB.S.T", 0.0001),
+                equalTo("DB.S.T sample (0.0001)"));
+        assertThat(registry.getProvider("jdbc:oracle:thin:@localhost:1521:db").sampleTable("DB.S.T", 100),
+                equalTo("DB.S.T"));
+        assertThat(registry.getProvider("jdbc:mysql://localhost/db").sampleTable("DB.S.T", 50),
+                equalTo("(select * from DB.S.T where rand() * 100 < ?) sampled"));
+    }
+
+    @Test
+    public void bindSampleByEngine() throws SQLException {
+        for (String url : Arrays.asList("jdbc:postgresql://localhost/db", "jdbc:sqlserver://localhost",
+                "jdbc:mysql://localhost/db", "jdbc:h2:mem:test")) {
+            final Map<Integer, Object> parameters = new HashMap<>();
+            assertThat(url, registry.getProvider(url).bindSample(recording(parameters), 3, 2.5), equalTo(4));
+            assertThat(url, parameters, equalTo(Collections.singletonMap(3, (Object) 2.5)));
+        }
+        final Map<Integer, Object> parameters = new HashMap<>();
+        assertThat(registry.getProvider("jdbc:oracle:thin:@localhost:1521:db").bindSample(recording(parameters), 3,
+                2.5), equalTo(3));
+        assertThat(parameters.entrySet(), empty());
+    }
+
+    private static PreparedStatement recording(Map<Integer, Object> parameters) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                MetadataProviderRegistryTest.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("set") && args != null && args.length == 2) {
+                        parameters.put((Integer) args[0], args[1]);
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+        );
+    }
+}
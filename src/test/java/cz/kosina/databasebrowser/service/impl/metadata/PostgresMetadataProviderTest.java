@@ -0,0 +1,88 @@
+package cz.kosina.databasebrowser.service.impl.metadata;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.OptionalLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test of the PostgreSQL specific queries against H2 with catalog tables emulating {@code pg_catalog}
+ */
+public class PostgresMetadataProviderTest {
+
+    private final PostgresMetadataProvider provider = new PostgresMetadataProvider();
+    private Connection con;
+
+    @Before
+    public void setUp() throws SQLException {
+        con = DriverManager.getConnection("jdbc:h2:mem:postgres", "sa", "");
+        try (Statement statement = con.createStatement()) {
+            statement.execute("create schema PG_CATALOG");
+            statement.execute("create table PG_CATALOG.PG_NAMESPACE (OID int, NSPNAME varchar(100))");
+            statement.execute("create table PG_CATALOG.PG_CLASS (OID int, RELNAME varchar(100), RELNAMESPACE int, "
+                    + "RELTUPLES real, RELPAGES int)");
+            statement.execute("insert into PG_CATALOG.PG_NAMESPACE values (1, 'public')");
+            statement.execute("insert into PG_CATALOG.PG_CLASS values "
+                    + "(1, 'analyzed', 1, 1234, 10), "
+                    + "(2, 'empty', 1, 0, 1), "
+                    + "(3, 'never_analyzed', 1, 0, 0), "
+                    + "(4, 'never_analyzed_pg14', 1, -1, 0)");
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        try (Statement statement = con.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        con.close();
+    }
+
+    @Test
+    public void estimateOfAnalyzedTable() throws SQLException {
+        assertEquals(OptionalLong.of(1234), provider.estimateRowCount(con, "db", "public", "analyzed"));
+        assertEquals(OptionalLong.of(0), provider.estimateRowCount(con, "db", "public", "empty"));
+    }
+
+    @Test
+    public void noEstimateOfNeverAnalyzedTable() throws SQLException {
+        assertEquals(OptionalLong.empty(), provider.estimateRowCount(con, "db", "public", "never_analyzed"));
+        assertEquals(OptionalLong.empty(), provider.estimateRowCount(con, "db", "public", "never_analyzed_pg14"));
+        assertEquals(OptionalLong.empty(), provider.estimateRowCount(con, "db", "public", "missing"));
+    }
+
+    /**
+     * The expected sizes are the COLUMN_SIZE values returned by {@code DatabaseMetaData.getColumns} of the PostgreSQL
+     * JDBC driver for columns of these types
+     */
+    @Test
+    public void columnSizeAsJdbcDriver() {
+        assertEquals(Integer.valueOf(10), PostgresMetadataProvider.columnSize("int4", -1));
+        assertEquals(Integer.valueOf(19), PostgresMetadataProvider.columnSize("int8", -1));
+        assertEquals(Integer.valueOf(1), PostgresMetadataProvider.columnSize("bool", -1));
+        assertEquals(Integer.valueOf(17), PostgresMetadataProvider.columnSize("float8", -1));
+        // numeric(10, 2)
+        assertEquals(Integer.valueOf(10), PostgresMetadataProvider.columnSize("numeric", (10 << 16) + 2 + 4));
+        assertEquals(Integer.valueOf(0), PostgresMetadataProvider.columnSize("numeric", -1));
+        // varchar(20)
+        assertEquals(Integer.valueOf(20), PostgresMetadataProvider.columnSize("varchar", 24));
+        assertEquals(Integer.valueOf(Integer.MAX_VALUE), PostgresMetadataProvider.columnSize("varchar", -1));
+        assertEquals(Integer.valueOf(Integer.MAX_VALUE), PostgresMetadataProvider.columnSize("text", -1));
+        assertEquals(Integer.valueOf(8), PostgresMetadataProvider.columnSize("bit", 8));
+        assertEquals(Integer.valueOf(13), PostgresMetadataProvider.columnSize("date", -1));
+        assertEquals(Integer.valueOf(29), PostgresMetadataProvider.columnSize("timestamp", -1));
+        assertEquals(Integer.valueOf(35), PostgresMetadataProvider.columnSize("timestamptz", -1));
+        // timestamp(0) and time(3)
+        assertEquals(Integer.valueOf(22), PostgresMetadataProvider.columnSize("timestamp", 0));
+        assertEquals(Integer.valueOf(12), PostgresMetadataProvider.columnSize("time", 3));
+        assertNull(PostgresMetadataProvider.columnSize("uuid", -1));
+    }
+}
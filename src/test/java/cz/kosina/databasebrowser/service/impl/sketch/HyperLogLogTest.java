@@ -0,0 +1,49 @@
+package cz.kosina.databasebrowser.service.impl.sketch;
+
+import com.google.common.hash.Hashing;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class HyperLogLogTest {
+
+    @Test
+    public void estimateSmallCardinality() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        for (int i = 0; i < 1000; i++) {
+            sketch.add(hash(i % 10));
+        }
+        assertThat(sketch.estimate(), equalTo(10L));
+    }
+
+    @Test
+    public void estimateLargeCardinality() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        for (int i = 0; i < 100000; i++) {
+            sketch.add(hash(i));
+        }
+        assertThat(sketch.estimate(), allOf(greaterThan(95000L), lessThan(105000L)));
+    }
+
+    @Test
+    public void mergeOverlappingSketches() {
+        HyperLogLog first = new HyperLogLog(12);
+        HyperLogLog second = new HyperLogLog(12);
+        for (int i = 0; i < 60000; i++) {
+            first.add(hash(i));
+            second.add(hash(i + 40000));
+        }
+        first.merge(second);
+        assertThat(first.estimate(), allOf(greaterThan(95000L), lessThan(105000L)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mergeDifferentPrecision() {
+        new HyperLogLog(12).merge(new HyperLogLog(10));
+    }
+
+    private static long hash(int value) {
+        return Hashing.murmur3_128().hashUnencodedChars(String.valueOf(value)).asLong();
+    }
+}
@@ -0,0 +1,54 @@
+package cz.kosina.databasebrowser.service.impl.sketch;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class KllSketchTest {
+
+    @Test
+    public void exactQuantilesOfSmallInput() {
+        KllSketch sketch = new KllSketch(200);
+        for (int i = 1; i <= 5; i++) {
+            sketch.add(i);
+        }
+        assertThat(sketch.quantile(0.0), equalTo(1.0));
+        assertThat(sketch.quantile(0.5), equalTo(3.0));
+        assertThat(sketch.quantile(1.0), equalTo(5.0));
+    }
+
+    @Test
+    public void approximateQuantilesOfLargeInput() {
+        KllSketch sketch = new KllSketch(200, new Random(42));
+        for (int i = 0; i < 100000; i++) {
+            sketch.add(i);
+        }
+        assertThat(sketch.getCount(), equalTo(100000L));
+        assertThat(sketch.quantile(0.5), closeTo(50000, 2000));
+        assertThat(sketch.quantile(0.9), closeTo(90000, 2000));
+    }
+
+    @Test
+    public void mergeSketches() {
+        KllSketch first = new KllSketch(200, new Random(1));
+        KllSketch second = new KllSketch(200, new Random(2));
+        for (int i = 0; i < 50000; i++) {
+            first.add(i);
+            second.add(i + 50000);
+        }
+        first.merge(second);
+        assertThat(first.getCount(), equalTo(100000L));
+        assertThat(first.quantile(0.0), equalTo(0.0));
+        assertThat(first.quantile(0.25), closeTo(25000, 2000));
+        assertThat(first.quantile(0.5), closeTo(50000, 2000));
+        assertThat(first.quantile(1.0), equalTo(99999.0));
+    }
+
+    @Test
+    public void emptySketch() {
+        assertThat(new KllSketch(200).quantile(0.5), nullValue());
+    }
+}
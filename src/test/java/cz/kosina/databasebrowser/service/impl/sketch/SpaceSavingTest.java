@@ -0,0 +1,83 @@
+package cz.kosina.databasebrowser.service.impl.sketch;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class SpaceSavingTest {
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void findFrequentValues() {
+        SpaceSaving sketch = new SpaceSaving(20);
+        for (int i = 0; i < 10000; i++) {
+            sketch.add(String.valueOf(i));
+            if (i % 2 == 0) {
+                sketch.add("frequent");
+            }
+            if (i % 5 == 0) {
+                sketch.add("less frequent");
+            }
+        }
+        assertThat(
+                sketch.top(2),
+                contains(
+                        allOf(
+                                hasProperty("value", equalTo("frequent")),
+                                hasProperty("count", greaterThanOrEqualTo(5000L))
+                        ),
+                        allOf(
+                                hasProperty("value", equalTo("less frequent")),
+                                hasProperty("count", greaterThanOrEqualTo(2000L))
+                        )
+                )
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void replaceLeastFrequentValue() {
+        SpaceSaving sketch = new SpaceSaving(3);
+        for (int i = 0; i < 3; i++) {
+            sketch.add("a");
+        }
+        sketch.add("b");
+        sketch.add("b");
+        sketch.add("c");
+        sketch.add("d");
+        assertThat(
+                sketch.top(3),
+                contains(
+                        allOf(hasProperty("value", equalTo("a")), hasProperty("count", equalTo(3L)),
+                                hasProperty("error", equalTo(0L))),
+                        allOf(hasProperty("value", equalTo("d")), hasProperty("count", equalTo(2L)),
+                                hasProperty("error", equalTo(1L))),
+                        allOf(hasProperty("value", equalTo("b")), hasProperty("count", equalTo(2L)),
+                                hasProperty("error", equalTo(0L)))
+                )
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void mergeSketches() {
+        SpaceSaving first = new SpaceSaving(10);
+        SpaceSaving second = new SpaceSaving(10);
+        for (int i = 0; i < 100; i++) {
+            first.add("a");
+            second.add("b");
+            if (i % 2 == 0) {
+                first.add("b");
+            }
+        }
+        first.merge(second);
+        assertThat(
+                first.top(2),
+                contains(
+                        allOf(hasProperty("value", equalTo("b")), hasProperty("count", equalTo(150L))),
+                        allOf(hasProperty("value", equalTo("a")), hasProperty("count", equalTo(100L)))
+                )
+        );
+    }
+}